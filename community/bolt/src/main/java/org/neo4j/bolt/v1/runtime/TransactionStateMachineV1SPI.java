@@ -47,6 +47,7 @@ import org.neo4j.kernel.impl.query.QueryExecutionEngine;
 import org.neo4j.kernel.impl.query.QueryExecutionKernelException;
 import org.neo4j.kernel.impl.query.TransactionalContext;
 import org.neo4j.kernel.impl.query.TransactionalContextFactory;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.values.virtual.MapValue;
@@ -153,8 +154,9 @@ public class TransactionStateMachineV1SPI implements TransactionStateMachineSPI
     private static TransactionIdTracker newTransactionIdTracker( GraphDatabaseAPI db )
     {
         Supplier<TransactionIdStore> transactionIdStoreSupplier = db.getDependencyResolver().provideDependency( TransactionIdStore.class );
+        Supplier<TransactionAppender> transactionAppenderSupplier = db.getDependencyResolver().provideDependency( TransactionAppender.class );
         AvailabilityGuard guard = resolveDependency( db, DatabaseAvailabilityGuard.class );
-        return new TransactionIdTracker( transactionIdStoreSupplier, guard );
+        return new TransactionIdTracker( transactionIdStoreSupplier, transactionAppenderSupplier, guard );
     }
 
     private static TransactionalContextFactory newTransactionalContextFactory( GraphDatabaseAPI db )
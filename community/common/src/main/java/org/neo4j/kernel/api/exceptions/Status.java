@@ -144,6 +144,9 @@ public interface Status
         TransactionTimedOut( ClientError,
                 "The transaction has not completed within the specified timeout (dbms.transaction.timeout). You may want to retry with a longer " +
                 "timeout." ),
+        TransactionMemoryLimitExceeded( ClientError,
+                "The transaction used more memory than the configured limit (dbms.transaction.memory_limit). You may " +
+                "want to split the work into smaller transactions, or retry with a higher limit." ),
         InvalidBookmark( ClientError,
                 "Supplied bookmark cannot be interpreted. You should only supply a bookmark previously that was " +
                 "previously generated by Neo4j. Maybe you have generated your own bookmark, " +
@@ -40,8 +40,18 @@ public enum Group
     LOG_ROTATION( "LogRotation" ),
     /** Checkpoint and store flush. */
     CHECKPOINT( "CheckPoint" ),
+    /** Forces the transaction log in the background, when commits don't wait for it to be forced. */
+    LOG_FORCE( "LogForce" ),
+    /** Preallocates the next transaction log file ahead of log rotation. */
+    LOG_PREALLOCATION( "LogPreallocation" ),
+    /** Applies replayed transactions in parallel, during recovery. */
+    RECOVERY( "Recovery" ),
     /** Various little periodic tasks that need to be done on a regular basis to keep the store in good shape. */
     STORAGE_MAINTENANCE( "StorageMaintenance" ),
+    /** Appends, forces and applies committed transactions, when commits are pipelined. */
+    TRANSACTION_COMMIT( "TransactionCommit" ),
+    /** Applies the independent changes of batches of committed transactions to the stores in parallel. */
+    TRANSACTION_APPLY( "TransactionApply" ),
     /** Terminates kernel transactions that have timed out. */
     TRANSACTION_TIMEOUT_MONITOR( "TransactionTimeoutMonitor" ),
     /** Background index population. */
@@ -217,6 +217,29 @@ public class BuiltInProceduresIT extends KernelIntegrationTest
                                 "(relationship :: RELATIONSHIP?, weight :: FLOAT?)", "Search relationship in explicit index, ending at the node 'out'.",
                         "READ" ),
                 proc( "dbms.clearQueryCaches", "() :: (value :: STRING?)", "Clears all query caches.", "DBMS" ),
+                proc( "dbms.pageCache.heatMap", "() :: (file :: STRING?, firstPageId :: INTEGER?, lastPageId :: " +
+                                "INTEGER?, hits :: INTEGER?, faults :: INTEGER?, evictions :: INTEGER?)",
+                        "List the sampled hits, faults and evictions of the page cache, per range of pages in every " +
+                        "mapped file. The heat map is only recorded while " +
+                        "`dbms.memory.pagecache.heat_map.sampling_interval` is set.", "DBMS" ),
+                proc( "dbms.commitLatency", "() :: (phase :: STRING?, count :: INTEGER?, mean :: INTEGER?, " +
+                                "p50 :: INTEGER?, p90 :: INTEGER?, p99 :: INTEGER?, p999 :: INTEGER?, max :: INTEGER?)",
+                        "List the latency percentiles of every phase of committing transactions since the database " +
+                        "started, in microseconds.", "DBMS" ),
+                proc( "dbms.listLockContention", "() :: (resourceType :: STRING?, resourceId :: INTEGER?, " +
+                                "waits :: INTEGER?, overestimatedWaits :: INTEGER?, totalWaitTime :: INTEGER?, " +
+                                "maxWaitTime :: INTEGER?, waiting :: INTEGER?, maxWaiting :: INTEGER?, " +
+                                "lastHolderLockSessionId :: INTEGER?)",
+                        "List the resources that transactions have waited the most for to lock, the most waited for " +
+                        "first, with wait times in microseconds. At most `dbms.lock.contention.tracked_resources` " +
+                        "resources are tracked, and the wait count of a resource may be overestimated by as much as " +
+                        "`overestimatedWaits`.", "DBMS" ),
+                proc( "dbms.transactionDurability", "() :: (lastCommittedTransactionId :: INTEGER?, " +
+                                "durableTransactionId :: INTEGER?, relaxed :: BOOLEAN?)",
+                        "Show the last committed transaction, and the last transaction that is durable in the transaction " +
+                        "log. They only differ while durability is relaxed with " +
+                        "`dbms.tx_log.relaxed_durability.force_interval`, in which case the transactions after the " +
+                        "durable one are lost if the machine crashes.", "DBMS" ),
                 proc( "db.createIndex", "(index :: STRING?, providerName :: STRING?) :: (index :: STRING?, providerName :: STRING?, status :: STRING?)",
                         "Create a schema index with specified index provider (for example: CALL db.createIndex(\":Person(name)\", \"lucene+native-2.0\")) - " +
                                 "YIELD index, providerName, status", "SCHEMA" ),
@@ -0,0 +1,727 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.compress;
+
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A {@link PageSwapper} that stores the pages of a file in compressed form.
+ * <p>
+ * Pages are compressed with a {@link Deflater} when they are written, and inflated again when they are read, so the
+ * page cache and its cursors only ever see uncompressed pages. Pages that do not compress well enough to save any
+ * space are stored as they are.
+ * <p>
+ * The compressed pages have variable sizes, so they are stored in slots of whole {@value #SECTOR_SIZE} byte sectors in
+ * the file itself, after a header sector that also marks the file as compressed. Where each page is stored is recorded
+ * in a page table, which is kept in memory, and in a separate file with the
+ * {@value CompressingPageSwapperFactory#PAGE_TABLE_SUFFIX} suffix. Both files are accessed through page swappers from
+ * the decorated {@link org.neo4j.io.pagecache.PageSwapperFactory}.
+ * <p>
+ * Pages are never overwritten in place. Every write goes to a free slot, and the slot that held the previous version
+ * of the page is only reused once the page table that no longer refers to it has been {@link #force() forced}. The page
+ * table is written when the swapper is forced or closed, after the slots it refers to have been forced. Thus, after a
+ * crash, every page is in the version it had at the last force, just like an uncompressed file where the writes since
+ * the last force have been lost. Recovery can then redo those writes.
+ */
+final class CompressingPageSwapper implements PageSwapper
+{
+    static final int SECTOR_SIZE = 512;
+    static final int PAGE_TABLE_PAGE_SIZE = 4096;
+
+    private static final int ENTRIES_PER_PAGE_TABLE_PAGE = PAGE_TABLE_PAGE_SIZE / Long.BYTES;
+    private static final long HEADER_MAGIC = 0x4E656F4A_43505331L;
+    private static final int HEADER_SECTORS = 1;
+    // A page table entry holds the first sector of the slot in the upper bits, and the stored length in the lower bits.
+    private static final int LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    private static final int MAX_PAGE_COUNT = Integer.MAX_VALUE - 8;
+
+    private static final ThreadLocal<Codec> codecs = ThreadLocal.withInitial( Codec::new );
+
+    private final File file;
+    private final int filePageSize;
+    private final int maxSectors;
+    private final PageSwapper data;
+    private final PageSwapper pageTable;
+    private volatile PageEvictionCallback onEviction;
+
+    // The page table entries as of the latest writes. Guarded by synchronized(this), as is the rest of the allocation
+    // state below.
+    private long[] entries;
+    private long lastPageId;
+    private long endSector;
+    private final MutableLongList[] freeSlots;
+    private MutableLongSet dirtyPageIds = new LongHashSet();
+    private MutableLongList replacedEntries = new LongArrayList();
+
+    // The page table entries as of the last force. Guarded by the force lock.
+    private final Object forceLock = new Object();
+    private long[] durableEntries;
+
+    CompressingPageSwapper( File file, int filePageSize, PageEvictionCallback onEviction, PageSwapper data,
+            PageSwapper pageTable ) throws IOException
+    {
+        if ( filePageSize > LENGTH_MASK )
+        {
+            throw new IllegalArgumentException( "File page size " + filePageSize + " is too big to be compressed." );
+        }
+        this.file = file;
+        this.filePageSize = filePageSize;
+        this.maxSectors = sectorsFor( filePageSize );
+        this.onEviction = onEviction;
+        this.data = data;
+        this.pageTable = pageTable;
+        this.freeSlots = new MutableLongList[maxSectors + 1];
+        for ( int i = 1; i < freeSlots.length; i++ )
+        {
+            freeSlots[i] = new LongArrayList();
+        }
+
+        if ( data.getLastPageId() < 0 )
+        {
+            // A new file. Any page table that might be lying around belongs to a file that is no more.
+            pageTable.truncate();
+            writeHeader();
+            entries = new long[0];
+        }
+        else
+        {
+            checkHeader();
+            entries = readPageTable();
+        }
+        durableEntries = entries.clone();
+        rebuildAllocationState();
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        checkFilePageId( filePageId );
+        long entry = entry( filePageId );
+        if ( entry == 0 )
+        {
+            UnsafeUtil.setMemory( bufferAddress, bufferSize, (byte) 0 );
+            return 0;
+        }
+
+        int length = lengthOf( entry );
+        int sectors = sectorsFor( length );
+        Codec codec = codecs.get();
+        long scratch = codec.scratch( sectors * SECTOR_SIZE );
+        data.read( sectorOf( entry ), sectorAddresses( scratch, sectors ), SECTOR_SIZE, 0, sectors );
+        int pageBytes = Math.min( filePageSize, bufferSize );
+        if ( length == filePageSize )
+        {
+            UnsafeUtil.copyMemory( scratch, bufferAddress, pageBytes );
+        }
+        else
+        {
+            codec.decompress( scratch, length, bufferAddress, filePageSize, pageBytes, this );
+        }
+        if ( bufferSize > pageBytes )
+        {
+            UnsafeUtil.setMemory( bufferAddress + pageBytes, bufferSize - pageBytes, (byte) 0 );
+        }
+        return (long) sectors * SECTOR_SIZE;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+            throws IOException
+    {
+        checkVector( startFilePageId, bufferAddresses, arrayOffset, length );
+        long bytesRead = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesRead += read( startFilePageId + i, bufferAddresses[arrayOffset + i], bufferSize );
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress ) throws IOException
+    {
+        checkFilePageId( filePageId );
+        Codec codec = codecs.get();
+        int length = codec.compress( bufferAddress, filePageSize );
+        if ( length < 0 || sectorsFor( length ) >= maxSectors )
+        {
+            // Compression would not save us any IO, so we store the page as it is.
+            length = filePageSize;
+        }
+
+        int sectors = sectorsFor( length );
+        int slotBytes = sectors * SECTOR_SIZE;
+        long scratch = codec.scratch( slotBytes );
+        if ( length == filePageSize )
+        {
+            UnsafeUtil.copyMemory( bufferAddress, scratch, length );
+        }
+        else
+        {
+            codec.copyCompressed( scratch, length );
+        }
+        UnsafeUtil.setMemory( scratch + length, slotBytes - length, (byte) 0 );
+
+        long sector = allocateSlot( sectors );
+        boolean written = false;
+        try
+        {
+            data.write( sector, sectorAddresses( scratch, sectors ), 0, sectors );
+            written = true;
+        }
+        finally
+        {
+            if ( !written )
+            {
+                // Nothing refers to the slot, so it can be reused right away.
+                releaseSlot( sector, sectors );
+            }
+        }
+        updateEntry( filePageId, entry( sector, length ) );
+        return slotBytes;
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        checkVector( startFilePageId, bufferAddresses, arrayOffset, length );
+        long bytesWritten = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesWritten += write( startFilePageId + i, bufferAddresses[arrayOffset + i] );
+        }
+        return bytesWritten;
+    }
+
+    @Override
+    public void evicted( long filePageId )
+    {
+        PageEvictionCallback callback = this.onEviction;
+        if ( callback != null )
+        {
+            callback.onEvict( filePageId );
+        }
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            force();
+        }
+        finally
+        {
+            onEviction = null;
+            try
+            {
+                data.close();
+            }
+            finally
+            {
+                pageTable.close();
+            }
+        }
+    }
+
+    @Override
+    public void closeAndDelete() throws IOException
+    {
+        onEviction = null;
+        try
+        {
+            data.closeAndDelete();
+        }
+        finally
+        {
+            pageTable.closeAndDelete();
+        }
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        synchronized ( forceLock )
+        {
+            long[] pageIds;
+            long[] pageEntries;
+            MutableLongList replaced;
+            synchronized ( this )
+            {
+                if ( dirtyPageIds.isEmpty() )
+                {
+                    return;
+                }
+                pageIds = dirtyPageIds.toSortedArray();
+                pageEntries = new long[pageIds.length];
+                for ( int i = 0; i < pageIds.length; i++ )
+                {
+                    pageEntries[i] = entries[(int) pageIds[i]];
+                }
+                replaced = replacedEntries;
+                dirtyPageIds = new LongHashSet();
+                replacedEntries = new LongArrayList();
+            }
+
+            boolean forced = false;
+            try
+            {
+                // The slots must be durable before the page table refers to them.
+                data.force();
+                writePageTable( pageIds, pageEntries );
+                pageTable.force();
+                forced = true;
+            }
+            finally
+            {
+                synchronized ( this )
+                {
+                    if ( forced )
+                    {
+                        // Nothing durable refers to the replaced slots anymore, so now they can be reused.
+                        replaced.forEach( entry -> releaseSlot( sectorOf( entry ), sectorsFor( lengthOf( entry ) ) ) );
+                    }
+                    else
+                    {
+                        dirtyPageIds.addAll( pageIds );
+                        replacedEntries.addAll( replaced );
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getLastPageId()
+    {
+        return lastPageId;
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        synchronized ( forceLock )
+        {
+            synchronized ( this )
+            {
+                entries = new long[0];
+                durableEntries = new long[0];
+                dirtyPageIds = new LongHashSet();
+                replacedEntries = new LongArrayList();
+                rebuildAllocationState();
+            }
+            pageTable.truncate();
+            data.truncate();
+            writeHeader();
+        }
+    }
+
+    /**
+     * @return the number of bytes the pages take up in the data file, excluding the header and the free slots.
+     */
+    synchronized long storedBytes()
+    {
+        long sectors = 0;
+        for ( long entry : entries )
+        {
+            if ( entry != 0 )
+            {
+                sectors += sectorsFor( lengthOf( entry ) );
+            }
+        }
+        return sectors * SECTOR_SIZE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressingPageSwapper{" + "file=" + file + ", filePageSize=" + filePageSize + ", data=" + data + '}';
+    }
+
+    private synchronized long entry( long filePageId )
+    {
+        return filePageId < entries.length ? entries[(int) filePageId] : 0;
+    }
+
+    private synchronized void updateEntry( long filePageId, long entry )
+    {
+        int index = (int) filePageId;
+        if ( index >= entries.length )
+        {
+            entries = Arrays.copyOf( entries, grownCapacity( entries.length, index ) );
+        }
+        long replaced = entries[index];
+        entries[index] = entry;
+        if ( replaced != 0 )
+        {
+            replacedEntries.add( replaced );
+        }
+        dirtyPageIds.add( filePageId );
+        lastPageId = Math.max( lastPageId, filePageId );
+    }
+
+    private synchronized long allocateSlot( int sectors )
+    {
+        for ( int size = sectors; size <= maxSectors; size++ )
+        {
+            MutableLongList slots = freeSlots[size];
+            if ( !slots.isEmpty() )
+            {
+                long sector = slots.removeAtIndex( slots.size() - 1 );
+                if ( size > sectors )
+                {
+                    freeSlots[size - sectors].add( sector + sectors );
+                }
+                return sector;
+            }
+        }
+        long sector = endSector;
+        endSector += sectors;
+        return sector;
+    }
+
+    private synchronized void releaseSlot( long sector, int sectors )
+    {
+        freeSlots[sectors].add( sector );
+    }
+
+    /**
+     * Recompute the last page id, and which parts of the data file are free, from the page table entries.
+     */
+    private synchronized void rebuildAllocationState() throws IOException
+    {
+        lastPageId = -1;
+        for ( MutableLongList slots : freeSlots )
+        {
+            if ( slots != null )
+            {
+                slots.clear();
+            }
+        }
+
+        long[] usedSlots = new long[entries.length];
+        int usedSlotCount = 0;
+        for ( int i = 0; i < entries.length; i++ )
+        {
+            long entry = entries[i];
+            if ( entry != 0 )
+            {
+                if ( lengthOf( entry ) > filePageSize || sectorOf( entry ) < HEADER_SECTORS )
+                {
+                    throw new IOException( "Page table of " + file + " is corrupt at file page " + i + "." );
+                }
+                usedSlots[usedSlotCount++] = entry;
+                lastPageId = i;
+            }
+        }
+
+        // Sorting the entries sorts the slots by their first sector.
+        Arrays.sort( usedSlots, 0, usedSlotCount );
+        long nextSector = HEADER_SECTORS;
+        for ( int i = 0; i < usedSlotCount; i++ )
+        {
+            long sector = sectorOf( usedSlots[i] );
+            if ( sector > nextSector )
+            {
+                releaseRun( nextSector, sector - nextSector );
+            }
+            nextSector = Math.max( nextSector, sector + sectorsFor( lengthOf( usedSlots[i] ) ) );
+        }
+        endSector = nextSector;
+    }
+
+    private void releaseRun( long sector, long sectors )
+    {
+        while ( sectors > 0 )
+        {
+            int size = (int) Math.min( sectors, maxSectors );
+            releaseSlot( sector, size );
+            sector += size;
+            sectors -= size;
+        }
+    }
+
+    private void writeHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocateDirect( SECTOR_SIZE );
+        header.putLong( HEADER_MAGIC );
+        header.putInt( filePageSize );
+        data.write( 0, UnsafeUtil.getDirectByteBufferAddress( header ) );
+        data.force();
+    }
+
+    private void checkHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocateDirect( SECTOR_SIZE );
+        data.read( 0, UnsafeUtil.getDirectByteBufferAddress( header ), SECTOR_SIZE );
+        long magic = header.getLong();
+        int pageSize = header.getInt();
+        if ( magic != HEADER_MAGIC )
+        {
+            throw new IOException( file + " is not a compressed file." );
+        }
+        if ( pageSize != filePageSize )
+        {
+            throw new IOException( "The pages of " + file + " were compressed with a file page size of " + pageSize +
+                                   ", but it is now being opened with a file page size of " + filePageSize + "." );
+        }
+    }
+
+    /**
+     * @return {@code true} if the given buffer holds the header sector of a compressed file.
+     */
+    static boolean isHeader( ByteBuffer sector )
+    {
+        if ( sector.remaining() < SECTOR_SIZE || sector.getLong( sector.position() ) != HEADER_MAGIC )
+        {
+            return false;
+        }
+        // The magic number is followed by the file page size, and then zeros.
+        for ( int i = Long.BYTES + Integer.BYTES; i < SECTOR_SIZE; i++ )
+        {
+            if ( sector.get( sector.position() + i ) != 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long[] readPageTable() throws IOException
+    {
+        long pageCount = pageTable.getLastPageId() + 1;
+        if ( pageCount * ENTRIES_PER_PAGE_TABLE_PAGE > MAX_PAGE_COUNT )
+        {
+            throw new IOException( "Page table of " + file + " is too big." );
+        }
+        long[] tableEntries = new long[(int) (pageCount * ENTRIES_PER_PAGE_TABLE_PAGE)];
+        ByteBuffer buffer = ByteBuffer.allocateDirect( PAGE_TABLE_PAGE_SIZE );
+        long address = UnsafeUtil.getDirectByteBufferAddress( buffer );
+        for ( int tablePageId = 0; tablePageId < pageCount; tablePageId++ )
+        {
+            pageTable.read( tablePageId, address, PAGE_TABLE_PAGE_SIZE );
+            buffer.clear();
+            buffer.asLongBuffer().get( tableEntries, tablePageId * ENTRIES_PER_PAGE_TABLE_PAGE,
+                    ENTRIES_PER_PAGE_TABLE_PAGE );
+        }
+        return tableEntries;
+    }
+
+    /**
+     * Write the page table pages that hold the given entries. Must be called while holding the force lock.
+     */
+    private void writePageTable( long[] pageIds, long[] pageEntries ) throws IOException
+    {
+        long lastPageId = pageIds[pageIds.length - 1];
+        if ( lastPageId >= durableEntries.length )
+        {
+            durableEntries = Arrays.copyOf( durableEntries, grownCapacity( durableEntries.length, (int) lastPageId ) );
+        }
+        for ( int i = 0; i < pageIds.length; i++ )
+        {
+            durableEntries[(int) pageIds[i]] = pageEntries[i];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect( PAGE_TABLE_PAGE_SIZE );
+        long address = UnsafeUtil.getDirectByteBufferAddress( buffer );
+        long previousTablePageId = -1;
+        for ( long pageId : pageIds )
+        {
+            long tablePageId = pageId / ENTRIES_PER_PAGE_TABLE_PAGE;
+            if ( tablePageId != previousTablePageId )
+            {
+                int from = (int) (tablePageId * ENTRIES_PER_PAGE_TABLE_PAGE);
+                int to = Math.min( from + ENTRIES_PER_PAGE_TABLE_PAGE, durableEntries.length );
+                UnsafeUtil.setMemory( address, PAGE_TABLE_PAGE_SIZE, (byte) 0 );
+                buffer.clear();
+                buffer.asLongBuffer().put( durableEntries, from, to - from );
+                pageTable.write( tablePageId, address );
+                previousTablePageId = tablePageId;
+            }
+        }
+    }
+
+    private static int grownCapacity( int capacity, int index )
+    {
+        long grown = Math.max( index + 1L, Math.min( capacity * 2L, MAX_PAGE_COUNT ) );
+        return (int) Math.min( grown, MAX_PAGE_COUNT );
+    }
+
+    private static long[] sectorAddresses( long address, int sectors )
+    {
+        long[] addresses = new long[sectors];
+        for ( int i = 0; i < sectors; i++ )
+        {
+            addresses[i] = address + (long) i * SECTOR_SIZE;
+        }
+        return addresses;
+    }
+
+    private static int sectorsFor( int bytes )
+    {
+        return (bytes + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    private static long entry( long sector, int length )
+    {
+        return (sector << LENGTH_BITS) | length;
+    }
+
+    private static long sectorOf( long entry )
+    {
+        return entry >>> LENGTH_BITS;
+    }
+
+    private static int lengthOf( long entry )
+    {
+        return (int) (entry & LENGTH_MASK);
+    }
+
+    private static void checkFilePageId( long filePageId ) throws IOException
+    {
+        if ( filePageId < 0 || filePageId >= MAX_PAGE_COUNT )
+        {
+            throw new IOException( "Invalid file page id: " + filePageId );
+        }
+    }
+
+    private static void checkVector( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length )
+            throws IOException
+    {
+        checkFilePageId( startFilePageId );
+        if ( arrayOffset < 0 || length < 0 || arrayOffset + length > bufferAddresses.length )
+        {
+            throw new ArrayIndexOutOfBoundsException( "Array offset " + arrayOffset + " and length " + length +
+                                                      " does not fit in an array of length " + bufferAddresses.length );
+        }
+    }
+
+    /**
+     * The compression state and buffers of a thread.
+     */
+    private static final class Codec
+    {
+        private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+        private final Inflater inflater = new Inflater();
+        private byte[] page = new byte[0];
+        private byte[] compressed = new byte[0];
+        private ByteBuffer scratch = ByteBuffer.allocateDirect( 0 );
+
+        /**
+         * @return the address of a native buffer of at least the given size, which the thread can use until its next
+         * call to this method.
+         */
+        long scratch( int bytes )
+        {
+            if ( scratch.capacity() < bytes )
+            {
+                scratch = ByteBuffer.allocateDirect( bytes );
+            }
+            return UnsafeUtil.getDirectByteBufferAddress( scratch );
+        }
+
+        /**
+         * Compress the page at the given address into the compressed buffer.
+         *
+         * @return the compressed length, or -1 if the page did not compress to less than the page size.
+         */
+        int compress( long pageAddress, int filePageSize ) throws IOException
+        {
+            if ( page.length < filePageSize )
+            {
+                page = new byte[filePageSize];
+                compressed = new byte[filePageSize];
+            }
+            proxy( pageAddress, filePageSize ).get( page, 0, filePageSize );
+            deflater.reset();
+            deflater.setInput( page, 0, filePageSize );
+            deflater.finish();
+            int length = deflater.deflate( compressed, 0, filePageSize - 1 );
+            return deflater.finished() ? length : -1;
+        }
+
+        void copyCompressed( long address, int length ) throws IOException
+        {
+            proxy( address, length ).put( compressed, 0, length );
+        }
+
+        void decompress( long address, int length, long pageAddress, int filePageSize, int pageBytes,
+                CompressingPageSwapper swapper ) throws IOException
+        {
+            if ( page.length < filePageSize )
+            {
+                page = new byte[filePageSize];
+                compressed = new byte[filePageSize];
+            }
+            proxy( address, length ).get( compressed, 0, length );
+            inflater.reset();
+            inflater.setInput( compressed, 0, length );
+            int inflated;
+            try
+            {
+                inflated = inflater.inflate( page, 0, filePageSize );
+            }
+            catch ( DataFormatException e )
+            {
+                throw new IOException( "Compressed page in " + swapper.file + " is corrupt.", e );
+            }
+            if ( inflated != filePageSize || !inflater.finished() )
+            {
+                throw new IOException( "Compressed page in " + swapper.file + " is corrupt. It inflated to " +
+                                       inflated + " bytes, rather than the file page size of " + filePageSize + "." );
+            }
+            proxy( pageAddress, pageBytes ).put( page, 0, pageBytes );
+        }
+
+        private static ByteBuffer proxy( long address, int length ) throws IOException
+        {
+            try
+            {
+                return UnsafeUtil.newDirectByteBuffer( address, length );
+            }
+            catch ( Exception e )
+            {
+                throw new IOException( e );
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.compress;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Predicate;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.neo4j.io.compress.CompressingPageSwapper.PAGE_TABLE_PAGE_SIZE;
+import static org.neo4j.io.compress.CompressingPageSwapper.SECTOR_SIZE;
+
+/**
+ * A {@link PageSwapperFactory} that decorates another factory, and stores the pages of selected files in compressed
+ * form.
+ * <p>
+ * Compression trades CPU time on every page fault and flush for less IO and less space on disk, which pays off for
+ * large files that are mostly cold, such as the property and string stores of big graphs. The files to compress are
+ * selected with a predicate. The other files are handled by the decorated factory as usual.
+ * <p>
+ * A file must be compressed from when it is created; existing uncompressed files are not converted, and opening them
+ * with compression will fail. Likewise, a compressed file can only be opened with compression: compressed files start
+ * with a header sector that marks them as such, and this factory refuses to open files with that header, or with a
+ * page table file, without compression. This factory should therefore decorate the page swapper factory whether any
+ * files are to be compressed or not. A compressed file cannot be read without its page table file, so opening it fails
+ * if the page table file is missing.
+ *
+ * @see CompressingPageSwapper
+ */
+public class CompressingPageSwapperFactory implements PageSwapperFactory
+{
+    /**
+     * The suffix of the page table file, that sits next to each compressed file.
+     */
+    public static final String PAGE_TABLE_SUFFIX = ".pagetable";
+
+    private final PageSwapperFactory delegate;
+    private final Predicate<File> compressedFiles;
+    private FileSystemAbstraction fs;
+
+    public CompressingPageSwapperFactory( PageSwapperFactory delegate, Predicate<File> compressedFiles )
+    {
+        this.delegate = delegate;
+        this.compressedFiles = compressedFiles;
+    }
+
+    @Override
+    public void open( FileSystemAbstraction fs, Configuration config )
+    {
+        this.fs = fs;
+        delegate.open( fs, config );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return delegate.implementationName() + "+compression";
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return delegate.getRequiredBufferAlignment();
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean noChannelStriping ) throws IOException
+    {
+        File pageTableFile = pageTableFile( file );
+        if ( !compressedFiles.test( file ) )
+        {
+            if ( fs.fileExists( pageTableFile ) || hasCompressedHeader( file ) )
+            {
+                throw new IOException( file + " is compressed, but is being opened without compression. Compressed " +
+                                       "files can only be opened with compression." );
+            }
+            return delegate.createPageSwapper( file, filePageSize, onEviction, createIfNotExist, noChannelStriping );
+        }
+        if ( delegate.getRequiredBufferAlignment() != 1 )
+        {
+            throw new IOException( "Cannot compress " + file + ", because the " + delegate.implementationName() +
+                                   " page swapper requires aligned buffers." );
+        }
+        if ( fs.fileExists( file ) && fs.getFileSize( file ) > 0 && !fs.fileExists( pageTableFile ) )
+        {
+            // Without the page table, every page would read back as zeros.
+            throw new IOException( "The page table " + pageTableFile + " of " + file + " is missing. The file " +
+                                   "cannot be read without it, or it is not a compressed file." );
+        }
+
+        PageSwapper data = delegate.createPageSwapper(
+                file, SECTOR_SIZE, NO_CALLBACK, createIfNotExist, noChannelStriping );
+        PageSwapper pageTable = null;
+        try
+        {
+            pageTable = delegate.createPageSwapper( pageTableFile, PAGE_TABLE_PAGE_SIZE, NO_CALLBACK, true, true );
+            return new CompressingPageSwapper( file, filePageSize, onEviction, data, pageTable );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            closeSilently( pageTable, e );
+            closeSilently( data, e );
+            throw e;
+        }
+    }
+
+    @Override
+    public void syncDevice()
+    {
+        delegate.syncDevice();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    /**
+     * @return the page table file of the given file, which exists if the given file is compressed.
+     */
+    public static File pageTableFile( File file )
+    {
+        return new File( file.getPath() + PAGE_TABLE_SUFFIX );
+    }
+
+    private boolean hasCompressedHeader( File file ) throws IOException
+    {
+        if ( !fs.fileExists( file ) || fs.getFileSize( file ) < SECTOR_SIZE )
+        {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate( SECTOR_SIZE );
+        try ( StoreChannel channel = fs.open( file, OpenMode.READ ) )
+        {
+            channel.readAll( header );
+        }
+        header.flip();
+        return CompressingPageSwapper.isHeader( header );
+    }
+
+    private static void closeSilently( PageSwapper swapper, Exception failure )
+    {
+        if ( swapper != null )
+        {
+            try
+            {
+                swapper.close();
+            }
+            catch ( IOException e )
+            {
+                failure.addSuppressed( e );
+            }
+        }
+    }
+
+    private static final PageEvictionCallback NO_CALLBACK = filePageId ->
+    {
+    };
+}
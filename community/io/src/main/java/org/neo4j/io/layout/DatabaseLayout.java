@@ -29,6 +29,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.io.compress.CompressingPageSwapperFactory;
 import org.neo4j.stream.Streams;
 
 import static org.neo4j.io.fs.FileUtils.getCanonicalFile;
@@ -197,6 +198,25 @@ public class DatabaseLayout
         return file.hasIdFile() ? Optional.of( idFile( file.getName() ) ) : Optional.empty();
     }
 
+    /**
+     * @return the page table file that sits next to the store file of the given record store when the store is
+     * compressed in the page cache, or {@link Optional#empty()} if the given file is not a record store. The page table
+     * file only exists for compressed stores, and is needed to read them.
+     * @see CompressingPageSwapperFactory
+     */
+    public Optional<File> pageTableFile( DatabaseFile file )
+    {
+        return file.hasIdFile() ? Optional.of( CompressingPageSwapperFactory.pageTableFile( file( file.getName() ) ) )
+                                : Optional.empty();
+    }
+
+    public Set<File> pageTableFiles()
+    {
+        return Arrays.stream( DatabaseFile.values() )
+                .flatMap( value -> Streams.ofOptional( pageTableFile( value ) ) )
+                .collect( Collectors.toSet() );
+    }
+
     public File file( String fileName )
     {
         return new File( databaseDirectory, fileName );
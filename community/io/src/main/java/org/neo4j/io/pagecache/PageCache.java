@@ -109,6 +109,16 @@ public interface PageCache extends AutoCloseable
      */
     void flushAndForce( IOLimiter limiter ) throws IOException;
 
+    /**
+     * Write out the dirty pages of all mapped files, without forcing the files. Pages that are locked at the time are
+     * skipped. This can be used ahead of {@link #flushAndForce(IOLimiter)}, which then only has to write the pages
+     * that are dirtied in the meantime, and the skipped ones.
+     *
+     * @param limiter The {@link IOLimiter} that determines if pauses or sleeps should be injected into the flushing
+     * process to keep the IO rate down.
+     */
+    void flushWithoutForce( IOLimiter limiter ) throws IOException;
+
     /**
      * Close the page cache to prevent any future mapping of files.
      * This also releases any internal resources, including the {@link PageSwapperFactory} through its
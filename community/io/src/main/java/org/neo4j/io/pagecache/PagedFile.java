@@ -60,8 +60,13 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * Read cursors with this flag will load the pages that follow the current page into memory in the background, in
+     * batches of consecutive pages, such that they are already in memory by the time the cursor gets to them. This
+     * only pays off when the cursor is mostly moving forward with {@link PageCursor#next()}, and is ignored by write
+     * cursors and in combination with {@link #PF_NO_FAULT}.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. The methods {@link PageCursor#next()} and
      * {@link PageCursor#next(long)} will always return {@code true} for pages that are within the range of the file,
@@ -73,9 +78,14 @@ public interface PagedFile extends AutoCloseable
      */
     int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Mark the accesses of the cursor as scan traffic.
+     * <p>
+     * Pages that are only accessed by cursors with this flag are not considered part of the working set. Eviction
+     * policies that are scan resistant will evict such pages before the pages that are frequently re-referenced, so
+     * that a large scan does not push the working set out of the page cache. The default eviction policy treats scan
+     * traffic like any other access.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
@@ -174,6 +184,22 @@ public interface PagedFile extends AutoCloseable
      */
     long getLastPageId() throws IOException;
 
+    /**
+     * Load the given range of file pages into memory, if they are not in memory already, without pinning them.
+     * <p>
+     * Pages that are already in memory, or that are concurrently being faulted in by someone else, are skipped.
+     * Consecutive pages that are not in memory are read from the file with vectored reads, where supported by the
+     * underlying {@link PageSwapper}. Page ids beyond the end of the file are ignored.
+     * <p>
+     * This is useful for warming up the page cache, or for reading ahead of a sequential scan.
+     *
+     * @param pageId The file-page-id of the first page to load.
+     * @param count The number of consecutive pages to load, starting from the given {@code pageId}.
+     * @return The number of pages that were faulted into memory by this call.
+     * @throws IOException if there was an error accessing the underlying file.
+     */
+    int touch( long pageId, int count ) throws IOException;
+
     /**
      * Release a handle to a paged file.
      * <p>
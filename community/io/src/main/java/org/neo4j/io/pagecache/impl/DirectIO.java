@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+
+/**
+ * Support for opening files with direct IO, where reads and writes bypass the operating system page cache.
+ * <p>
+ * Java exposes direct IO through the {@code com.sun.nio.file.ExtendedOpenOption.DIRECT} open option from Java 10 on.
+ * It is looked up reflectively, so that on older runtimes, direct IO is simply reported as unsupported.
+ * <p>
+ * Direct IO requires that the memory buffers, the file offsets, and the sizes of all IO operations, are aligned to
+ * the block size of the file system. The page cache aligns its buffers to {@link #BUFFER_ALIGNMENT}, so files can only
+ * be opened with direct IO when their file page size is a multiple of the block size of the file system, and the
+ * block size divides the buffer alignment. This is not the case for the record stores, whose file page size is the
+ * largest whole number of records that fit in a page, so they are always paged with buffered IO.
+ */
+final class DirectIO
+{
+    static final int BUFFER_ALIGNMENT = 4096;
+    // No file system has a smaller block size than a disk sector.
+    private static final int MIN_BLOCK_SIZE = 512;
+
+    private static final OpenOption DIRECT = lookupDirectOpenOption();
+    private static final Method GET_BLOCK_SIZE = lookupGetBlockSize();
+
+    private DirectIO()
+    {
+    }
+
+    private static OpenOption lookupDirectOpenOption()
+    {
+        try
+        {
+            Class<?> extendedOpenOption = Class.forName( "com.sun.nio.file.ExtendedOpenOption" );
+            for ( Object option : extendedOpenOption.getEnumConstants() )
+            {
+                if ( "DIRECT".equals( ((Enum<?>) option).name() ) )
+                {
+                    return (OpenOption) option;
+                }
+            }
+        }
+        catch ( Throwable ignore )
+        {
+            // Direct IO is not supported on this runtime.
+        }
+        return null;
+    }
+
+    private static Method lookupGetBlockSize()
+    {
+        try
+        {
+            return FileStore.class.getMethod( "getBlockSize" );
+        }
+        catch ( Throwable ignore )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if this Java runtime can open files with direct IO.
+     */
+    static boolean isSupported()
+    {
+        return DIRECT != null && GET_BLOCK_SIZE != null;
+    }
+
+    /**
+     * Check if the given file can be opened with direct IO, and be paged with the given file page size. This is the
+     * case if the runtime supports direct IO, the file is on the real file system, the file page size is compatible
+     * with the block size of the file system, and the file system does not reject direct IO for the file.
+     */
+    static boolean canOpen( FileSystemAbstraction fs, File file, int filePageSize )
+    {
+        return whyNotOpen( fs, file, filePageSize ) == null;
+    }
+
+    /**
+     * @return the reason why the given file cannot be opened with direct IO and be paged with the given file page
+     * size, or {@code null} if it can.
+     * @see #canOpen(FileSystemAbstraction, File, int)
+     */
+    static String whyNotOpen( FileSystemAbstraction fs, File file, int filePageSize )
+    {
+        // Checked first, because it does not depend on the runtime or the file system. This rules out most record
+        // stores, whose file page size is a whole number of records, such as 8190 bytes for the node store.
+        if ( filePageSize % MIN_BLOCK_SIZE != 0 )
+        {
+            return "the file page size of " + filePageSize + " bytes is not a multiple of the block size";
+        }
+        if ( !isSupported() )
+        {
+            return "direct IO is not supported on this Java runtime";
+        }
+        if ( fs.getClass() != DefaultFileSystemAbstraction.class )
+        {
+            return "the file is not on the default file system";
+        }
+        try
+        {
+            Path path = file.toPath();
+            long blockSize = (Long) GET_BLOCK_SIZE.invoke( Files.getFileStore( path ) );
+            if ( blockSize <= 0 || BUFFER_ALIGNMENT % blockSize != 0 || filePageSize % blockSize != 0 )
+            {
+                return "the file page size of " + filePageSize + " bytes is not a multiple of the block size of " +
+                        blockSize + " bytes";
+            }
+            open( file ).close();
+            return null;
+        }
+        catch ( Throwable e )
+        {
+            // Most likely the file system, for instance tmpfs, does not support direct IO.
+            return "the file system does not support direct IO: " + e;
+        }
+    }
+
+    /**
+     * Open the given file for reading and writing with direct IO.
+     */
+    static StoreChannel open( File file ) throws IOException
+    {
+        if ( DIRECT == null )
+        {
+            throw new IOException( "Direct IO is not supported on this Java runtime." );
+        }
+        FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, DIRECT );
+        return new StoreFileChannel( channel );
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * A factory for SingleFilePageSwapper instances that read and write their files with direct IO, bypassing the
+ * operating system page cache, so the pages are not cached twice. This is useful when most of the memory of the
+ * machine is given to the page cache.
+ * <p>
+ * Direct IO is supported on Linux from Java 10 on. Files that cannot be opened with direct IO, because the runtime,
+ * the file system, or the file page size does not allow it, are swapped with normal buffered IO instead, and reported
+ * to the {@link Monitor}. Notably, this is the case for all record stores, because their file page size is a whole
+ * number of records, which is not a multiple of the file system block size. Direct IO therefore mostly benefits the
+ * native index and label scan store files.
+ *
+ * @see org.neo4j.io.pagecache.impl.SingleFilePageSwapper
+ */
+public class DirectIOPageSwapperFactory extends SingleFilePageSwapperFactory
+{
+    /**
+     * Notified of the files that are swapped with buffered IO, because they cannot be opened with direct IO.
+     */
+    public interface Monitor
+    {
+        void bufferedIOFallback( File file, String reason );
+    }
+
+    private volatile Monitor monitor = ( file, reason ) ->
+    {
+    };
+
+    public void setMonitor( Monitor monitor )
+    {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean noChannelStriping ) throws IOException
+    {
+        createIfNecessary( file, createIfNotExist );
+        String whyNotDirectIO = DirectIO.whyNotOpen( fileSystem(), file, filePageSize );
+        if ( whyNotDirectIO != null )
+        {
+            monitor.bufferedIOFallback( file, whyNotDirectIO );
+        }
+        return new SingleFilePageSwapper( file, fileSystem(), filePageSize, onEviction, noChannelStriping,
+                whyNotDirectIO == null );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "direct";
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return DirectIO.BUFFER_ALIGNMENT;
+    }
+}
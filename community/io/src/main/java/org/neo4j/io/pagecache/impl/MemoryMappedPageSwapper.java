@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannelUnwrapper;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A PageSwapper that reads pages by copying them out of read-only memory mapped regions of the file, rather than
+ * through a read system call per page. Writes, forcing and truncation are done through the file channels of the
+ * {@link SingleFilePageSwapper}, so the two swappers see and produce the same file contents.
+ * <p>
+ * The file is mapped in segments of a fixed number of pages, that are mapped lazily as they are first read from.
+ * Segments are only mapped up to the end of the file, so pages beyond the mapped part of a segment, such as pages
+ * that are being appended to the file, are read through the file channel until the segment is remapped.
+ * <p>
+ * File systems that do not provide real file channels, such as the ephemeral file system, cannot be memory mapped.
+ * On those, this swapper reads through the file channel as well.
+ * <p>
+ * The mapped segments are never unmapped explicitly, not even when the swapper is closed, because a read that races
+ * with closing or truncating the swapper could otherwise copy from memory that is no longer mapped, and crash the JVM.
+ * The segments are instead unmapped when they are garbage collected, which also means that on platforms that do not
+ * allow deleting mapped files, the file cannot be deleted until that has happened.
+ */
+public class MemoryMappedPageSwapper extends SingleFilePageSwapper
+{
+    private static final int segmentSizeInBytes = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.MemoryMappedPageSwapper.segmentSize", 1 << 30 );
+
+    private final FileSystemAbstraction fs;
+    private final int filePageSize;
+    private final long pagesPerSegment;
+    // Guarded by synchronized(this). The channel is opened when the first segment is mapped, and reopened if it has
+    // been closed by an interrupt.
+    private StoreChannel mappingChannel;
+    private volatile boolean closed;
+    // Cleared when it turns out the file system cannot memory map the file.
+    private volatile boolean memoryMapped = true;
+    // Grown and replaced under synchronized(this). Entries are replaced when the file has grown beyond them.
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    public MemoryMappedPageSwapper( File file, FileSystemAbstraction fs, int filePageSize,
+            PageEvictionCallback onEviction, boolean noChannelStriping ) throws IOException
+    {
+        super( file, fs, filePageSize, onEviction, noChannelStriping );
+        this.fs = fs;
+        this.filePageSize = filePageSize;
+        this.pagesPerSegment = Math.max( 1, segmentSizeInBytes / filePageSize );
+    }
+
+    /**
+     * @return {@code false} if it has turned out that the file system cannot memory map the file, so reads go through
+     * the file channel, otherwise {@code true}.
+     */
+    public boolean isMemoryMapped()
+    {
+        return memoryMapped;
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        // Once closed, reads go to the file channel, which throws like it does for the file swapper.
+        if ( memoryMapped && !closed && filePageId >= 0 )
+        {
+            MappedByteBuffer segment;
+            try
+            {
+                segment = segmentContaining( filePageId );
+            }
+            catch ( ClosedChannelException e )
+            {
+                // Most likely closed by an interrupt. The channel read below knows how to deal with that, and the
+                // mapping channel will be reopened the next time a segment is mapped.
+                segment = null;
+            }
+            if ( segment != null )
+            {
+                long segmentAddress = UnsafeUtil.getDirectByteBufferAddress( segment );
+                long offsetInSegment = (filePageId % pagesPerSegment) * filePageSize;
+                UnsafeUtil.copyMemory( segmentAddress + offsetInSegment, bufferAddress, filePageSize );
+                if ( bufferSize > filePageSize )
+                {
+                    UnsafeUtil.setMemory( bufferAddress + filePageSize, bufferSize - filePageSize,
+                            MuninnPageCache.ZERO_BYTE );
+                }
+                return filePageSize;
+            }
+        }
+        return super.read( filePageId, bufferAddress, bufferSize );
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+            throws IOException
+    {
+        if ( !memoryMapped )
+        {
+            return super.read( startFilePageId, bufferAddresses, bufferSize, arrayOffset, length );
+        }
+        // Copying out of the mapped regions is cheap enough that there is nothing to gain from vectoring.
+        long bytes = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes += read( startFilePageId + i, bufferAddresses[arrayOffset + i], bufferSize );
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the mapped segment that contains the whole of the given page, mapping or remapping the segment if
+     * necessary, or {@code null} if the page is not entirely within the file.
+     */
+    private MappedByteBuffer segmentContaining( long filePageId ) throws IOException
+    {
+        int segmentIndex = (int) (filePageId / pagesPerSegment);
+        long requiredCapacity = (filePageId % pagesPerSegment + 1) * filePageSize;
+        MappedByteBuffer[] segments = this.segments;
+        if ( segmentIndex < segments.length )
+        {
+            MappedByteBuffer segment = segments[segmentIndex];
+            if ( segment != null && segment.capacity() >= requiredCapacity )
+            {
+                return segment;
+            }
+        }
+        if ( filePageId > getLastPageId() )
+        {
+            // The page is beyond the end of the file.
+            return null;
+        }
+        return mapSegment( segmentIndex, requiredCapacity );
+    }
+
+    private synchronized MappedByteBuffer mapSegment( int segmentIndex, long requiredCapacity ) throws IOException
+    {
+        MappedByteBuffer[] segments = this.segments;
+        if ( segmentIndex >= segments.length )
+        {
+            MappedByteBuffer[] grown = new MappedByteBuffer[segmentIndex + 1];
+            System.arraycopy( segments, 0, grown, 0, segments.length );
+            segments = grown;
+        }
+        MappedByteBuffer segment = segments[segmentIndex];
+        if ( segment == null || segment.capacity() < requiredCapacity )
+        {
+            FileChannel channel = mappingChannel();
+            if ( channel == null )
+            {
+                return null;
+            }
+            long segmentSize = pagesPerSegment * filePageSize;
+            long segmentStart = segmentIndex * segmentSize;
+            long mappableSize = Math.min( segmentSize, channel.size() - segmentStart );
+            if ( mappableSize < requiredCapacity )
+            {
+                // The page has not been completely written to the file yet.
+                return null;
+            }
+            segment = channel.map( FileChannel.MapMode.READ_ONLY, segmentStart, mappableSize );
+            segments[segmentIndex] = segment;
+            this.segments = segments;
+        }
+        return segment;
+    }
+
+    private FileChannel mappingChannel() throws IOException
+    {
+        if ( closed )
+        {
+            throw new ClosedChannelException();
+        }
+        if ( mappingChannel == null || !mappingChannel.isOpen() )
+        {
+            mappingChannel = fs.open( file(), OpenMode.READ );
+        }
+        if ( !isPlatformFileChannel( mappingChannel ) )
+        {
+            // Only real file channels can be memory mapped.
+            cannotMemoryMap();
+            return null;
+        }
+        return StoreFileChannelUnwrapper.unwrap( mappingChannel );
+    }
+
+    private void cannotMemoryMap() throws IOException
+    {
+        memoryMapped = false;
+        mappingChannel.close();
+        mappingChannel = null;
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        synchronized ( this )
+        {
+            // Reads beyond the end of the file are not served from the mappings, so they can be reclaimed lazily.
+            segments = new MappedByteBuffer[0];
+        }
+        super.truncate();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            // The segments are left to the garbage collector, see the class documentation. They are kept reachable
+            // from this swapper rather than cleared, so that they stay mapped while any read can still get to them.
+            closed = true;
+            if ( mappingChannel != null )
+            {
+                mappingChannel.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MemoryMappedPageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", file=" + file() +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Predicate;
+
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * A factory for MemoryMappedPageSwapper instances.
+ * <p>
+ * Memory mapping pays off for files that are mostly read, such as token stores, schema stores and index files that
+ * are not updated often. The files to memory map can be selected with a predicate. The other files get a
+ * {@link SingleFilePageSwapper}, like with the {@link SingleFilePageSwapperFactory}.
+ *
+ * @see org.neo4j.io.pagecache.impl.MemoryMappedPageSwapper
+ */
+public class MemoryMappedPageSwapperFactory extends SingleFilePageSwapperFactory
+{
+    private final Predicate<File> memoryMappedFiles;
+
+    public MemoryMappedPageSwapperFactory()
+    {
+        this( file -> true );
+    }
+
+    public MemoryMappedPageSwapperFactory( Predicate<File> memoryMappedFiles )
+    {
+        this.memoryMappedFiles = memoryMappedFiles;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean noChannelStriping ) throws IOException
+    {
+        if ( !memoryMappedFiles.test( file ) )
+        {
+            return super.createPageSwapper( file, filePageSize, onEviction, createIfNotExist, noChannelStriping );
+        }
+        createIfNecessary( file, createIfNotExist );
+        return new MemoryMappedPageSwapper( file, fileSystem(), filePageSize, onEviction, noChannelStriping );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "mmap";
+    }
+}
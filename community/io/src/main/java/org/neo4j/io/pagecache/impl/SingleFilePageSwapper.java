@@ -136,6 +136,7 @@ public class SingleFilePageSwapper implements PageSwapper
     private final FileSystemAbstraction fs;
     private final File file;
     private final int filePageSize;
+    private final boolean directIO;
     private volatile PageEvictionCallback onEviction;
     private final StoreChannel[] channels;
     private FileLock fileLock;
@@ -151,9 +152,21 @@ public class SingleFilePageSwapper implements PageSwapper
 
     public SingleFilePageSwapper( File file, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction, boolean noChannelStriping )
             throws IOException
+    {
+        this( file, fs, filePageSize, onEviction, noChannelStriping, false );
+    }
+
+    /**
+     * @param directIO {@code true} if the file should be opened with direct IO, bypassing the operating system page
+     * cache. The caller must have checked that the file can be opened with direct IO, and that the buffers given to
+     * this swapper are suitably aligned.
+     */
+    SingleFilePageSwapper( File file, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction,
+            boolean noChannelStriping, boolean directIO ) throws IOException
     {
         this.fs = fs;
         this.file = file;
+        this.directIO = directIO;
         if ( noChannelStriping )
         {
             this.channelStripeCount = 1;
@@ -167,7 +180,7 @@ public class SingleFilePageSwapper implements PageSwapper
         this.channels = new StoreChannel[channelStripeCount];
         for ( int i = 0; i < channelStripeCount; i++ )
         {
-            channels[i] = fs.open( file, OpenMode.READ_WRITE );
+            channels[i] = openChannel();
         }
         this.filePageSize = filePageSize;
         this.onEviction = onEviction;
@@ -181,8 +194,29 @@ public class SingleFilePageSwapper implements PageSwapper
         {
             closeAndCollectExceptions( 0, e );
         }
-        hasPositionLock = channels[0].getClass() == StoreFileChannel.class
-                && StoreFileChannelUnwrapper.unwrap( channels[0] ).getClass() == sun.nio.ch.FileChannelImpl.class;
+        hasPositionLock = isPlatformFileChannel( channels[0] );
+    }
+
+    /**
+     * @return {@code true} if the given channel is backed by a file channel of the platform file system.
+     */
+    static boolean isPlatformFileChannel( StoreChannel channel )
+    {
+        return channel.getClass() == StoreFileChannel.class
+                && StoreFileChannelUnwrapper.unwrap( channel ).getClass() == sun.nio.ch.FileChannelImpl.class;
+    }
+
+    private StoreChannel openChannel() throws IOException
+    {
+        return directIO ? DirectIO.open( file ) : fs.open( file, OpenMode.READ_WRITE );
+    }
+
+    /**
+     * @return {@code true} if the file is read and written with direct IO, bypassing the operating system page cache.
+     */
+    public boolean isDirectIO()
+    {
+        return directIO;
     }
 
     private void increaseFileSizeTo( long newFileSize )
@@ -371,9 +405,9 @@ public class SingleFilePageSwapper implements PageSwapper
         long bytesRead = lockPositionReadVectorAndRetryIfInterrupted( startFilePageId, channel, fileOffset, srcs, MAX_INTERRUPTED_CHANNEL_REOPEN_ATTEMPTS );
         if ( bytesRead == -1 )
         {
-            for ( long address : bufferAddresses )
+            for ( int i = 0; i < length; i++ )
             {
-                UnsafeUtil.setMemory( address, filePageSize, MuninnPageCache.ZERO_BYTE );
+                UnsafeUtil.setMemory( bufferAddresses[arrayOffset + i], filePageSize, MuninnPageCache.ZERO_BYTE );
             }
             return 0;
         }
@@ -670,7 +704,7 @@ public class SingleFilePageSwapper implements PageSwapper
 
         try
         {
-            channels[stripe] = fs.open( file, OpenMode.READ_WRITE );
+            channels[stripe] = openChannel();
             if ( stripe == tokenChannelStripe )
             {
                 // The closing of a FileChannel also releases all associated file locks.
@@ -818,6 +852,7 @@ public class SingleFilePageSwapper implements PageSwapper
     {
         return "SingleFilePageSwapper{" +
                 "filePageSize=" + filePageSize +
+                ", directIO=" + directIO +
                 ", file=" + file +
                 '}';
     }
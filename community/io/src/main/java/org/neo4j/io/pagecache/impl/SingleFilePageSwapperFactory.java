@@ -51,6 +51,12 @@ public class SingleFilePageSwapperFactory implements PageSwapperFactory
             PageEvictionCallback onEviction,
             boolean createIfNotExist,
             boolean noChannelStriping ) throws IOException
+    {
+        createIfNecessary( file, createIfNotExist );
+        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, noChannelStriping );
+    }
+
+    protected void createIfNecessary( File file, boolean createIfNotExist ) throws IOException
     {
         if ( !fs.fileExists( file ) )
         {
@@ -63,7 +69,11 @@ public class SingleFilePageSwapperFactory implements PageSwapperFactory
                 throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
             }
         }
-        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, noChannelStriping );
+    }
+
+    protected FileSystemAbstraction fileSystem()
+    {
+        return fs;
     }
 
     @Override
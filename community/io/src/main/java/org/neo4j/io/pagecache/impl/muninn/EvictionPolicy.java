@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * Decides which pages the eviction sweep may evict, based on the access history that is recorded in the 3 bit usage
+ * stamp of each page in the {@link PageList}.
+ * <p>
+ * Page cursors and {@link MuninnPagedFile#touch(long, int) touch} record every access to a page with
+ * {@link #recordAccess(PageList, long, boolean)}, and the clock arm of the eviction sweep asks
+ * {@link #shouldEvict(PageList, long)} for every loaded page it passes. Both are called concurrently by many threads,
+ * and the usage stamp is updated in a benignly racy way, so the policies must be tolerant of lost updates.
+ * <p>
+ * The policy is chosen with the {@code evictionPolicy} feature toggle on {@link MuninnPageCache}.
+ */
+abstract class EvictionPolicy
+{
+    enum Type
+    {
+        /**
+         * The classic CLOCK policy, where every access increments the usage stamp, and the sweep decrements it.
+         */
+        CLOCK
+        {
+            @Override
+            EvictionPolicy create()
+            {
+                return new Clock();
+            }
+        },
+        /**
+         * A scan resistant policy in the style of 2Q, that keeps pages that are only accessed once, or only by scans,
+         * apart from the pages that are re-referenced.
+         */
+        TWO_QUEUE
+        {
+            @Override
+            EvictionPolicy create()
+            {
+                return new TwoQueue();
+            }
+        };
+
+        abstract EvictionPolicy create();
+    }
+
+    /**
+     * Record an access to the given loaded page.
+     *
+     * @param pages The page list the page belongs to.
+     * @param pageRef The page that was accessed.
+     * @param scan {@code true} if the access was made on behalf of a scan, see
+     * {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT}.
+     */
+    abstract void recordAccess( PageList pages, long pageRef, boolean scan );
+
+    /**
+     * Called by the eviction sweep for every loaded page it passes, in clock order. The policy may age the page as a
+     * side effect.
+     *
+     * @param pages The page list the page belongs to.
+     * @param pageRef The page that the clock arm is currently pointing at.
+     * @return {@code true} if the sweep should try to evict the page.
+     */
+    abstract boolean shouldEvict( PageList pages, long pageRef );
+
+    static final class Clock extends EvictionPolicy
+    {
+        @Override
+        void recordAccess( PageList pages, long pageRef, boolean scan )
+        {
+            pages.incrementUsage( pageRef );
+        }
+
+        @Override
+        boolean shouldEvict( PageList pages, long pageRef )
+        {
+            return pages.decrementUsage( pageRef );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "CLOCK";
+        }
+    }
+
+    /**
+     * The usage stamp is split into a protected bit, and a 2 bit usage count. Pages start out on probation, and are
+     * promoted to be protected when they are accessed again by something other than a scan. Pages on probation are
+     * evicted as soon as the clock arm reaches them. Protected pages are aged like in CLOCK, and demoted to probation
+     * when their count reaches zero, but only when the clock arm has passed more than {@code maxProtectedRun}
+     * protected pages in a row. As long as there are pages on probation scattered around the page cache, the protected
+     * pages are not aged at all, so no amount of scanning can push them out.
+     */
+    static final class TwoQueue extends EvictionPolicy
+    {
+        private static final int maxProtectedRun = getInteger( TwoQueue.class, "maxProtectedRun", 64 );
+
+        private static final long PROTECTED = 0b100;
+        private static final long MAX_PROTECTED_COUNT = 0b011;
+
+        // The number of protected pages the clock arm has passed since it last found a page on probation.
+        // This is intentionally not thread-safe; concurrent sweeps only make the estimate a little less precise.
+        private int protectedRun;
+
+        @Override
+        void recordAccess( PageList pages, long pageRef, boolean scan )
+        {
+            long usage = pages.getUsageCounter( pageRef );
+            if ( usage == 0 )
+            {
+                pages.compareAndSetUsage( pageRef, usage, 1 );
+            }
+            else if ( (usage & PROTECTED) == 0 )
+            {
+                if ( !scan )
+                {
+                    // Re-referenced while on probation.
+                    pages.compareAndSetUsage( pageRef, usage, PROTECTED | 1 );
+                }
+            }
+            else if ( (usage & MAX_PROTECTED_COUNT) < MAX_PROTECTED_COUNT )
+            {
+                pages.compareAndSetUsage( pageRef, usage, usage + 1 );
+            }
+        }
+
+        @Override
+        boolean shouldEvict( PageList pages, long pageRef )
+        {
+            long usage = pages.getUsageCounter( pageRef );
+            if ( (usage & PROTECTED) == 0 )
+            {
+                protectedRun = 0;
+                return true;
+            }
+            if ( protectedRun < maxProtectedRun )
+            {
+                protectedRun++;
+                return false;
+            }
+            long count = usage & MAX_PROTECTED_COUNT;
+            // When the count runs out, the page is demoted to probation, from where it is evicted on the next pass
+            // unless it is re-referenced in the meantime.
+            pages.compareAndSetUsage( pageRef, usage, count > 1 ? usage - 1 : 1 );
+            return false;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "TWO_QUEUE";
+        }
+    }
+}
@@ -27,13 +27,17 @@ import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.IOLimiter;
@@ -126,15 +130,15 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // How long the background flusher, if started, waits between each round of writing out dirty pages.
+    private static final int backgroundFlushIntervalMillis = getInteger(
+            MuninnPageCache.class, "backgroundFlushIntervalMillis", 1000 );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -158,40 +162,46 @@ public class MuninnPageCache implements PageCache
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final VersionContextSupplier versionContextSupplier;
     final PageList pages;
+    final EvictionPolicy evictionPolicy;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
     // accesses to take place without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
-    // Initially, the field is an AtomicInteger that counts from zero to the max page count, at which point all of the
-    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction thread
-    // to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects. The
-    // eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
-    // objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The pages are divided into stripes, each with its own freelist and eviction thread. There is only one stripe,
+    // unless the page cache has been partitioned into stripes. Only replaced while holding the monitor lock on this
+    // MuninnPageCache instance, and before any pages are in use.
+    //
+    // The freelist of a stripe is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
+    // Initially, the freelist is an AtomicInteger that counts from zero to the page count of the stripe, at which
+    // point all of its pages have been put in use. Once this happens, the freelist is set to null to allow the
+    // background eviction thread to start its work. From that point on, the freelist will operate as a concurrent stack
+    // of FreePage objects. The eviction thread pushes newly freed FreePage objects onto the stack, and page faulting
+    // threads pops FreePage objects from the stack. The FreePage objects are single-use, to avoid running into the
+    // ABA-problem.
+    private volatile PageStripe[] stripes;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
 
+    // The thread that runs the background flusher, if background flushing has been started.
+    private volatile Thread backgroundFlushThread;
+    // The limiter for the IO of the background flusher, or null if background flushing has not been started.
+    // Guarded by synchronized(this).
+    private IOLimiter backgroundFlushLimiter;
+
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
 
     // Only used by ensureThreadsInitialised while holding the monitor lock on this MuninnPageCache instance.
     private boolean threadsInitialised;
 
+    // Pages reserved for groups of files. Guarded by the monitor lock on this MuninnPageCache instance.
+    private final List<PageReservation> reservations = new ArrayList<>();
+    private long reservedPages;
+
     // 'true' (the default) if we should print any exceptions we get when unmapping a file.
     private boolean printExceptionsOnClose;
 
@@ -273,8 +283,10 @@ public class MuninnPageCache implements PageCache
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
         int maxPages = calculatePageCount( memoryAllocator, cachePageSize );
 
-        // Expose the total number of pages
+        // Expose the total number of pages, and how they are distributed among the mapped files
         pageCacheTracer.maxPages( maxPages );
+        pageCacheTracer.residentPages( this::residentPages );
+        pageCacheTracer.dirtyPages( this::dirtyPages );
         MemoryAllocationTracker memoryTracker = GlobalMemoryTracker.INSTANCE;
 
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
@@ -288,9 +300,11 @@ public class MuninnPageCache implements PageCache
         long alignment = swapperFactory.getRequiredBufferAlignment();
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
         this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment );
+        // Unlike the other toggles, the eviction policy is read whenever a page cache is created, so that different
+        // policies can be compared within the same JVM.
+        this.evictionPolicy = flag( MuninnPageCache.class, "evictionPolicy", EvictionPolicy.Type.CLOCK ).create();
         this.scheduler = jobScheduler;
-
-        setFreelistHead( new AtomicInteger() );
+        this.stripes = PageStripe.stripes( maxPages, 1, keepFree );
     }
 
     private static void verifyHacks()
@@ -425,6 +439,145 @@ public class MuninnPageCache implements PageCache
         return pagedFile;
     }
 
+    /**
+     * Reserve a number of pages in this page cache for the files that match the given predicate.
+     * <p>
+     * As long as the matching files together have no more than the reserved number of pages in memory, eviction will
+     * leave their pages alone, so that accesses to other files cannot push them out of memory. The reservation only
+     * applies to files that are mapped after it has been made. A file counts towards the first reservation that
+     * matches it.
+     *
+     * @param name The name of the reservation, for diagnostics.
+     * @param files The predicate that decides which files, by their canonical path, the reservation is for.
+     * @param pageCount The number of pages to reserve.
+     * @throws IllegalArgumentException if the page count is negative, or if the reservation would bring the total
+     * number of reserved pages so high, that eviction would not be able to keep enough pages free.
+     */
+    public synchronized void reservePages( String name, Predicate<File> files, long pageCount )
+    {
+        long maxReservedPages = pages.getPageCount() - 2L * keepFree;
+        if ( pageCount < 0 || reservedPages + pageCount > maxReservedPages )
+        {
+            throw new IllegalArgumentException( String.format(
+                    "Cannot reserve %s pages for %s. The page cache has %s pages, of which at most %s can be " +
+                    "reserved, and %s are already reserved.",
+                    pageCount, name, pages.getPageCount(), maxReservedPages, reservedPages ) );
+        }
+        reservations.add( new PageReservation( name, files, pageCount ) );
+        reservedPages += pageCount;
+    }
+
+    /**
+     * Partition the pages of this page cache into a number of stripes, each with its own freelist and its own eviction
+     * thread, to spread the contention on the freelist on machines with many cores.
+     * <p>
+     * A page faulting thread is assigned to a stripe by its thread id, and prefers the free pages of that stripe. It
+     * only takes free pages from the other stripes when its own stripe has none, and only evicts pages in its own
+     * stripe. The eviction thread of a stripe only sweeps the pages of that stripe, so the eviction threads do not
+     * compete for the same pages. The stripes are not tied to NUMA nodes, or to any other property of the hardware.
+     * <p>
+     * The page cache must be partitioned before any files are mapped.
+     *
+     * @param stripeCount The number of stripes to partition the pages into.
+     * @throws IllegalArgumentException if the stripe count is less than one, or if there are too few pages in the page
+     * cache for every stripe to keep a few of them free.
+     * @throws IllegalStateException if files have already been mapped, or the page cache is closed.
+     */
+    public synchronized void partitionIntoStripes( int stripeCount )
+    {
+        assertNotClosed();
+        if ( threadsInitialised )
+        {
+            throw new IllegalStateException( "The page cache must be partitioned before any files are mapped" );
+        }
+        int pageCount = pages.getPageCount();
+        if ( stripeCount < 1 || pageCount / stripeCount < 2 * keepFree )
+        {
+            throw new IllegalArgumentException( String.format(
+                    "Cannot partition the page cache into %s stripes. There must be at least one stripe, and at " +
+                    "least %s pages per stripe, but the page cache has %s pages.", stripeCount, 2 * keepFree,
+                    pageCount ) );
+        }
+        stripes = PageStripe.stripes( pageCount, stripeCount, keepFree );
+    }
+
+    int stripeCount()
+    {
+        return stripes.length;
+    }
+
+    /**
+     * Start continuously writing dirty pages to their files in the background, such that a later flush, for instance
+     * by a checkpoint, only has to write out the pages that were dirtied since the background flusher last passed by.
+     * <p>
+     * The background flusher writes consecutive dirty pages of a file with vectored writes, and lets the given limiter
+     * pace its IO. It does not force the files, which is still left to {@link #flushAndForce(IOLimiter)}. The
+     * background flusher is stopped when the page cache is closed.
+     *
+     * @param limiter The {@link IOLimiter} that decides how fast the background flusher is allowed to write.
+     * @throws IllegalStateException if background flushing has already been started, or the page cache is closed.
+     * @throws IOException if the background flusher could not be scheduled, in which case the page cache is closed.
+     */
+    public synchronized void startBackgroundFlushing( IOLimiter limiter ) throws IOException
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+        assertNotClosed();
+        if ( backgroundFlushLimiter != null )
+        {
+            throw new IllegalStateException( "Background flushing has already been started" );
+        }
+        backgroundFlushLimiter = limiter;
+        if ( threadsInitialised )
+        {
+            scheduleBackgroundThread( new BackgroundFlushTask( this, limiter ) );
+        }
+    }
+
+    /**
+     * Find the reservation that the pages of the given file count towards, if any. Must be called while holding the
+     * monitor lock on this MuninnPageCache instance.
+     */
+    PageReservation reservationFor( File file )
+    {
+        for ( PageReservation reservation : reservations )
+        {
+            if ( reservation.covers( file ) )
+            {
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    private Map<File,Long> residentPages()
+    {
+        Map<File,Long> residentPages = new HashMap<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            residentPages.put( current.file, current.pagedFile.residentPages() );
+            current = current.next;
+        }
+        return residentPages;
+    }
+
+    private long dirtyPages()
+    {
+        long dirtyPages = 0;
+        int pageCount = pages.getPageCount();
+        for ( int pageId = 0; pageId < pageCount; pageId++ )
+        {
+            if ( pages.isModified( pages.deref( pageId ) ) )
+            {
+                dirtyPages++;
+            }
+        }
+        return dirtyPages;
+    }
+
     @Override
     public synchronized Optional<PagedFile> getExistingMapping( File file ) throws IOException
     {
@@ -490,9 +643,24 @@ public class MuninnPageCache implements PageCache
         }
         threadsInitialised = true;
 
+        for ( PageStripe stripe : stripes )
+        {
+            scheduleBackgroundThread( new EvictionTask( this, stripe ) );
+        }
+        if ( backgroundFlushLimiter != null )
+        {
+            scheduleBackgroundThread( new BackgroundFlushTask( this, backgroundFlushLimiter ) );
+        }
+    }
+
+    /**
+     * Note: Must be called while synchronizing on the MuninnPageCache instance.
+     */
+    private void scheduleBackgroundThread( BackgroundTask task ) throws IOException
+    {
         try
         {
-            scheduler.schedule( Group.PAGE_CACHE, new EvictionTask( this ) );
+            scheduler.schedule( Group.PAGE_CACHE, task );
         }
         catch ( Exception e )
         {
@@ -531,6 +699,7 @@ public class MuninnPageCache implements PageCache
                         prev.next = current.next;
                     }
                     pageCacheTracer.unmappedFile( current.file );
+                    file.awaitReadAheads();
                     flushAndCloseWithoutFail( file );
                     break;
                 }
@@ -605,6 +774,36 @@ public class MuninnPageCache implements PageCache
         clearEvictorException();
     }
 
+    @Override
+    public void flushWithoutForce( IOLimiter limiter ) throws IOException
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+        List<PagedFile> files = listExistingMappings();
+
+        try ( MajorFlushEvent ignored = pageCacheTracer.beginCacheFlush() )
+        {
+            for ( PagedFile file : files )
+            {
+                MuninnPagedFile pagedFile = (MuninnPagedFile) file;
+                try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( pagedFile.swapper ) )
+                {
+                    pagedFile.flushInBackground( fileFlush.flushEventOpportunity(), limiter );
+                }
+                catch ( ClosedChannelException e )
+                {
+                    if ( pagedFile.getRefCount() > 0 )
+                    {
+                        throw e;
+                    }
+                    // Otherwise: The file was unmapped concurrently, which flushed it anyway.
+                }
+            }
+        }
+    }
+
     private void flushAllPages( List<PagedFile> files, IOLimiter limiter ) throws IOException
     {
         for ( PagedFile file : files )
@@ -647,6 +846,19 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    void scheduleReadAhead( ReadAhead readAhead )
+    {
+        try
+        {
+            scheduler.schedule( Group.PAGE_CACHE, readAhead );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            // The scheduler is shutting down. Read-ahead is only an optimisation, so we just skip it.
+            readAhead.complete();
+        }
+    }
+
     private void flushFile( MuninnPagedFile muninnPagedFile,  IOLimiter limiter ) throws IOException
     {
         try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( muninnPagedFile.swapper ) )
@@ -701,8 +913,13 @@ public class MuninnPageCache implements PageCache
 
         closed = true;
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( PageStripe stripe : stripes )
+        {
+            interrupt( stripe.evictionThread );
+            stripe.evictionThread = null;
+        }
+        interrupt( backgroundFlushThread );
+        backgroundFlushThread = null;
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -766,52 +983,71 @@ public class MuninnPageCache implements PageCache
 
     long grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // Review the comment on the stripes field before making changes to
         // this part of the code.
+        // We first go to the freelist of the stripe of the current thread, and
+        // then, if that is empty, to the freelists of the other stripes. If
+        // they are all empty, then we do our own eviction within our own
+        // stripe to get a free page.
+        PageStripe[] stripes = this.stripes;
+        int home = stripes.length == 1 ? 0 : (int) (Thread.currentThread().getId() % stripes.length);
+        for (;;)
+        {
+            assertHealthy();
+            long pageRef = grabFreePage( stripes[home] );
+            for ( int i = 1; pageRef == 0 && i < stripes.length; i++ )
+            {
+                pageRef = grabFreePage( stripes[(home + i) % stripes.length] );
+            }
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            stripes[home].unparkEvictor();
+            pageRef = cooperativelyEvict( stripes[home], faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
+
+    private long grabFreePage( PageStripe stripe )
+    {
         // Whatever the case, we're going to the head-pointer of the freelist,
         // and in doing so, we can discover a number of things.
-        // We can discover a MuninnPage object, in which case we can try to
-        // CAS the freelist pointer to the value of the MuninnPage.nextFree
-        // pointer, and if this succeeds then we've grabbed that page.
-        // We can discover a FreePage object, in which case we'll do a similar
-        // dance by attempting to CAS the freelist to the FreePage objects next
-        // pointer, and again, if we succeed then we've grabbed the MuninnPage
-        // given by the FreePage object.
+        // We can discover an AtomicInteger, in which case we try to increment
+        // it, and if this succeeds then we've grabbed the page with that id
+        // within the stripe.
+        // We can discover a FreePage object, in which case we attempt to CAS
+        // the freelist to the FreePage objects next pointer, and if we succeed
+        // then we've grabbed the page given by the FreePage object.
         // We can discover a null-pointer, in which case the freelist has just
         // been emptied for whatever it contained before. New FreePage objects
         // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
+        // going to wait around for that to happen, so we return 0.
         // If we find a FreePage object on the freelist, then it is important
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
-        Object current;
         for (;;)
         {
-            assertHealthy();
-            current = getFreelistHead();
+            Object current = stripe.getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
-                int pageCount = pages.getPageCount();
                 AtomicInteger counter = (AtomicInteger) current;
                 int pageId = counter.get();
-                if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
+                if ( pageId < stripe.pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
                 {
-                    return pages.deref( pageId );
+                    return pages.deref( stripe.firstPageId + pageId );
                 }
-                if ( pageId >= pageCount )
+                if ( pageId >= stripe.pageCount )
                 {
-                    compareAndSetFreelistHead( current, null );
+                    stripe.compareAndSetFreelistHead( current, null );
                 }
             }
             else if ( current instanceof FreePage )
@@ -822,7 +1058,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( stripe.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.pageRef;
                 }
@@ -830,33 +1066,33 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private long cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
+    private long cooperativelyEvict( PageStripe stripe, PageFaultEvent faultEvent ) throws IOException
     {
         int iterations = 0;
-        int pageCount = pages.getPageCount();
-        int clockArm = ThreadLocalRandom.current().nextInt( pageCount );
+        int endPageId = stripe.endPageId();
+        int clockArm = stripe.firstPageId + ThreadLocalRandom.current().nextInt( stripe.pageCount );
         boolean evicted = false;
         long pageRef;
         do
         {
             assertHealthy();
-            if ( getFreelistHead() != null )
+            if ( stripe.getFreelistHead() != null )
             {
                 return 0;
             }
 
-            if ( clockArm == pageCount )
+            if ( clockArm == endPageId )
             {
                 if ( iterations == cooperativeEvictionLiveLockThreshold )
                 {
                     throw cooperativeEvictionLiveLock();
                 }
                 iterations++;
-                clockArm = 0;
+                clockArm = stripe.firstPageId;
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && evictionPolicy.shouldEvict( pages, pageRef ) && !pages.isReserved( pageRef ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -881,79 +1117,92 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
-    {
-        if ( evictorParked )
-        {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
-        }
-    }
-
-    private void parkEvictor( long parkNanos )
-    {
-        // Only called from the background eviction thread!
-        evictorParked = true;
-        LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private void setFreelistHead( Object newFreelistHead )
-    {
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
-    }
-
     /**
      * Scan through all the pages, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
-     * unpark our thread as needed.
+     * unpark our thread as needed. Only the pages of the given stripe are
+     * swept.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( PageStripe stripe )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        stripe.evictionThread = Thread.currentThread();
+        int clockArm = stripe.firstPageId;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( stripe );
             try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                clockArm = evictPages( stripe, pageCountToEvict, clockArm, evictionRunEvent );
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
         // the freelist. This signal is looked out for in grabFreePage.
-        setFreelistHead( shutdownSignal );
+        stripe.setFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    /**
+     * Periodically write out the dirty pages of all mapped files, until the page cache is closed.
+     */
+    void continuouslyFlushPages( IOLimiter limiter )
+    {
+        backgroundFlushThread = Thread.currentThread();
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos( backgroundFlushIntervalMillis );
+
+        while ( !closed )
+        {
+            LockSupport.parkNanos( this, parkNanos );
+            if ( Thread.interrupted() || closed )
+            {
+                return;
+            }
+            flushPagesInBackground( limiter );
+        }
+    }
+
+    void flushPagesInBackground( IOLimiter limiter )
+    {
+        FileMapping current = mappedFiles;
+        while ( current != null && !closed )
+        {
+            MuninnPagedFile pagedFile = current.pagedFile;
+            long startNanos = System.nanoTime();
+            try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( pagedFile.swapper ) )
+            {
+                long bytesWritten = pagedFile.flushInBackground( fileFlush.flushEventOpportunity(), limiter );
+                if ( bytesWritten > 0 )
+                {
+                    pageCacheTracer.backgroundFlush( bytesWritten, System.nanoTime() - startNanos );
+                }
+            }
+            catch ( IOException ignore )
+            {
+                // Either the file was unmapped concurrently, in which case it was flushed as part of the unmapping,
+                // or the file cannot be written to, in which case its pages remain dirty, and the failure will be
+                // reported by the next checkpoint or eviction that tries to write them.
+            }
+            current = current.next;
+        }
+    }
+
+    private int parkUntilEvictionRequired( PageStripe stripe )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
+        int keepFree = stripe.keepFree;
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            stripe.parkEvictor( this, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
 
-            Object freelistHead = getFreelistHead();
+            Object freelistHead = stripe.getFreelistHead();
 
             if ( freelistHead == null )
             {
@@ -970,7 +1219,7 @@ public class MuninnPageCache implements PageCache
             else if ( freelistHead.getClass() == AtomicInteger.class )
             {
                 AtomicInteger counter = (AtomicInteger) freelistHead;
-                long count = pages.getPageCount() - counter.get();
+                long count = stripe.pageCount - counter.get();
                 if ( count < keepFree )
                 {
                     return count < 0 ? keepFree : (int) (keepFree - count);
@@ -979,13 +1228,27 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    /**
+     * Sweep the pages of all stripes for pages to evict.
+     */
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( 0, pages.getPageCount(), pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    private int evictPages( PageStripe stripe, int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( stripe.firstPageId, stripe.endPageId(), pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    private int evictPages( int firstPageId, int endPageId, int pageCountToEvict, int clockArm,
+            EvictionRunEvent evictionRunEvent )
     {
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.getPageCount() )
+            if ( clockArm == endPageId )
             {
-                clockArm = 0;
+                clockArm = firstPageId;
             }
 
             if ( closed )
@@ -995,7 +1258,7 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && evictionPolicy.shouldEvict( pages, pageRef ) && !pages.isReserved( pageRef ) )
             {
                 try
                 {
@@ -1029,18 +1292,37 @@ public class MuninnPageCache implements PageCache
 
     void addFreePageToFreelist( long pageRef )
     {
+        PageStripe stripe = stripeOf( pageRef );
         Object current;
         FreePage freePage = new FreePage( pageRef );
         do
         {
-            current = getFreelistHead();
-            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > pages.getPageCount() )
+            current = stripe.getFreelistHead();
+            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > stripe.pageCount )
             {
                 current = null;
             }
             freePage.setNext( current );
         }
-        while ( !compareAndSetFreelistHead( current, freePage ) );
+        while ( !stripe.compareAndSetFreelistHead( current, freePage ) );
+    }
+
+    private PageStripe stripeOf( long pageRef )
+    {
+        PageStripe[] stripes = this.stripes;
+        if ( stripes.length == 1 )
+        {
+            return stripes[0];
+        }
+        int pageId = pages.toId( pageRef );
+        for ( PageStripe stripe : stripes )
+        {
+            if ( stripe.contains( pageId ) )
+            {
+                return stripe;
+            }
+        }
+        throw new IllegalArgumentException( "Page reference " + pageRef + " is not in any stripe" );
     }
 
     void clearEvictorException()
@@ -1066,9 +1348,25 @@ public class MuninnPageCache implements PageCache
         return sb.toString();
     }
 
+    /**
+     * @return {@code true} if any stripe still has pages that have never been used. Page faulting threads take free
+     * pages from any stripe, so then there are still plenty of free pages.
+     */
+    private boolean hasNeverUsedPages()
+    {
+        for ( PageStripe stripe : stripes )
+        {
+            if ( stripe.getFreelistHead() instanceof AtomicInteger )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     void vacuum( SwapperSet swappers )
     {
-        if ( getFreelistHead() instanceof AtomicInteger && swappers.countAvailableIds() > 200 )
+        if ( hasNeverUsedPages() && swappers.countAvailableIds() > 200 )
         {
             return; // We probably still have plenty of free pages left. Don't bother vacuuming just yet.
         }
@@ -38,7 +38,9 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
 
@@ -67,6 +69,13 @@ abstract class MuninnPageCursor extends PageCursor
     protected boolean eagerFlush;
     protected boolean noFault;
     protected boolean noGrow;
+    protected boolean readAhead;
+    protected boolean scan;
+    // Hits and faults of a cursor that is marked as scan traffic, reported to the page cache tracer when it is closed.
+    private long scanHits;
+    private long scanFaults;
+    // Whether this cursor had to fault in the page of the last pin itself.
+    protected boolean pageFaulted;
     protected long currentPageId;
     protected long nextPageId;
     protected MuninnPageCursor linkedCursor;
@@ -102,6 +111,8 @@ abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault | isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        this.readAhead = !noFault & isFlagRaised( pf_flags, PF_READ_AHEAD );
+        this.scan = isFlagRaised( pf_flags, PF_TRANSIENT );
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -180,6 +191,8 @@ abstract class MuninnPageCursor extends PageCursor
         while ( cursor != null && cursor.pagedFile != null )
         {
             cursor.unpinCurrentPage();
+            cursor.closeReadAhead();
+            cursor.reportScanAccesses();
             // We null out the pagedFile field to allow it and its (potentially big) translation table to be garbage
             // collected when the file is unmapped, since the cursors can stick around in thread local caches, etc.
             cursor.pagedFile = null;
@@ -218,6 +231,23 @@ abstract class MuninnPageCursor extends PageCursor
         return linkedCursor;
     }
 
+    private void reportScanAccesses()
+    {
+        if ( scanHits + scanFaults > 0 )
+        {
+            pagedFile.reportScanAccesses( scanHits, scanFaults );
+            scanHits = 0;
+            scanFaults = 0;
+        }
+    }
+
+    /**
+     * Called when the cursor is closed, to let go of any read-ahead that it might have started.
+     */
+    protected void closeReadAhead()
+    {
+    }
+
     /**
      * Must be called by {@link #unpinCurrentPage()}.
      */
@@ -265,6 +295,7 @@ abstract class MuninnPageCursor extends PageCursor
     protected void pin( long filePageId, boolean writeLock ) throws IOException
     {
         pinEvent = tracer.beginPin( writeLock, filePageId, swapper );
+        pageFaulted = false;
         int chunkId = MuninnPagedFile.computeChunkId( filePageId );
         // The chunkOffset is the addressing offset into the chunk array object for the relevant array slot. Using
         // this, we can access the array slot with Unsafe.
@@ -297,6 +328,10 @@ abstract class MuninnPageCursor extends PageCursor
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
                     pinEvent.hit();
+                    if ( scan )
+                    {
+                        scanHits++;
+                    }
                     return;
                 }
                 if ( locked )
@@ -339,6 +374,11 @@ abstract class MuninnPageCursor extends PageCursor
             {
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
+                pageFaulted = true;
+                if ( scan )
+                {
+                    scanFaults++;
+                }
                 pinCursorToPage( pageRef, filePageId, swapper );
                 return true;
             }
@@ -24,6 +24,8 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
@@ -37,10 +39,14 @@ import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static org.neo4j.util.FeatureToggles.getInteger;
+
 final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 {
     static final int UNMAPPED_TTE = -1;
@@ -59,9 +65,14 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final long headerStateLastPageIdMask = 0x8000_FFFF_FFFF_FFFFL;
     private static final int PF_LOCK_MASK = PF_SHARED_WRITE_LOCK | PF_SHARED_READ_LOCK;
 
+    // The maximum number of pages that a touch will fault in with a single vectored read.
+    private static final int touchVectorSize = getInteger( MuninnPagedFile.class, "touchVectorSize", 32 );
+
     final MuninnPageCache pageCache;
+    private final EvictionPolicy evictionPolicy;
     final int filePageSize;
     private final PageCacheTracer pageCacheTracer;
+    private final PageCursorTracerSupplier pageCursorTracerSupplier;
     final LatchMap pageFaultLatches;
 
     // This is the table where we translate file-page-ids to cache-page-ids. Only one thread can perform a resize at
@@ -78,6 +89,9 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     // Used to trace the causes of any exceptions from getLastPageId.
     private volatile Exception closeStackTrace;
 
+    // The number of read-aheads that are currently loading pages into this file.
+    private final AtomicInteger readAheadsInProgress = new AtomicInteger();
+
     // max modifier transaction id among evicted pages for this file
     private static final long evictedTransactionIdOffset = UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "highestEvictedTransactionId" );
     @SuppressWarnings( "unused" ) // accessed using unsafe
@@ -124,9 +138,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     {
         super( pageCache.pages );
         this.pageCache = pageCache;
+        this.evictionPolicy = pageCache.evictionPolicy;
         this.filePageSize = filePageSize;
         this.cursorFactory = new CursorFactory( this, pageCursorTracerSupplier, pageCacheTracer, versionContextSupplier );
         this.pageCacheTracer = pageCacheTracer;
+        this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.pageFaultLatches = new LatchMap();
 
         // The translation table is an array of arrays of integers that are either UNMAPPED_TTE, or the id of a page in
@@ -162,7 +178,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         translationTable = tt;
 
         initialiseLastPageId( lastPageId );
-        this.swapperId = getSwappers().allocate( swapper );
+        this.swapperId = getSwappers().allocate( swapper, pageCache.reservationFor( file ) );
     }
 
     @Override
@@ -362,6 +378,29 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             throws IOException
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
+        flushDirtyPages( flushes, forClosing, false, limiter );
+        swapper.force();
+    }
+
+    /**
+     * Write the dirty pages of this file to the swapper on behalf of the background flusher, or ahead of a checkpoint,
+     * without forcing them.
+     * <p>
+     * Unlike a flush for a checkpoint, this does not wait for pages that are concurrently locked by eviction or by
+     * another flush. Those pages are either about to be cleaned by someone else, or will be picked up by the next
+     * background flush or checkpoint.
+     *
+     * @return the number of bytes written.
+     */
+    long flushInBackground( FlushEventOpportunity flushes, IOLimiter limiter ) throws IOException
+    {
+        return flushDirtyPages( flushes, false, true, limiter );
+    }
+
+    private long flushDirtyPages( FlushEventOpportunity flushes, boolean forClosing, boolean skipLockedPages,
+            IOLimiter limiter ) throws IOException
+    {
+        long bytesWritten = 0;
         long[] pages = new long[translationTableChunkSize];
         long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
         long[] bufferAddresses = new long[translationTableChunkSize];
@@ -397,6 +436,10 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                         long flushStamp = 0;
                         if ( !(forClosing ? tryExclusiveLock( pageRef ) : ((flushStamp = tryFlushLock( pageRef )) != 0)) )
                         {
+                            if ( skipLockedPages )
+                            {
+                                break;
+                            }
                             continue;
                         }
                         if ( isBoundTo( pageRef, swapperId, filePageId ) && isModified( pageRef ) )
@@ -426,22 +469,22 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 }
                 if ( pagesGrabbed > 0 )
                 {
-                    vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
+                    bytesWritten += vectoredFlush(
+                            pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
                     limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
                     pagesGrabbed = 0;
                 }
             }
             if ( pagesGrabbed > 0 )
             {
-                vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
+                bytesWritten += vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
                 limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
             }
         }
-
-        swapper.force();
+        return bytesWritten;
     }
 
-    private void vectoredFlush(
+    private long vectoredFlush(
             long[] pages, long[] bufferAddresses, long[] flushStamps, int pagesGrabbed,
             FlushEventOpportunity flushOpportunity, boolean forClosing ) throws IOException
     {
@@ -462,6 +505,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             successful = true;
 
             // There are now 0 'grabbed' pages
+            return bytesWritten;
         }
         catch ( IOException ioe )
         {
@@ -530,6 +574,15 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         swapper.force();
     }
 
+    /**
+     * @return the number of pages of this file that are currently in memory.
+     */
+    long residentPages()
+    {
+        SwapperSet.SwapperMapping mapping = getSwappers().getAllocation( swapperId );
+        return mapping == null ? 0 : mapping.residentPages();
+    }
+
     @Override
     public long getLastPageId() throws FileIsNotMappedException
     {
@@ -541,6 +594,286 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return state & headerStateLastPageIdMask;
     }
 
+    @Override
+    public int touch( long pageId, int count ) throws IOException
+    {
+        return touch( pageId, count, null );
+    }
+
+    /**
+     * Like {@link #touch(long, int)}, but also records which pages were loaded by this call.
+     * @param loadedPages If not {@code null}, a bit will be set for every page loaded, relative to {@code pageId}.
+     */
+    int touch( long pageId, int count, BitSet loadedPages ) throws IOException
+    {
+        if ( pageId < 0 || count < 0 )
+        {
+            throw new IllegalArgumentException( "Cannot touch " + count + " pages from page id " + pageId );
+        }
+        long endPageId = Math.min( pageId + count, getLastPageId() + 1 );
+        if ( endPageId <= pageId )
+        {
+            return 0;
+        }
+        int maxChunkId = computeChunkId( endPageId - 1 );
+        if ( translationTable.length <= maxChunkId )
+        {
+            expandCapacity( maxChunkId );
+        }
+
+        PageCursorTracer tracer = pageCursorTracerSupplier.get();
+        tracer.init( pageCacheTracer );
+        int vectorSize = (int) Math.min( touchVectorSize, endPageId - pageId );
+        TouchVector vector = new TouchVector( vectorSize );
+        vector.basePageId = pageId;
+        vector.loadedPages = loadedPages;
+        int pagesLoaded = 0;
+        for ( long filePageId = pageId; filePageId < endPageId; filePageId++ )
+        {
+            LatchMap.Latch latch = latchUnmappedPage( filePageId );
+            if ( latch == null )
+            {
+                // The page is already in memory, or someone else is faulting it in. Either way, the run is broken.
+                pagesLoaded += faultTouchedPages( vector );
+                continue;
+            }
+            if ( vector.length == 0 )
+            {
+                vector.startFilePageId = filePageId;
+            }
+            grabPageForTouch( vector, latch, tracer.beginPin( false, filePageId, swapper ) );
+            if ( vector.length == vectorSize )
+            {
+                pagesLoaded += faultTouchedPages( vector );
+            }
+        }
+        pagesLoaded += faultTouchedPages( vector );
+        return pagesLoaded;
+    }
+
+    /**
+     * Take the page fault latch for the given file page, if that page is not in memory.
+     * @return the latch, or {@code null} if the page is in memory, or is concurrently being faulted in.
+     */
+    private LatchMap.Latch latchUnmappedPage( long filePageId )
+    {
+        int[] chunk = translationTable[computeChunkId( filePageId )];
+        long chunkOffset = computeChunkOffset( filePageId );
+        if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+        {
+            return null;
+        }
+        LatchMap.Latch latch = pageFaultLatches.takeOrAwaitLatch( filePageId );
+        if ( latch != null && UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+        {
+            // We raced with another page fault, and lost.
+            latch.release();
+            return null;
+        }
+        return latch;
+    }
+
+    private void grabPageForTouch( TouchVector vector, LatchMap.Latch latch, PinEvent pinEvent ) throws IOException
+    {
+        int index = vector.length;
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        vector.latches[index] = latch;
+        vector.pinEvents[index] = pinEvent;
+        vector.faultEvents[index] = faultEvent;
+        try
+        {
+            vector.pageRefs[index] = grabFreeAndExclusivelyLockedPage( faultEvent );
+            initBuffer( vector.pageRefs[index] );
+        }
+        catch ( Throwable throwable )
+        {
+            // The page we failed on is not part of the vector, but it must be released along with the rest of it.
+            if ( vector.pageRefs[index] != 0 )
+            {
+                pageCache.addFreePageToFreelist( vector.pageRefs[index] );
+            }
+            vector.pageRefs[index] = 0;
+            vector.length++;
+            abortTouch( vector, throwable );
+            throw throwable;
+        }
+        vector.length++;
+    }
+
+    private int faultTouchedPages( TouchVector vector ) throws IOException
+    {
+        int length = vector.length;
+        if ( length == 0 )
+        {
+            return 0;
+        }
+        long bytesRead;
+        try
+        {
+            // Check if we're racing with unmapping, before the read would otherwise reopen the file channel.
+            getLastPageId();
+            bytesRead = faultVectored( vector.pageRefs, vector.bufferAddresses, length, swapper, swapperId,
+                    vector.startFilePageId );
+        }
+        catch ( Throwable throwable )
+        {
+            abortTouch( vector, throwable );
+            throw throwable;
+        }
+        int[][] tt = translationTable;
+        for ( int i = 0; i < length; i++ )
+        {
+            long filePageId = vector.startFilePageId + i;
+            long pageRef = vector.pageRefs[i];
+            UnsafeUtil.putIntVolatile( tt[computeChunkId( filePageId )], computeChunkOffset( filePageId ), toId( pageRef ) );
+            // Count the touch as an access, so the page is not immediately up for eviction. It is a one-off access
+            // though, that must not by itself make the page part of the working set.
+            recordAccess( pageRef, true );
+            unlockExclusive( pageRef );
+            vector.latches[i].release();
+            PageFaultEvent faultEvent = vector.faultEvents[i];
+            faultEvent.addBytesRead( Math.max( 0, Math.min( filePageSize, bytesRead - ((long) i) * filePageSize ) ) );
+            faultEvent.setCachePageId( toId( pageRef ) );
+            faultEvent.done();
+            vector.pinEvents[i].done();
+        }
+        if ( vector.loadedPages != null )
+        {
+            int fromIndex = (int) (vector.startFilePageId - vector.basePageId);
+            vector.loadedPages.set( fromIndex, fromIndex + length );
+        }
+        vector.clear();
+        return length;
+    }
+
+    private void abortTouch( TouchVector vector, Throwable throwable )
+    {
+        for ( int i = 0; i < vector.length; i++ )
+        {
+            long pageRef = vector.pageRefs[i];
+            if ( pageRef != 0 )
+            {
+                if ( isLoaded( pageRef ) )
+                {
+                    // The page got a file page id before the fault failed, so the eviction thread will pick it up.
+                    unlockExclusive( pageRef );
+                }
+                else
+                {
+                    pageCache.addFreePageToFreelist( pageRef );
+                }
+            }
+            vector.latches[i].release();
+            vector.faultEvents[i].done( throwable );
+            vector.pinEvents[i].done();
+        }
+        vector.clear();
+    }
+
+    /**
+     * The state of a run of consecutive pages that are being faulted in by a {@link #touch(long, int)} call.
+     */
+    private static final class TouchVector
+    {
+        final long[] pageRefs;
+        final long[] bufferAddresses;
+        final LatchMap.Latch[] latches;
+        final PinEvent[] pinEvents;
+        final PageFaultEvent[] faultEvents;
+        long basePageId;
+        BitSet loadedPages;
+        long startFilePageId;
+        int length;
+
+        TouchVector( int size )
+        {
+            pageRefs = new long[size];
+            bufferAddresses = new long[size];
+            latches = new LatchMap.Latch[size];
+            pinEvents = new PinEvent[size];
+            faultEvents = new PageFaultEvent[size];
+        }
+
+        void clear()
+        {
+            for ( int i = 0; i < length; i++ )
+            {
+                pageRefs[i] = 0;
+                latches[i] = null;
+                pinEvents[i] = null;
+                faultEvents[i] = null;
+            }
+            length = 0;
+        }
+    }
+
+    /**
+     * Record an access to the given page with the eviction policy of the page cache.
+     *
+     * @param pageRef The page that was accessed.
+     * @param scan {@code true} if the access was made on behalf of a scan, see {@link PagedFile#PF_TRANSIENT}.
+     */
+    void recordAccess( long pageRef, boolean scan )
+    {
+        evictionPolicy.recordAccess( this, pageRef, scan );
+    }
+
+    /**
+     * Report the page cache hits and faults of a cursor that was marked as scan traffic.
+     */
+    void reportScanAccesses( long scanHits, long scanFaults )
+    {
+        pageCacheTracer.scanHits( scanHits );
+        pageCacheTracer.scanFaults( scanFaults );
+    }
+
+    /**
+     * Asynchronously load the given range of pages into memory, ahead of a sequentially reading cursor.
+     *
+     * @param scan {@code true} if the cursor is marked as scan traffic, in which case the pages loaded by the
+     * read-ahead are reported as scan faults.
+     */
+    ReadAhead readAhead( long startPageId, int count, boolean scan )
+    {
+        ReadAhead readAhead = new ReadAhead( this, startPageId, count, scan, pageCacheTracer, pageCursorTracerSupplier );
+        pageCache.scheduleReadAhead( readAhead );
+        return readAhead;
+    }
+
+    /**
+     * Register a read-ahead that is about to load pages into this file. The last unmapping of the file will wait for
+     * all registered read-aheads to finish, before closing the file. Read-aheads must call {@link #endReadAhead()}
+     * when they are done.
+     * @return {@code true} if the read-ahead can go ahead, or {@code false} if the file has already been unmapped.
+     */
+    boolean beginReadAhead()
+    {
+        readAheadsInProgress.incrementAndGet();
+        if ( getRefCount() == 0 )
+        {
+            endReadAhead();
+            return false;
+        }
+        return true;
+    }
+
+    void endReadAhead()
+    {
+        readAheadsInProgress.decrementAndGet();
+    }
+
+    /**
+     * Wait for all read-aheads to finish. Must only be called after the last reference to the file has been released,
+     * so that no new read-aheads can begin.
+     */
+    void awaitReadAheads()
+    {
+        while ( readAheadsInProgress.get() > 0 )
+        {
+            Thread.yield();
+        }
+    }
+
     private FileIsNotMappedException fileIsNotMappedException()
     {
         FileIsNotMappedException exception = new FileIsNotMappedException( file() );
@@ -25,9 +25,17 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 
+import static org.neo4j.util.FeatureToggles.getInteger;
+
 final class MuninnReadPageCursor extends MuninnPageCursor
 {
+    private static final int readAheadPages = getInteger( MuninnReadPageCursor.class, "readAheadPages", 64 );
+
     private long lockStamp;
+    // The read-ahead window we are currently reading through, and the one after it, if it has been started.
+    private ReadAhead readAheadWindow;
+    private ReadAhead nextReadAheadWindow;
+    private long previousPageId = UNBOUND_PAGE_ID;
 
     MuninnReadPageCursor( long victimPage, PageCursorTracer pageCursorTracer,
             VersionContextSupplier versionContextSupplier )
@@ -59,9 +67,73 @@ final class MuninnReadPageCursor extends MuninnPageCursor
         nextPageId++;
         pin( currentPageId, false );
         verifyContext();
+        if ( readAhead )
+        {
+            readAhead( currentPageId, lastPageId );
+        }
         return true;
     }
 
+    private void readAhead( long pageId, long lastPageId )
+    {
+        if ( readAheadWindow != null && !readAheadWindow.contains( pageId ) )
+        {
+            readAheadWindow.retire();
+            readAheadWindow = nextReadAheadWindow;
+            nextReadAheadWindow = null;
+            if ( readAheadWindow != null && !readAheadWindow.contains( pageId ) )
+            {
+                // We are not reading sequentially anymore, so start over from the page we are at now.
+                closeReadAhead();
+            }
+        }
+
+        if ( readAheadWindow == null )
+        {
+            // Only start reading ahead once we see the cursor moving on to the next page, so cursors that jump around
+            // in the file do not cause any wasted IO.
+            if ( previousPageId != UNBOUND_PAGE_ID && pageId == previousPageId + 1 )
+            {
+                readAheadWindow = beginReadAhead( pageId + 1, lastPageId );
+            }
+        }
+        else
+        {
+            if ( !pageFaulted )
+            {
+                readAheadWindow.accessed( pageId );
+            }
+            // Start loading the next window once we are half way through the current one, so the cursor never has
+            // to wait for the disk as long as it can keep up.
+            if ( nextReadAheadWindow == null && pageId - readAheadWindow.startPageId() >= readAheadPages / 2 )
+            {
+                nextReadAheadWindow = beginReadAhead( readAheadWindow.endPageId(), lastPageId );
+            }
+        }
+        previousPageId = pageId;
+    }
+
+    private ReadAhead beginReadAhead( long startPageId, long lastPageId )
+    {
+        long count = Math.min( readAheadPages, lastPageId + 1 - startPageId );
+        return count > 0 ? pagedFile.readAhead( startPageId, (int) count, scan ) : null;
+    }
+
+    @Override
+    protected void closeReadAhead()
+    {
+        if ( readAheadWindow != null )
+        {
+            readAheadWindow.retire();
+            readAheadWindow = null;
+        }
+        if ( nextReadAheadWindow != null )
+        {
+            nextReadAheadWindow.retire();
+            nextReadAheadWindow = null;
+        }
+    }
+
     @Override
     protected boolean tryLockPage( long pageRef )
     {
@@ -78,7 +150,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
     {
         reset( pageRef );
-        pagedFile.incrementUsage( pageRef );
+        pagedFile.recordAccess( pageRef, scan );
     }
 
     @Override
@@ -301,7 +301,7 @@ class PageList
         }
     }
 
-    private byte getUsageCounter( long pageRef )
+    byte getUsageCounter( long pageRef )
     {
         return (byte) (UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) & MASK_USAGE_COUNT);
     }
@@ -345,6 +345,23 @@ class PageList
         return usage <= 1;
     }
 
+    /**
+     * Set the usage stamp to the given value, if it is currently the expected value. The usage stamp is 3 bits, so
+     * the values must be between 0 and 7. This is used by eviction policies that give their own meaning to the bits.
+     **/
+    void compareAndSetUsage( long pageRef, long expectedUsage, long usage )
+    {
+        // This is intentionally left benignly racy for performance.
+        long address = offPageBinding( pageRef );
+        long value = UnsafeUtil.getLongVolatile( address );
+        if ( (value & MASK_USAGE_COUNT) == expectedUsage )
+        {
+            long update = (value & ~MASK_USAGE_COUNT) | (usage & MASK_USAGE_COUNT);
+            // See `incrementUsage` about why we use `compareAndSwapLong`.
+            UnsafeUtil.compareAndSwapLong( null, address, value, update );
+        }
+    }
+
     long getFilePageId( long pageRef )
     {
         long filePageId = UnsafeUtil.getLong( offPageBinding( pageRef ) ) >>> SHIFT_FILE_PAGE_ID;
@@ -435,6 +452,76 @@ class PageList
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
+        pagesFaulted( swapperId, 1 );
+    }
+
+    /**
+     * Fault in a run of consecutive file pages, starting at the given {@code startFilePageId}, with a single vectored
+     * read. Each of the given pages must be exclusively locked and unbound, just like for
+     * {@link #fault(long, PageSwapper, int, long, PageFaultEvent)}.
+     *
+     * @param pageRefs The pages to fault into, one for each file page in the run.
+     * @param bufferAddresses Scratch space for the buffer addresses of the pages. Must be at least {@code length} long.
+     * @param length The number of pages in the run.
+     * @return The total number of bytes read for the run.
+     */
+    long faultVectored( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId,
+            long startFilePageId ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+        }
+        // Same as for single page faults; assign the file page ids first, so the pages are considered loaded and
+        // eventually returned to the freelist if the read fails, and only bind the swapper once the read succeeded.
+        for ( int i = 0; i < length; i++ )
+        {
+            setFilePageId( pageRefs[i], startFilePageId + i );
+            bufferAddresses[i] = getAddress( pageRefs[i] );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, cachePageSize, 0, length );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+        pagesFaulted( swapperId, length );
+        return bytesRead;
+    }
+
+    private void pagesFaulted( int swapperId, int count )
+    {
+        SwapperSet.SwapperMapping swapperMapping = swappers.getAllocation( swapperId );
+        if ( swapperMapping != null )
+        {
+            swapperMapping.pagesFaulted( count );
+        }
+    }
+
+    /**
+     * @return {@code true} if the given loaded page belongs to a file with a {@link PageReservation}, and that
+     * reservation is not yet exceeded, such that the page should not be evicted.
+     */
+    boolean isReserved( long pageRef )
+    {
+        int swapperId = getSwapperId( pageRef );
+        if ( swapperId == 0 )
+        {
+            return false;
+        }
+        SwapperSet.SwapperMapping swapperMapping = swappers.getAllocation( swapperId );
+        return swapperMapping != null && swapperMapping.reservation != null &&
+               swapperMapping.reservation.isWithinReservation();
     }
 
     private static IllegalArgumentException swapperCannotBeNull()
@@ -493,6 +580,7 @@ class PageList
                     flushModifiedPage( pageRef, evictionEvent, filePageId, swapper );
                 }
                 swapper.evicted( filePageId );
+                swapperMapping.pageEvicted();
             }
         }
         clearBinding( pageRef );
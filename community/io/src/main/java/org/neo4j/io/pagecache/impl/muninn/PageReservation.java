@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A number of pages in the page cache that are reserved for a group of files.
+ * <p>
+ * As long as the files of the group have no more pages in memory than what is reserved for them, the eviction sweep
+ * will pass their pages by. The reservation does not limit how many pages the files can have in memory; pages beyond
+ * the reservation are evicted as usual.
+ *
+ * @see MuninnPageCache#reservePages(String, Predicate, long)
+ */
+final class PageReservation
+{
+    private final String name;
+    private final Predicate<File> files;
+    private final long reservedPages;
+    private final AtomicLong residentPages = new AtomicLong();
+
+    PageReservation( String name, Predicate<File> files, long reservedPages )
+    {
+        this.name = name;
+        this.files = files;
+        this.reservedPages = reservedPages;
+    }
+
+    String name()
+    {
+        return name;
+    }
+
+    boolean covers( File file )
+    {
+        return files.test( file );
+    }
+
+    long reservedPages()
+    {
+        return reservedPages;
+    }
+
+    long residentPages()
+    {
+        return residentPages.get();
+    }
+
+    /**
+     * @return {@code true} if the files of this reservation have no more pages in memory than what is reserved.
+     */
+    boolean isWithinReservation()
+    {
+        return residentPages.get() <= reservedPages;
+    }
+
+    void pagesFaulted( int count )
+    {
+        residentPages.addAndGet( count );
+    }
+
+    void pagesEvicted( long count )
+    {
+        residentPages.addAndGet( -count );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageReservation[" + name + ", reserved=" + reservedPages + ", resident=" + residentPages.get() + "]";
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A contiguous range of the pages in the page cache, with its own freelist and its own eviction thread.
+ * <p>
+ * Normally the page cache is a single stripe. When the page cache is partitioned into stripes, page faulting threads
+ * prefer the free pages of the stripe that their thread id assigns them to, so that they do not all contend on the same
+ * freelist, and the eviction threads only ever sweep the pages of their own stripe.
+ *
+ * @see MuninnPageCache#partitionIntoStripes(int)
+ */
+final class PageStripe
+{
+    // The field offset to unsafely access the freelist field.
+    private static final long freelistOffset = UnsafeUtil.getFieldOffset( PageStripe.class, "freelist" );
+
+    final int index;
+    final int firstPageId;
+    final int pageCount;
+    final int keepFree;
+
+    // The freelist of the stripe. See the comment on MuninnPageCache.grabFreeAndExclusivelyLockedPage for how it is
+    // used. Initially, the AtomicInteger counts from zero to the page count of the stripe.
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile Object freelist;
+
+    // The thread that runs the eviction algorithm for this stripe. We unpark this when we've run out of free pages
+    // to grab.
+    volatile Thread evictionThread;
+    // True if the eviction thread is currently parked, without someone having signalled it to wake up. This is used
+    // as a weak guard for unparking the eviction thread, because calling unpark too much (from many page faulting
+    // threads) can cause contention on the locks protecting that threads scheduling meta-data in the OS kernel.
+    private volatile boolean evictorParked;
+
+    PageStripe( int index, int firstPageId, int pageCount, int keepFree )
+    {
+        this.index = index;
+        this.firstPageId = firstPageId;
+        this.pageCount = pageCount;
+        this.keepFree = Math.min( keepFree, pageCount / 2 );
+        setFreelistHead( new AtomicInteger() );
+    }
+
+    /**
+     * Split the given number of pages into the given number of stripes of nearly equal size.
+     */
+    static PageStripe[] stripes( int totalPageCount, int stripeCount, int keepFree )
+    {
+        PageStripe[] stripes = new PageStripe[stripeCount];
+        int firstPageId = 0;
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            int pageCount = (int) ((long) totalPageCount * (i + 1) / stripeCount) - firstPageId;
+            stripes[i] = new PageStripe( i, firstPageId, pageCount, keepFree );
+            firstPageId += pageCount;
+        }
+        return stripes;
+    }
+
+    boolean contains( int pageId )
+    {
+        return pageId >= firstPageId && pageId - firstPageId < pageCount;
+    }
+
+    int endPageId()
+    {
+        return firstPageId + pageCount;
+    }
+
+    void unparkEvictor()
+    {
+        if ( evictorParked )
+        {
+            evictorParked = false;
+            LockSupport.unpark( evictionThread );
+        }
+    }
+
+    void parkEvictor( Object blocker, long parkNanos )
+    {
+        // Only called from the eviction thread of this stripe!
+        evictorParked = true;
+        LockSupport.parkNanos( blocker, parkNanos );
+        evictorParked = false;
+    }
+
+    Object getFreelistHead()
+    {
+        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+    }
+
+    boolean compareAndSetFreelistHead( Object expected, Object update )
+    {
+        return UnsafeUtil.compareAndSwapObject( this, freelistOffset, expected, update );
+    }
+
+    void setFreelistHead( Object newFreelistHead )
+    {
+        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageStripe[" + index + "]{firstPageId=" + firstPageId + ", pageCount=" + pageCount + '}';
+    }
+}
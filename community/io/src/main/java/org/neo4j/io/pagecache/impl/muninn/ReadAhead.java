@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+
+/**
+ * A window of pages that are loaded into memory in the background, ahead of a cursor that is reading sequentially
+ * with the {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD} flag.
+ * <p>
+ * The background job records which pages it loaded, and the cursor records which pages of the window it accessed
+ * without having to fault them in itself. Once both the job has completed, and the cursor has moved past the window,
+ * the window reports to the {@link PageCacheTracer} how many of the loaded pages were hit, and how many were wasted.
+ * If the cursor is marked as scan traffic, the loaded pages are also reported as scan faults.
+ */
+final class ReadAhead implements Runnable
+{
+    private final MuninnPagedFile pagedFile;
+    private final long startPageId;
+    private final int count;
+    private final boolean scan;
+    private final PageCacheTracer pageCacheTracer;
+    private final PageCursorTracerSupplier pageCursorTracerSupplier;
+    // Only written by the read-ahead job.
+    private final BitSet loadedPages;
+    // Only written by the cursor.
+    private final BitSet accessedPages;
+    // Guarded by synchronized(this).
+    private boolean completed;
+    private boolean retired;
+
+    ReadAhead( MuninnPagedFile pagedFile, long startPageId, int count, boolean scan, PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier )
+    {
+        this.pagedFile = pagedFile;
+        this.startPageId = startPageId;
+        this.count = count;
+        this.scan = scan;
+        this.pageCacheTracer = pageCacheTracer;
+        this.pageCursorTracerSupplier = pageCursorTracerSupplier;
+        this.loadedPages = new BitSet( count );
+        this.accessedPages = new BitSet( count );
+    }
+
+    @Override
+    public void run()
+    {
+        if ( !pagedFile.beginReadAhead() )
+        {
+            complete();
+            return;
+        }
+        try
+        {
+            pagedFile.touch( startPageId, count, loadedPages );
+        }
+        catch ( IOException ignore )
+        {
+            // A failed read-ahead is no worse than no read-ahead at all. The cursor will fault the pages in itself,
+            // and will get to see the exception if the failure persists.
+        }
+        finally
+        {
+            // Publish the page faults of this thread to the page cache tracer.
+            pageCursorTracerSupplier.get().reportEvents();
+            complete();
+            pagedFile.endReadAhead();
+        }
+    }
+
+    long startPageId()
+    {
+        return startPageId;
+    }
+
+    long endPageId()
+    {
+        return startPageId + count;
+    }
+
+    boolean contains( long pageId )
+    {
+        return startPageId <= pageId && pageId < startPageId + count;
+    }
+
+    /**
+     * Record that the cursor accessed the given page, without faulting it in.
+     */
+    void accessed( long pageId )
+    {
+        accessedPages.set( (int) (pageId - startPageId) );
+    }
+
+    synchronized void complete()
+    {
+        completed = true;
+        if ( retired )
+        {
+            report();
+        }
+    }
+
+    /**
+     * Called by the cursor when it has moved beyond this window, or is closed.
+     */
+    synchronized void retire()
+    {
+        retired = true;
+        if ( completed )
+        {
+            report();
+        }
+    }
+
+    private void report()
+    {
+        long loaded = loadedPages.cardinality();
+        long hits = 0;
+        for ( int i = loadedPages.nextSetBit( 0 ); i >= 0; i = loadedPages.nextSetBit( i + 1 ) )
+        {
+            if ( accessedPages.get( i ) )
+            {
+                hits++;
+            }
+        }
+        pageCacheTracer.readAheadHits( hits );
+        pageCacheTracer.readAheadWasted( loaded - hits );
+        if ( scan )
+        {
+            // The pages were faulted in on behalf of the scan, so they must not count against the working set.
+            pageCacheTracer.scanFaults( loaded );
+        }
+    }
+}
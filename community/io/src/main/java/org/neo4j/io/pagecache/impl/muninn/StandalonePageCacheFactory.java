@@ -20,9 +20,11 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.compress.CompressingPageSwapperFactory;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
@@ -46,7 +48,8 @@ public final class StandalonePageCacheFactory
 
     public static PageCache createPageCache( FileSystemAbstraction fileSystem, JobScheduler jobScheduler )
     {
-        SingleFilePageSwapperFactory factory = new SingleFilePageSwapperFactory();
+        // Does not compress anything, but refuses to open compressed files, rather than reading them as garbage.
+        PageSwapperFactory factory = new CompressingPageSwapperFactory( new SingleFilePageSwapperFactory(), file -> false );
         factory.open( fileSystem, Configuration.EMPTY );
 
         PageCacheTracer cacheTracer = PageCacheTracer.NULL;
@@ -25,6 +25,7 @@ import org.eclipse.collections.api.set.primitive.MutableIntSet;
 import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.neo4j.io.pagecache.PageSwapper;
@@ -42,10 +43,10 @@ import static org.neo4j.helpers.Numbers.safeCastIntToShort;
 final class SwapperSet
 {
     // The sentinel is used to reserve swapper id 0 as a special value.
-    private static final SwapperMapping SENTINEL = new SwapperMapping( 0, null );
+    private static final SwapperMapping SENTINEL = new SwapperMapping( 0, null, null );
     // The tombstone is used as a marker to reserve allocation entries that have been freed, but not yet vacuumed.
     // An allocation cannot be reused until it has been vacuumed.
-    private static final SwapperMapping TOMBSTONE = new SwapperMapping( 0, null );
+    private static final SwapperMapping TOMBSTONE = new SwapperMapping( 0, null, null );
     private static final int MAX_SWAPPER_ID = (1 << 21) - 1;
     private volatile SwapperMapping[] swapperMappings = new SwapperMapping[] { SENTINEL };
     private final MutableIntSet free = new IntHashSet();
@@ -57,22 +58,80 @@ final class SwapperSet
      */
     static final class SwapperMapping
     {
+        private static final long RELEASED = -1;
+
         public final int id;
         public final PageSwapper swapper;
+        /**
+         * The reservation that the pages of this swapper count towards, or {@code null}.
+         */
+        public final PageReservation reservation;
+        /**
+         * The number of pages currently in memory, that are bound to this swapper, or {@link #RELEASED} once the
+         * mapping has been freed and its pages no longer count towards the reservation.
+         */
+        private final AtomicLong residentPages = new AtomicLong();
 
-        private SwapperMapping( int id, PageSwapper swapper )
+        private SwapperMapping( int id, PageSwapper swapper, PageReservation reservation )
         {
             this.id = id;
             this.swapper = swapper;
+            this.reservation = reservation;
+        }
+
+        long residentPages()
+        {
+            return Math.max( residentPages.get(), 0 );
+        }
+
+        void pagesFaulted( int count )
+        {
+            // The reservation is incremented first, so that a concurrent release() either sees our pages in the
+            // resident count of this mapping and takes them back out of the reservation, or makes us undo it here.
+            if ( reservation != null )
+            {
+                reservation.pagesFaulted( count );
+            }
+            if ( residentPages.getAndUpdate( c -> c == RELEASED ? c : c + count ) == RELEASED && reservation != null )
+            {
+                reservation.pagesEvicted( count );
+            }
+        }
+
+        void pageEvicted()
+        {
+            if ( residentPages.getAndUpdate( c -> c == RELEASED ? c : c - 1 ) != RELEASED && reservation != null )
+            {
+                reservation.pagesEvicted( 1 );
+            }
+        }
+
+        /**
+         * Give the pages of this mapping that are still in memory back to the reservation. Once the mapping has been
+         * freed, pages that are evicted later can no longer find it, so they would otherwise count towards the
+         * reservation forever.
+         */
+        void release()
+        {
+            long resident = residentPages.getAndSet( RELEASED );
+            if ( resident != RELEASED && reservation != null )
+            {
+                reservation.pagesEvicted( resident );
+            }
         }
     }
 
     /**
-     * Get the {@link SwapperMapping} for the given swapper id.
+     * Get the {@link SwapperMapping} for the given swapper id, or {@code null} if the id is not allocated.
      */
     SwapperMapping getAllocation( int id )
     {
         checkId( id );
+        SwapperMapping[] swapperMappings = this.swapperMappings;
+        if ( id >= swapperMappings.length )
+        {
+            return null;
+        }
         SwapperMapping swapperMapping = swapperMappings[id];
         if ( swapperMapping == null || swapperMapping == TOMBSTONE )
         {
@@ -92,7 +151,15 @@ final class SwapperSet
     /**
      * Allocate a new swapper id for the given {@link PageSwapper}.
      */
-    synchronized int allocate( PageSwapper swapper )
+    int allocate( PageSwapper swapper )
+    {
+        return allocate( swapper, null );
+    }
+
+    /**
+     * Allocate a new swapper id for the given {@link PageSwapper}, whose pages count towards the given reservation.
+     */
+    synchronized int allocate( PageSwapper swapper, PageReservation reservation )
     {
         SwapperMapping[] swapperMappings = this.swapperMappings;
 
@@ -103,7 +170,7 @@ final class SwapperSet
             {
                 int id = free.intIterator().next();
                 free.remove( id );
-                swapperMappings[id] = new SwapperMapping( id, swapper );
+                swapperMappings[id] = new SwapperMapping( id, swapper, reservation );
                 this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
                 return id;
             }
@@ -116,7 +183,7 @@ final class SwapperSet
             throw new IllegalStateException( "All swapper ids are allocated: " + MAX_SWAPPER_ID );
         }
         swapperMappings = Arrays.copyOf( swapperMappings, id + 1 );
-        swapperMappings[id] = new SwapperMapping( id, swapper );
+        swapperMappings[id] = new SwapperMapping( id, swapper, reservation );
         this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
         return id;
     }
@@ -136,6 +203,7 @@ final class SwapperSet
                     "PageSwapper allocation id " + id + " is currently not allocated. Likely a double free bug." );
         }
         swapperMappings[id] = TOMBSTONE;
+        current.release();
         this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
         freeCounter++;
         if ( freeCounter == 20 )
@@ -19,6 +19,11 @@
  */
 package org.neo4j.io.pagecache.monitoring;
 
+import java.io.File;
+import java.util.Map;
+
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap;
+
 /**
  * The PageCacheCounters exposes internal counters from the page cache.
  * The data for these counters is sourced through the PageCacheTracer API.
@@ -80,14 +85,63 @@ public interface PageCacheCounters
      */
     long evictionExceptions();
 
+    /**
+     * @return The number of pages loaded by read-ahead, that were subsequently accessed by the reading cursor.
+     */
+    long readAheadHits();
+
+    /**
+     * @return The number of pages loaded by read-ahead, that were never accessed by the reading cursor.
+     */
+    long readAheadWasted();
+
+    /**
+     * @return The number of page cache hits by cursors marked as scan traffic with
+     * {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT}, thus far. These are included in {@link #hits()}.
+     */
+    long scanHits();
+
+    /**
+     * @return The number of page faults on behalf of cursors marked as scan traffic with
+     * {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT}, thus far. These are included in {@link #faults()}.
+     */
+    long scanFaults();
+
     /**
      * @return The cache hit ratio observed thus far.
      */
     double hitRatio();
 
+    /**
+     * @return The cache hit ratio observed thus far, of the accesses that are not marked as scan traffic. Scans mostly
+     * fault, no matter how the page cache is managed, so this is the ratio to compare eviction policies by.
+     */
+    double workingSetHitRatio();
+
     /**
      * @return The current usage ration of number of used pages to the total number of pages or {@code NaN} if it cannot
      * be determined.
      */
     double usageRatio();
+
+    /**
+     * @return The current ratio of dirty pages to the total number of pages, or {@code NaN} if it cannot be determined.
+     */
+    double dirtyPageRatio();
+
+    /**
+     * @return The average rate, in bytes per second, at which the background flusher has written dirty pages thus far,
+     * measured over the time it spent writing.
+     */
+    double backgroundFlushThroughput();
+
+    /**
+     * @return The number of pages in memory for each of the mapped files, by their canonical path.
+     */
+    Map<File,Long> residentPages();
+
+    /**
+     * @return The sampled heat map of the hits, faults and evictions in the mapped files, by ranges of pages.
+     */
+    PageCacheHeatMap heatMap();
 }
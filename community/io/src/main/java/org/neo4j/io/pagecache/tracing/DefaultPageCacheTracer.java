@@ -21,8 +21,13 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.io.pagecache.PageSwapper;
@@ -43,7 +48,16 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesMapped = new LongAdder();
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
+    protected final LongAdder readAheadHits = new LongAdder();
+    protected final LongAdder readAheadWasted = new LongAdder();
+    protected final LongAdder scanHits = new LongAdder();
+    protected final LongAdder scanFaults = new LongAdder();
+    protected final LongAdder backgroundFlushBytesWritten = new LongAdder();
+    protected final LongAdder backgroundFlushNanos = new LongAdder();
     protected final AtomicLong maxPages = new AtomicLong();
+    protected volatile Supplier<Map<File,Long>> residentPages = Collections::emptyMap;
+    protected volatile LongSupplier dirtyPages = () -> 0;
+    protected final PageCacheHeatMap heatMap = new PageCacheHeatMap();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -114,7 +128,8 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         @Override
         public EvictionEvent beginEviction()
         {
-            return evictionEvent;
+            int weight = heatMap.sampleRandomly();
+            return weight == 0 ? evictionEvent : new SampledEvictionEvent( weight );
         }
 
         @Override
@@ -137,6 +152,61 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         }
     };
 
+    /**
+     * An eviction event that also records the evicted page in the heat map. The eviction threads evict pages
+     * concurrently, so unlike the shared eviction event, these are created per sampled eviction.
+     */
+    private class SampledEvictionEvent implements EvictionEvent
+    {
+        private final int weight;
+        private long filePageId;
+        private PageSwapper swapper;
+
+        SampledEvictionEvent( int weight )
+        {
+            this.weight = weight;
+        }
+
+        @Override
+        public void setFilePageId( long filePageId )
+        {
+            this.filePageId = filePageId;
+        }
+
+        @Override
+        public void setSwapper( PageSwapper swapper )
+        {
+            this.swapper = swapper;
+        }
+
+        @Override
+        public FlushEventOpportunity flushEventOpportunity()
+        {
+            return flushEventOpportunity;
+        }
+
+        @Override
+        public void threwException( IOException exception )
+        {
+            evictionEvent.threwException( exception );
+        }
+
+        @Override
+        public void setCachePageId( long cachePageId )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            evictionEvent.close();
+            if ( swapper != null )
+            {
+                heatMap.eviction( swapper.file(), filePageId, weight );
+            }
+        }
+    }
+
     @Override
     public void mappedFile( File file )
     {
@@ -233,6 +303,39 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return evictionExceptions.sum();
     }
 
+    @Override
+    public long readAheadHits()
+    {
+        return readAheadHits.sum();
+    }
+
+    @Override
+    public long readAheadWasted()
+    {
+        return readAheadWasted.sum();
+    }
+
+    @Override
+    public long scanHits()
+    {
+        return scanHits.sum();
+    }
+
+    @Override
+    public long scanFaults()
+    {
+        return scanFaults.sum();
+    }
+
+    @Override
+    public double workingSetHitRatio()
+    {
+        // The scan counters are reported separately from the cursor counters, so they can momentarily be ahead.
+        long workingSetHits = Math.max( 0, hits() - scanHits() );
+        long workingSetFaults = Math.max( 0, faults() - scanFaults() );
+        return MathUtil.portion( workingSetHits, workingSetFaults );
+    }
+
     @Override
     public double hitRatio()
     {
@@ -245,6 +348,31 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return (faults.sum() - evictions.sum()) / (double) maxPages.get();
     }
 
+    @Override
+    public double dirtyPageRatio()
+    {
+        return dirtyPages.getAsLong() / (double) maxPages.get();
+    }
+
+    @Override
+    public double backgroundFlushThroughput()
+    {
+        double seconds = backgroundFlushNanos.sum() / (double) TimeUnit.SECONDS.toNanos( 1 );
+        return seconds == 0 ? 0d : backgroundFlushBytesWritten.sum() / seconds;
+    }
+
+    @Override
+    public Map<File,Long> residentPages()
+    {
+        return residentPages.get();
+    }
+
+    @Override
+    public PageCacheHeatMap heatMap()
+    {
+        return heatMap;
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -299,9 +427,52 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         this.flushes.add( flushes );
     }
 
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+        this.readAheadHits.add( readAheadHits );
+    }
+
+    @Override
+    public void readAheadWasted( long readAheadWasted )
+    {
+        this.readAheadWasted.add( readAheadWasted );
+    }
+
+    @Override
+    public void scanHits( long scanHits )
+    {
+        this.scanHits.add( scanHits );
+    }
+
+    @Override
+    public void scanFaults( long scanFaults )
+    {
+        this.scanFaults.add( scanFaults );
+    }
+
     @Override
     public void maxPages( long maxPages )
     {
         this.maxPages.set( maxPages );
     }
+
+    @Override
+    public void residentPages( Supplier<Map<File,Long>> residentPages )
+    {
+        this.residentPages = residentPages;
+    }
+
+    @Override
+    public void dirtyPages( LongSupplier dirtyPages )
+    {
+        this.dirtyPages = dirtyPages;
+    }
+
+    @Override
+    public void backgroundFlush( long bytesWritten, long nanos )
+    {
+        this.backgroundFlushBytesWritten.add( bytesWritten );
+        this.backgroundFlushNanos.add( nanos );
+    }
 }
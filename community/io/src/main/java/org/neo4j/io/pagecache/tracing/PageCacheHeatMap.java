@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.tracing;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A sampling profiler of where in the mapped files the page cache gets its hits, faults and evictions.
+ * <p>
+ * The files are divided into ranges of {@link #PAGES_PER_RANGE} file pages, and the heat map counts the hits, faults
+ * and evictions of each range. Only one in every {@link #samplingInterval() sampling interval} accesses and evictions
+ * is recorded, with a weight of the sampling interval, so the counts are estimates. The heat map is disabled, and
+ * records nothing, while the sampling interval is zero.
+ * <p>
+ * Page cursor tracers feed the heat map with the hits and faults of the cursors of their thread, and with the
+ * evictions the cursors do while faulting. The {@link DefaultPageCacheTracer} feeds it with the evictions of the
+ * eviction threads.
+ */
+public final class PageCacheHeatMap
+{
+    /**
+     * A heat map that is always disabled.
+     */
+    public static final PageCacheHeatMap DISABLED = new PageCacheHeatMap( false );
+
+    /**
+     * The number of file pages in every range; 8 MiB of 8 KiB pages.
+     */
+    public static final int PAGES_PER_RANGE = 1024;
+
+    private static final int HITS = 0;
+    private static final int FAULTS = 1;
+    private static final int EVICTIONS = 2;
+
+    private final boolean configurable;
+    private final Map<File,Map<Long,AtomicLongArray>> files = new ConcurrentHashMap<>();
+    private volatile int samplingInterval;
+
+    public PageCacheHeatMap()
+    {
+        this( true );
+    }
+
+    private PageCacheHeatMap( boolean configurable )
+    {
+        this.configurable = configurable;
+    }
+
+    /**
+     * @param samplingInterval record one in this many accesses and evictions, or nothing if zero.
+     * @throws IllegalArgumentException if the sampling interval is negative.
+     * @throws UnsupportedOperationException if this is the {@link #DISABLED} heat map, and the interval is not zero.
+     */
+    public void setSamplingInterval( int samplingInterval )
+    {
+        if ( samplingInterval < 0 )
+        {
+            throw new IllegalArgumentException( "The sampling interval cannot be negative, but was " +
+                                                samplingInterval + "." );
+        }
+        if ( !configurable && samplingInterval != 0 )
+        {
+            throw new UnsupportedOperationException( "This heat map cannot be enabled." );
+        }
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * @return the number of accesses and evictions per sample, or zero if the heat map is disabled.
+     */
+    public int samplingInterval()
+    {
+        return samplingInterval;
+    }
+
+    /**
+     * Decide whether an event, that is not otherwise counted towards a sampling interval, should be sampled.
+     *
+     * @return the weight of the sample, or zero if the event should not be sampled.
+     */
+    int sampleRandomly()
+    {
+        int interval = samplingInterval;
+        return interval != 0 && ThreadLocalRandom.current().nextInt( interval ) == 0 ? interval : 0;
+    }
+
+    public void hit( File file, long filePageId, int weight )
+    {
+        record( file, filePageId, HITS, weight );
+    }
+
+    public void fault( File file, long filePageId, int weight )
+    {
+        record( file, filePageId, FAULTS, weight );
+    }
+
+    public void eviction( File file, long filePageId, int weight )
+    {
+        record( file, filePageId, EVICTIONS, weight );
+    }
+
+    private void record( File file, long filePageId, int counter, int weight )
+    {
+        if ( file == null || filePageId < 0 )
+        {
+            return;
+        }
+        Map<Long,AtomicLongArray> ranges = files.computeIfAbsent( file, f -> new ConcurrentHashMap<>() );
+        ranges.computeIfAbsent( filePageId / PAGES_PER_RANGE, range -> new AtomicLongArray( 3 ) )
+                .addAndGet( counter, weight );
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void clear()
+    {
+        files.clear();
+    }
+
+    /**
+     * @return the page ranges that have seen any hits, faults or evictions, ordered by file and by range.
+     */
+    public List<PageRange> pageRanges()
+    {
+        List<PageRange> pageRanges = new ArrayList<>();
+        for ( Map.Entry<File,Map<Long,AtomicLongArray>> file : files.entrySet() )
+        {
+            for ( Map.Entry<Long,AtomicLongArray> range : file.getValue().entrySet() )
+            {
+                AtomicLongArray counters = range.getValue();
+                pageRanges.add( new PageRange( file.getKey(), range.getKey() * PAGES_PER_RANGE,
+                        counters.get( HITS ), counters.get( FAULTS ), counters.get( EVICTIONS ) ) );
+            }
+        }
+        pageRanges.sort( Comparator.comparing( PageRange::file ).thenComparingLong( PageRange::firstFilePageId ) );
+        return pageRanges;
+    }
+
+    /**
+     * The estimated hits, faults and evictions of a range of pages in a file.
+     */
+    public static final class PageRange
+    {
+        private final File file;
+        private final long firstFilePageId;
+        private final long hits;
+        private final long faults;
+        private final long evictions;
+
+        PageRange( File file, long firstFilePageId, long hits, long faults, long evictions )
+        {
+            this.file = file;
+            this.firstFilePageId = firstFilePageId;
+            this.hits = hits;
+            this.faults = faults;
+            this.evictions = evictions;
+        }
+
+        public File file()
+        {
+            return file;
+        }
+
+        public long firstFilePageId()
+        {
+            return firstFilePageId;
+        }
+
+        public long lastFilePageId()
+        {
+            return firstFilePageId + PAGES_PER_RANGE - 1;
+        }
+
+        public long hits()
+        {
+            return hits;
+        }
+
+        public long faults()
+        {
+            return faults;
+        }
+
+        public long evictions()
+        {
+            return evictions;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "PageRange{file=" + file + ", pages=" + firstFilePageId + ".." + lastFilePageId() + ", hits=" +
+                   hits + ", faults=" + faults + ", evictions=" + evictions + '}';
+        }
+    }
+}
@@ -20,6 +20,10 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
@@ -130,6 +134,36 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long readAheadHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long readAheadWasted()
+        {
+            return 0;
+        }
+
+        @Override
+        public long scanHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long scanFaults()
+        {
+            return 0;
+        }
+
+        @Override
+        public double workingSetHitRatio()
+        {
+            return 0d;
+        }
+
         @Override
         public double hitRatio()
         {
@@ -142,6 +176,18 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0d;
         }
 
+        @Override
+        public double dirtyPageRatio()
+        {
+            return 0d;
+        }
+
+        @Override
+        public double backgroundFlushThroughput()
+        {
+            return 0d;
+        }
+
         @Override
         public void pins( long pins )
         {
@@ -187,11 +233,58 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void readAheadHits( long readAheadHits )
+        {
+        }
+
+        @Override
+        public void readAheadWasted( long readAheadWasted )
+        {
+        }
+
+        @Override
+        public void scanHits( long scanHits )
+        {
+        }
+
+        @Override
+        public void scanFaults( long scanFaults )
+        {
+        }
+
         @Override
         public void maxPages( long maxPages )
         {
         }
 
+        @Override
+        public Map<File,Long> residentPages()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public PageCacheHeatMap heatMap()
+        {
+            return PageCacheHeatMap.DISABLED;
+        }
+
+        @Override
+        public void residentPages( Supplier<Map<File,Long>> residentPages )
+        {
+        }
+
+        @Override
+        public void dirtyPages( LongSupplier dirtyPages )
+        {
+        }
+
+        @Override
+        public void backgroundFlush( long bytesWritten, long nanos )
+        {
+        }
+
         @Override
         public String toString()
         {
@@ -282,9 +375,52 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void flushes( long flushes );
 
+    /**
+     * Report number of pages loaded by read-ahead, that were subsequently accessed
+     * @param readAheadHits number of read-ahead pages that were accessed
+     */
+    void readAheadHits( long readAheadHits );
+
+    /**
+     * Report number of pages loaded by read-ahead, that were never accessed
+     * @param readAheadWasted number of read-ahead pages that were not accessed
+     */
+    void readAheadWasted( long readAheadWasted );
+
+    /**
+     * Report number of page cache hits by cursors that are marked as scan traffic
+     * @param scanHits number of scan hits
+     */
+    void scanHits( long scanHits );
+
+    /**
+     * Report number of page faults on behalf of cursors that are marked as scan traffic
+     * @param scanFaults number of scan faults
+     */
+    void scanFaults( long scanFaults );
+
     /**
      * Sets the number of available pages.
      * @param maxPages the total number of available pages.
      */
     void maxPages( long maxPages );
+
+    /**
+     * Sets the source of the number of pages in memory for each of the mapped files.
+     * @param residentPages supplier of the number of in-memory pages per mapped file.
+     */
+    void residentPages( Supplier<Map<File,Long>> residentPages );
+
+    /**
+     * Sets the source of the number of dirty pages in the page cache.
+     * @param dirtyPages supplier of the number of pages that have been modified, but not yet flushed.
+     */
+    void dirtyPages( LongSupplier dirtyPages );
+
+    /**
+     * Report a round of background flushing
+     * @param bytesWritten number of bytes written by the round
+     * @param nanos time spent writing, in nanoseconds
+     */
+    void backgroundFlush( long bytesWritten, long nanos );
 }
@@ -26,6 +26,7 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
@@ -45,12 +46,31 @@ public class DefaultPageCursorTracer implements PageCursorTracer
     private long flushes;
 
     private PageCacheTracer pageCacheTracer = PageCacheTracer.NULL;
+    private PageCacheHeatMap heatMap = PageCacheHeatMap.DISABLED;
+    private int sampleCountdown;
     private DefaultPinEvent pinTracingEvent = new DefaultPinEvent();
 
     @Override
     public void init( PageCacheTracer pageCacheTracer )
     {
         this.pageCacheTracer = pageCacheTracer;
+        this.heatMap = pageCacheTracer.heatMap();
+    }
+
+    /**
+     * Count down towards the next heat map sample.
+     *
+     * @return the weight of the sample, or zero if this event should not be sampled.
+     */
+    private int sample()
+    {
+        int interval = heatMap.samplingInterval();
+        if ( interval == 0 || --sampleCountdown > 0 )
+        {
+            return 0;
+        }
+        sampleCountdown = interval;
+        return interval;
     }
 
     @Override
@@ -187,19 +207,27 @@ public class DefaultPageCursorTracer implements PageCursorTracer
     {
         pins++;
         pinTracingEvent.eventHits = 1;
+        pinTracingEvent.sampleWeight = swapper == null ? 0 : sample();
+        pinTracingEvent.filePageId = filePageId;
+        pinTracingEvent.swapper = swapper;
         return pinTracingEvent;
     }
 
     private final EvictionEvent evictionEvent = new EvictionEvent()
     {
+        private long filePageId;
+        private PageSwapper swapper;
+
         @Override
         public void setFilePageId( long filePageId )
         {
+            this.filePageId = filePageId;
         }
 
         @Override
         public void setSwapper( PageSwapper swapper )
         {
+            this.swapper = swapper;
         }
 
         @Override
@@ -223,6 +251,12 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void close()
         {
             evictions++;
+            int weight = sample();
+            if ( weight != 0 && swapper != null )
+            {
+                heatMap.eviction( swapper.file(), filePageId, weight );
+            }
+            swapper = null;
         }
     };
 
@@ -296,6 +330,9 @@ public class DefaultPageCursorTracer implements PageCursorTracer
     private class DefaultPinEvent implements PinEvent
     {
         int eventHits = 1;
+        int sampleWeight;
+        long filePageId;
+        PageSwapper swapper;
 
         @Override
         public void setCachePageId( long cachePageId )
@@ -306,6 +343,10 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public PageFaultEvent beginPageFault()
         {
             eventHits = 0;
+            if ( sampleWeight != 0 )
+            {
+                heatMap.fault( swapper.file(), filePageId, sampleWeight );
+            }
             return pageFaultEvent;
         }
 
@@ -313,12 +354,17 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void hit()
         {
             hits += eventHits;
+            if ( sampleWeight != 0 && eventHits != 0 )
+            {
+                heatMap.hit( swapper.file(), filePageId, sampleWeight );
+            }
         }
 
         @Override
         public void done()
         {
             unpins++;
+            swapper = null;
         }
     }
 }
@@ -103,6 +103,13 @@ public class AdversarialPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public void flushWithoutForce( IOLimiter limiter ) throws IOException
+    {
+        adversary.injectFailure( FileNotFoundException.class, IOException.class, SecurityException.class );
+        delegate.flushWithoutForce( limiter );
+    }
+
     @Override
     public void close()
     {
@@ -100,6 +100,13 @@ public class AdversarialPagedFile implements PagedFile
         return delegate.getLastPageId();
     }
 
+    @Override
+    public int touch( long pageId, int count ) throws IOException
+    {
+        adversary.injectFailure( FileNotFoundException.class, IOException.class, SecurityException.class );
+        return delegate.touch( pageId, count );
+    }
+
     @Override
     public void close() throws IOException
     {
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.compress;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * Compares the random page read latency of the {@link CompressingPageSwapper} with that of the plain
+ * {@link org.neo4j.io.pagecache.impl.SingleFilePageSwapper}, along with how many bytes each of them read and keep on
+ * disk, for a file of record-like pages.
+ * <p>
+ * Usage: {@code CompressingPageSwapperBenchmark [directory] [file size in MiB] [seconds per run]}
+ */
+public final class CompressingPageSwapperBenchmark
+{
+    private static final int PAGE_SIZE = PageCache.PAGE_SIZE;
+
+    private CompressingPageSwapperBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws IOException
+    {
+        File directory = new File( args.length > 0 ? args[0] : "target/compression-benchmark" ).getCanonicalFile();
+        long fileSizeMiB = args.length > 1 ? Long.parseLong( args[1] ) : 256;
+        long runMillis = TimeUnit.SECONDS.toMillis( args.length > 2 ? Long.parseLong( args[2] ) : 10 );
+        long pageCount = fileSizeMiB * 1024 * 1024 / PAGE_SIZE;
+
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+        {
+            fs.mkdirs( directory );
+            File plainFile = new File( directory, "plain" );
+            File compressedFile = new File( directory, "compressed" );
+            PageSwapperFactory plain = new SingleFilePageSwapperFactory();
+            PageSwapperFactory compressing =
+                    new CompressingPageSwapperFactory( new SingleFilePageSwapperFactory(), compressedFile::equals );
+            plain.open( fs, Configuration.EMPTY );
+            compressing.open( fs, Configuration.EMPTY );
+
+            long buffer = UnsafeUtil.allocateMemory( PAGE_SIZE );
+            try
+            {
+                writeFile( plain, plainFile, pageCount, buffer );
+                writeFile( compressing, compressedFile, pageCount, buffer );
+                for ( int round = 0; round < 2; round++ )
+                {
+                    // The first round warms up the JIT and the OS page cache.
+                    boolean report = round > 0;
+                    readFile( plain, plainFile, pageCount, buffer, runMillis, report, fs.getFileSize( plainFile ) );
+                    readFile( compressing, compressedFile, pageCount, buffer, runMillis, report,
+                            fs.getFileSize( compressedFile ) );
+                }
+            }
+            finally
+            {
+                UnsafeUtil.free( buffer, PAGE_SIZE );
+                fs.deleteRecursively( directory );
+            }
+        }
+    }
+
+    private static void writeFile( PageSwapperFactory factory, File file, long pageCount, long buffer )
+            throws IOException
+    {
+        PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, null, true, false );
+        try
+        {
+            SplittableRandom rng = new SplittableRandom( 1 );
+            for ( long pageId = 0; pageId < pageCount; pageId++ )
+            {
+                fillRecordLikePage( buffer, rng );
+                swapper.write( pageId, buffer );
+            }
+            swapper.force();
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    private static void fillRecordLikePage( long buffer, SplittableRandom rng )
+    {
+        // Records of 41 bytes, like property records, where only the first few bytes of each record are in use.
+        UnsafeUtil.setMemory( buffer, PAGE_SIZE, (byte) 0 );
+        for ( int offset = 0; offset + 41 <= PAGE_SIZE; offset += 41 )
+        {
+            UnsafeUtil.putByte( buffer + offset, (byte) 1 );
+            UnsafeUtil.putLong( buffer + offset + 1, rng.nextLong( 1 << 20 ) );
+            UnsafeUtil.putInt( buffer + offset + 9, rng.nextInt( 1 << 16 ) );
+        }
+    }
+
+    private static void readFile( PageSwapperFactory factory, File file, long pageCount, long buffer, long runMillis,
+            boolean report, long fileSize ) throws IOException
+    {
+        PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, null, false, false );
+        try
+        {
+            SplittableRandom rng = new SplittableRandom( 1 );
+            long reads = 0;
+            long bytesRead = 0;
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos( runMillis );
+            do
+            {
+                for ( int i = 0; i < 1000; i++ )
+                {
+                    bytesRead += swapper.read( rng.nextLong( pageCount ), buffer, PAGE_SIZE );
+                }
+                reads += 1000;
+            }
+            while ( System.nanoTime() < deadline );
+            long elapsedNanos = System.nanoTime() - start;
+            if ( report )
+            {
+                System.out.printf( "%-22s read latency: %,8d ns/page   bytes read per page: %,6d   file size: %,14d%n",
+                        factory.implementationName(), elapsedNanos / reads, bytesRead / reads, fileSize );
+            }
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+}
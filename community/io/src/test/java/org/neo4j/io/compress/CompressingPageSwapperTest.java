@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.compress;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CompressingPageSwapperTest
+{
+    private static final int PAGE_SIZE = 8192;
+
+    private EphemeralFileSystemAbstraction fs;
+    private CompressingPageSwapperFactory factory;
+    private final File file = new File( "compressed" );
+    private final List<PageSwapper> swappers = new ArrayList<>();
+    private final List<Long> pages = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        fs = new EphemeralFileSystemAbstraction();
+        factory = new CompressingPageSwapperFactory( new SingleFilePageSwapperFactory(), file::equals );
+        factory.open( fs, Configuration.EMPTY );
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        for ( PageSwapper swapper : swappers )
+        {
+            swapper.close();
+        }
+        for ( long page : pages )
+        {
+            UnsafeUtil.free( page, PAGE_SIZE );
+        }
+        fs.close();
+    }
+
+    @Test
+    void mustOnlyCompressSelectedFiles() throws Exception
+    {
+        assertThat( createSwapper( file ), instanceOf( CompressingPageSwapper.class ) );
+        assertThat( createSwapper( new File( "plain" ) ), not( instanceOf( CompressingPageSwapper.class ) ) );
+    }
+
+    @Test
+    void mustReadBackCompressiblePages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        for ( int pageId = 0; pageId < 10; pageId++ )
+        {
+            fillCompressible( page, pageId );
+            long bytesWritten = swapper.write( pageId, page );
+            assertThat( bytesWritten, lessThan( (long) PAGE_SIZE ) );
+        }
+        for ( int pageId = 0; pageId < 10; pageId++ )
+        {
+            clear( page );
+            swapper.read( pageId, page, PAGE_SIZE );
+            assertCompressible( page, pageId );
+        }
+    }
+
+    @Test
+    void mustReadBackIncompressiblePages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        long expected = createPage();
+        fillRandom( expected, 42 );
+        UnsafeUtil.copyMemory( expected, page, PAGE_SIZE );
+
+        assertEquals( PAGE_SIZE, swapper.write( 3, page ) );
+        clear( page );
+        assertEquals( PAGE_SIZE, swapper.read( 3, page, PAGE_SIZE ) );
+        assertPagesEqual( expected, page );
+    }
+
+    @Test
+    void mustReadZerosForPagesThatWereNeverWritten() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        fillCompressible( page, 7 );
+        swapper.write( 2, page );
+
+        fillCompressible( page, 7 );
+        assertEquals( 0, swapper.read( 1, page, PAGE_SIZE ) );
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            assertEquals( 0, UnsafeUtil.getByte( page + i ) );
+        }
+        assertEquals( 2, swapper.getLastPageId() );
+    }
+
+    @Test
+    void mustKeepForcedPagesWhenReopened() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        for ( int pageId = 0; pageId < 1000; pageId++ )
+        {
+            fillCompressible( page, pageId );
+            swapper.write( pageId, page );
+        }
+        swapper.close();
+        swappers.remove( swapper );
+
+        swapper = createSwapper( file );
+        assertEquals( 999, swapper.getLastPageId() );
+        for ( int pageId = 0; pageId < 1000; pageId++ )
+        {
+            clear( page );
+            swapper.read( pageId, page, PAGE_SIZE );
+            assertCompressible( page, pageId );
+        }
+    }
+
+    @Test
+    void mustLoseUnforcedWritesOnCrash() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.force();
+        fillCompressible( page, 2 );
+        swapper.write( 0, page );
+        fillCompressible( page, 3 );
+        swapper.write( 1, page );
+
+        EphemeralFileSystemAbstraction crashed = fs.snapshot();
+        swapper.close();
+        swappers.remove( swapper );
+        fs.close();
+        fs = crashed;
+        factory.open( fs, Configuration.EMPTY );
+
+        swapper = createSwapper( file );
+        assertEquals( 0, swapper.getLastPageId() );
+        swapper.read( 0, page, PAGE_SIZE );
+        assertCompressible( page, 1 );
+    }
+
+    @Test
+    void mustReuseSpaceOfOverwrittenPagesAfterForce() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        for ( int round = 0; round < 100; round++ )
+        {
+            for ( int pageId = 0; pageId < 10; pageId++ )
+            {
+                fillCompressible( page, round + pageId );
+                swapper.write( pageId, page );
+            }
+            swapper.force();
+        }
+        for ( int pageId = 0; pageId < 10; pageId++ )
+        {
+            swapper.read( pageId, page, PAGE_SIZE );
+            assertCompressible( page, 99 + pageId );
+        }
+        long storedBytes = ((CompressingPageSwapper) swapper).storedBytes();
+        // The file holds the current pages, at most one old version of each page, and the header.
+        assertThat( fs.getFileSize( file ), lessThan( 2 * storedBytes + 2 * PAGE_SIZE ) );
+    }
+
+    @Test
+    void mustReadAndWriteVectors() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long[] addresses = new long[4];
+        for ( int i = 0; i < addresses.length; i++ )
+        {
+            addresses[i] = createPage();
+            fillCompressible( addresses[i], i );
+        }
+        swapper.write( 5, addresses, 0, addresses.length );
+        for ( long address : addresses )
+        {
+            clear( address );
+        }
+        swapper.read( 5, addresses, PAGE_SIZE, 0, addresses.length );
+        for ( int i = 0; i < addresses.length; i++ )
+        {
+            assertCompressible( addresses[i], i );
+        }
+        assertEquals( 8, swapper.getLastPageId() );
+    }
+
+    @Test
+    void truncateMustRemoveAllPages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.write( 1, page );
+        swapper.force();
+
+        swapper.truncate();
+        assertEquals( -1, swapper.getLastPageId() );
+        assertEquals( 0, swapper.read( 0, page, PAGE_SIZE ) );
+        swapper.close();
+        swappers.remove( swapper );
+
+        assertEquals( -1, createSwapper( file ).getLastPageId() );
+    }
+
+    @Test
+    void mustRefuseToOpenExistingUncompressedFile() throws Exception
+    {
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[PAGE_SIZE] ) );
+        }
+        assertThrows( IOException.class, () -> createSwapper( file ) );
+    }
+
+    @Test
+    void mustRefuseToOpenCompressedFileWithoutItsPageTable() throws Exception
+    {
+        writeCompressedFile();
+        fs.deleteFile( CompressingPageSwapperFactory.pageTableFile( file ) );
+
+        IOException e = assertThrows( IOException.class, () -> createSwapper( file ) );
+        assertThat( e.getMessage(), containsString( "is missing" ) );
+    }
+
+    @Test
+    void mustRefuseToOpenCompressedFileWithoutCompression() throws Exception
+    {
+        writeCompressedFile();
+        CompressingPageSwapperFactory uncompressing =
+                new CompressingPageSwapperFactory( new SingleFilePageSwapperFactory(), f -> false );
+        uncompressing.open( fs, Configuration.EMPTY );
+
+        // Recognised by the page table file.
+        assertThrows( IOException.class, () -> uncompressing.createPageSwapper( file, PAGE_SIZE, null, false, false ) );
+
+        // Recognised by the header of the file itself, for instance when only the store file was copied.
+        fs.deleteFile( CompressingPageSwapperFactory.pageTableFile( file ) );
+        assertThrows( IOException.class, () -> uncompressing.createPageSwapper( file, PAGE_SIZE, null, false, false ) );
+    }
+
+    @Test
+    void mustRefuseToOpenWithDifferentFilePageSize() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.close();
+        swappers.remove( swapper );
+
+        assertThrows( IOException.class,
+                () -> factory.createPageSwapper( file, PAGE_SIZE / 2, filePageId -> {}, false, false ) );
+    }
+
+    @Test
+    void mustNotifyEvictionCallback() throws Exception
+    {
+        long[] evicted = {-1};
+        PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, filePageId -> evicted[0] = filePageId,
+                true, false );
+        swappers.add( swapper );
+        swapper.evicted( 13 );
+        assertEquals( 13, evicted[0] );
+    }
+
+    @Test
+    void mustDetectCorruptCompressedPages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.close();
+        swappers.remove( swapper );
+
+        try ( StoreChannel channel = fs.open( file, OpenMode.READ_WRITE ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[]{-1, -1, -1, -1} ), CompressingPageSwapper.SECTOR_SIZE );
+        }
+        PageSwapper reopened = createSwapper( file );
+        assertThrows( IOException.class, () -> reopened.read( 0, page, PAGE_SIZE ) );
+    }
+
+    private PageSwapper createSwapper( File file ) throws IOException
+    {
+        PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, filePageId -> {}, true, false );
+        swappers.add( swapper );
+        return swapper;
+    }
+
+    private long createPage()
+    {
+        long page = UnsafeUtil.allocateMemory( PAGE_SIZE );
+        pages.add( page );
+        clear( page );
+        return page;
+    }
+
+    private static void clear( long page )
+    {
+        UnsafeUtil.setMemory( page, PAGE_SIZE, (byte) 0 );
+    }
+
+    private static void fillCompressible( long page, int seed )
+    {
+        // Like a record store page: a few random bytes in every record, and the rest zeros.
+        clear( page );
+        SplittableRandom rng = new SplittableRandom( seed );
+        for ( int offset = 0; offset < PAGE_SIZE; offset += 64 )
+        {
+            UnsafeUtil.putInt( page + offset, rng.nextInt() );
+        }
+    }
+
+    private void writeCompressedFile() throws IOException
+    {
+        PageSwapper swapper = createSwapper( file );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.close();
+        swappers.remove( swapper );
+    }
+
+    private static void assertCompressible( long page, int seed )
+    {
+        long expected = UnsafeUtil.allocateMemory( PAGE_SIZE );
+        try
+        {
+            fillCompressible( expected, seed );
+            assertPagesEqual( expected, page );
+        }
+        finally
+        {
+            UnsafeUtil.free( expected, PAGE_SIZE );
+        }
+    }
+
+    private static void fillRandom( long page, int seed )
+    {
+        SplittableRandom rng = new SplittableRandom( seed );
+        for ( int offset = 0; offset < PAGE_SIZE; offset += Long.BYTES )
+        {
+            UnsafeUtil.putLong( page + offset, rng.nextLong() );
+        }
+    }
+
+    private static void assertPagesEqual( long expected, long actual )
+    {
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            if ( UnsafeUtil.getByte( expected + i ) != UnsafeUtil.getByte( actual + i ) )
+            {
+                fail( "Pages differ at offset " + i );
+            }
+        }
+    }
+}
@@ -197,4 +197,20 @@ class DatabaseLayoutTest
         File metadataId = layout.idFile( DatabaseFile.METADATA_STORE ).orElseThrow( () -> new RuntimeException( "Mapping was expected to be found" ) );
         assertEquals( "neostore.id", metadataId.getName() );
     }
+
+    @Test
+    void lookupPageTableFileByDatabaseFile()
+    {
+        DatabaseLayout layout = testDirectory.databaseLayout();
+        for ( DatabaseFile databaseFile : DatabaseFile.values() )
+        {
+            Optional<File> pageTableFile = layout.pageTableFile( databaseFile );
+            assertEquals( databaseFile.hasIdFile(), pageTableFile.isPresent() );
+        }
+
+        File propertyPageTable = layout.pageTableFile( DatabaseFile.PROPERTY_STORE )
+                .orElseThrow( () -> new RuntimeException( "Mapping was expected to be found" ) );
+        assertEquals( "neostore.propertystore.db.pagetable", propertyPageTable.getName() );
+        assertThat( layout.pageTableFiles(), hasItem( propertyPageTable ) );
+    }
 }
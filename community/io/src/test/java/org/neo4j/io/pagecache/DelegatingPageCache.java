@@ -88,4 +88,10 @@ public class DelegatingPageCache implements PageCache
         delegate.flushAndForce();
     }
 
+    @Override
+    public void flushWithoutForce( IOLimiter limiter ) throws IOException
+    {
+        delegate.flushWithoutForce( limiter );
+    }
+
 }
@@ -104,6 +104,7 @@ import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.test.ThreadTestUtils.fork;
@@ -5954,6 +5955,160 @@ public abstract class PageCacheTest<T extends PageCache> extends PageCacheTestSu
         }
     }
 
+    @Test
+    void readAheadMustLoadPagesAheadOfSequentialReadCursor()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            DefaultPageCacheTracer cacheTracer = new DefaultPageCacheTracer();
+            DefaultPageCursorTracerSupplier cursorTracerSupplier = getCursorTracerSupplier( cacheTracer );
+            getPageCache( fs, 50, cacheTracer, cursorTracerSupplier );
+
+            File file = file( "a" );
+            int pageCount = 12;
+            generateFileWithRecords( file, recordsPerFilePage * pageCount, recordSize );
+            try ( PagedFile pf = map( file, filePageSize );
+                  PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                // Moving on to the second page is what tells the cursor that it is reading sequentially.
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+                awaitPageInMemory( pf, pageCount - 1 );
+
+                do
+                {
+                    verifyRecordsMatchExpected( cursor );
+                }
+                while ( cursor.next() );
+            }
+            cursorTracerSupplier.get().reportEvents();
+            assertThat( cacheTracer.faults(), is( (long) pageCount ) );
+            assertThat( cacheTracer.readAheadHits(), is( pageCount - 2L ) );
+            assertThat( cacheTracer.readAheadWasted(), is( 0L ) );
+        } );
+    }
+
+    @Test
+    void readAheadMustReportPagesNotReachedByCursorAsWasted()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            DefaultPageCacheTracer cacheTracer = new DefaultPageCacheTracer();
+            getPageCache( fs, 50, cacheTracer, getCursorTracerSupplier( cacheTracer ) );
+
+            File file = file( "a" );
+            int pageCount = 12;
+            generateFileWithRecords( file, recordsPerFilePage * pageCount, recordSize );
+            try ( PagedFile pf = map( file, filePageSize ) )
+            {
+                try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+                {
+                    assertTrue( cursor.next() );
+                    assertTrue( cursor.next() );
+                    awaitPageInMemory( pf, pageCount - 1 );
+                }
+            }
+            assertThat( cacheTracer.readAheadHits(), is( 0L ) );
+            assertThat( cacheTracer.readAheadWasted(), is( pageCount - 2L ) );
+        } );
+    }
+
+    @Test
+    void readAheadMustNotLoadAnythingForCursorsThatJumpAround() throws Exception
+    {
+        DefaultPageCacheTracer cacheTracer = new DefaultPageCacheTracer();
+        DefaultPageCursorTracerSupplier cursorTracerSupplier = getCursorTracerSupplier( cacheTracer );
+        getPageCache( fs, 50, cacheTracer, cursorTracerSupplier );
+
+        File file = file( "a" );
+        generateFileWithRecords( file, recordsPerFilePage * 12, recordSize );
+        try ( PagedFile pf = map( file, filePageSize ) )
+        {
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( long pageId : new long[]{5, 1, 9, 3, 7} )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    verifyRecordsMatchExpected( cursor );
+                }
+            }
+        }
+        cursorTracerSupplier.get().reportEvents();
+        assertThat( cacheTracer.faults(), is( 5L ) );
+        assertThat( cacheTracer.readAheadHits() + cacheTracer.readAheadWasted(), is( 0L ) );
+    }
+
+    private static void awaitPageInMemory( PagedFile pf, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pf.io( pageId, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            while ( !cursor.next( pageId ) || cursor.getCurrentPageId() != pageId )
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Test
+    void touchMustLoadPagesThatAreNotInMemory() throws Exception
+    {
+        DefaultPageCacheTracer cacheTracer = new DefaultPageCacheTracer();
+        DefaultPageCursorTracerSupplier cursorTracerSupplier = getCursorTracerSupplier( cacheTracer );
+        getPageCache( fs, maxPages, cacheTracer, cursorTracerSupplier );
+
+        File file = file( "a" );
+        int pageCount = 10;
+        generateFileWithRecords( file, recordsPerFilePage * pageCount, recordSize );
+        try ( PagedFile pf = map( file, filePageSize ) )
+        {
+            assertThat( pf.touch( 0, pageCount ), is( pageCount ) );
+            cursorTracerSupplier.get().reportEvents();
+            assertThat( cacheTracer.faults(), is( (long) pageCount ) );
+
+            try ( PageCursor nofault = pf.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                for ( long pageId = 0; pageId < pageCount; pageId++ )
+                {
+                    assertTrue( nofault.next() );
+                    assertThat( nofault.getCurrentPageId(), is( pageId ) );
+                    verifyRecordsMatchExpected( nofault );
+                }
+                assertFalse( nofault.next() );
+            }
+        }
+    }
+
+    @Test
+    void touchMustSkipPagesThatAreAlreadyInMemory() throws Exception
+    {
+        configureStandardPageCache();
+        File file = file( "a" );
+        generateFileWithRecords( file, recordsPerFilePage * 4, recordSize );
+        try ( PagedFile pf = map( file, filePageSize ) )
+        {
+            try ( PageCursor cursor = pf.io( 1, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( pf.touch( 0, 4 ), is( 3 ) );
+            assertThat( pf.touch( 0, 4 ), is( 0 ) );
+        }
+    }
+
+    @Test
+    void touchMustIgnorePagesBeyondTheEndOfTheFile() throws Exception
+    {
+        configureStandardPageCache();
+        File file = file( "a" );
+        generateFileWithRecords( file, recordsPerFilePage * 2, recordSize );
+        try ( PagedFile pf = map( file, filePageSize ) )
+        {
+            assertThat( pf.touch( 4, 2 ), is( 0 ) );
+            assertThat( pf.touch( 0, 10 ), is( 2 ) );
+            assertThat( pf.getLastPageId(), is( 1L ) );
+        }
+    }
+
     @Test
     void noFaultNextReadOnInMemoryPages() throws Exception
     {
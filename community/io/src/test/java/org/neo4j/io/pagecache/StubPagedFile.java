@@ -85,6 +85,12 @@ public class StubPagedFile implements PagedFile
         return lastPageId;
     }
 
+    @Override
+    public int touch( long pageId, int count )
+    {
+        return 0;
+    }
+
     @Override
     public void close()
     {
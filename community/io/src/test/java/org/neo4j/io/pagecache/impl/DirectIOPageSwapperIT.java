@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DirectIOPageSwapperIT extends SingleFilePageSwapperWithRealFileSystemIT
+{
+    private static final int PAGE_SIZE = 8192;
+
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        DirectIOPageSwapperFactory factory = new DirectIOPageSwapperFactory();
+        factory.open( getFs(), Configuration.EMPTY );
+        return factory;
+    }
+
+    @Test
+    void mustFallBackToBufferedIOOnFileSystemsThatCannotDoDirectIO() throws Exception
+    {
+        try ( EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction() )
+        {
+            DirectIOPageSwapperFactory factory = new DirectIOPageSwapperFactory();
+            factory.open( fs, Configuration.EMPTY );
+            PageSwapper swapper = createSwapper( factory, new File( "file" ).getCanonicalFile(), PAGE_SIZE,
+                    NO_CALLBACK, true, false );
+            assertFalse( ((SingleFilePageSwapper) swapper).isDirectIO() );
+            assertPageRoundTrip( swapper );
+        }
+    }
+
+    @Test
+    void mustFallBackToBufferedIOForPageSizesNotAlignedToBlockSize() throws Exception
+    {
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), 12, NO_CALLBACK, true, false );
+        assertFalse( ((SingleFilePageSwapper) swapper).isDirectIO() );
+    }
+
+    @Test
+    void mustFallBackToBufferedIOAndReportItForRecordStorePageSizes() throws Exception
+    {
+        // The page size of a store with 15 byte records, like the node store.
+        int recordStorePageSize = PAGE_SIZE - PAGE_SIZE % 15;
+        List<String> fallbacks = new ArrayList<>();
+        DirectIOPageSwapperFactory factory = (DirectIOPageSwapperFactory) createSwapperFactory();
+        factory.setMonitor( ( file, reason ) -> fallbacks.add( file.getName() + ": " + reason ) );
+
+        PageSwapper swapper = createSwapper( factory, getFile(), recordStorePageSize, NO_CALLBACK, true, false );
+        assertFalse( ((SingleFilePageSwapper) swapper).isDirectIO() );
+        assertEquals( 1, fallbacks.size() );
+        assertThat( fallbacks.get( 0 ), containsString( getFile().getName() + ": the file page size of 8190 bytes" ) );
+    }
+
+    @Test
+    void mustReadAndWritePagesWithDirectIOWhereSupported() throws Exception
+    {
+        File file = getFile();
+        getFs().create( file ).close();
+        assumeTrue( DirectIO.canOpen( getFs(), file, PAGE_SIZE ), "Direct IO is not supported here" );
+
+        PageSwapper swapper = createSwapper( createSwapperFactory(), file, PAGE_SIZE, NO_CALLBACK, false, false );
+        assertTrue( ((SingleFilePageSwapper) swapper).isDirectIO() );
+        assertPageRoundTrip( swapper );
+    }
+
+    private void assertPageRoundTrip( PageSwapper swapper ) throws Exception
+    {
+        long page = createAlignedPage();
+        for ( int pageId = 0; pageId < 4; pageId++ )
+        {
+            UnsafeUtil.putLong( page, pageId + 1 );
+            assertEquals( PAGE_SIZE, swapper.write( pageId, page ) );
+        }
+        for ( int pageId = 0; pageId < 4; pageId++ )
+        {
+            UnsafeUtil.setMemory( page, PAGE_SIZE, (byte) 0 );
+            assertEquals( PAGE_SIZE, swapper.read( pageId, page, PAGE_SIZE ) );
+            assertEquals( pageId + 1, UnsafeUtil.getLong( page ) );
+        }
+    }
+
+    private long createAlignedPage()
+    {
+        long address = createPage( PAGE_SIZE + DirectIO.BUFFER_ALIGNMENT );
+        return address + DirectIO.BUFFER_ALIGNMENT - (address % DirectIO.BUFFER_ALIGNMENT);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.memory.LocalMemoryTracker;
+
+/**
+ * Compares the page read throughput of the {@link MemoryMappedPageSwapper} with that of the
+ * {@link SingleFilePageSwapper}, for random and sequential page reads of a file that fits in the OS page cache.
+ * <p>
+ * Usage: {@code MemoryMappedPageSwapperBenchmark [file] [file size in MiB] [seconds per run]}
+ */
+public final class MemoryMappedPageSwapperBenchmark
+{
+    private static final int PAGE_SIZE = PageCache.PAGE_SIZE;
+
+    private MemoryMappedPageSwapperBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws IOException
+    {
+        File file = new File( args.length > 0 ? args[0] : "target/mmap-benchmark.db" ).getCanonicalFile();
+        long fileSizeMiB = args.length > 1 ? Long.parseLong( args[1] ) : 512;
+        long runMillis = TimeUnit.SECONDS.toMillis( args.length > 2 ? Long.parseLong( args[2] ) : 10 );
+        long pageCount = fileSizeMiB * 1024 * 1024 / PAGE_SIZE;
+
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+        {
+            MemoryAllocator allocator = MemoryAllocator.createAllocator( "1 MiB", new LocalMemoryTracker() );
+            long buffer = allocator.allocateAligned( PAGE_SIZE, PAGE_SIZE );
+            fs.mkdirs( file.getParentFile() );
+            writeFile( fs, file, pageCount, buffer );
+
+            PageSwapperFactory[] factories = {new SingleFilePageSwapperFactory(), new MemoryMappedPageSwapperFactory()};
+            for ( int round = 0; round < 2; round++ )
+            {
+                // The first round warms up the JIT and the OS page cache.
+                boolean report = round > 0;
+                for ( PageSwapperFactory factory : factories )
+                {
+                    factory.open( fs, Configuration.EMPTY );
+                    PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, null, false, false );
+                    try
+                    {
+                        long random = randomReads( swapper, pageCount, buffer, runMillis );
+                        long sequential = sequentialReads( swapper, pageCount, buffer, runMillis );
+                        if ( report )
+                        {
+                            System.out.printf( "%-8s random: %,12d pages/s   sequential: %,12d pages/s%n",
+                                    factory.implementationName(), random, sequential );
+                        }
+                    }
+                    finally
+                    {
+                        swapper.close();
+                    }
+                }
+            }
+            fs.deleteFile( file );
+        }
+    }
+
+    private static void writeFile( FileSystemAbstraction fs, File file, long pageCount, long buffer ) throws IOException
+    {
+        PageSwapperFactory factory = new SingleFilePageSwapperFactory();
+        factory.open( fs, Configuration.EMPTY );
+        PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, null, true, false );
+        try
+        {
+            for ( long pageId = 0; pageId < pageCount; pageId++ )
+            {
+                swapper.write( pageId, buffer );
+            }
+            swapper.force();
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    private static long randomReads( PageSwapper swapper, long pageCount, long buffer, long runMillis )
+            throws IOException
+    {
+        SplittableRandom rng = new SplittableRandom( 1 );
+        long reads = 0;
+        long start = System.currentTimeMillis();
+        long deadline = start + runMillis;
+        do
+        {
+            for ( int i = 0; i < 1000; i++ )
+            {
+                swapper.read( rng.nextLong( pageCount ), buffer, PAGE_SIZE );
+            }
+            reads += 1000;
+        }
+        while ( System.currentTimeMillis() < deadline );
+        return reads * 1000 / Math.max( 1, System.currentTimeMillis() - start );
+    }
+
+    private static long sequentialReads( PageSwapper swapper, long pageCount, long buffer, long runMillis )
+            throws IOException
+    {
+        long reads = 0;
+        long start = System.currentTimeMillis();
+        long deadline = start + runMillis;
+        do
+        {
+            for ( int i = 0; i < 1000; i++ )
+            {
+                swapper.read( (reads + i) % pageCount, buffer, PAGE_SIZE );
+            }
+            reads += 1000;
+        }
+        while ( System.currentTimeMillis() < deadline );
+        return reads * 1000 / Math.max( 1, System.currentTimeMillis() - start );
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MemoryMappedPageSwapperIT extends SingleFilePageSwapperWithRealFileSystemIT
+{
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        MemoryMappedPageSwapperFactory factory = new MemoryMappedPageSwapperFactory();
+        factory.open( getFs(), Configuration.EMPTY );
+        return factory;
+    }
+
+    @Test
+    void mustMemoryMapFilesOnRealFileSystem() throws Exception
+    {
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), 8, NO_CALLBACK, true, false );
+        long page = createPage( 8 );
+        swapper.write( 0, page );
+        swapper.read( 0, page, 8 );
+        assertTrue( ((MemoryMappedPageSwapper) swapper).isMemoryMapped() );
+    }
+
+    @Test
+    void mustFallBackToChannelReadsOnFileSystemsThatCannotMemoryMap() throws Exception
+    {
+        try ( EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction() )
+        {
+            File file = new File( "file" ).getCanonicalFile();
+            MemoryMappedPageSwapperFactory factory = new MemoryMappedPageSwapperFactory();
+            factory.open( fs, Configuration.EMPTY );
+            PageSwapper swapper = createSwapper( factory, file, 8, NO_CALLBACK, true, false );
+
+            long page = createPage( 8 );
+            UnsafeUtil.putLong( page, 42 );
+            swapper.write( 0, page );
+            clear( page );
+            assertEquals( 8, swapper.read( 0, page, 8 ) );
+            assertEquals( 42, UnsafeUtil.getLong( page ) );
+            assertFalse( ((MemoryMappedPageSwapper) swapper).isMemoryMapped() );
+        }
+    }
+
+    @Test
+    void mustOnlyMemoryMapSelectedFiles() throws Exception
+    {
+        File mapped = testDir.file( "mapped" );
+        File notMapped = testDir.file( "not-mapped" );
+        MemoryMappedPageSwapperFactory factory = new MemoryMappedPageSwapperFactory( mapped::equals );
+        factory.open( getFs(), Configuration.EMPTY );
+
+        assertThat( createSwapper( factory, mapped, 8, NO_CALLBACK, true, false ),
+                instanceOf( MemoryMappedPageSwapper.class ) );
+        assertThat( createSwapper( factory, notMapped, 8, NO_CALLBACK, true, false ),
+                not( instanceOf( MemoryMappedPageSwapper.class ) ) );
+    }
+
+    @Test
+    void mustReadPagesAppendedAfterSegmentWasMapped() throws Exception
+    {
+        int pageSize = 8;
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), pageSize, NO_CALLBACK, true, false );
+        long page = createPage( pageSize );
+        for ( int pageId = 0; pageId < 100; pageId++ )
+        {
+            UnsafeUtil.putLong( page, pageId + 1 );
+            swapper.write( pageId, page );
+
+            // Read all pages written so far, so the segment gets mapped and then remapped as the file grows.
+            for ( int readPageId = 0; readPageId <= pageId; readPageId++ )
+            {
+                clear( page );
+                assertEquals( pageSize, swapper.read( readPageId, page, pageSize ) );
+                assertEquals( readPageId + 1, UnsafeUtil.getLong( page ) );
+            }
+        }
+    }
+
+    @Test
+    void mustSeeWritesThroughChannelToAlreadyMappedPages() throws Exception
+    {
+        try ( StoreChannel channel = getFs().create( getFile() ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[64] ) );
+        }
+        int pageSize = 8;
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), pageSize, NO_CALLBACK, false, false );
+        long page = createPage( pageSize );
+        assertEquals( pageSize, swapper.read( 3, page, pageSize ) );
+        assertEquals( 0, UnsafeUtil.getLong( page ) );
+
+        UnsafeUtil.putLong( page, 0xCAFEBABE );
+        swapper.write( 3, page );
+        clear( page );
+        swapper.read( 3, page, pageSize );
+        assertEquals( 0xCAFEBABE, UnsafeUtil.getLong( page ) );
+    }
+
+    @Test
+    void readsFromMappedPagesAfterCloseMustThrowLikeChannelReads() throws Exception
+    {
+        int pageSize = 8;
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), pageSize, NO_CALLBACK, true, false );
+        long page = createPage( pageSize );
+        swapper.write( 0, page );
+        swapper.read( 0, page, pageSize );
+        assertTrue( ((MemoryMappedPageSwapper) swapper).isMemoryMapped() );
+
+        swapper.close();
+        assertThrows( ClosedChannelException.class, () -> swapper.read( 0, page, pageSize ) );
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Compares the page fault latency of a page cache that is partitioned into stripes, with that of one that is not.
+ * <p>
+ * A number of threads read random pages of a file that is eight times bigger than the page cache, so nearly every
+ * page access is a page fault that needs a free page. The file is expected to fit in the OS page cache, so the
+ * latency is dominated by getting hold of free pages and evicting pages, rather than by the disk. Run it on a machine
+ * with many cores, with as many threads as there are cores.
+ * <p>
+ * Usage: {@code MuninnPageCacheStripingBenchmark [file] [stripes] [threads] [page cache size in MiB] [seconds per run]}
+ */
+public final class MuninnPageCacheStripingBenchmark
+{
+    private MuninnPageCacheStripingBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        File file = new File( args.length > 0 ? args[0] : "target/striping-benchmark.db" ).getCanonicalFile();
+        int stripeCount = args.length > 1 ? Integer.parseInt( args[1] ) : 2;
+        int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+        long cacheMiB = args.length > 3 ? Long.parseLong( args[3] ) : 64;
+        long runMillis = TimeUnit.SECONDS.toMillis( args.length > 4 ? Long.parseLong( args[4] ) : 10 );
+        long cachePages = cacheMiB * 1024 * 1024 / PageCache.PAGE_SIZE;
+        long filePages = cachePages * 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              ThreadPoolJobScheduler scheduler = new ThreadPoolJobScheduler() )
+        {
+            fs.mkdirs( file.getParentFile() );
+            for ( int round = 0; round < 3; round++ )
+            {
+                // The first round warms up the JIT and the OS page cache.
+                boolean report = round > 0;
+                for ( int stripes : new int[]{1, stripeCount} )
+                {
+                    SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+                    swapperFactory.open( fs, Configuration.EMPTY );
+                    MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                            String.valueOf( MuninnPageCache.memoryRequiredForPages( cachePages ) ),
+                            new LocalMemoryTracker() );
+                    DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+                    try ( MuninnPageCache pageCache = new MuninnPageCache( swapperFactory, allocator, tracer,
+                            DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY, scheduler ) )
+                    {
+                        if ( stripes > 1 )
+                        {
+                            pageCache.partitionIntoStripes( stripes );
+                        }
+                        try ( PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, CREATE ) )
+                        {
+                            ensureFileSize( pagedFile, filePages );
+                            long faultsBefore = tracer.faults();
+                            long accesses =
+                                    randomReads( executor, threads, pageCache, pagedFile, filePages, runMillis );
+                            long faults = tracer.faults() - faultsBefore;
+                            if ( report )
+                            {
+                                System.out.printf( "stripes: %2d   threads: %3d   faults: %,12d   faults/s: %,10d   " +
+                                                   "mean latency: %,8d ns/access%n", stripes, threads, faults,
+                                        faults * 1000 / runMillis,
+                                        TimeUnit.MILLISECONDS.toNanos( runMillis ) * threads / Math.max( 1, accesses ) );
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        allocator.close();
+                    }
+                }
+            }
+            fs.deleteFile( file );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static void ensureFileSize( PagedFile pagedFile, long filePages ) throws Exception
+    {
+        if ( pagedFile.getLastPageId() + 1 < filePages )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    cursor.next( pageId );
+                    cursor.putLong( pageId );
+                }
+            }
+            pagedFile.flushAndForce();
+        }
+    }
+
+    private static long randomReads( ExecutorService executor, int threads, PageCache pageCache, PagedFile pagedFile,
+            long filePages, long runMillis ) throws Exception
+    {
+        long deadline = System.currentTimeMillis() + runMillis;
+        List<Future<Long>> readers = new ArrayList<>();
+        for ( int thread = 0; thread < threads; thread++ )
+        {
+            long seed = thread;
+            readers.add( executor.submit( () ->
+            {
+                SplittableRandom rng = new SplittableRandom( seed );
+                long accesses = 0;
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                {
+                    do
+                    {
+                        for ( int i = 0; i < 100; i++ )
+                        {
+                            cursor.next( rng.nextLong( filePages ) );
+                        }
+                        accesses += 100;
+                    }
+                    while ( System.currentTimeMillis() < deadline );
+                }
+                pageCache.reportEvents();
+                return accesses;
+            } ) );
+        }
+        long accesses = 0;
+        for ( Future<Long> reader : readers )
+        {
+            accesses += reader.get();
+        }
+        return accesses;
+    }
+}
@@ -27,13 +27,17 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
+import org.neo4j.helpers.MathUtil;
 import org.neo4j.io.IOUtils;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
@@ -56,19 +60,24 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
+import org.neo4j.util.FeatureToggles;
 
 import static java.time.Duration.ofMillis;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
 
 public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
@@ -711,6 +720,461 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         } );
     }
 
+    @Test
+    void twoQueueEvictionPolicyMustKeepWorkingSetInMemoryDuringScans()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            FeatureToggles.set( MuninnPageCache.class, "evictionPolicy", EvictionPolicy.Type.TWO_QUEUE );
+            int workingSetSize = 10;
+            int fileSize = 400;
+            try ( MuninnPageCache pageCache = createPageCache( fs, 40, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+            {
+                generateFileWithRecords( file( "a" ), recordsPerFilePage * fileSize, recordSize );
+                PagedFile pagedFile = map( pageCache, file( "a" ), filePageSize );
+                for ( int access = 0; access < 2; access++ )
+                {
+                    try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                    {
+                        for ( int i = 0; i < workingSetSize; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                        }
+                    }
+                }
+
+                try ( PageCursor cursor = pagedFile.io( workingSetSize, PF_SHARED_READ_LOCK | PF_TRANSIENT ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        // Scan through the rest of the file, which is many times larger than the page cache.
+                    }
+                }
+
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+                {
+                    for ( int i = 0; i < workingSetSize; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        assertEquals( i, cursor.getCurrentPageId() );
+                    }
+                }
+                pagedFile.close();
+            }
+            finally
+            {
+                FeatureToggles.clear( MuninnPageCache.class, "evictionPolicy" );
+            }
+        } );
+    }
+
+    @Test
+    void scanAccessesMustBeReportedSeparatelyToPageCacheTracer() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, tracer, DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = map( pageCache, existingFile( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            evictAllPages( pageCache );
+            pageCache.reportEvents();
+            long faultsBefore = tracer.faults();
+            long hitsBefore = tracer.hits();
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_TRANSIENT ) )
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            pageCache.reportEvents();
+
+            assertEquals( 10, tracer.scanFaults() );
+            assertEquals( 0, tracer.scanHits() );
+            assertEquals( faultsBefore + 10, tracer.faults() );
+            assertEquals( hitsBefore + 10, tracer.hits() );
+            assertEquals( MathUtil.portion( hitsBefore + 10, faultsBefore ), tracer.workingSetHitRatio() );
+        }
+    }
+
+    @Test
+    void reservedPagesMustNotBeEvictedByAccessesToOtherFiles()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            int reservedPages = 10;
+            try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+            {
+                File reservedFile = existingFile( "a" ).getCanonicalFile();
+                pageCache.reservePages( "a", reservedFile::equals, reservedPages );
+                try ( PagedFile reserved = map( pageCache, reservedFile, filePageSize );
+                      PagedFile other = map( pageCache, existingFile( "b" ), filePageSize ) )
+                {
+                    try ( PageCursor cursor = reserved.io( 0, PF_SHARED_WRITE_LOCK ) )
+                    {
+                        for ( int i = 0; i < reservedPages; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                        }
+                    }
+                    try ( PageCursor cursor = other.io( 0, PF_SHARED_WRITE_LOCK ) )
+                    {
+                        for ( int i = 0; i < 1000; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                        }
+                    }
+
+                    try ( PageCursor cursor = reserved.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+                    {
+                        for ( int i = 0; i < reservedPages; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                            assertEquals( i, cursor.getCurrentPageId() );
+                        }
+                    }
+                }
+            }
+        } );
+    }
+
+    @Test
+    void unmappingFileMustReleaseItsResidentPagesFromReservation() throws IOException
+    {
+        int reservedPages = 10;
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+        {
+            File reservedFile = existingFile( "a" ).getCanonicalFile();
+            pageCache.reservePages( "a", reservedFile::equals, reservedPages );
+            PageReservation reservation;
+            synchronized ( pageCache )
+            {
+                reservation = pageCache.reservationFor( reservedFile );
+            }
+
+            for ( int remap = 0; remap < 5; remap++ )
+            {
+                // The pages linger in the cache after the file is unmapped, until they are vacuumed or evicted.
+                try ( PagedFile reserved = map( pageCache, reservedFile, filePageSize ) )
+                {
+                    try ( PageCursor cursor = reserved.io( 0, PF_SHARED_WRITE_LOCK ) )
+                    {
+                        for ( int i = 0; i < reservedPages; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                        }
+                    }
+                    assertEquals( reservedPages, reservation.residentPages() );
+                }
+                assertEquals( 0, reservation.residentPages() );
+            }
+            evictAllPages( pageCache );
+            assertEquals( 0, reservation.residentPages() );
+            assertTrue( reservation.isWithinReservation() );
+        }
+    }
+
+    @Test
+    void reservingMoreThanEvictionCanSpareMustThrow() throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+        {
+            pageCache.reservePages( "a", file -> false, 20 );
+            assertThrows( IllegalArgumentException.class, () -> pageCache.reservePages( "b", file -> false, 90 ) );
+            assertThrows( IllegalArgumentException.class, () -> pageCache.reservePages( "c", file -> false, -1 ) );
+        }
+    }
+
+    @Test
+    void residentPagesMustBeReportedPerMappedFile() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFileA = map( pageCache, existingFile( "a" ), filePageSize );
+              PagedFile pagedFileB = map( pageCache, existingFile( "b" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFileA.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < 3; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            try ( PageCursor cursor = pagedFileB.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            Map<File,Long> residentPages = tracer.residentPages();
+            assertEquals( 2, residentPages.size() );
+            assertEquals( Long.valueOf( 3 ), residentPages.get( pagedFileA.file() ) );
+            assertEquals( Long.valueOf( 1 ), residentPages.get( pagedFileB.file() ) );
+
+            evictAllPages( pageCache );
+            assertEquals( Long.valueOf( 0 ), tracer.residentPages().get( pagedFileA.file() ) );
+        }
+    }
+
+    @Test
+    void backgroundFlushMustWriteConsecutiveDirtyPagesWithVectoredWrites() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = map( pageCache, existingFile( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < 4; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i + 1 );
+                }
+            }
+            assertEquals( 4 / 20.0, tracer.dirtyPageRatio() );
+
+            List<Integer> limitedIOs = new ArrayList<>();
+            IOLimiter limiter = ( previousStamp, recentlyCompletedIOs, flushable ) ->
+            {
+                limitedIOs.add( recentlyCompletedIOs );
+                return previousStamp;
+            };
+            pageCache.flushPagesInBackground( limiter );
+
+            assertEquals( 0.0, tracer.dirtyPageRatio() );
+            assertEquals( 1, tracer.flushes() );
+            assertEquals( 4L * filePageSize, tracer.bytesWritten() );
+            assertThat( limitedIOs, is( singletonList( 4 ) ) );
+            assertTrue( tracer.backgroundFlushThroughput() > 0 );
+
+            // The pages must now be clean, so a following flush has nothing left to write.
+            pagedFile.flushAndForce();
+            assertEquals( 1, tracer.flushes() );
+        }
+        try ( StoreChannel channel = fs.open( existingFile( "a" ), OpenMode.READ ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( Long.BYTES );
+            for ( int i = 0; i < 4; i++ )
+            {
+                buffer.clear();
+                channel.read( buffer, (long) i * filePageSize );
+                buffer.flip();
+                assertEquals( i + 1, buffer.getLong() );
+            }
+        }
+    }
+
+    @Test
+    void flushWithoutForceMustLeaveNothingForTheFollowingFlushAndForce() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, tracer, PageCursorTracerSupplier.NULL );
+              PagedFile pagedFileA = map( pageCache, existingFile( "a" ), filePageSize );
+              PagedFile pagedFileB = map( pageCache, existingFile( "b" ), filePageSize ) )
+        {
+            for ( PagedFile pagedFile : new PagedFile[]{pagedFileA, pagedFileB} )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    for ( int i = 0; i < 3; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        cursor.putLong( i + 1 );
+                    }
+                }
+            }
+
+            pageCache.flushWithoutForce( IOLimiter.UNLIMITED );
+
+            assertEquals( 0.0, tracer.dirtyPageRatio() );
+            assertEquals( 6L * filePageSize, tracer.bytesWritten() );
+            pageCache.flushAndForce();
+            assertEquals( 6L * filePageSize, tracer.bytesWritten() );
+        }
+    }
+
+    @Test
+    void backgroundFlusherMustCleanDirtyPagesWhenStarted()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+            try ( MuninnPageCache pageCache = createPageCache( fs, 20, tracer, PageCursorTracerSupplier.NULL );
+                  PagedFile pagedFile = map( pageCache, existingFile( "a" ), filePageSize ) )
+            {
+                pageCache.startBackgroundFlushing( IOLimiter.UNLIMITED );
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    for ( int i = 0; i < 3; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                    }
+                }
+                while ( tracer.dirtyPageRatio() > 0 )
+                {
+                    Thread.sleep( 10 );
+                }
+                assertEquals( 3L * filePageSize, tracer.bytesWritten() );
+            }
+        } );
+    }
+
+    @Test
+    void startingBackgroundFlushingTwiceMustThrow() throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+        {
+            pageCache.startBackgroundFlushing( IOLimiter.UNLIMITED );
+            assertThrows( IllegalStateException.class, () -> pageCache.startBackgroundFlushing( IOLimiter.UNLIMITED ) );
+        }
+    }
+
+    @Test
+    void pageCachePartitionedIntoStripesMustEvictAndReusePagesOfAllStripes()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            int pageCount = 1000;
+            try ( MuninnPageCache pageCache = createPageCache( fs, 200, PageCacheTracer.NULL,
+                    PageCursorTracerSupplier.NULL ) )
+            {
+                pageCache.partitionIntoStripes( 3 );
+                assertEquals( 3, pageCache.stripeCount() );
+                try ( PagedFile pagedFile = map( pageCache, file( "a" ), filePageSize ) )
+                {
+                    List<Future<?>> writers = new ArrayList<>();
+                    for ( int writer = 0; writer < 4; writer++ )
+                    {
+                        int firstPageId = writer;
+                        writers.add( executor.submit( () ->
+                        {
+                            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                            {
+                                for ( int pageId = firstPageId; pageId < pageCount; pageId += 4 )
+                                {
+                                    assertTrue( cursor.next( pageId ) );
+                                    cursor.putLong( pageId + 1 );
+                                }
+                            }
+                            return null;
+                        } ) );
+                    }
+                    for ( Future<?> writer : writers )
+                    {
+                        writer.get();
+                    }
+
+                    try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                    {
+                        for ( int pageId = 0; pageId < pageCount; pageId++ )
+                        {
+                            assertTrue( cursor.next( pageId ) );
+                            long value;
+                            do
+                            {
+                                value = cursor.getLong();
+                            }
+                            while ( cursor.shouldRetry() );
+                            assertEquals( pageId + 1, value );
+                        }
+                    }
+                }
+            }
+        } );
+    }
+
+    @Test
+    void evictionSweepMustCoverPagesOfAllStripes()
+    {
+        assertTimeout( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            int pageCount = 10;
+            try ( MuninnPageCache pageCache = createPageCache( fs, 200, PageCacheTracer.NULL,
+                    PageCursorTracerSupplier.NULL ) )
+            {
+                pageCache.partitionIntoStripes( 2 );
+                try ( PagedFile pagedFile = map( pageCache, file( "a" ), filePageSize ) )
+                {
+                    // Fault the pages from a thread whose free pages come from the second stripe.
+                    Callable<Void> faulter = () ->
+                    {
+                        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                        {
+                            for ( int pageId = 0; pageId < pageCount; pageId++ )
+                            {
+                                assertTrue( cursor.next( pageId ) );
+                            }
+                        }
+                        return null;
+                    };
+                    FutureTask<Void> task = new FutureTask<>( faulter );
+                    Thread thread = new Thread( task );
+                    while ( thread.getId() % 2 != 1 )
+                    {
+                        thread = new Thread( task );
+                    }
+                    thread.start();
+                    task.get();
+
+                    PageList pages = pageCache.pages;
+                    int loadedInFirstStripe = 0;
+                    int loaded = 0;
+                    for ( int pageId = 0; pageId < pages.getPageCount(); pageId++ )
+                    {
+                        if ( pages.isLoaded( pages.deref( pageId ) ) )
+                        {
+                            loaded++;
+                            loadedInFirstStripe += pageId < pages.getPageCount() / 2 ? 1 : 0;
+                        }
+                    }
+                    assertEquals( pageCount, loaded );
+                    assertEquals( 0, loadedInFirstStripe );
+
+                    pageCache.evictPages( pageCount, 0, EvictionRunEvent.NULL );
+                    for ( int pageId = 0; pageId < pages.getPageCount(); pageId++ )
+                    {
+                        assertFalse( pages.isLoaded( pages.deref( pageId ) ) );
+                    }
+                }
+            }
+        } );
+    }
+
+    @Test
+    void partitioningIntoStripesMustHappenBeforeFilesAreMapped() throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 200, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+        {
+            map( pageCache, file( "a" ), filePageSize ).close();
+            assertThrows( IllegalStateException.class, () -> pageCache.partitionIntoStripes( 2 ) );
+            assertEquals( 1, pageCache.stripeCount() );
+        }
+    }
+
+    @Test
+    void partitioningIntoStripesMustLeaveEnoughPagesPerStripe() throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 200, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL ) )
+        {
+            assertThrows( IllegalArgumentException.class, () -> pageCache.partitionIntoStripes( 0 ) );
+            assertThrows( IllegalArgumentException.class, () -> pageCache.partitionIntoStripes( 4 ) );
+            assertEquals( 1, pageCache.stripeCount() );
+        }
+    }
+
     private static class FlushRendezvousTracer extends DefaultPageCacheTracer
     {
         private final CountDownLatch latch;
@@ -79,6 +79,27 @@ public class DefaultPageCacheTracerTest
         assertCounts( 0, 0, 0, 0, 4, 2, 3, 0, 36, 0, 0,  0d);
     }
 
+    @Test
+    void mustRecordSampledEvictionsInHeatMap()
+    {
+        tracer.heatMap().setSamplingInterval( 1 );
+        try ( EvictionRunEvent evictionRunEvent = tracer.beginPageEvictions( 2 ) )
+        {
+            for ( int i = 0; i < 3; i++ )
+            {
+                try ( EvictionEvent evictionEvent = evictionRunEvent.beginEviction() )
+                {
+                    evictionEvent.setFilePageId( i );
+                    evictionEvent.setSwapper( swapper );
+                }
+            }
+        }
+
+        assertThat( tracer.evictions(), is( 3L ) );
+        assertThat( tracer.heatMap().pageRanges().size(), is( 1 ) );
+        assertThat( tracer.heatMap().pageRanges().get( 0 ).evictions(), is( 3L ) );
+    }
+
     @Test
     void mustCountFileMappingAndUnmapping()
     {
@@ -23,13 +23,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap.PageRange;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DefaultPageCursorTracerTest
 {
@@ -260,6 +263,52 @@ class DefaultPageCursorTracerTest
         assertEquals( 3.0 / 7, cacheTracer.hitRatio(), 0.0001 );
     }
 
+    @Test
+    void recordSampledHitsFaultsAndEvictionsInHeatMap()
+    {
+        cacheTracer.heatMap().setSamplingInterval( 2 );
+        PageCursorTracer tracer = createTracer();
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            PinEvent pinEvent = tracer.beginPin( false, 1, swapper );
+            pinEvent.hit();
+            pinEvent.done();
+        }
+        cacheTracer.heatMap().setSamplingInterval( 1 );
+        for ( int i = 0; i < 2; i++ )
+        {
+            PinEvent pinEvent = tracer.beginPin( false, PageCacheHeatMap.PAGES_PER_RANGE, swapper );
+            PageFaultEvent pageFaultEvent = pinEvent.beginPageFault();
+            EvictionEvent evictionEvent = pageFaultEvent.beginEviction();
+            evictionEvent.setFilePageId( 3 );
+            evictionEvent.setSwapper( swapper );
+            evictionEvent.close();
+            pinEvent.hit();
+            pageFaultEvent.done();
+            pinEvent.done();
+        }
+
+        List<PageRange> ranges = cacheTracer.heatMap().pageRanges();
+        assertEquals( 2, ranges.size() );
+        assertEquals( 4, ranges.get( 0 ).hits() );
+        assertEquals( 0, ranges.get( 0 ).faults() );
+        assertEquals( 2, ranges.get( 0 ).evictions() );
+        assertEquals( 0, ranges.get( 1 ).hits() );
+        assertEquals( 2, ranges.get( 1 ).faults() );
+        assertEquals( 0, ranges.get( 1 ).evictions() );
+    }
+
+    @Test
+    void recordNothingInHeatMapWhileDisabled()
+    {
+        pinAndHit();
+        pinFaultAndHit();
+        generateEventSet();
+
+        assertTrue( cacheTracer.heatMap().pageRanges().isEmpty() );
+    }
+
     private void generateEventSet()
     {
         PinEvent pinEvent = pageCursorTracer.beginPin( false, 0, swapper );
@@ -20,6 +20,9 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.neo4j.io.pagecache.PageSwapper;
 
@@ -109,6 +112,48 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.evictionExceptions();
     }
 
+    @Override
+    public long readAheadHits()
+    {
+        return delegate.readAheadHits();
+    }
+
+    @Override
+    public long readAheadWasted()
+    {
+        return delegate.readAheadWasted();
+    }
+
+    @Override
+    public long scanHits()
+    {
+        return delegate.scanHits();
+    }
+
+    @Override
+    public long scanFaults()
+    {
+        return delegate.scanFaults();
+    }
+
+    @Override
+    public double workingSetHitRatio()
+    {
+        return delegate.workingSetHitRatio();
+    }
+
+    @Override
+    public Map<File,Long> residentPages()
+    {
+        return delegate.residentPages();
+    }
+
+    @Override
+    public PageCacheHeatMap heatMap()
+    {
+        return delegate.heatMap();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -121,6 +166,18 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.usageRatio();
     }
 
+    @Override
+    public double dirtyPageRatio()
+    {
+        return delegate.dirtyPageRatio();
+    }
+
+    @Override
+    public double backgroundFlushThroughput()
+    {
+        return delegate.backgroundFlushThroughput();
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -175,12 +232,54 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.flushes( flushes );
     }
 
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+        delegate.readAheadHits( readAheadHits );
+    }
+
+    @Override
+    public void readAheadWasted( long readAheadWasted )
+    {
+        delegate.readAheadWasted( readAheadWasted );
+    }
+
+    @Override
+    public void scanHits( long scanHits )
+    {
+        delegate.scanHits( scanHits );
+    }
+
+    @Override
+    public void scanFaults( long scanFaults )
+    {
+        delegate.scanFaults( scanFaults );
+    }
+
     @Override
     public void maxPages( long maxPages )
     {
         delegate.maxPages( maxPages );
     }
 
+    @Override
+    public void residentPages( Supplier<Map<File,Long>> residentPages )
+    {
+        delegate.residentPages( residentPages );
+    }
+
+    @Override
+    public void dirtyPages( LongSupplier dirtyPages )
+    {
+        delegate.dirtyPages( dirtyPages );
+    }
+
+    @Override
+    public void backgroundFlush( long bytesWritten, long nanos )
+    {
+        delegate.backgroundFlush( bytesWritten, nanos );
+    }
+
     @Override
     public long filesMapped()
     {
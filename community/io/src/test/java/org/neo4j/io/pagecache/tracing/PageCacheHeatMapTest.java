@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap.PageRange;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageCacheHeatMapTest
+{
+    private final File a = new File( "a" );
+    private final File b = new File( "b" );
+
+    @Test
+    void mustBeDisabledByDefault()
+    {
+        PageCacheHeatMap heatMap = new PageCacheHeatMap();
+        assertEquals( 0, heatMap.samplingInterval() );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            assertEquals( 0, heatMap.sampleRandomly() );
+        }
+    }
+
+    @Test
+    void mustRejectNegativeSamplingInterval()
+    {
+        assertThrows( IllegalArgumentException.class, () -> new PageCacheHeatMap().setSamplingInterval( -1 ) );
+    }
+
+    @Test
+    void disabledHeatMapCannotBeEnabled()
+    {
+        PageCacheHeatMap.DISABLED.setSamplingInterval( 0 );
+        assertThrows( UnsupportedOperationException.class, () -> PageCacheHeatMap.DISABLED.setSamplingInterval( 1 ) );
+    }
+
+    @Test
+    void samplingIntervalOfOneMustSampleEverything()
+    {
+        PageCacheHeatMap heatMap = new PageCacheHeatMap();
+        heatMap.setSamplingInterval( 1 );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            assertEquals( 1, heatMap.sampleRandomly() );
+        }
+    }
+
+    @Test
+    void mustAddUpWeightsPerFileAndPageRange()
+    {
+        PageCacheHeatMap heatMap = new PageCacheHeatMap();
+        heatMap.hit( b, 0, 10 );
+        heatMap.hit( a, PageCacheHeatMap.PAGES_PER_RANGE, 10 );
+        heatMap.hit( a, 1, 10 );
+        heatMap.hit( a, PageCacheHeatMap.PAGES_PER_RANGE - 1, 10 );
+        heatMap.fault( a, 2, 10 );
+        heatMap.eviction( a, 3, 5 );
+
+        List<PageRange> ranges = heatMap.pageRanges();
+        assertEquals( 3, ranges.size() );
+        assertRange( ranges.get( 0 ), a, 0, 20, 10, 5 );
+        assertRange( ranges.get( 1 ), a, PageCacheHeatMap.PAGES_PER_RANGE, 10, 0, 0 );
+        assertRange( ranges.get( 2 ), b, 0, 10, 0, 0 );
+        assertEquals( 2L * PageCacheHeatMap.PAGES_PER_RANGE - 1, ranges.get( 1 ).lastFilePageId() );
+    }
+
+    @Test
+    void mustIgnoreUnboundPages()
+    {
+        PageCacheHeatMap heatMap = new PageCacheHeatMap();
+        heatMap.eviction( null, 1, 1 );
+        heatMap.eviction( a, -1, 1 );
+        assertTrue( heatMap.pageRanges().isEmpty() );
+    }
+
+    @Test
+    void clearMustForgetAllRanges()
+    {
+        PageCacheHeatMap heatMap = new PageCacheHeatMap();
+        heatMap.hit( a, 1, 1 );
+        heatMap.clear();
+        assertTrue( heatMap.pageRanges().isEmpty() );
+    }
+
+    private static void assertRange( PageRange range, File file, long firstFilePageId, long hits, long faults,
+            long evictions )
+    {
+        assertEquals( file, range.file() );
+        assertEquals( firstFilePageId, range.firstFilePageId() );
+        assertEquals( hits, range.hits() );
+        assertEquals( faults, range.faults() );
+        assertEquals( evictions, range.evictions() );
+    }
+}
@@ -20,10 +20,15 @@
 package org.neo4j.io.pagecache.tracing.linear;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 
 import static org.neo4j.io.pagecache.tracing.linear.HEvents.EvictionRunHEvent;
@@ -144,6 +149,48 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long readAheadHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long readAheadWasted()
+    {
+        return 0;
+    }
+
+    @Override
+    public long scanHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long scanFaults()
+    {
+        return 0;
+    }
+
+    @Override
+    public double workingSetHitRatio()
+    {
+        return 0;
+    }
+
+    @Override
+    public Map<File,Long> residentPages()
+    {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public PageCacheHeatMap heatMap()
+    {
+        return PageCacheHeatMap.DISABLED;
+    }
+
     @Override
     public double hitRatio()
     {
@@ -156,6 +203,18 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0d;
     }
 
+    @Override
+    public double dirtyPageRatio()
+    {
+        return 0d;
+    }
+
+    @Override
+    public double backgroundFlushThroughput()
+    {
+        return 0d;
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -201,8 +260,43 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     {
     }
 
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+    }
+
+    @Override
+    public void readAheadWasted( long readAheadWasted )
+    {
+    }
+
+    @Override
+    public void scanHits( long scanHits )
+    {
+    }
+
+    @Override
+    public void scanFaults( long scanFaults )
+    {
+    }
+
     @Override
     public void maxPages( long maxPages )
     {
     }
+
+    @Override
+    public void residentPages( Supplier<Map<File,Long>> residentPages )
+    {
+    }
+
+    @Override
+    public void dirtyPages( LongSupplier dirtyPages )
+    {
+    }
+
+    @Override
+    public void backgroundFlush( long bytesWritten, long nanos )
+    {
+    }
 }
@@ -21,13 +21,18 @@ package org.neo4j.io.pagecache.tracing.recording;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 
 public class RecordingPageCacheTracer extends RecordingTracer implements PageCacheTracer
@@ -149,6 +154,48 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
         return 0;
     }
 
+    @Override
+    public long readAheadHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long readAheadWasted()
+    {
+        return 0;
+    }
+
+    @Override
+    public long scanHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long scanFaults()
+    {
+        return 0;
+    }
+
+    @Override
+    public double workingSetHitRatio()
+    {
+        return 0;
+    }
+
+    @Override
+    public Map<File,Long> residentPages()
+    {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public PageCacheHeatMap heatMap()
+    {
+        return PageCacheHeatMap.DISABLED;
+    }
+
     @Override
     public double hitRatio()
     {
@@ -161,6 +208,18 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
         return 0d;
     }
 
+    @Override
+    public double dirtyPageRatio()
+    {
+        return 0d;
+    }
+
+    @Override
+    public double backgroundFlushThroughput()
+    {
+        return 0d;
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -209,11 +268,46 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
     {
     }
 
+    @Override
+    public void readAheadHits( long readAheadHits )
+    {
+    }
+
+    @Override
+    public void readAheadWasted( long readAheadWasted )
+    {
+    }
+
+    @Override
+    public void scanHits( long scanHits )
+    {
+    }
+
+    @Override
+    public void scanFaults( long scanFaults )
+    {
+    }
+
     @Override
     public void maxPages( long maxPages )
     {
     }
 
+    @Override
+    public void residentPages( Supplier<Map<File,Long>> residentPages )
+    {
+    }
+
+    @Override
+    public void dirtyPages( LongSupplier dirtyPages )
+    {
+    }
+
+    @Override
+    public void backgroundFlush( long bytesWritten, long nanos )
+    {
+    }
+
     private void evicted( long filePageId, PageSwapper swapper )
     {
         record( new Evict( swapper, filePageId ) );
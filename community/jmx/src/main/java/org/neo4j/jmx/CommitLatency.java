@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx;
+
+@ManagementInterface( name = CommitLatency.NAME )
+@Description( "Latency percentiles of the phases of committing transactions, since the database started. Each " +
+              "phase is listed with its count, and its mean, 50th, 90th, 99th and 99.9th percentile and maximum " +
+              "latency, in microseconds" )
+public interface CommitLatency
+{
+    String NAME = "Commit latency";
+
+    @Description( "Latencies of taking the locks that were deferred until commit." )
+    String getLockAcquisition();
+
+    @Description( "Latencies of turning transaction state into commands." )
+    String getCommandExtraction();
+
+    @Description( "Latencies of serializing commands and writing them to the transaction log." )
+    String getLogSerialization();
+
+    @Description( "Latencies of waiting for the transaction log to be forced." )
+    String getLogForceWait();
+
+    @Description( "Latencies of applying committed transactions to the store, including their index updates." )
+    String getStoreApply();
+
+    @Description( "Latencies of applying the label scan store and schema index updates of committed transactions." )
+    String getIndexUpdate();
+
+    @Description( "Latencies of marking applied transactions as closed, making them visible to new transactions." )
+    String getPublish();
+}
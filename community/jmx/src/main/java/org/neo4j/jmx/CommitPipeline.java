@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx;
+
+@ManagementInterface( name = CommitPipeline.NAME )
+@Description( "Information about the stages of the transaction commit pipeline. All numbers are zero unless " +
+              "dbms.tx_log.pipelined_commit is enabled. Latencies are the mean times that transactions have spent " +
+              "in a stage, from being queued until being handed over to the next stage, since the database started" )
+public interface CommitPipeline
+{
+    String NAME = "Commit pipeline";
+
+    @Description( "Number of transactions waiting to be appended to the transaction log." )
+    int getAppendQueueDepth();
+
+    @Description( "Number of appended transactions waiting for the transaction log to be forced." )
+    int getForceQueueDepth();
+
+    @Description( "Number of forced transactions waiting to be applied to the store." )
+    int getApplyQueueDepth();
+
+    @Description( "Mean latency of the append stage, in microseconds." )
+    long getAppendLatency();
+
+    @Description( "Mean latency of the force stage, in microseconds." )
+    long getForceLatency();
+
+    @Description( "Mean latency of the apply stage, in microseconds." )
+    long getApplyLatency();
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx;
+
+import java.util.Map;
+
+@ManagementInterface( name = PageCache.NAME )
+@Description( "Information about the Neo4j page cache. All numbers are counts and sums since the Neo4j instance " +
+              "was started" )
+public interface PageCache
+{
+    String NAME = "Page cache";
+
+    @Description( "Number of page faults. How often requested data was not found in memory and had to be loaded." )
+    long getFaults();
+
+    @Description( "Number of page evictions. How many pages have been removed from memory to make room for other " +
+                  "pages." )
+    long getEvictions();
+
+    @Description( "Number of page hits. How often requested data was found in memory." )
+    long getHits();
+
+    @Description( "Number of page flushes. How many dirty pages have been written to durable storage." )
+    long getFlushes();
+
+    @Description( "Number of bytes read from durable storage." )
+    long getBytesRead();
+
+    @Description( "Number of bytes written to durable storage." )
+    long getBytesWritten();
+
+    @Description( "Number of exceptions caught during page eviction. This number should be zero, or at least not " +
+                  "growing, in a healthy database. Otherwise it could indicate drive failure, storage space, or " +
+                  "permission problems." )
+    long getEvictionExceptions();
+
+    @Description( "Number of page hits and faults on behalf of scans, such as store scans and consistency checks." )
+    long getScanAccesses();
+
+    @Description( "Ratio of hits to the total number of lookups in the page cache" )
+    double getHitRatio();
+
+    @Description( "Ratio of hits to the total number of lookups in the page cache, not counting scans. This is the " +
+                  "hit ratio of the working set of the database." )
+    double getWorkingSetHitRatio();
+
+    @Description( "The percentage of used pages. Will return NaN if it cannot be determined." )
+    double getUsageRatio();
+
+    @Description( "Ratio of pages that have been modified, but not yet written to durable storage, to the total " +
+                  "number of pages. Will return NaN if it cannot be determined." )
+    double getDirtyPageRatio();
+
+    @Description( "Average number of bytes per second that the background flusher has written dirty pages with." )
+    double getBackgroundFlushThroughput();
+
+    @Description( "Number of pages in memory for each of the mapped files." )
+    Map<String,Long> getResidentPages();
+
+    @Description( "Sampled hits, faults and evictions of every range of pages in the mapped files. Empty unless " +
+                  "dbms.memory.pagecache.heat_map.sampling_interval is set." )
+    String[] getHeatMap();
+}
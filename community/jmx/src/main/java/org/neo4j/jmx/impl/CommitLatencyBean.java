@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx.impl;
+
+import javax.management.NotCompliantMBeanException;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.jmx.CommitLatency;
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor;
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor.Phase;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+@Service.Implementation( ManagementBeanProvider.class )
+public final class CommitLatencyBean extends ManagementBeanProvider
+{
+    @SuppressWarnings( "WeakerAccess" ) // Bean needs public constructor
+    public CommitLatencyBean()
+    {
+        super( CommitLatency.class );
+    }
+
+    @Override
+    protected Neo4jMBean createMBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        return new CommitLatencyImpl( management );
+    }
+
+    private static class CommitLatencyImpl extends Neo4jMBean implements CommitLatency
+    {
+        private final CommitLatencyMonitor monitor;
+
+        CommitLatencyImpl( ManagementData management ) throws NotCompliantMBeanException
+        {
+            super( management );
+            this.monitor = management.resolveDependency( CommitLatencyMonitor.class );
+        }
+
+        @Override
+        public String getLockAcquisition()
+        {
+            return latency( Phase.LOCK_ACQUISITION );
+        }
+
+        @Override
+        public String getCommandExtraction()
+        {
+            return latency( Phase.COMMAND_EXTRACTION );
+        }
+
+        @Override
+        public String getLogSerialization()
+        {
+            return latency( Phase.LOG_SERIALIZATION );
+        }
+
+        @Override
+        public String getLogForceWait()
+        {
+            return latency( Phase.LOG_FORCE_WAIT );
+        }
+
+        @Override
+        public String getStoreApply()
+        {
+            return latency( Phase.STORE_APPLY );
+        }
+
+        @Override
+        public String getIndexUpdate()
+        {
+            return latency( Phase.INDEX_UPDATE );
+        }
+
+        @Override
+        public String getPublish()
+        {
+            return latency( Phase.PUBLISH );
+        }
+
+        private String latency( Phase phase )
+        {
+            LatencyHistogram histogram = monitor.commitLatency( phase );
+            return "count=" + histogram.count() +
+                   ", mean=" + MICROSECONDS.convert( histogram.meanNanos(), NANOSECONDS ) +
+                   ", p50=" + histogram.percentile( 50, MICROSECONDS ) +
+                   ", p90=" + histogram.percentile( 90, MICROSECONDS ) +
+                   ", p99=" + histogram.percentile( 99, MICROSECONDS ) +
+                   ", p999=" + histogram.percentile( 99.9, MICROSECONDS ) +
+                   ", max=" + MICROSECONDS.convert( histogram.maxNanos(), NANOSECONDS );
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import javax.management.NotCompliantMBeanException;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.jmx.CommitPipeline;
+import org.neo4j.kernel.NeoStoreDataSource;
+import org.neo4j.kernel.impl.api.PipelinedTransactionCommitProcess;
+import org.neo4j.kernel.impl.api.PipelinedTransactionCommitProcess.Stage;
+import org.neo4j.kernel.impl.api.TransactionCommitProcess;
+import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
+
+@Service.Implementation( ManagementBeanProvider.class )
+public final class CommitPipelineBean extends ManagementBeanProvider
+{
+    @SuppressWarnings( "WeakerAccess" ) // Bean needs public constructor
+    public CommitPipelineBean()
+    {
+        super( CommitPipeline.class );
+    }
+
+    @Override
+    protected Neo4jMBean createMBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        return new CommitPipelineImpl( management );
+    }
+
+    private static class CommitPipelineImpl extends Neo4jMBean implements CommitPipeline
+    {
+        private volatile PipelinedTransactionCommitProcess pipeline;
+
+        CommitPipelineImpl( ManagementData management ) throws NotCompliantMBeanException
+        {
+            super( management );
+            DataSourceManager dataSourceManager = management.getKernelData().getDataSourceManager();
+            dataSourceManager.addListener( new DataSourceManager.Listener()
+            {
+                @Override
+                public void registered( NeoStoreDataSource ds )
+                {
+                    TransactionCommitProcess commitProcess =
+                            ds.getDependencyResolver().resolveDependency( TransactionCommitProcess.class );
+                    pipeline = commitProcess instanceof PipelinedTransactionCommitProcess
+                               ? (PipelinedTransactionCommitProcess) commitProcess : null;
+                }
+
+                @Override
+                public void unregistered( NeoStoreDataSource ds )
+                {
+                    pipeline = null;
+                }
+            } );
+        }
+
+        @Override
+        public int getAppendQueueDepth()
+        {
+            return (int) stage( PipelinedTransactionCommitProcess::appendStage, Stage::queueDepth );
+        }
+
+        @Override
+        public int getForceQueueDepth()
+        {
+            return (int) stage( PipelinedTransactionCommitProcess::forceStage, Stage::queueDepth );
+        }
+
+        @Override
+        public int getApplyQueueDepth()
+        {
+            return (int) stage( PipelinedTransactionCommitProcess::applyStage, Stage::queueDepth );
+        }
+
+        @Override
+        public long getAppendLatency()
+        {
+            return latency( PipelinedTransactionCommitProcess::appendStage );
+        }
+
+        @Override
+        public long getForceLatency()
+        {
+            return latency( PipelinedTransactionCommitProcess::forceStage );
+        }
+
+        @Override
+        public long getApplyLatency()
+        {
+            return latency( PipelinedTransactionCommitProcess::applyStage );
+        }
+
+        private long latency( Function<PipelinedTransactionCommitProcess,Stage> stage )
+        {
+            return TimeUnit.NANOSECONDS.toMicros( stage( stage, Stage::meanLatencyNanos ) );
+        }
+
+        private long stage( Function<PipelinedTransactionCommitProcess,Stage> stage,
+                ToLongFunction<Stage> metric )
+        {
+            PipelinedTransactionCommitProcess current = pipeline;
+            return current == null ? 0 : metric.applyAsLong( stage.apply( current ) );
+        }
+    }
+}
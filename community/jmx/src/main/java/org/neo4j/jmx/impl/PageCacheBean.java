@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx.impl;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.NotCompliantMBeanException;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.jmx.PageCache;
+
+@Service.Implementation( ManagementBeanProvider.class )
+public final class PageCacheBean extends ManagementBeanProvider
+{
+    @SuppressWarnings( "WeakerAccess" ) // Bean needs public constructor
+    public PageCacheBean()
+    {
+        super( PageCache.class );
+    }
+
+    @Override
+    protected Neo4jMBean createMBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        return new PageCacheImpl( management );
+    }
+
+    private static class PageCacheImpl extends Neo4jMBean implements PageCache
+    {
+        private final PageCacheCounters counters;
+
+        PageCacheImpl( ManagementData management ) throws NotCompliantMBeanException
+        {
+            super( management );
+            this.counters = management.resolveDependency( PageCacheCounters.class );
+        }
+
+        @Override
+        public long getFaults()
+        {
+            return counters.faults();
+        }
+
+        @Override
+        public long getEvictions()
+        {
+            return counters.evictions();
+        }
+
+        @Override
+        public long getHits()
+        {
+            return counters.hits();
+        }
+
+        @Override
+        public long getFlushes()
+        {
+            return counters.flushes();
+        }
+
+        @Override
+        public long getBytesRead()
+        {
+            return counters.bytesRead();
+        }
+
+        @Override
+        public long getBytesWritten()
+        {
+            return counters.bytesWritten();
+        }
+
+        @Override
+        public long getEvictionExceptions()
+        {
+            return counters.evictionExceptions();
+        }
+
+        @Override
+        public long getScanAccesses()
+        {
+            return counters.scanHits() + counters.scanFaults();
+        }
+
+        @Override
+        public double getHitRatio()
+        {
+            return counters.hitRatio();
+        }
+
+        @Override
+        public double getWorkingSetHitRatio()
+        {
+            return counters.workingSetHitRatio();
+        }
+
+        @Override
+        public double getUsageRatio()
+        {
+            return counters.usageRatio();
+        }
+
+        @Override
+        public double getDirtyPageRatio()
+        {
+            return counters.dirtyPageRatio();
+        }
+
+        @Override
+        public double getBackgroundFlushThroughput()
+        {
+            return counters.backgroundFlushThroughput();
+        }
+
+        @Override
+        public Map<String,Long> getResidentPages()
+        {
+            Map<String,Long> residentPages = new TreeMap<>();
+            for ( Map.Entry<File,Long> entry : counters.residentPages().entrySet() )
+            {
+                residentPages.put( entry.getKey().getPath(), entry.getValue() );
+            }
+            return residentPages;
+        }
+
+        @Override
+        public String[] getHeatMap()
+        {
+            return counters.heatMap().pageRanges().stream()
+                    .map( range -> range.file().getPath() + " pages " + range.firstFilePageId() + ".." +
+                                   range.lastFilePageId() + ": hits=" + range.hits() + ", faults=" + range.faults() +
+                                   ", evictions=" + range.evictions() )
+                    .toArray( String[]::new );
+        }
+    }
+}
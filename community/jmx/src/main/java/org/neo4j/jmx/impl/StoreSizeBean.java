@@ -403,6 +403,7 @@ public final class StoreSizeBean extends ManagementBeanProvider
             {
                 size += databaseLayout.file( store ).mapToLong( this::sizeOf ).sum();
                 size += databaseLayout.idFile( store ).map( this::sizeOf ).orElse( 0L );
+                size += databaseLayout.pageTableFile( store ).map( this::sizeOf ).orElse( 0L );
             }
             return size;
         }
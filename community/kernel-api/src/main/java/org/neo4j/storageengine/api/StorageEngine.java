@@ -20,6 +20,7 @@
 package org.neo4j.storageengine.api;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Stream;
 
 import org.neo4j.internal.diagnostics.DiagnosticsManager;
@@ -99,6 +100,20 @@ public interface StorageEngine
      */
     void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception;
 
+    /**
+     * Apply a batch of transactions to this storage, like {@link #apply(CommandsToApply, TransactionApplicationMode)}
+     * does, but with the changes that do not depend on each other applied concurrently. Changes to counts, indexes and
+     * other auxiliary stores are still applied in transaction order.
+     *
+     * @param batch batch of groups of commands to apply to storage.
+     * @param mode {@link TransactionApplicationMode} when applying.
+     * @param executor the executor to apply independent changes with.
+     * @param parallelism the maximum number of changes to apply concurrently.
+     * @throws Exception if an error occurs during application.
+     */
+    void applyInParallel( CommandsToApply batch, TransactionApplicationMode mode, ExecutorService executor,
+            int parallelism ) throws Exception;
+
     /**
      * @return a {@link CommandReaderFactory} capable of returning {@link CommandReader commands readers}
      * for specific log entry versions.
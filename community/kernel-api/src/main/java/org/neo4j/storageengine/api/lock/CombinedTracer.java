@@ -48,6 +48,19 @@ final class CombinedTracer implements LockTracer
         return new CombinedEvent( events );
     }
 
+    @Override
+    public LockWaitEvent waitForLockHeldBy( boolean exclusive, ResourceType resourceType, long resourceId,
+            int waiterLockSessionId, int holderLockSessionId )
+    {
+        LockWaitEvent[] events = new LockWaitEvent[tracers.length];
+        for ( int i = 0; i < events.length; i++ )
+        {
+            events[i] = tracers[i].waitForLockHeldBy( exclusive, resourceType, resourceId, waiterLockSessionId,
+                    holderLockSessionId );
+        }
+        return new CombinedEvent( events );
+    }
+
     @Override
     public LockTracer combine( LockTracer tracer )
     {
@@ -23,6 +23,23 @@ public interface LockTracer
 {
     LockWaitEvent waitForLock( boolean exclusive, ResourceType resourceType, long... resourceIds );
 
+    /**
+     * Like {@link #waitForLock(boolean, ResourceType, long...)}, for lock managers that know which lock sessions are
+     * involved in the wait. Tracers that don't care about them need not implement this.
+     *
+     * @param exclusive whether the wait is for an exclusive lock.
+     * @param resourceType the type of the resource that the lock is for.
+     * @param resourceId the id of the resource that the lock is for.
+     * @param waiterLockSessionId the lock session that waits for the lock, or {@code -1} if it is not known.
+     * @param holderLockSessionId the lock session that holds the lock, or {@code -1} if it is not known.
+     * @return the event to close when the wait ends.
+     */
+    default LockWaitEvent waitForLockHeldBy( boolean exclusive, ResourceType resourceType, long resourceId,
+            int waiterLockSessionId, int holderLockSessionId )
+    {
+        return waitForLock( exclusive, resourceType, resourceId );
+    }
+
     default LockTracer combine( LockTracer tracer )
     {
         if ( tracer == NONE )
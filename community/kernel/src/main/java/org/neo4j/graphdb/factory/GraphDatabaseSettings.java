@@ -146,6 +146,13 @@ public class GraphDatabaseSettings implements LoadableConfig
     @Internal
     public static final Setting<String> lock_manager = setting( "unsupported.dbms.lock_manager", STRING, "" );
 
+    @Internal
+    @Description( "Create the lock client of a transaction the first time the transaction needs a lock, rather than " +
+            "when the transaction begins. Shared locks on labels and relationship types that no transaction wants " +
+            "exclusively don't need a lock client at all." )
+    public static final Setting<Boolean> lazy_statement_locks =
+            setting( "unsupported.dbms.transaction.lazy_statement_locks", BOOLEAN, TRUE );
+
     @Internal
     public static final Setting<String> tracer = setting( "unsupported.dbms.tracer", STRING, NO_DEFAULT );
 
@@ -433,11 +440,25 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Duration> transaction_timeout = setting( "dbms.transaction.timeout", DURATION, String
             .valueOf( UNSPECIFIED_TIMEOUT ) );
 
+     // @see Status.Transaction#TransactionMemoryLimitExceeded
+    @Description( "The maximum amount of memory that the state of a single transaction may use. Both the off-heap " +
+            "transaction state, see dbms.tx_state.memory_allocation, and an estimate of the transaction state and " +
+            "explicit index updates kept on the heap count towards the limit. A transaction that exceeds it is " +
+            "terminated. Zero means 'unlimited'." )
+    public static final Setting<Long> transaction_memory_limit =
+            buildSetting( "dbms.transaction.memory_limit", BYTES, "0" ).constraint( min( 0L ) ).build();
+
      // @see Status.Transaction#LockAcquisitionTimeout
     @Description( "The maximum time interval within which lock should be acquired." )
     public static final Setting<Duration> lock_acquisition_timeout = setting( "dbms.lock.acquisition.timeout", DURATION,
             String.valueOf( UNSPECIFIED_TIMEOUT ) );
 
+    @Description( "The number of resources that are tracked as the most contended ones, for " +
+            "`dbms.listLockContention()`. The tracking only takes place when a lock has to be waited for. " +
+            "Zero disables the tracking." )
+    public static final Setting<Integer> lock_contention_tracked_resources =
+            buildSetting( "dbms.lock.contention.tracked_resources", INTEGER, "100" ).constraint( min( 0 ) ).build();
+
     @Description( "Configures the time interval between transaction monitor checks. Determines how often " +
             "monitor thread will check transaction for timeout." )
     public static final Setting<Duration> transaction_monitor_check_interval =
@@ -553,6 +574,16 @@ public class GraphDatabaseSettings implements LoadableConfig
                   "Set this to -1 to disable the IOPS limit." )
     public static final Setting<Integer> check_point_iops_limit = setting( "dbms.checkpoint.iops.limit", INTEGER, "300" );
 
+    @Description( "Check-point incrementally. The dirty pages of the page cache are first written out, without " +
+                  "forcing the files, while transactions keep committing, and only then is the position in the transaction log that the " +
+                  "check-point covers decided, and the store flushed and forced up to that position. That final " +
+                  "flush then only has to write the pages that were modified in the meantime, which keeps the " +
+                  "burst of check-point IO short. This works best together with " +
+                  "`dbms.memory.pagecache.background_flush.enabled`, which keeps writing dirty pages between " +
+                  "check-points." )
+    public static final Setting<Boolean> check_point_incremental =
+            setting( "dbms.checkpoint.incremental", BOOLEAN, FALSE );
+
     // Auto Indexing
     @Description( "Controls the auto indexing feature for nodes. Setting it to `false` shuts it down, " +
             "while `true` enables it by default for properties listed in the dbms.auto_index.nodes.keys setting." )
@@ -706,12 +737,76 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Long> logical_log_rotation_threshold =
             buildSetting( "dbms.tx_log.rotation.size", BYTES, "250M" ).constraint( min( ByteUnit.mebiBytes( 1 ) ) ).build();
 
+    @Description( "If `true`, transaction log files are preallocated to the rotation size, by filling them with " +
+                  "zeros, such that forcing the log does not also have to update the file size and allocation " +
+                  "metadata. The next log file is preallocated in the background, ahead of log rotation, and pruned " +
+                  "log files are recycled for future log versions, instead of being deleted. If no preallocated log " +
+                  "file is ready when the log is rotated, the new log file grows as it is written, like when this " +
+                  "setting is `false`." )
+    public static final Setting<Boolean> preallocate_logical_logs = setting( "dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
+    @Description( "If `true`, a small index file is kept next to each transaction log file, which maps some of the " +
+                  "transactions in the log file, and the last check point in it, to their positions in the file. The " +
+                  "index is written when the log is rotated and when a check point is appended. At startup, and when " +
+                  "reading transactions that are not cached, the log files are then read from the indexed positions, " +
+                  "instead of being scanned from their start." )
+    public static final Setting<Boolean> index_logical_logs = setting( "dbms.tx_log.index", BOOLEAN, FALSE );
+
+    @Description( "If `true`, the commands of each transaction are written to the transaction log as a single " +
+                  "deflate compressed entry, when that makes them smaller. Logs with compressed entries can not be " +
+                  "read by versions of Neo4j that do not support them." )
+    public static final Setting<Boolean> compress_logical_logs = setting( "dbms.tx_log.compression", BOOLEAN, FALSE );
+
     @Description( "If `true`, Neo4j will abort recovery if any errors are encountered in the logical log. Setting " +
             "this to `false` will allow Neo4j to restore as much as possible from the corrupted log files and ignore " +
             "the rest, but, the integrity of the database might be compromised." )
     @Internal
     public static final Setting<Boolean> fail_on_corrupted_log_files = setting("unsupported.dbms.tx_log.fail_on_corrupted_log_files", BOOLEAN, TRUE );
 
+    @Description( "The number of threads to apply the transactions that are replayed during recovery with. With more " +
+                  "than one thread, the node, relationship and property changes of batches of replayed transactions " +
+                  "are split into independent partitions that are applied concurrently, while the changes to counts, " +
+                  "indexes and the label scan store are still applied in transaction order." )
+    public static final Setting<Integer> recovery_parallelism =
+            buildSetting( "dbms.recovery.parallelism", INTEGER, "1" ).constraint( min( 1 ) ).build();
+
+    @Description( "The number of threads to apply batches of committed transactions to the store with. With more than " +
+                  "one thread, runs of consecutive transactions in a batch that change disjoint sets of nodes and " +
+                  "relationships have their node, relationship and property changes split into independent " +
+                  "partitions that are applied concurrently, while the changes to counts, indexes and the label scan " +
+                  "store are still applied in transaction order. Transactions are batched when they are applied by " +
+                  "cluster members and by backups, for instance." )
+    public static final Setting<Integer> tx_apply_parallelism =
+            buildSetting( "dbms.tx_apply.parallelism", INTEGER, "1" ).constraint( min( 1 ) ).build();
+
+    @Description( "If `true`, transactions are committed through a pipeline of three dedicated threads, instead of on " +
+                  "the threads that commit them. One thread appends transactions to the transaction log, one forces " +
+                  "the log for groups of appended transactions, and one applies groups of forced transactions to the " +
+                  "store as one batch, so that the appending of the next transactions overlaps with the forcing of " +
+                  "the previous ones." )
+    public static final Setting<Boolean> pipelined_commit = setting( "dbms.tx_log.pipelined_commit", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of microseconds that a committing transaction may wait for other transactions " +
+                  "to commit, before forcing the transaction log for all of them at once. The actual wait adapts to " +
+                  "the observed force latency and the rate at which transactions arrive, and is zero when " +
+                  "transactions arrive too rarely for waiting to pay off. A value of 0 disables the waiting." )
+    public static final Setting<Integer> group_commit_max_window =
+            buildSetting( "dbms.tx_log.group_commit.max_window_us", INTEGER, "0" ).constraint( min( 0 ) ).build();
+
+    @Description( "If set to a duration larger than 0, committing transactions do not wait for the transaction log " +
+                  "to be forced to disk. The log is instead forced in the background at this interval, and before " +
+                  "any changes are written to the store files. Transactions that were committed after the last " +
+                  "force are lost if the machine crashes, so the database recovers to an earlier, but consistent, " +
+                  "transaction than the last one it reported as committed. Handing out a bookmark forces the log " +
+                  "first, if needed, so bookmarks never name a transaction that can be lost, or whose id can be " +
+                  "reused. The last durable " +
+                  "transaction is listed by `dbms.transactionDurability()`. Indexes that are not kept in the page " +
+                  "cache, such as explicit indexes, can only be made durable together with the log at check points, " +
+                  "and may have to be rebuilt after such a crash. A value of 0 forces the log before every commit " +
+                  "returns." )
+    public static final Setting<Duration> relaxed_durability_force_interval =
+            setting( "dbms.tx_log.relaxed_durability.force_interval", DURATION, "0s" );
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities." )
     @Internal
@@ -747,23 +842,76 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<String> pagecache_memory =
             buildSetting( "dbms.memory.pagecache.size", STRING, null ).build();
 
-    @Description( "Specify which page swapper to use for doing paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+    @Description( "Specify which page swapper to use for doing paged IO. The default, `single`, reads and writes " +
+                  "pages through file channels. The `mmap` swapper reads pages from memory mapped files instead, " +
+                  "which can save CPU time on read-mostly workloads. The `direct` swapper uses direct IO, so pages " +
+                  "are not also cached by the operating system, which is useful when most of the memory is given " +
+                  "to the page cache. It requires Linux and Java 10 or later, and falls back to buffered IO for " +
+                  "files where direct IO is not possible, which is logged for each file. This includes all record " +
+                  "stores, because their page size is a whole number of records rather than a multiple of the " +
+                  "file system block size. " +
+                  "Other page swappers are only used when integrating with proprietary storage technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Description( "Reserve part of the page cache for some of the store files, so that accesses to the other files " +
+                  "cannot evict their pages. This is a comma separated list of entries on the form `KEY:SIZE`, " +
+                  "where KEY is either the name of a store type, such as `NODE` or `RELATIONSHIP`, or `INDEX` for " +
+                  "the index and label scan store files. SIZE is either a percentage of the page cache, such as " +
+                  "`20%`, or an amount of memory, such as `500m`. The pages of the files are only protected from " +
+                  "eviction while they fit within the reservation. The combined reservations must leave room for " +
+                  "eviction to keep a few pages free." )
+    public static final Setting<List<String>> pagecache_reservations =
+            setting( "dbms.memory.pagecache.reservations", STRING_LIST, "" );
+
+    @Description( "Continuously write dirty pages out of the page cache in the background, so that checkpoints only " +
+                  "have to write the pages that were modified since the background flusher last passed by. This " +
+                  "spreads the write IO out over time, and makes the checkpoints shorter." )
+    public static final Setting<Boolean> pagecache_background_flush =
+            setting( "dbms.memory.pagecache.background_flush.enabled", BOOLEAN, FALSE );
+
+    @Description( "Limit the number of IOs the background page cache flusher will consume per second. " +
+                  "An IO is in this case a 8 KiB (mostly sequential) write. A lower number leaves more bandwidth in " +
+                  "the IO subsystem for reads and checkpoints, but also leaves more dirty pages for the checkpoints " +
+                  "to write. Set this to -1 to disable the IOPS limit." )
+    public static final Setting<Integer> pagecache_background_flush_iops_limit =
+            setting( "dbms.memory.pagecache.background_flush.iops.limit", INTEGER, "1000" );
+
+    @Description( "Store the pages of some of the record store files in compressed form. This is a comma separated " +
+                  "list of store types, such as `PROPERTY` or `PROPERTY_STRING`. Compression saves disk space and IO " +
+                  "for large stores that are mostly cold, at the cost of CPU time on every page fault and flush. " +
+                  "Only store files that are created while the setting is in effect are compressed, and a store " +
+                  "file that was created compressed cannot be opened without it." )
+    public static final Setting<List<String>> pagecache_compression =
+            setting( "dbms.memory.pagecache.compression", STRING_LIST, "" );
+
+    @Description( "The number of stripes to partition the page cache into, each with its own free pages and its own " +
+                  "eviction thread. Page faulting threads are assigned to a stripe by their thread id, and prefer " +
+                  "the free pages of that stripe, which spreads the contention on the free pages on machines with " +
+                  "many cores. The stripes are not tied to NUMA nodes. The default, 1, does not partition the page " +
+                  "cache." )
+    public static final Setting<Integer> pagecache_stripes =
+            buildSetting( "dbms.memory.pagecache.stripes", INTEGER, "1" ).constraint( min( 1 ) ).build();
+
+    @Description( "Sample one in this many page cache accesses and evictions into a heat map of the mapped files, " +
+                  "which shows the hits, faults and evictions of every 1024 pages of every file. The heat map can be " +
+                  "read with the `dbms.pageCache.heatMap()` procedure and through JMX. Smaller intervals give more " +
+                  "precise estimates at a higher overhead. Set this to 0 to disable the heat map." )
+    @Dynamic
+    public static final Setting<Integer> pagecache_heat_map_sampling_interval =
+            buildSetting( "dbms.memory.pagecache.heat_map.sampling_interval", INTEGER, "0" )
+                    .constraint( min( 0 ) ).build();
+
     @Internal
     @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
-                  "warmup after a restart, reducing the mean time to performance. " +
-                  "This feature available in Neo4j Enterprise Edition." )
+                  "warmup after a restart, reducing the mean time to performance." )
     public static final Setting<Duration> pagecache_warmup_profiling_interval =
             setting( "unsupported.dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m" );
 
     @Internal
     @Description( "Page cache can be configured to perform usage sampling of loaded pages that can be used to construct active load profile. " +
             "According to that profile pages can be reloaded on the restart, replication, etc. " +
-            "This setting allows disabling that behavior. " +
-            "This feature available in Neo4j Enterprise Edition." )
+            "This setting allows disabling that behavior." )
     public static final Setting<Boolean> pagecache_warmup_enabled = setting( "unsupported.dbms.memory.pagecache.warmup.enable", BOOLEAN, TRUE );
 
     @Description( "Allows the enabling or disabling of the file watcher service." +
@@ -1075,7 +1223,13 @@ public class GraphDatabaseSettings implements LoadableConfig
         OFF_HEAP
     }
 
-    @Description( "Defines whether memory for transaction state should be allocated on- or off-heap." )
+    @Description( "Defines whether memory for transaction state should be allocated on- or off-heap. Off-heap " +
+            "allocation covers the added and removed labels, properties and relationships of each node, which can " +
+            "then be spilled to disk, see dbms.tx_state.off_heap.spill_to_disk. The node and relationship state " +
+            "objects, and the maps that index them, stay on the heap either way, so the heap usage of a transaction " +
+            "still grows with the number of nodes and relationships it changes, by at least a hundred bytes each, " +
+            "and off-heap allocation does not keep a transaction that changes tens of millions of nodes from " +
+            "filling the heap." )
     public static final Setting<TransactionStateMemoryAllocation> tx_state_memory_allocation = buildSetting(
             "dbms.tx_state.memory_allocation",
             optionsIgnoreCase( TransactionStateMemoryAllocation.class ),
@@ -1108,6 +1262,19 @@ public class GraphDatabaseSettings implements LoadableConfig
             .constraint( min( 16 ) )
             .build();
 
+    @Description( "Whether off-heap transaction state that doesn't fit in dbms.tx_state.max_off_heap_memory should be " +
+            "spilled to temporary files in dbms.tx_state.off_heap.spill_directory, rather than fail the transaction " +
+            "that needs it. Spilled state is paged in and out by the operating system, so transactions slow down " +
+            "instead of running out of memory. Only used when dbms.tx_state.memory_allocation is set to 'OFF_HEAP', " +
+            "and has no effect when dbms.tx_state.max_off_heap_memory is zero." )
+    public static final Setting<Boolean> tx_state_off_heap_spill_to_disk =
+            setting( "dbms.tx_state.off_heap.spill_to_disk", BOOLEAN, TRUE );
+
+    @Description( "The directory that off-heap transaction state is spilled to, see " +
+            "dbms.tx_state.off_heap.spill_to_disk. The spilled state is not needed after a restart." )
+    public static final Setting<File> tx_state_off_heap_spill_directory = derivedSetting(
+            "dbms.tx_state.off_heap.spill_directory", data_directory, data -> new File( data, "tx-state-spill" ), PATH );
+
     // Needed to validate config, accessed via reflection
     @SuppressWarnings( "unused" )
     public static final HttpConnectorValidator httpValidator = new HttpConnectorValidator();
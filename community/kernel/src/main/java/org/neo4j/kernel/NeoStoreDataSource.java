@@ -22,6 +22,7 @@ package org.neo4j.kernel;
 import java.io.File;
 import java.io.IOException;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
@@ -83,6 +84,7 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
@@ -100,6 +102,9 @@ import org.neo4j.kernel.impl.storemigration.participant.StoreMigrator;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitWindow;
+import org.neo4j.kernel.impl.transaction.log.LogForceBarrier;
+import org.neo4j.kernel.impl.transaction.log.LogForceScheduler;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionUpgradeChecker;
 import org.neo4j.kernel.impl.transaction.log.LoggingLogFileMonitor;
@@ -330,6 +335,7 @@ public class NeoStoreDataSource extends LifecycleAdapter
                 .withLogEntryReader( logEntryReader )
                 .withLogFileMonitor( physicalLogMonitor )
                 .withConfig( config )
+                .withJobScheduler( scheduler )
                 .withDependencies( dataSourceDependencies ).build();
 
         LogTailScanner tailScanner = new LogTailScanner( logFiles, logEntryReader, monitors, failOnCorruptedLogFiles );
@@ -425,6 +431,8 @@ public class NeoStoreDataSource extends LifecycleAdapter
             throw new RuntimeException( e );
         }
 
+        life.add( new PageCacheWarmer( fs, pageCache, scheduler, databaseLayout.databaseDirectory(), config,
+                logProvider.getLog( PageCacheWarmer.class ) ) );
         life.add( new DatabaseDiagnostics( dataSourceDependencies.resolveDependency( DiagnosticsManager.class ), this, databaseInfo ) );
         life.add( databaseAvailability );
         life.setLast( lifecycleToTriggerCheckPointOnShutdown() );
@@ -535,9 +543,20 @@ public class NeoStoreDataSource extends LifecycleAdapter
         final LogRotation logRotation =
                 new LogRotationImpl( monitors.newMonitor( LogRotation.Monitor.class ), logFiles, databaseHealth );
 
+        Duration logForceInterval = config.get( GraphDatabaseSettings.relaxed_durability_force_interval );
+        boolean relaxedDurability = !logForceInterval.isZero();
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, new GroupCommitWindow( config.get( GraphDatabaseSettings.group_commit_max_window ),
+                        TimeUnit.MICROSECONDS ), config.get( GraphDatabaseSettings.compress_logical_logs ),
+                relaxedDurability ) );
+        if ( relaxedDurability )
+        {
+            // The page cache forces the log through this barrier before writing pages, which is what keeps the
+            // store from getting ahead of the durable part of the log
+            LogForceBarrier logForceBarrier = dependencyResolver.resolveDependency( LogForceBarrier.class );
+            life.add( new LogForceScheduler( appender, logForceBarrier, scheduler, logForceInterval.toMillis() ) );
+        }
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFiles, transactionMetadataCache, logEntryReader, monitors,
                         failOnCorruptedLogFiles );
@@ -546,7 +565,8 @@ public class NeoStoreDataSource extends LifecycleAdapter
 
         final CheckPointerImpl checkPointer = new CheckPointerImpl(
                 transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider,
-                tracers.checkPointTracer, ioLimiter, storeCopyCheckPointMutex );
+                tracers.checkPointTracer, ioLimiter, storeCopyCheckPointMutex, pageCache,
+                config.get( GraphDatabaseSettings.check_point_incremental ) );
 
         long recurringPeriod = threshold.checkFrequencyMillis();
         CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, ioLimiter, scheduler,
@@ -571,7 +591,8 @@ public class NeoStoreDataSource extends LifecycleAdapter
             LogVersionRepository logVersionRepository )
     {
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                logicalTransactionStore, logVersionRepository, positionMonitor );
+                logicalTransactionStore, logVersionRepository, positionMonitor, scheduler,
+                config.get( GraphDatabaseSettings.recovery_parallelism ) );
         CorruptedLogsTruncator logsTruncator = new CorruptedLogsTruncator( databaseLayout.databaseDirectory(), logFiles, fileSystemAbstraction );
         ProgressReporter progressReporter = new LogProgressReporter( logService.getInternalLog( Recovery.class ) );
         Lifecycle schemaLife = storageEngine.schemaAndTokensLifecycle();
@@ -589,6 +610,11 @@ public class NeoStoreDataSource extends LifecycleAdapter
 
         TransactionCommitProcess transactionCommitProcess = commitProcessFactory.create( appender, storageEngine,
                 config );
+        if ( transactionCommitProcess instanceof Lifecycle )
+        {
+            // Commit processes with threads of their own, like the pipelined one, need to be started and stopped.
+            life.add( (Lifecycle) transactionCommitProcess );
+        }
 
         /*
          * This is used by explicit indexes and constraint indexes whenever a transaction is to be spawned
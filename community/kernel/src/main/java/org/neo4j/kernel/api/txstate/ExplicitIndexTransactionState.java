@@ -61,4 +61,12 @@ public interface ExplicitIndexTransactionState extends AuxiliaryTransactionState
      * @return {@code true} if the index with the specific {@code name} and {@code entityType} exists, otherwise {@code false}.
      */
     boolean checkIndexExistence( IndexEntityType entityType, String indexName, Map<String, String> config );
+
+    /**
+     * Estimates how much heap the changes of this transaction state hold on to. This is accounted towards the
+     * memory limit of the transaction, and may be called by other threads than the one that owns the transaction.
+     *
+     * @return estimated number of bytes of heap used by the changes in this transaction state.
+     */
+    long estimatedHeapUsage();
 }
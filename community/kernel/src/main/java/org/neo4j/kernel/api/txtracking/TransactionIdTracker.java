@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.api.txtracking;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
@@ -26,6 +27,8 @@ import java.util.function.Supplier;
 import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.availability.AvailabilityGuard;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 
 import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_ID;
@@ -37,12 +40,15 @@ import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_I
 public class TransactionIdTracker
 {
     private final Supplier<TransactionIdStore> transactionIdStoreSupplier;
+    private final Supplier<TransactionAppender> transactionAppenderSupplier;
     private final AvailabilityGuard databaseAvailabilityGuard;
 
-    public TransactionIdTracker( Supplier<TransactionIdStore> transactionIdStoreSupplier, AvailabilityGuard databaseAvailabilityGuard )
+    public TransactionIdTracker( Supplier<TransactionIdStore> transactionIdStoreSupplier,
+            Supplier<TransactionAppender> transactionAppenderSupplier, AvailabilityGuard databaseAvailabilityGuard )
     {
         this.databaseAvailabilityGuard = databaseAvailabilityGuard;
         this.transactionIdStoreSupplier = transactionIdStoreSupplier;
+        this.transactionAppenderSupplier = transactionAppenderSupplier;
     }
 
     /**
@@ -110,13 +116,32 @@ public class TransactionIdTracker
      * Find the id of the Newest Encountered Transaction (NET) that could have been seen on this server.
      * We expect the returned id to be sent back the client and ultimately supplied to
      * {@link #awaitUpToDate(long, Duration)} on this server, or on a different server in the cluster.
+     * <p>
+     * The returned id is always durable in the transaction log. With relaxed durability, the last committed
+     * transaction may not have been forced yet, and could be lost in a crash, and its id reused for another
+     * transaction, so the log is made durable up to it before its id is handed out. A bookmark can't name an older
+     * transaction instead, since it must cover the writes of the client it is handed to.
      *
      * @return id of the Newest Encountered Transaction (NET).
+     * @throws UnderlyingStorageException if the transaction log could not be made durable.
      */
     public long newestEncounteredTxId()
     {
         // return the "last committed" because it is the newest id
         // "last closed" will return the last gap-free id, pottentially for some old transaction because there might be other committing transactions
-        return transactionIdStore().getLastCommittedTransactionId();
+        long lastCommittedTxId = transactionIdStore().getLastCommittedTransactionId();
+        TransactionAppender appender = transactionAppenderSupplier.get();
+        if ( lastCommittedTxId > appender.getDurableTransactionId() )
+        {
+            try
+            {
+                appender.makeDurable();
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+        }
+        return lastCommittedTxId;
     }
 }
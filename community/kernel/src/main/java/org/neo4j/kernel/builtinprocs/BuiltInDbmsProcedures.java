@@ -19,15 +19,26 @@
  */
 package org.neo4j.kernel.builtinprocs;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.stream.Stream;
 
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.internal.kernel.api.procs.ProcedureSignature;
 import org.neo4j.internal.kernel.api.procs.UserFunctionSignature;
 import org.neo4j.internal.kernel.api.security.SecurityContext;
+import org.neo4j.io.pagecache.tracing.PageCacheHeatMap;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor;
+import org.neo4j.kernel.impl.locking.LockContention;
+import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Admin;
@@ -36,6 +47,8 @@ import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.neo4j.procedure.Mode.DBMS;
 
 @SuppressWarnings( "unused" )
@@ -98,6 +111,58 @@ public class BuiltInDbmsProcedures
         return Stream.of( new StringResult( result ) );
     }
 
+    @Admin
+    @Description( "List the sampled hits, faults and evictions of the page cache, per range of pages in every " +
+                  "mapped file. The heat map is only recorded while " +
+                  "`dbms.memory.pagecache.heat_map.sampling_interval` is set." )
+    @Procedure( name = "dbms.pageCache.heatMap", mode = DBMS )
+    public Stream<PageRangeResult> pageCacheHeatMap()
+    {
+        PageCacheTracer pageCacheTracer = graph.getDependencyResolver().resolveDependency( PageCacheTracer.class );
+        return pageCacheTracer.heatMap().pageRanges().stream().map( PageRangeResult::new );
+    }
+
+    @Admin
+    @Description( "List the latency percentiles of every phase of committing transactions since the database " +
+                  "started, in microseconds." )
+    @Procedure( name = "dbms.commitLatency", mode = DBMS )
+    public Stream<CommitLatencyResult> commitLatency()
+    {
+        CommitLatencyMonitor monitor = graph.getDependencyResolver().resolveDependency( CommitLatencyMonitor.class );
+        return Arrays.stream( CommitLatencyMonitor.Phase.values() )
+                .map( phase -> new CommitLatencyResult( phase, monitor.commitLatency( phase ) ) );
+    }
+
+    @Admin
+    @Description( "List the resources that transactions have waited the most for to lock, the most waited for first, " +
+                  "with wait times in microseconds. At most `dbms.lock.contention.tracked_resources` resources " +
+                  "are tracked, and the wait count of a resource may be overestimated by as much as " +
+                  "`overestimatedWaits`." )
+    @Procedure( name = "dbms.listLockContention", mode = DBMS )
+    public Stream<LockContentionResult> listLockContention()
+    {
+        Locks locks = graph.getDependencyResolver().resolveDependency( Locks.class );
+        return locks.contention().hotSpots().stream().map( LockContentionResult::new );
+    }
+
+    @Description( "Show the last committed transaction, and the last transaction that is durable in the transaction " +
+                  "log. They only differ while durability is relaxed with " +
+                  "`dbms.tx_log.relaxed_durability.force_interval`, in which case the transactions after the " +
+                  "durable one are lost if the machine crashes." )
+    @Procedure( name = "dbms.transactionDurability", mode = DBMS )
+    public Stream<TransactionDurabilityResult> transactionDurability()
+    {
+        DependencyResolver resolver = graph.getDependencyResolver();
+        TransactionIdStore transactionIdStore = resolver.resolveDependency( TransactionIdStore.class );
+        TransactionAppender appender = resolver.resolveDependency( TransactionAppender.class );
+        boolean relaxed = !resolver.resolveDependency( Config.class )
+                .get( GraphDatabaseSettings.relaxed_durability_force_interval ).isZero();
+        long lastCommittedTransactionId = transactionIdStore.getLastCommittedTransactionId();
+        // A transaction is durable a moment before it is published as committed, when durability isn't relaxed
+        long durableTransactionId = Math.min( appender.getDurableTransactionId(), lastCommittedTransactionId );
+        return Stream.of( new TransactionDurabilityResult( lastCommittedTransactionId, durableTransactionId, relaxed ) );
+    }
+
     public static class FunctionResult
     {
         public final String name;
@@ -128,6 +193,91 @@ public class BuiltInDbmsProcedures
         }
     }
 
+    public static class PageRangeResult
+    {
+        public final String file;
+        public final long firstPageId;
+        public final long lastPageId;
+        public final long hits;
+        public final long faults;
+        public final long evictions;
+
+        private PageRangeResult( PageCacheHeatMap.PageRange pageRange )
+        {
+            this.file = pageRange.file().getPath();
+            this.firstPageId = pageRange.firstFilePageId();
+            this.lastPageId = pageRange.lastFilePageId();
+            this.hits = pageRange.hits();
+            this.faults = pageRange.faults();
+            this.evictions = pageRange.evictions();
+        }
+    }
+
+    public static class CommitLatencyResult
+    {
+        public final String phase;
+        public final long count;
+        public final long mean;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long p999;
+        public final long max;
+
+        private CommitLatencyResult( CommitLatencyMonitor.Phase phase, LatencyHistogram histogram )
+        {
+            this.phase = phase.name();
+            this.count = histogram.count();
+            this.mean = MICROSECONDS.convert( histogram.meanNanos(), NANOSECONDS );
+            this.p50 = histogram.percentile( 50, MICROSECONDS );
+            this.p90 = histogram.percentile( 90, MICROSECONDS );
+            this.p99 = histogram.percentile( 99, MICROSECONDS );
+            this.p999 = histogram.percentile( 99.9, MICROSECONDS );
+            this.max = MICROSECONDS.convert( histogram.maxNanos(), NANOSECONDS );
+        }
+    }
+
+    public static class LockContentionResult
+    {
+        public final String resourceType;
+        public final long resourceId;
+        public final long waits;
+        public final long overestimatedWaits;
+        public final long totalWaitTime;
+        public final long maxWaitTime;
+        public final long waiting;
+        public final long maxWaiting;
+        public final long lastHolderLockSessionId;
+
+        private LockContentionResult( LockContention.HotSpot hotSpot )
+        {
+            this.resourceType = hotSpot.resourceType().toString();
+            this.resourceId = hotSpot.resourceId();
+            this.waits = hotSpot.waits();
+            this.overestimatedWaits = hotSpot.overestimatedWaits();
+            this.totalWaitTime = MICROSECONDS.convert( hotSpot.totalWaitNanos(), NANOSECONDS );
+            this.maxWaitTime = MICROSECONDS.convert( hotSpot.maxWaitNanos(), NANOSECONDS );
+            this.waiting = hotSpot.waiting();
+            this.maxWaiting = hotSpot.maxWaiting();
+            this.lastHolderLockSessionId = hotSpot.lastHolderLockSessionId();
+        }
+    }
+
+    public static class TransactionDurabilityResult
+    {
+        public final long lastCommittedTransactionId;
+        public final long durableTransactionId;
+        public final boolean relaxed;
+
+        private TransactionDurabilityResult( long lastCommittedTransactionId, long durableTransactionId,
+                boolean relaxed )
+        {
+            this.lastCommittedTransactionId = lastCommittedTransactionId;
+            this.durableTransactionId = durableTransactionId;
+            this.relaxed = relaxed;
+        }
+    }
+
     public static class StringResult
     {
         public final String value;
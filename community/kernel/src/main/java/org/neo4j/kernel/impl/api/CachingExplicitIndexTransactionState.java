@@ -101,6 +101,12 @@ public class CachingExplicitIndexTransactionState implements ExplicitIndexTransa
         return txState.checkIndexExistence( entityType, indexName, config );
     }
 
+    @Override
+    public long estimatedHeapUsage()
+    {
+        return txState.estimatedHeapUsage();
+    }
+
     @Override
     public void close() throws Exception
     {
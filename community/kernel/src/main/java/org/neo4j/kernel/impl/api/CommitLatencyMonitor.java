@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
+
+/**
+ * Latency histograms of the phases of committing transactions, since the database started.
+ */
+public interface CommitLatencyMonitor
+{
+    enum Phase
+    {
+        /** Taking the locks that were deferred until commit. */
+        LOCK_ACQUISITION,
+        /** Turning the transaction state into commands. */
+        COMMAND_EXTRACTION,
+        /** Serializing the commands and writing them to the transaction log. */
+        LOG_SERIALIZATION,
+        /** Waiting for the transaction log to be forced, by this or by another committer. */
+        LOG_FORCE_WAIT,
+        /** Applying the commands to the stores, including the index updates. */
+        STORE_APPLY,
+        /** Applying the label scan store and schema index updates of a batch of transactions. */
+        INDEX_UPDATE,
+        /** Marking committed transactions as closed, which makes them visible to new transactions. */
+        PUBLISH
+    }
+
+    LatencyHistogram commitLatency( Phase phase );
+
+    CommitLatencyMonitor NULL = phase -> new LatencyHistogram();
+}
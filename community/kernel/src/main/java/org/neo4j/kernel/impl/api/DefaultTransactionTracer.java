@@ -21,12 +21,18 @@ package org.neo4j.kernel.impl.api;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
+import org.neo4j.kernel.impl.transaction.tracing.CommandExtractionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LockAcquisitionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
+import org.neo4j.kernel.impl.transaction.tracing.PublishEvent;
 import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
@@ -36,7 +42,8 @@ import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.SystemNanoClock;
 
-public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor
+public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor, LogForceMonitor,
+        CommitLatencyMonitor
 {
     public interface Monitor
     {
@@ -52,8 +59,33 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
 
     private long startTimeNanos;
 
+    private final AtomicLong logForceCounter = new AtomicLong();
+    private final AtomicLong logForceAccumulatedTotalTimeNanos = new AtomicLong();
+    private final AtomicLongArray logForceBatchSizes = new AtomicLongArray( BATCH_SIZE_BUCKETS );
+
+    // Log forces are serialized by the transaction appender, so this is only ever written by one thread at a time.
+    private long logForceStartTimeNanos;
+
+    private final LatencyHistogram[] commitLatencies = new LatencyHistogram[Phase.values().length];
+
     private final LogRotateEvent logRotateEvent = this::updateCountersAndNotifyListeners;
 
+    private final LogForceEvent logForceEvent = new LogForceEvent()
+    {
+        @Override
+        public void setBatchSize( int batchSize )
+        {
+            logForceBatchSizes.incrementAndGet( batchSizeBucket( batchSize ) );
+        }
+
+        @Override
+        public void close()
+        {
+            logForceCounter.incrementAndGet();
+            logForceAccumulatedTotalTimeNanos.addAndGet( clock.nanos() - logForceStartTimeNanos );
+        }
+    };
+
     private final LogAppendEvent logAppendEvent = new LogAppendEvent()
     {
         @Override
@@ -77,19 +109,20 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public SerializeTransactionEvent beginSerializeTransaction()
         {
-            return SerializeTransactionEvent.NULL;
+            return new PhaseEvent( Phase.LOG_SERIALIZATION );
         }
 
         @Override
         public LogForceWaitEvent beginLogForceWait()
         {
-            return LogForceWaitEvent.NULL;
+            return new PhaseEvent( Phase.LOG_FORCE_WAIT );
         }
 
         @Override
         public LogForceEvent beginLogForce()
         {
-            return LogForceEvent.NULL;
+            logForceStartTimeNanos = clock.nanos();
+            return logForceEvent;
         }
     };
 
@@ -100,6 +133,18 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         {
         }
 
+        @Override
+        public LockAcquisitionEvent beginLockAcquisition()
+        {
+            return new PhaseEvent( Phase.LOCK_ACQUISITION );
+        }
+
+        @Override
+        public CommandExtractionEvent beginCommandExtraction()
+        {
+            return new PhaseEvent( Phase.COMMAND_EXTRACTION );
+        }
+
         @Override
         public LogAppendEvent beginLogAppend()
         {
@@ -109,7 +154,13 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public StoreApplyEvent beginStoreApply()
         {
-            return StoreApplyEvent.NULL;
+            return new PhaseEvent( Phase.STORE_APPLY );
+        }
+
+        @Override
+        public PublishEvent beginPublish()
+        {
+            return new PhaseEvent( Phase.PUBLISH );
         }
     };
 
@@ -158,6 +209,10 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         this.clock = clock;
         this.monitor = monitor;
         this.jobScheduler = jobScheduler;
+        for ( int i = 0; i < commitLatencies.length; i++ )
+        {
+            commitLatencies[i] = new LatencyHistogram();
+        }
     }
 
     @Override
@@ -178,6 +233,74 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public long numberOfLogForceEvents()
+    {
+        return logForceCounter.get();
+    }
+
+    @Override
+    public long logForceAccumulatedTotalTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( logForceAccumulatedTotalTimeNanos.get() );
+    }
+
+    @Override
+    public long[] logForceBatchSizeDistribution()
+    {
+        long[] distribution = new long[BATCH_SIZE_BUCKETS];
+        for ( int i = 0; i < distribution.length; i++ )
+        {
+            distribution[i] = logForceBatchSizes.get( i );
+        }
+        return distribution;
+    }
+
+    @Override
+    public LatencyHistogram commitLatency( Phase phase )
+    {
+        return commitLatencies[phase.ordinal()];
+    }
+
+    /**
+     * The index updates are applied by the storage engine, which reports them through a monitor rather than through
+     * the commit event of any one transaction, since a batch of transactions share their index updates.
+     *
+     * @return a monitor listener that records the index update latencies in the {@link Phase#INDEX_UPDATE} histogram.
+     */
+    public IndexBatchTransactionApplier.Monitor indexUpdatesMonitor()
+    {
+        return nanos -> commitLatency( Phase.INDEX_UPDATE ).record( nanos );
+    }
+
+    static int batchSizeBucket( int batchSize )
+    {
+        int log2 = 31 - Integer.numberOfLeadingZeros( Math.max( batchSize, 1 ) );
+        return Math.min( log2, BATCH_SIZE_BUCKETS - 1 );
+    }
+
+    /**
+     * Times a phase of a commit. Phases of concurrent commits overlap, so every phase gets its own event instance.
+     */
+    private class PhaseEvent implements LockAcquisitionEvent, CommandExtractionEvent, SerializeTransactionEvent,
+            LogForceWaitEvent, StoreApplyEvent, PublishEvent
+    {
+        private final LatencyHistogram histogram;
+        private final long startTimeNanos;
+
+        PhaseEvent( Phase phase )
+        {
+            this.histogram = commitLatency( phase );
+            this.startTimeNanos = clock.nanos();
+        }
+
+        @Override
+        public void close()
+        {
+            histogram.record( clock.nanos() - startTimeNanos );
+        }
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         counter.incrementAndGet();
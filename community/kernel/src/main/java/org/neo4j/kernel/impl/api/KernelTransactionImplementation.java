@@ -34,6 +34,7 @@ import java.util.stream.Stream;
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.graphdb.NotInTransactionException;
 import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.internal.kernel.api.CursorFactory;
 import org.neo4j.internal.kernel.api.ExecutionStatistics;
 import org.neo4j.internal.kernel.api.ExplicitIndexRead;
@@ -92,7 +93,9 @@ import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.tracing.CommandExtractionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LockAcquisitionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.Dependencies;
@@ -131,6 +134,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private static final long NOT_COMMITTED_TRANSACTION_COMMIT_TIME = -1;
 
     private final CollectionsFactory collectionsFactory;
+    private final long memoryLimit;
 
     // Logic
     private final SchemaWriteGuard schemaWriteGuard;
@@ -154,8 +158,9 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
 
     // State that needs to be reset between uses. Most of these should be cleared or released in #release(),
     // whereas others, such as timestamp or txId when transaction starts, even locks, needs to be set in #initialize().
-    private TxState txState;
+    private volatile TxState txState;
     private AuxiliaryTransactionStateHolder auxTxStateHolder;
+    private volatile ExplicitIndexTransactionState explicitIndexTxState;
     private volatile TransactionWriteState writeState;
     private TransactionHooks.TransactionHooksState hooksState;
     private final KernelStatement currentStatement;
@@ -239,6 +244,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                         indexProviders,
                         config );
         this.collectionsFactory = collectionsFactorySupplier.create();
+        this.memoryLimit = config.get( GraphDatabaseSettings.transaction_memory_limit );
     }
 
     /**
@@ -466,12 +472,14 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     @Override
     public TransactionState txState()
     {
-        if ( txState == null )
+        TxState state = this.txState;
+        if ( state == null )
         {
             transactionMonitor.upgradeToWriteTransaction();
-            txState = new TxState( collectionsFactory );
+            state = new TxState( collectionsFactory );
+            this.txState = state;
         }
-        return txState;
+        return state;
     }
 
     private AuxiliaryTransactionStateHolder getAuxTxStateHolder()
@@ -492,7 +500,33 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     @Override
     public ExplicitIndexTransactionState explicitIndexTxState()
     {
-        return (ExplicitIndexTransactionState) getAuxTxStateHolder().getState( ExplicitIndexTransactionStateProvider.PROVIDER_KEY );
+        ExplicitIndexTransactionState state = this.explicitIndexTxState;
+        if ( state == null )
+        {
+            state = (ExplicitIndexTransactionState) getAuxTxStateHolder().getState( ExplicitIndexTransactionStateProvider.PROVIDER_KEY );
+            this.explicitIndexTxState = state;
+        }
+        return state;
+    }
+
+    /**
+     * Returns the amount of memory held by the state of this transaction: the off-heap transaction state and the
+     * estimated heap usage of the transaction state and of the explicit index transaction state. This is what
+     * {@code dbms.transaction.memory_limit} applies to. Can be called by other threads than the one executing the
+     * transaction, in which case the heap estimates may lag slightly behind.
+     *
+     * @return the number of bytes of memory used by the state of this transaction.
+     */
+    long usedMemory()
+    {
+        long usedMemory = collectionsFactory.getMemoryTracker().usedDirectMemory();
+        TxState state = this.txState;
+        if ( state != null )
+        {
+            usedMemory += state.estimatedHeapUsage();
+        }
+        ExplicitIndexTransactionState explicitIndexState = this.explicitIndexTxState;
+        return explicitIndexState != null ? usedMemory + explicitIndexState.estimatedHeapUsage() : usedMemory;
     }
 
     @Override
@@ -550,6 +584,11 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         {
             throw new NotInTransactionException( "The transaction has been closed." );
         }
+        if ( memoryLimit > 0 && usedMemory() > memoryLimit )
+        {
+            markForTermination( Status.Transaction.TransactionMemoryLimitExceeded );
+            throw new TransactionTerminatedException( Status.Transaction.TransactionMemoryLimitExceeded );
+        }
     }
 
     private boolean hasChanges()
@@ -669,22 +708,28 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             // Convert changes into commands and commit
             if ( hasChanges() )
             {
-                // grab all optimistic locks now, locks can't be deferred any further
-                statementLocks.prepareForCommit( currentStatement.lockTracer() );
+                try ( LockAcquisitionEvent lockAcquisitionEvent = commitEvent.beginLockAcquisition() )
+                {
+                    // grab all optimistic locks now, locks can't be deferred any further
+                    statementLocks.prepareForCommit( currentStatement.lockTracer() );
+                }
                 // use pessimistic locks for the rest of the commit process, locks can't be deferred any further
                 Locks.Client commitLocks = statementLocks.pessimistic();
 
                 // Gather up commands from the various sources
                 Collection<StorageCommand> extractedCommands = new ArrayList<>();
-                storageEngine.createCommands(
-                        extractedCommands,
-                        txState, storageReader,
-                        commitLocks,
-                        lastTransactionIdWhenStarted,
-                        this::enforceConstraints );
-                if ( hasAuxTxStateChanges() )
+                try ( CommandExtractionEvent commandExtractionEvent = commitEvent.beginCommandExtraction() )
                 {
-                    auxTxStateHolder.extractCommands( extractedCommands );
+                    storageEngine.createCommands(
+                            extractedCommands,
+                            txState, storageReader,
+                            commitLocks,
+                            lastTransactionIdWhenStarted,
+                            this::enforceConstraints );
+                    if ( hasAuxTxStateChanges() )
+                    {
+                        auxTxStateHolder.extractCommands( extractedCommands );
+                    }
                 }
 
                 /* Here's the deal: we track a quick-to-access hasChanges in transaction state which is true
@@ -956,6 +1001,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             {
                 auxStateCloseException = closeAuxTxState();
             }
+            explicitIndexTxState = null;
             txState = null;
             collectionsFactory.release();
             hooksState = null;
@@ -1061,7 +1107,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     {
         String lockSessionId = statementLocks == null
                                ? "statementLocks == null"
-                               : String.valueOf( statementLocks.pessimistic().getLockSessionId() );
+                               : String.valueOf( statementLocks.lockSessionId() );
 
         return "KernelTransaction[" + lockSessionId + "]";
     }
@@ -1162,6 +1208,17 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             return transaction.collectionsFactory.getMemoryTracker().usedDirectMemory();
         }
 
+        /**
+         * Returns amount of memory used by the state of current transaction.
+         *
+         * @return amount of memory used by the transaction state in bytes.
+         * @see KernelTransactionImplementation#usedMemory()
+         */
+        long usedMemory()
+        {
+            return transaction.usedMemory();
+        }
+
         /**
          * Return CPU time used by current transaction in milliseconds
          * @return the current CPU time used by the transaction, in milliseconds.
@@ -31,6 +31,7 @@ import org.neo4j.collection.pool.MarshlandPool;
 import org.neo4j.function.Factory;
 import org.neo4j.graphdb.DatabaseShutdownException;
 import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.internal.kernel.api.security.LoginContext;
 import org.neo4j.internal.kernel.api.security.SecurityContext;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
@@ -47,6 +48,8 @@ import org.neo4j.kernel.impl.constraints.ConstraintSemantics;
 import org.neo4j.kernel.impl.core.TokenHolders;
 import org.neo4j.kernel.impl.factory.AccessCapability;
 import org.neo4j.kernel.impl.index.ExplicitIndexStore;
+import org.neo4j.kernel.impl.locking.LazyStatementLocks;
+import org.neo4j.kernel.impl.locking.LightweightSharedLocks;
 import org.neo4j.kernel.impl.locking.StatementLocks;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.proc.Procedures;
@@ -105,6 +108,8 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
     private final String currentDatabaseName;
     private final Dependencies dataSourceDependencies;
     private final Config config;
+    private final boolean lazyStatementLocks;
+    private final LightweightSharedLocks lightweightSharedLocks = new LightweightSharedLocks();
     private final CollectionsFactorySupplier collectionsFactorySupplier;
     private final SchemaState schemaState;
 
@@ -147,6 +152,7 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
             String currentDatabaseName, Dependencies dataSourceDependencies )
     {
         this.config = config;
+        this.lazyStatementLocks = config.get( GraphDatabaseSettings.lazy_statement_locks );
         this.statementLocksFactory = statementLocksFactory;
         this.constraintIndexCreator = constraintIndexCreator;
         this.statementOperations = statementOperations;
@@ -193,7 +199,9 @@ public class KernelTransactions extends LifecycleAdapter implements Supplier<Ker
                 assertRunning();
                 TransactionId lastCommittedTransaction = transactionIdStore.getLastCommittedTransaction();
                 KernelTransactionImplementation tx = localTxPool.acquire();
-                StatementLocks statementLocks = statementLocksFactory.newInstance();
+                StatementLocks statementLocks = lazyStatementLocks
+                                                ? new LazyStatementLocks( statementLocksFactory, lightweightSharedLocks )
+                                                : statementLocksFactory.newInstance();
                 tx.initialize( lastCommittedTransaction.transactionId(), lastCommittedTransaction.commitTimestamp(),
                         statementLocks, type, securityContext, timeout, userTransactionIdCounter.incrementAndGet() );
                 return tx;
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+public interface LogForceMonitor
+{
+    /**
+     * The number of buckets in the {@link #logForceBatchSizeDistribution() batch size distribution}.
+     */
+    int BATCH_SIZE_BUCKETS = 16;
+
+    long numberOfLogForceEvents();
+
+    long logForceAccumulatedTotalTimeMillis();
+
+    /**
+     * The number of transaction log forces by the number of committers that each force released. Bucket {@code i}
+     * counts the forces that released between {@code 2^i} and {@code 2^(i+1) - 1} committers, and the last bucket
+     * also counts all larger batches.
+     *
+     * @return a new array of {@link #BATCH_SIZE_BUCKETS} counts.
+     */
+    long[] logForceBatchSizeDistribution();
+
+    LogForceMonitor NULL = new LogForceMonitor()
+    {
+        @Override
+        public long numberOfLogForceEvents()
+        {
+            return 0;
+        }
+
+        @Override
+        public long logForceAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
+
+        @Override
+        public long[] logForceBatchSizeDistribution()
+        {
+            return new long[BATCH_SIZE_BUCKETS];
+        }
+    };
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+import static org.neo4j.kernel.api.exceptions.Status.General.DatabaseUnavailable;
+import static org.neo4j.kernel.api.exceptions.Status.Transaction.TransactionLogError;
+
+/**
+ * Commits transactions through a pipeline of three stages, each with a dedicated thread, instead of on the
+ * committing threads:
+ * <ol>
+ * <li>The append stage serializes transactions to the transaction log, without forcing it.</li>
+ * <li>The force stage forces the log once for all the transactions that were appended since the previous force,
+ * and publishes them as committed.</li>
+ * <li>The apply stage chains all the transactions that were forced since it last applied anything into one batch,
+ * applies that batch to the store, in the order the transactions were appended, and then closes them.</li>
+ * </ol>
+ * The stages are connected by queues, so the append stage can append the next transactions while the force stage
+ * forces the log for the previous ones, and the force stage can force the log while the apply stage applies the
+ * previous transactions. The committing threads only enqueue their transactions and then park until they have been
+ * applied and closed, so they never hand the log file lock or the force lock over to each other.
+ * <p>
+ * Each stage exposes the depth of its queue, and the mean time that transactions spend in it, from being queued
+ * until being handed over to the next stage.
+ */
+public class PipelinedTransactionCommitProcess extends TransactionRepresentationCommitProcess implements Lifecycle
+{
+    private final BatchingTransactionAppender appender;
+    private final JobScheduler scheduler;
+    private final Stage appendStage = new Stage( "append" );
+    private final Stage forceStage = new Stage( "force" );
+    private final Stage applyStage = new Stage( "apply" );
+
+    public PipelinedTransactionCommitProcess( BatchingTransactionAppender appender, StorageEngine storageEngine,
+            JobScheduler scheduler )
+    {
+        super( appender, storageEngine );
+        this.appender = appender;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void init()
+    {
+    }
+
+    @Override
+    public void start()
+    {
+        ThreadFactory threadFactory = scheduler.threadFactory( Group.TRANSACTION_COMMIT );
+        appendStage.start( threadFactory, this::append );
+        forceStage.start( threadFactory, this::force );
+        applyStage.start( threadFactory, this::apply );
+    }
+
+    @Override
+    public void stop() throws InterruptedException
+    {
+        // Every stage drains its queue before it stops, so stopping them from the first to the last lets all the
+        // transactions that made it into the pipeline through it.
+        appendStage.stop();
+        forceStage.stop();
+        applyStage.stop();
+    }
+
+    @Override
+    public void shutdown()
+    {
+    }
+
+    @Override
+    public long commit( TransactionToApply batch, CommitEvent commitEvent, TransactionApplicationMode mode )
+            throws TransactionFailureException
+    {
+        Commit commit = new Commit( batch, commitEvent, mode );
+        appendStage.offer( commit );
+        if ( appendStage.stopped && appendStage.queue.remove( commit ) )
+        {
+            // The append stage stopped before it could see this transaction.
+            throw new TransactionFailureException( DatabaseUnavailable,
+                    "Could not commit the transaction, because the commit pipeline has been stopped" );
+        }
+        return commit.await();
+    }
+
+    public Stage appendStage()
+    {
+        return appendStage;
+    }
+
+    public Stage forceStage()
+    {
+        return forceStage;
+    }
+
+    public Stage applyStage()
+    {
+        return applyStage;
+    }
+
+    private void append( List<Commit> commits )
+    {
+        for ( Commit commit : commits )
+        {
+            commit.logAppendEvent = commit.commitEvent.beginLogAppend();
+            try
+            {
+                commit.lastTransactionId = appender.appendWithoutForce( commit.batch, commit.logAppendEvent );
+            }
+            catch ( Throwable cause )
+            {
+                commit.logAppendEvent.close();
+                appendStage.fail( commit, new TransactionFailureException( TransactionLogError, cause,
+                        "Could not append transaction representation to log" ) );
+                continue;
+            }
+            appendStage.handOver( commit, forceStage );
+        }
+    }
+
+    private void force( List<Commit> commits )
+    {
+        try
+        {
+            // One force covers all the transactions that have been appended so far, so it is traced as part of the
+            // log append of the first of them.
+            appender.forceAndRotateLogIfNeeded( commits.get( 0 ).logAppendEvent );
+        }
+        catch ( Throwable cause )
+        {
+            for ( Commit commit : commits )
+            {
+                commit.logAppendEvent.close();
+                forceStage.fail( commit, new TransactionFailureException( TransactionLogError, cause,
+                        "Could not append transaction representation to log" ) );
+            }
+            return;
+        }
+        for ( Commit commit : commits )
+        {
+            appender.publishAsCommitted( commit.batch );
+            commit.logAppendEvent.close();
+            forceStage.handOver( commit, applyStage );
+        }
+    }
+
+    private void apply( List<Commit> commits )
+    {
+        int from = 0;
+        while ( from < commits.size() )
+        {
+            // Transactions can only be applied together if they are applied in the same mode.
+            TransactionApplicationMode mode = commits.get( from ).mode;
+            int to = from + 1;
+            while ( to < commits.size() && commits.get( to ).mode == mode )
+            {
+                to++;
+            }
+            apply( commits.subList( from, to ), mode );
+            from = to;
+        }
+    }
+
+    private void apply( List<Commit> commits, TransactionApplicationMode mode )
+    {
+        TransactionToApply[] lastInBatch = new TransactionToApply[commits.size()];
+        for ( int i = 0; i < commits.size(); i++ )
+        {
+            TransactionToApply last = commits.get( i ).batch;
+            while ( last.next() != null )
+            {
+                last = last.next();
+            }
+            lastInBatch[i] = last;
+            if ( i > 0 )
+            {
+                lastInBatch[i - 1].next( commits.get( i ).batch );
+            }
+        }
+
+        // The chain is applied as a whole, so the store application is traced as part of the commit of every
+        // transaction in it.
+        List<StoreApplyEvent> storeApplyEvents = new ArrayList<>( commits.size() );
+        TransactionFailureException failure = null;
+        try
+        {
+            for ( Commit commit : commits )
+            {
+                storeApplyEvents.add( commit.commitEvent.beginStoreApply() );
+            }
+            applyToStore( commits.get( 0 ).batch, mode );
+        }
+        catch ( TransactionFailureException e )
+        {
+            failure = e;
+        }
+        finally
+        {
+            storeApplyEvents.forEach( StoreApplyEvent::close );
+            // Break the chain up again, so every transaction is closed as part of its own commit.
+            for ( TransactionToApply last : lastInBatch )
+            {
+                last.next( null );
+            }
+        }
+
+        for ( Commit commit : commits )
+        {
+            close( commit.batch, commit.commitEvent );
+            if ( failure == null )
+            {
+                applyStage.complete( commit );
+            }
+            else
+            {
+                applyStage.fail( commit, failure );
+            }
+        }
+    }
+
+    /**
+     * A queue of transactions, and the thread that takes them off the queue, in groups of all the transactions that
+     * are queued at the time.
+     */
+    public static class Stage
+    {
+        /**
+         * Queued when the stage is stopped, to wake up its thread. The thread processes whatever is still queued,
+         * and then ends.
+         */
+        private static final Commit STOP = new Commit( null, null, null );
+
+        private final String name;
+        private final BlockingQueue<Commit> queue = new LinkedBlockingQueue<>();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private volatile boolean stopped;
+        private Thread thread;
+
+        Stage( String name )
+        {
+            this.name = name;
+        }
+
+        public String name()
+        {
+            return name;
+        }
+
+        /**
+         * @return the number of transactions that are waiting for this stage.
+         */
+        public int queueDepth()
+        {
+            return queue.size();
+        }
+
+        /**
+         * @return the number of transactions that have been through this stage.
+         */
+        public long processed()
+        {
+            return processed.sum();
+        }
+
+        /**
+         * @return the mean time, in nanoseconds, that transactions have spent in this stage, from being queued until
+         * being handed over to the next stage, or failed.
+         */
+        public long meanLatencyNanos()
+        {
+            long count = processed.sum();
+            return count == 0 ? 0 : totalNanos.sum() / count;
+        }
+
+        private void start( ThreadFactory threadFactory, Consumer<List<Commit>> processor )
+        {
+            stopped = false;
+            thread = threadFactory.newThread( () -> process( processor ) );
+            thread.start();
+        }
+
+        private void stop() throws InterruptedException
+        {
+            stopped = true;
+            if ( thread != null )
+            {
+                queue.add( STOP );
+                thread.join();
+                thread = null;
+            }
+        }
+
+        private void process( Consumer<List<Commit>> processor )
+        {
+            List<Commit> commits = new ArrayList<>();
+            boolean stopping = false;
+            while ( !stopping || !queue.isEmpty() )
+            {
+                try
+                {
+                    commits.add( queue.take() );
+                }
+                catch ( InterruptedException e )
+                {
+                    // Transactions may already be in the pipeline, so this stage keeps going until it is stopped.
+                    continue;
+                }
+                queue.drainTo( commits );
+                stopping |= commits.remove( STOP );
+                if ( !commits.isEmpty() )
+                {
+                    processor.accept( commits );
+                    commits.clear();
+                }
+            }
+        }
+
+        private void offer( Commit commit )
+        {
+            commit.queuedNanos = System.nanoTime();
+            queue.add( commit );
+        }
+
+        private void handOver( Commit commit, Stage next )
+        {
+            processed( commit );
+            next.offer( commit );
+        }
+
+        private void complete( Commit commit )
+        {
+            processed( commit );
+            commit.completion.complete( commit.lastTransactionId );
+        }
+
+        private void fail( Commit commit, TransactionFailureException failure )
+        {
+            processed( commit );
+            commit.completion.completeExceptionally( failure );
+        }
+
+        private void processed( Commit commit )
+        {
+            totalNanos.add( System.nanoTime() - commit.queuedNanos );
+            processed.increment();
+        }
+    }
+
+    private static class Commit
+    {
+        private final TransactionToApply batch;
+        private final CommitEvent commitEvent;
+        private final TransactionApplicationMode mode;
+        private final CompletableFuture<Long> completion = new CompletableFuture<>();
+        private LogAppendEvent logAppendEvent;
+        private long lastTransactionId;
+        private long queuedNanos;
+
+        Commit( TransactionToApply batch, CommitEvent commitEvent, TransactionApplicationMode mode )
+        {
+            this.batch = batch;
+            this.commitEvent = commitEvent;
+            this.mode = mode;
+        }
+
+        /**
+         * Wait for the transaction to be applied and closed. The wait can't be cut short by interrupting the
+         * committing thread, because the transaction can't be taken back out of the pipeline, and the committing
+         * thread must not release the locks of the transaction before its changes have been applied to the store.
+         * The interrupt is restored once the transaction has made it through the pipeline.
+         */
+        long await() throws TransactionFailureException
+        {
+            boolean interrupted = false;
+            try
+            {
+                while ( true )
+                {
+                    try
+                    {
+                        return completion.get();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        interrupted = true;
+                    }
+                    catch ( ExecutionException e )
+                    {
+                        throw (TransactionFailureException) e.getCause();
+                    }
+                }
+            }
+            finally
+            {
+                if ( interrupted )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
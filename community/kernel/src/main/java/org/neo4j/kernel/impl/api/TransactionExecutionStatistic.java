@@ -29,6 +29,7 @@ public class TransactionExecutionStatistic
 
     private final Long heapAllocatedBytes;
     private final Long directAllocatedBytes;
+    private final long usedMemoryBytes;
     private final Long cpuTimeMillis;
     private final long waitTimeMillis;
     private final long elapsedTimeMillis;
@@ -40,6 +41,7 @@ public class TransactionExecutionStatistic
     {
         heapAllocatedBytes = null;
         directAllocatedBytes = null;
+        usedMemoryBytes = 0;
         cpuTimeMillis = null;
         waitTimeMillis = -1;
         elapsedTimeMillis = -1;
@@ -56,6 +58,7 @@ public class TransactionExecutionStatistic
         this.waitTimeMillis = NANOSECONDS.toMillis( statistics.getWaitingTimeNanos( nowNanos ) );
         this.heapAllocatedBytes = nullIfNegative( statistics.heapAllocatedBytes() );
         this.directAllocatedBytes = nullIfNegative( statistics.directAllocatedBytes() );
+        this.usedMemoryBytes = statistics.usedMemory();
         this.cpuTimeMillis = nullIfNegative( statistics.cpuTimeMillis() );
         this.pageFaults = statistics.totalTransactionPageCacheFaults();
         this.pageHits = statistics.totalTransactionPageCacheHits();
@@ -73,6 +76,15 @@ public class TransactionExecutionStatistic
         return directAllocatedBytes;
     }
 
+    /**
+     * @return number of bytes used by the state of the transaction, which is what the per-transaction memory limit
+     * applies to.
+     */
+    public long getUsedMemoryBytes()
+    {
+        return usedMemoryBytes;
+    }
+
     public Long getCpuTimeMillis()
     {
         return cpuTimeMillis;
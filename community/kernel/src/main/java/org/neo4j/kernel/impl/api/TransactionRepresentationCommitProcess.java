@@ -23,6 +23,7 @@ import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.PublishEvent;
 import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
@@ -53,7 +54,7 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
         finally
         {
-            close( batch );
+            close( batch, commitEvent );
         }
     }
 
@@ -74,6 +75,15 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
             throws TransactionFailureException
     {
         try ( StoreApplyEvent storeApplyEvent = commitEvent.beginStoreApply() )
+        {
+            applyToStore( batch, mode );
+        }
+    }
+
+    protected void applyToStore( TransactionToApply batch, TransactionApplicationMode mode )
+            throws TransactionFailureException
+    {
+        try
         {
             storageEngine.apply( batch, mode );
         }
@@ -84,16 +94,19 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
     }
 
-    private void close( TransactionToApply batch )
+    protected void close( TransactionToApply batch, CommitEvent commitEvent )
     {
-        while ( batch != null )
+        try ( PublishEvent publishEvent = commitEvent.beginPublish() )
         {
-            if ( batch.commitment().markedAsCommitted() )
+            while ( batch != null )
             {
-                batch.commitment().publishAsClosed();
+                if ( batch.commitment().markedAsCommitted() )
+                {
+                    batch.commitment().publishAsClosed();
+                }
+                batch.close();
+                batch = batch.next();
             }
-            batch.close();
-            batch = batch.next();
         }
     }
 }
@@ -57,6 +57,13 @@ import static org.neo4j.kernel.impl.index.ExplicitIndexStore.assertConfigMatches
  */
 public class ExplicitIndexTransactionStateImpl implements ExplicitIndexTransactionState, IndexCommandFactory
 {
+    // Rough heap footprint of a command, its slot in the command list and its entity id and key
+    private static final long COMMAND_HEAP_OVERHEAD = 64;
+    // Header, hash and length of a String plus the header of its char array, chars are counted separately
+    private static final long STRING_HEAP_OVERHEAD = 40;
+    // A boxed primitive, the only other kind of value an explicit index command holds
+    private static final long BOXED_VALUE_HEAP_USAGE = 24;
+
     private final Map<String,ExplicitIndexProviderTransaction> transactions = new HashMap<>();
     private final IndexConfigStore indexConfigStore;
     private final ExplicitIndexProvider providerLookup;
@@ -65,6 +72,8 @@ public class ExplicitIndexTransactionStateImpl implements ExplicitIndexTransacti
     private IndexDefineCommand defineCommand;
     private final Map<String, List<IndexCommand>> nodeCommands = new HashMap<>();
     private final Map<String, List<IndexCommand>> relationshipCommands = new HashMap<>();
+    // Only updated by the thread that owns the transaction, but read by others
+    private volatile long estimatedHeapUsage;
 
     public ExplicitIndexTransactionStateImpl( IndexConfigStore indexConfigStore,
             ExplicitIndexProvider explicitIndexProvider )
@@ -164,12 +173,28 @@ public class ExplicitIndexTransactionStateImpl implements ExplicitIndexTransacti
             throw new IllegalArgumentException( "" + command.getEntityType() );
         }
 
+        long heapUsage = estimatedHeapUsage;
         if ( clearFirst )
         {
+            for ( IndexCommand clearedCommand : commands )
+            {
+                heapUsage -= estimatedHeapUsage( clearedCommand );
+            }
             commands.clear();
         }
 
         commands.add( command );
+        estimatedHeapUsage = heapUsage + estimatedHeapUsage( command );
+    }
+
+    private static long estimatedHeapUsage( IndexCommand command )
+    {
+        Object value = command.getValue();
+        if ( value instanceof String )
+        {
+            return COMMAND_HEAP_OVERHEAD + STRING_HEAP_OVERHEAD + 2L * ((String) value).length();
+        }
+        return value == null ? COMMAND_HEAP_OVERHEAD : COMMAND_HEAP_OVERHEAD + BOXED_VALUE_HEAP_USAGE;
     }
 
     @Override
@@ -248,6 +273,12 @@ public class ExplicitIndexTransactionStateImpl implements ExplicitIndexTransacti
         return true;
     }
 
+    @Override
+    public long estimatedHeapUsage()
+    {
+        return estimatedHeapUsage;
+    }
+
     @Override
     public void close() throws Exception
     {
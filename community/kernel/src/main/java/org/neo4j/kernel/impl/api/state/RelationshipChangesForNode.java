@@ -29,6 +29,8 @@ import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
 import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 
 import org.neo4j.collection.PrimitiveLongCollections;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
 import org.neo4j.storageengine.api.RelationshipDirection;
 
 import static java.lang.Math.toIntExact;
@@ -68,20 +70,27 @@ public class RelationshipChangesForNode
     }
 
     private final DiffStrategy diffStrategy;
+    private final CollectionsFactory collectionsFactory;
 
     private MutableIntObjectMap<MutableLongSet> outgoing;
     private MutableIntObjectMap<MutableLongSet> incoming;
     private MutableIntObjectMap<MutableLongSet> loops;
 
     public RelationshipChangesForNode( DiffStrategy diffStrategy )
+    {
+        this( diffStrategy, OnHeapCollectionsFactory.INSTANCE );
+    }
+
+    public RelationshipChangesForNode( DiffStrategy diffStrategy, CollectionsFactory collectionsFactory )
     {
         this.diffStrategy = diffStrategy;
+        this.collectionsFactory = collectionsFactory;
     }
 
     public void addRelationship( long relId, int typeId, RelationshipDirection direction )
     {
         final MutableIntObjectMap<MutableLongSet> relTypeToRelsMap = getTypeToRelMapForDirection( direction );
-        final MutableLongSet rels = relTypeToRelsMap.getIfAbsentPut( typeId, LongHashSet::new );
+        final MutableLongSet rels = relTypeToRelsMap.getIfAbsentPut( typeId, collectionsFactory::newLongSet );
 
         rels.add( relId );
     }
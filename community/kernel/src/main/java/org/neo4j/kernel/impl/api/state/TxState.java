@@ -58,6 +58,7 @@ import org.neo4j.storageengine.api.txstate.NodeState;
 import org.neo4j.storageengine.api.txstate.RelationshipState;
 import org.neo4j.storageengine.api.txstate.TxStateVisitor;
 import org.neo4j.util.VisibleForTesting;
+import org.neo4j.values.storable.TextValue;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueTuple;
 
@@ -77,12 +78,25 @@ import static org.neo4j.values.storable.Values.NO_VALUE;
  */
 public class TxState implements TransactionState, RelationshipVisitor.Home
 {
+    // Rough per-entry sizes behind estimatedHeapUsage(), assuming a 64-bit JVM with compressed references.
+    // A NodeStateImpl or RelationshipStateImpl, its lazily created collections and its slot in the states map.
+    private static final long ENTITY_STATE_HEAP_USAGE = 128;
+    // A long in an on-heap primitive set, including the empty slots its load factor keeps around.
+    private static final long ID_ENTRY_HEAP_USAGE = 16;
+    // A key and reference in an on-heap values map plus the header and fields of the Value itself.
+    private static final long PROPERTY_ENTRY_HEAP_USAGE = 64;
+    // A ValueTuple key, its diff sets in the index updates map and the node's reference to those diff sets.
+    private static final long INDEX_ENTRY_HEAP_USAGE = 128;
+
     /**
      * This factory must be used only for creating collections representing internal state that doesn't leak outside this class.
      */
     private final CollectionsFactory collectionsFactory;
+    private final boolean onHeapCollections;
 
     private MutableLongObjectMap<MutableLongDiffSets> labelStatesMap;
+    // These maps, and the node and relationship state objects in them, are always on the heap. Only the collections
+    // that the state objects create through the collections factory can be off the heap.
     private MutableLongObjectMap<NodeStateImpl> nodeStatesMap;
     private MutableLongObjectMap<RelationshipStateImpl> relationshipStatesMap;
 
@@ -103,6 +117,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
 
     private long revision;
     private long dataRevision;
+    private long estimatedHeapUsage;
 
     public TxState()
     {
@@ -112,6 +127,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public TxState( CollectionsFactory collectionsFactory )
     {
         this.collectionsFactory = collectionsFactory;
+        this.onHeapCollections = collectionsFactory instanceof OnHeapCollectionsFactory;
     }
 
     @Override
@@ -256,6 +272,35 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         revision++;
     }
 
+    /**
+     * @return an estimate of the heap used by this state, in bytes. Node and relationship states and index updates
+     * always live on the heap; labels, properties and created or deleted entities only do so with the on-heap
+     * collections factory, otherwise their memory is tracked by the factory itself. The estimate only ever grows,
+     * undoing a change in the same transaction does not reduce it.
+     */
+    public long estimatedHeapUsage()
+    {
+        return estimatedHeapUsage;
+    }
+
+    private void entriesOnHeap( int entries )
+    {
+        if ( onHeapCollections )
+        {
+            estimatedHeapUsage += entries * ID_ENTRY_HEAP_USAGE;
+        }
+    }
+
+    private void propertyOnHeap( Value value )
+    {
+        if ( onHeapCollections )
+        {
+            // Strings dominate property sizes in practice, two bytes per char
+            long valueSize = value instanceof TextValue ? 2L * ((TextValue) value).length() : 0;
+            estimatedHeapUsage += PROPERTY_ENTRY_HEAP_USAGE + valueSize;
+        }
+    }
+
     private void dataChanged()
     {
         changed();
@@ -266,6 +311,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoCreate( long id )
     {
         nodes().add( id );
+        entriesOnHeap( 1 );
         dataChanged();
     }
 
@@ -273,6 +319,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoDelete( long nodeId )
     {
         nodes().remove( nodeId );
+        entriesOnHeap( 1 );
 
         if ( nodeStatesMap != null )
         {
@@ -304,6 +351,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         }
 
         getOrCreateRelationshipState( id ).setMetaData( startNodeId, endNodeId, relationshipTypeId );
+        entriesOnHeap( 3 );
 
         dataChanged();
     }
@@ -328,6 +376,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
             getOrCreateNodeState( startNodeId ).removeRelationship( id, type, RelationshipDirection.OUTGOING );
             getOrCreateNodeState( endNodeId ).removeRelationship( id, type, RelationshipDirection.INCOMING );
         }
+        entriesOnHeap( 3 );
 
         if ( relationshipStatesMap != null )
         {
@@ -358,6 +407,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         NodeStateImpl nodeState = getOrCreateNodeState( nodeId );
         nodeState.addProperty( newPropertyKeyId, value );
+        propertyOnHeap( value );
         dataChanged();
     }
 
@@ -365,6 +415,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoChangeProperty( long nodeId, int propertyKeyId, Value newValue )
     {
         getOrCreateNodeState( nodeId ).changeProperty( propertyKeyId, newValue );
+        propertyOnHeap( newValue );
         dataChanged();
     }
 
@@ -380,6 +431,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             getOrCreateRelationshipState( relationshipId ).addProperty( propertyKeyId, newValue );
         }
+        propertyOnHeap( newValue );
         dataChanged();
     }
 
@@ -394,6 +446,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             getOrCreateGraphState().addProperty( propertyKeyId, newValue );
         }
+        propertyOnHeap( newValue );
         dataChanged();
     }
 
@@ -401,6 +454,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoRemoveProperty( long nodeId, int propertyKeyId )
     {
         getOrCreateNodeState( nodeId ).removeProperty( propertyKeyId );
+        entriesOnHeap( 1 );
         dataChanged();
     }
 
@@ -408,6 +462,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void relationshipDoRemoveProperty( long relationshipId, int propertyKeyId )
     {
         getOrCreateRelationshipState( relationshipId ).removeProperty( propertyKeyId );
+        entriesOnHeap( 1 );
         dataChanged();
     }
 
@@ -415,6 +470,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void graphDoRemoveProperty( int propertyKeyId )
     {
         getOrCreateGraphState().removeProperty( propertyKeyId );
+        entriesOnHeap( 1 );
         dataChanged();
     }
 
@@ -423,6 +479,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         getOrCreateLabelStateNodeDiffSets( labelId ).add( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).add( labelId );
+        entriesOnHeap( 2 );
         dataChanged();
     }
 
@@ -431,6 +488,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         getOrCreateLabelStateNodeDiffSets( labelId ).remove( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).remove( labelId );
+        entriesOnHeap( 2 );
         dataChanged();
     }
 
@@ -607,7 +665,11 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             nodeStatesMap = new LongObjectHashMap<>();
         }
-        return nodeStatesMap.getIfAbsentPut( nodeId, () -> new NodeStateImpl( nodeId, collectionsFactory ) );
+        return nodeStatesMap.getIfAbsentPut( nodeId, () ->
+        {
+            estimatedHeapUsage += ENTITY_STATE_HEAP_USAGE;
+            return new NodeStateImpl( nodeId, collectionsFactory );
+        } );
     }
 
     private RelationshipStateImpl getOrCreateRelationshipState( long relationshipId )
@@ -616,7 +678,11 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationshipStatesMap = new LongObjectHashMap<>();
         }
-        return relationshipStatesMap.getIfAbsentPut( relationshipId, () -> new RelationshipStateImpl( relationshipId, collectionsFactory ) );
+        return relationshipStatesMap.getIfAbsentPut( relationshipId, () ->
+        {
+            estimatedHeapUsage += ENTITY_STATE_HEAP_USAGE;
+            return new RelationshipStateImpl( relationshipId, collectionsFactory );
+        } );
     }
 
     @VisibleForTesting
@@ -763,6 +829,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         Map<ValueTuple, MutableLongDiffSets> updates = getOrCreateIndexUpdatesByDescriptor( descriptor );
         if ( propertiesBefore != null )
         {
+            estimatedHeapUsage += INDEX_ENTRY_HEAP_USAGE;
             MutableLongDiffSets before = getOrCreateIndexUpdatesForSeek( updates, propertiesBefore );
             //noinspection ConstantConditions
             before.remove( nodeId );
@@ -777,6 +844,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         }
         if ( propertiesAfter != null )
         {
+            estimatedHeapUsage += INDEX_ENTRY_HEAP_USAGE;
             MutableLongDiffSets after = getOrCreateIndexUpdatesForSeek( updates, propertiesAfter );
             //noinspection ConstantConditions
             after.add( nodeId );
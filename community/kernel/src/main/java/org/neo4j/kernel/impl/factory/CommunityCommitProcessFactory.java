@@ -22,14 +22,24 @@ package org.neo4j.kernel.impl.factory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.CommitProcessFactory;
+import org.neo4j.kernel.impl.api.PipelinedTransactionCommitProcess;
 import org.neo4j.kernel.impl.api.ReadOnlyTransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionRepresentationCommitProcess;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StorageEngine;
 
 public class CommunityCommitProcessFactory implements CommitProcessFactory
 {
+    private final JobScheduler scheduler;
+
+    public CommunityCommitProcessFactory( JobScheduler scheduler )
+    {
+        this.scheduler = scheduler;
+    }
+
     @Override
     public TransactionCommitProcess create( TransactionAppender appender, StorageEngine storageEngine,
             Config config )
@@ -38,6 +48,11 @@ public class CommunityCommitProcessFactory implements CommitProcessFactory
         {
             return new ReadOnlyTransactionCommitProcess();
         }
+        if ( config.get( GraphDatabaseSettings.pipelined_commit ) && appender instanceof BatchingTransactionAppender )
+        {
+            return new PipelinedTransactionCommitProcess( (BatchingTransactionAppender) appender, storageEngine,
+                    scheduler );
+        }
         return new TransactionRepresentationCommitProcess( appender, storageEngine );
     }
 }
@@ -30,4 +30,12 @@ public abstract class DynamicLocksFactory extends Service implements LocksFactor
     {
         super( key, altKeys );
     }
+
+    /**
+     * @return whether this lock manager may be picked when no lock manager has been configured.
+     */
+    public boolean isDefault()
+    {
+        return true;
+    }
 }
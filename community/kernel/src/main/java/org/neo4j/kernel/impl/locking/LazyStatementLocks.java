@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.eclipse.collections.api.map.primitive.MutableLongIntMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+import static org.neo4j.kernel.impl.locking.LightweightSharedLocks.covers;
+import static org.neo4j.kernel.impl.locking.LightweightSharedLocks.key;
+import static org.neo4j.kernel.impl.locking.LightweightSharedLocks.resourceId;
+import static org.neo4j.kernel.impl.locking.LightweightSharedLocks.resourceType;
+
+/**
+ * A {@link StatementLocks} implementation that creates the {@link StatementLocks} it delegates to, from the given
+ * {@link StatementLocksFactory}, the first time a lock client is needed. Transactions that never lock anything then
+ * don't pay for setting up and closing a lock client at all.
+ * <p>
+ * Given {@link LightweightSharedLocks}, the clients handed out also take shared locks on labels and relationship
+ * types, which read transactions take whenever they look at the schema, without a lock client for as long as nobody
+ * wants them exclusively. The first other lock moves these shared locks to the lock client, which is then created.
+ * <p>
+ * {@link #stop()}, {@link #activeLocks()}, {@link #activeLockCount()} and {@link #lockSessionId()} can be called by
+ * other threads than the one executing the transaction, and never create the delegate. A delegate that is created
+ * after this instance has been stopped or closed is stopped or closed right away.
+ */
+public class LazyStatementLocks implements StatementLocks
+{
+    private final StatementLocksFactory factory;
+    private final LightweightSharedLocks sharedLocks;
+    private final Locks.Client pessimistic;
+    private final Locks.Client optimistic;
+    private volatile StatementLocks locks;
+    private volatile boolean stopped;
+    private boolean closed;
+    // Shared locks held in sharedLocks, and how many times each was taken
+    private MutableLongIntMap lightweightShared;
+    // Exclusive locks on resources covered by sharedLocks, and how many times each was taken
+    private MutableLongIntMap exclusive;
+
+    public LazyStatementLocks( StatementLocksFactory factory )
+    {
+        this( factory, null );
+    }
+
+    public LazyStatementLocks( StatementLocksFactory factory, LightweightSharedLocks sharedLocks )
+    {
+        this.factory = factory;
+        this.sharedLocks = sharedLocks;
+        this.pessimistic = sharedLocks == null ? null : new LazyClient( true );
+        this.optimistic = sharedLocks == null ? null : new LazyClient( false );
+    }
+
+    @Override
+    public Locks.Client pessimistic()
+    {
+        return pessimistic != null ? pessimistic : locks().pessimistic();
+    }
+
+    @Override
+    public Locks.Client optimistic()
+    {
+        return optimistic != null ? optimistic : locks().optimistic();
+    }
+
+    @Override
+    public int lockSessionId()
+    {
+        StatementLocks current = this.locks;
+        return current == null ? -1 : current.lockSessionId();
+    }
+
+    @Override
+    public void prepareForCommit( LockTracer lockTracer )
+    {
+        locks().prepareForCommit( lockTracer );
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        stopped = true;
+        if ( locks != null )
+        {
+            locks.stop();
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if ( !closed )
+        {
+            closed = true;
+            if ( locks != null )
+            {
+                locks.close();
+            }
+            if ( lightweightShared != null )
+            {
+                lightweightShared.forEachKey( sharedLocks::releaseShared );
+                lightweightShared = null;
+            }
+            if ( exclusive != null )
+            {
+                exclusive.forEachKey( sharedLocks::endExclusive );
+                exclusive = null;
+            }
+        }
+    }
+
+    @Override
+    public Stream<? extends ActiveLock> activeLocks()
+    {
+        StatementLocks current = this.locks;
+        Stream<? extends ActiveLock> lightweight = lightweightActiveLocks();
+        return current == null ? lightweight : Stream.concat( current.activeLocks(), lightweight );
+    }
+
+    @Override
+    public long activeLockCount()
+    {
+        StatementLocks current = this.locks;
+        long lightweight = lightweightActiveLockCount();
+        return current == null ? lightweight : current.activeLockCount() + lightweight;
+    }
+
+    private synchronized Stream<? extends ActiveLock> lightweightActiveLocks()
+    {
+        if ( lightweightShared == null || lightweightShared.isEmpty() )
+        {
+            return Stream.empty();
+        }
+        List<ActiveLock> activeLocks = new ArrayList<>( lightweightShared.size() );
+        lightweightShared.forEachKey(
+                key -> activeLocks.add( ActiveLock.sharedLock( resourceType( key ), resourceId( key ) ) ) );
+        return activeLocks.stream();
+    }
+
+    private synchronized long lightweightActiveLockCount()
+    {
+        return lightweightShared == null ? 0 : lightweightShared.size();
+    }
+
+    private StatementLocks locks()
+    {
+        StatementLocks current = this.locks;
+        return current != null ? current : createLocks();
+    }
+
+    private synchronized StatementLocks createLocks()
+    {
+        if ( locks == null )
+        {
+            StatementLocks created = factory.newInstance();
+            if ( closed )
+            {
+                created.close();
+            }
+            else if ( stopped )
+            {
+                created.stop();
+            }
+            else if ( lightweightShared != null )
+            {
+                moveLightweightSharedLocks( created.pessimistic() );
+            }
+            locks = created;
+        }
+        return locks;
+    }
+
+    /**
+     * Takes the shared locks held in {@link #sharedLocks} from the given client instead. Exclusive lockers of these
+     * resources wait for them to be released from {@link #sharedLocks}, so nobody can hold them exclusively yet.
+     */
+    private void moveLightweightSharedLocks( Locks.Client client )
+    {
+        lightweightShared.forEachKeyValue( ( key, count ) ->
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                client.acquireShared( LockTracer.NONE, resourceType( key ), resourceId( key ) );
+            }
+        } );
+        lightweightShared.forEachKey( sharedLocks::releaseShared );
+        lightweightShared = null;
+    }
+
+    private synchronized boolean acquireLightweightShared( ResourceType resourceType, long... resourceIds )
+    {
+        if ( locks != null || stopped || closed )
+        {
+            return false;
+        }
+        for ( int i = 0; i < resourceIds.length; i++ )
+        {
+            long key = key( resourceType, resourceIds[i] );
+            if ( lightweightShared == null || !lightweightShared.containsKey( key ) )
+            {
+                if ( !sharedLocks.tryAcquireShared( key ) )
+                {
+                    for ( int j = 0; j < i; j++ )
+                    {
+                        releaseLightweightShared( resourceType, resourceIds[j] );
+                    }
+                    return false;
+                }
+                if ( lightweightShared == null )
+                {
+                    lightweightShared = new LongIntHashMap();
+                }
+            }
+            lightweightShared.addToValue( key, 1 );
+        }
+        return true;
+    }
+
+    private synchronized boolean reEnterLightweightShared( ResourceType resourceType, long resourceId )
+    {
+        long key = key( resourceType, resourceId );
+        if ( lightweightShared == null || !lightweightShared.containsKey( key ) )
+        {
+            return false;
+        }
+        lightweightShared.addToValue( key, 1 );
+        return true;
+    }
+
+    private synchronized boolean releaseLightweightShared( ResourceType resourceType, long resourceId )
+    {
+        long key = key( resourceType, resourceId );
+        if ( lightweightShared == null || !lightweightShared.containsKey( key ) )
+        {
+            return false;
+        }
+        if ( lightweightShared.addToValue( key, -1 ) == 0 )
+        {
+            lightweightShared.remove( key );
+            sharedLocks.releaseShared( key );
+        }
+        return true;
+    }
+
+    /**
+     * Registers the intent to lock the given resource exclusively, the first time, and waits until nobody holds it in
+     * {@link #sharedLocks} anymore.
+     */
+    private void beginExclusive( Locks.Client client, ResourceType resourceType, long resourceId )
+    {
+        long key = registerExclusive( resourceType, resourceId );
+        if ( !sharedLocks.awaitNoShared( key, () -> stopped ) )
+        {
+            endExclusive( resourceType, resourceId );
+            throw new LockClientStoppedException( client );
+        }
+    }
+
+    private synchronized long registerExclusive( ResourceType resourceType, long resourceId )
+    {
+        long key = key( resourceType, resourceId );
+        if ( exclusive == null )
+        {
+            exclusive = new LongIntHashMap();
+        }
+        if ( exclusive.getIfAbsent( key, 0 ) == 0 )
+        {
+            sharedLocks.beginExclusive( key );
+        }
+        exclusive.addToValue( key, 1 );
+        return key;
+    }
+
+    private synchronized void endExclusive( ResourceType resourceType, long resourceId )
+    {
+        long key = key( resourceType, resourceId );
+        if ( exclusive != null && exclusive.containsKey( key ) && exclusive.addToValue( key, -1 ) == 0 )
+        {
+            exclusive.remove( key );
+            sharedLocks.endExclusive( key );
+        }
+    }
+
+    private synchronized void reEnterExclusive( ResourceType resourceType, long resourceId )
+    {
+        exclusive.addToValue( key( resourceType, resourceId ), 1 );
+    }
+
+    /**
+     * Takes shared locks on resources covered by {@link #sharedLocks} there while this transaction has no lock client,
+     * and delegates everything else to the lock client of this transaction, creating it if needed.
+     */
+    private class LazyClient implements Locks.Client
+    {
+        private final boolean pessimistic;
+
+        LazyClient( boolean pessimistic )
+        {
+            this.pessimistic = pessimistic;
+        }
+
+        private Locks.Client client()
+        {
+            return pessimistic ? locks().pessimistic() : locks().optimistic();
+        }
+
+        @Override
+        public void acquireShared( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+        {
+            if ( !covers( resourceType ) || !acquireLightweightShared( resourceType, resourceIds ) )
+            {
+                client().acquireShared( tracer, resourceType, resourceIds );
+            }
+        }
+
+        @Override
+        public boolean trySharedLock( ResourceType resourceType, long resourceId )
+        {
+            return covers( resourceType ) && acquireLightweightShared( resourceType, resourceId ) ||
+                    client().trySharedLock( resourceType, resourceId );
+        }
+
+        @Override
+        public boolean reEnterShared( ResourceType resourceType, long resourceId )
+        {
+            return covers( resourceType ) && reEnterLightweightShared( resourceType, resourceId ) ||
+                    client().reEnterShared( resourceType, resourceId );
+        }
+
+        @Override
+        public void releaseShared( ResourceType resourceType, long... resourceIds )
+        {
+            for ( long resourceId : resourceIds )
+            {
+                if ( !covers( resourceType ) || !releaseLightweightShared( resourceType, resourceId ) )
+                {
+                    client().releaseShared( resourceType, resourceId );
+                }
+            }
+        }
+
+        @Override
+        public void acquireExclusive( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+        {
+            Locks.Client client = client();
+            if ( !covers( resourceType ) )
+            {
+                client.acquireExclusive( tracer, resourceType, resourceIds );
+                return;
+            }
+            for ( long resourceId : resourceIds )
+            {
+                beginExclusive( client, resourceType, resourceId );
+                boolean acquired = false;
+                try
+                {
+                    client.acquireExclusive( tracer, resourceType, resourceId );
+                    acquired = true;
+                }
+                finally
+                {
+                    if ( !acquired )
+                    {
+                        endExclusive( resourceType, resourceId );
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean tryExclusiveLock( ResourceType resourceType, long resourceId )
+        {
+            Locks.Client client = client();
+            if ( !covers( resourceType ) )
+            {
+                return client.tryExclusiveLock( resourceType, resourceId );
+            }
+            long key = registerExclusive( resourceType, resourceId );
+            if ( sharedLocks.hasShared( key ) || !client.tryExclusiveLock( resourceType, resourceId ) )
+            {
+                endExclusive( resourceType, resourceId );
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean reEnterExclusive( ResourceType resourceType, long resourceId )
+        {
+            if ( client().reEnterExclusive( resourceType, resourceId ) )
+            {
+                if ( covers( resourceType ) )
+                {
+                    LazyStatementLocks.this.reEnterExclusive( resourceType, resourceId );
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void releaseExclusive( ResourceType resourceType, long... resourceIds )
+        {
+            client().releaseExclusive( resourceType, resourceIds );
+            if ( covers( resourceType ) )
+            {
+                for ( long resourceId : resourceIds )
+                {
+                    endExclusive( resourceType, resourceId );
+                }
+            }
+        }
+
+        @Override
+        public void prepare()
+        {
+            client().prepare();
+        }
+
+        @Override
+        public void stop()
+        {
+            LazyStatementLocks.this.stop();
+        }
+
+        @Override
+        public void close()
+        {
+            LazyStatementLocks.this.close();
+        }
+
+        @Override
+        public int getLockSessionId()
+        {
+            return locks == null ? NO_LOCK_SESSION_ID : client().getLockSessionId();
+        }
+
+        @Override
+        public Stream<? extends ActiveLock> activeLocks()
+        {
+            return LazyStatementLocks.this.activeLocks();
+        }
+
+        @Override
+        public long activeLockCount()
+        {
+            return LazyStatementLocks.this.activeLockCount();
+        }
+
+        @Override
+        public String toString()
+        {
+            return locks == null ? "LazyClient[no lock client]" : client().toString();
+        }
+    }
+}
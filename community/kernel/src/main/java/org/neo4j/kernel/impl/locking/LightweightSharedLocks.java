@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.eclipse.collections.api.map.primitive.MutableLongIntMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+import java.util.function.BooleanSupplier;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * Shared locks on labels and relationship types that transactions hold without a {@link Locks.Client}, see
+ * {@link LazyStatementLocks}. Nearly every read transaction takes such locks when it looks at the schema, but only
+ * schema changes take them exclusively, and those are rare. As long as nobody wants a resource exclusively, a shared
+ * lock on it is thus just a count in this table.
+ * <p>
+ * A transaction that wants one of these resources exclusively first registers its intent, which sends any new shared
+ * locker to the lock manager, and then waits for the shared locks held in this table to be released before it asks
+ * the lock manager for the exclusive lock. A transaction moves the shared locks it holds in this table to its lock
+ * client before it takes any other lock, so it never waits in the lock manager while holding locks that deadlock
+ * detection cannot see.
+ */
+public class LightweightSharedLocks
+{
+    private static final int STRIPES = 64;
+    private static final long POLL_MILLIS = 10;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public LightweightSharedLocks()
+    {
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    static boolean covers( ResourceType resourceType )
+    {
+        return resourceType == ResourceTypes.LABEL || resourceType == ResourceTypes.RELATIONSHIP_TYPE;
+    }
+
+    static long key( ResourceType resourceType, long resourceId )
+    {
+        return resourceId << 1 | (resourceType == ResourceTypes.RELATIONSHIP_TYPE ? 1 : 0);
+    }
+
+    static ResourceType resourceType( long key )
+    {
+        return (key & 1) == 0 ? ResourceTypes.LABEL : ResourceTypes.RELATIONSHIP_TYPE;
+    }
+
+    static long resourceId( long key )
+    {
+        return key >>> 1;
+    }
+
+    /**
+     * @return {@code true} if a shared lock was taken, or {@code false} if someone wants the resource exclusively and
+     * the lock has to be taken from the lock manager instead.
+     */
+    boolean tryAcquireShared( long key )
+    {
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            if ( stripe.exclusive.get( key ) > 0 )
+            {
+                return false;
+            }
+            stripe.shared.addToValue( key, 1 );
+            return true;
+        }
+    }
+
+    void releaseShared( long key )
+    {
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            if ( stripe.shared.addToValue( key, -1 ) <= 0 )
+            {
+                stripe.shared.remove( key );
+                stripe.notifyAll();
+            }
+        }
+    }
+
+    void beginExclusive( long key )
+    {
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            stripe.exclusive.addToValue( key, 1 );
+        }
+    }
+
+    void endExclusive( long key )
+    {
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            if ( stripe.exclusive.addToValue( key, -1 ) <= 0 )
+            {
+                stripe.exclusive.remove( key );
+            }
+        }
+    }
+
+    boolean hasShared( long key )
+    {
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            return stripe.shared.get( key ) > 0;
+        }
+    }
+
+    /**
+     * Waits for the shared locks on the given resource to be released. Must only be called between
+     * {@link #beginExclusive(long)} and {@link #endExclusive(long)}, or new shared locks may keep coming.
+     *
+     * @return {@code true} once there are no shared locks, or {@code false} if {@code stopped} became true first.
+     */
+    boolean awaitNoShared( long key, BooleanSupplier stopped )
+    {
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            while ( stripe.shared.get( key ) > 0 )
+            {
+                if ( stopped.getAsBoolean() )
+                {
+                    return false;
+                }
+                try
+                {
+                    stripe.wait( POLL_MILLIS );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private Stripe stripe( long key )
+    {
+        return stripes[(int) (key & (STRIPES - 1))];
+    }
+
+    private static class Stripe
+    {
+        final MutableLongIntMap shared = new LongIntHashMap();
+        final MutableLongIntMap exclusive = new LongIntHashMap();
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.storageengine.api.lock.LockWaitEvent;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+import static java.lang.String.format;
+
+/**
+ * Keeps track of the resources that lock clients have to wait for the most.
+ * <p>
+ * Lock clients report every wait for a lock through
+ * {@link #waitForLock(LockTracer, boolean, ResourceType, long, int, int)}, along with the lock sessions that wait for
+ * and hold the lock, and the wait is accounted to the resource when it ends. At most
+ * {@link #capacity() capacity} resources are tracked. When a resource that isn't tracked is waited for and the
+ * tracking is full, it replaces the tracked resource with the fewest waits and inherits its wait count, like in the
+ * Space-Saving algorithm. The wait counts of the tracked resources are thus never underestimated, and the most
+ * contended resources stay tracked, while the {@link HotSpot#overestimatedWaits() overestimation} of each count is
+ * bounded by the count of the resource it replaced.
+ * <p>
+ * Acquiring a lock without waiting for it never touches the tracking, which is why it is cheap enough to leave on.
+ */
+public final class LockContention
+{
+    /**
+     * Tracking that tracks nothing, and only passes the waits on to the lock tracers.
+     */
+    public static final LockContention DISABLED = new LockContention( 0 );
+
+    private final int capacity;
+    private final MutableIntObjectMap<MutableLongObjectMap<Counter>> counters = new IntObjectHashMap<>();
+    private int size;
+
+    /**
+     * @param capacity the number of resources to track, or zero to track nothing.
+     */
+    public LockContention( int capacity )
+    {
+        if ( capacity < 0 )
+        {
+            throw new IllegalArgumentException( "Capacity must not be negative, but was " + capacity );
+        }
+        this.capacity = capacity;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Starts a wait for a lock, which lasts until the returned event is closed.
+     *
+     * @param tracer the tracer of the waiting client, which is told about the wait, the waiter and the holder too.
+     * @param exclusive whether the wait is for an exclusive lock.
+     * @param resourceType the type of the resource that the lock is for.
+     * @param resourceId the id of the resource that the lock is for.
+     * @param waiterLockSessionId the {@link Locks.Client#getLockSessionId() lock session} that waits for the lock,
+     * or {@code -1} if it is not known.
+     * @param holderLockSessionId the {@link Locks.Client#getLockSessionId() lock session} that holds the lock, or
+     * {@code -1} if it is not known.
+     * @return the event to close when the wait ends.
+     */
+    public LockWaitEvent waitForLock( LockTracer tracer, boolean exclusive, ResourceType resourceType,
+            long resourceId, int waiterLockSessionId, int holderLockSessionId )
+    {
+        LockWaitEvent event = tracer.waitForLockHeldBy( exclusive, resourceType, resourceId, waiterLockSessionId,
+                holderLockSessionId );
+        if ( capacity == 0 )
+        {
+            return event;
+        }
+        Counter counter = startWait( resourceType, resourceId, holderLockSessionId );
+        long startNanos = System.nanoTime();
+        return () ->
+        {
+            try
+            {
+                event.close();
+            }
+            finally
+            {
+                endWait( counter, System.nanoTime() - startNanos );
+            }
+        };
+    }
+
+    /**
+     * @return the tracked resources, the most waited for first.
+     */
+    public synchronized List<HotSpot> hotSpots()
+    {
+        List<HotSpot> hotSpots = new ArrayList<>( size );
+        counters.forEachValue( countersOfType -> countersOfType.forEachValue( counter ->
+                hotSpots.add( new HotSpot( counter ) ) ) );
+        hotSpots.sort( Comparator.comparingLong( HotSpot::waits ).reversed() );
+        return hotSpots;
+    }
+
+    /**
+     * Forgets all tracked resources.
+     */
+    public synchronized void clear()
+    {
+        counters.clear();
+        size = 0;
+    }
+
+    private synchronized Counter startWait( ResourceType resourceType, long resourceId, int holderLockSessionId )
+    {
+        MutableLongObjectMap<Counter> countersOfType =
+                counters.getIfAbsentPut( resourceType.typeId(), LongObjectHashMap::new );
+        Counter counter = countersOfType.get( resourceId );
+        if ( counter == null )
+        {
+            long inheritedWaits = 0;
+            if ( size == capacity )
+            {
+                Counter evicted = leastWaitedFor();
+                counters.get( evicted.resourceType.typeId() ).remove( evicted.resourceId );
+                inheritedWaits = evicted.waits;
+            }
+            else
+            {
+                size++;
+            }
+            counter = new Counter( resourceType, resourceId, inheritedWaits );
+            countersOfType.put( resourceId, counter );
+        }
+        counter.waits++;
+        counter.waiting++;
+        counter.maxWaiting = Math.max( counter.maxWaiting, counter.waiting );
+        counter.lastHolderLockSessionId = holderLockSessionId;
+        return counter;
+    }
+
+    private synchronized void endWait( Counter counter, long waitNanos )
+    {
+        counter.waiting--;
+        counter.totalWaitNanos += waitNanos;
+        counter.maxWaitNanos = Math.max( counter.maxWaitNanos, waitNanos );
+    }
+
+    /**
+     * @return the counter with the fewest waits, preferring the ones that nobody is waiting for right now.
+     */
+    private Counter leastWaitedFor()
+    {
+        Counter[] least = new Counter[1];
+        counters.forEachValue( countersOfType -> countersOfType.forEachValue( counter ->
+        {
+            Counter candidate = least[0];
+            if ( candidate == null || (counter.waiting == 0 && candidate.waiting > 0) ||
+                 ((counter.waiting == 0) == (candidate.waiting == 0) && counter.waits < candidate.waits) )
+            {
+                least[0] = counter;
+            }
+        } ) );
+        return least[0];
+    }
+
+    private static class Counter
+    {
+        private final ResourceType resourceType;
+        private final long resourceId;
+        private final long overestimatedWaits;
+
+        // access to these is guarded by the monitor of the lock contention
+        private long waits;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+        private int waiting;
+        private int maxWaiting;
+        private int lastHolderLockSessionId;
+
+        Counter( ResourceType resourceType, long resourceId, long inheritedWaits )
+        {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+            this.overestimatedWaits = inheritedWaits;
+            this.waits = inheritedWaits;
+        }
+    }
+
+    /**
+     * The contention of a tracked resource, at the time it was listed.
+     */
+    public static final class HotSpot
+    {
+        private final ResourceType resourceType;
+        private final long resourceId;
+        private final long waits;
+        private final long overestimatedWaits;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final int waiting;
+        private final int maxWaiting;
+        private final int lastHolderLockSessionId;
+
+        private HotSpot( Counter counter )
+        {
+            this.resourceType = counter.resourceType;
+            this.resourceId = counter.resourceId;
+            this.waits = counter.waits;
+            this.overestimatedWaits = counter.overestimatedWaits;
+            this.totalWaitNanos = counter.totalWaitNanos;
+            this.maxWaitNanos = counter.maxWaitNanos;
+            this.waiting = counter.waiting;
+            this.maxWaiting = counter.maxWaiting;
+            this.lastHolderLockSessionId = counter.lastHolderLockSessionId;
+        }
+
+        public ResourceType resourceType()
+        {
+            return resourceType;
+        }
+
+        public long resourceId()
+        {
+            return resourceId;
+        }
+
+        /**
+         * @return the number of times the lock on the resource was waited for, including the
+         * {@link #overestimatedWaits() overestimation}.
+         */
+        public long waits()
+        {
+            return waits;
+        }
+
+        /**
+         * @return how much the {@link #waits() wait count} may be overestimated, since it includes the waits of the
+         * resource that this one replaced in the tracking.
+         */
+        public long overestimatedWaits()
+        {
+            return overestimatedWaits;
+        }
+
+        /**
+         * @return the total time of the ended waits since the resource was tracked.
+         */
+        public long totalWaitNanos()
+        {
+            return totalWaitNanos;
+        }
+
+        public long maxWaitNanos()
+        {
+            return maxWaitNanos;
+        }
+
+        /**
+         * @return the number of clients that were waiting for the lock when it was listed.
+         */
+        public int waiting()
+        {
+            return waiting;
+        }
+
+        /**
+         * @return the highest number of clients that were waiting for the lock at the same time.
+         */
+        public int maxWaiting()
+        {
+            return maxWaiting;
+        }
+
+        /**
+         * @return the {@link Locks.Client#getLockSessionId() lock session} that held the lock when it was last
+         * waited for, or {@code -1} if it was not known.
+         */
+        public int lastHolderLockSessionId()
+        {
+            return lastHolderLockSessionId;
+        }
+
+        @Override
+        public String toString()
+        {
+            return format( "HotSpot[%s(%d), waits=%d, waiting=%d, holder=%d]",
+                    resourceType, resourceId, waits, waiting, lastHolderLockSessionId );
+        }
+    }
+}
@@ -135,5 +135,13 @@ public interface Locks
     /** Visit all held locks. */
     void accept( Visitor visitor );
 
+    /**
+     * @return the tracking of which resources the clients of this lock manager wait for the most.
+     */
+    default LockContention contention()
+    {
+        return LockContention.DISABLED;
+    }
+
     void close();
 }
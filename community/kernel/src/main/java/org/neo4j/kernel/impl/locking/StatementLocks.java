@@ -45,6 +45,17 @@ public interface StatementLocks extends AutoCloseable
      */
     Locks.Client optimistic();
 
+    /**
+     * Get the {@link Locks.Client#getLockSessionId() lock session id} of the {@link #pessimistic() pessimistic}
+     * client, without creating a client if there isn't one yet. This method can be invoked by concurrent threads.
+     *
+     * @return the lock session id, or {@code -1} if no lock client has been created yet.
+     */
+    default int lockSessionId()
+    {
+        return pessimistic().getLockSessionId();
+    }
+
     /**
      * Prepare the underlying {@link Locks.Client client}(s) for commit. This will grab all locks that have
      * previously been taken {@link #optimistic() optimistically}, and tell the underlying lock client to enter the
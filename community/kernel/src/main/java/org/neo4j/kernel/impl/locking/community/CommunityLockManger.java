@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.locking.community;
 import java.time.Clock;
 
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.LockContention;
 import org.neo4j.kernel.impl.locking.Locks;
 
 public class CommunityLockManger implements Locks
@@ -63,6 +64,12 @@ public class CommunityLockManger implements Locks
         } );
     }
 
+    @Override
+    public LockContention contention()
+    {
+        return manager.contention();
+    }
+
     @Override
     public void close()
     {
@@ -27,6 +27,7 @@ import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.LockContention;
 import org.neo4j.kernel.impl.transaction.IllegalResourceException;
 import org.neo4j.storageengine.api.lock.LockTracer;
 import org.neo4j.util.VisibleForTesting;
@@ -36,6 +37,7 @@ public class LockManagerImpl
     private final Map<Object,RWLock> resourceLockMap = new HashMap<>();
     private final RagManager ragManager;
     private final Clock clock;
+    private final LockContention contention;
 
     /**
      * Time within which any particular lock should be acquired.
@@ -48,6 +50,12 @@ public class LockManagerImpl
         this.ragManager = ragManager;
         this.clock = clock;
         this.lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
+        this.contention = new LockContention( config.get( GraphDatabaseSettings.lock_contention_tracked_resources ) );
+    }
+
+    public LockContention contention()
+    {
+        return contention;
     }
 
     public boolean getReadLock( LockTracer tracer, LockResource resource, Object tx )
@@ -147,7 +155,7 @@ public class LockManagerImpl
     @VisibleForTesting
     protected RWLock createLock( LockResource resource )
     {
-        return new RWLock( resource, ragManager, clock, lockAcquisitionTimeoutMillis );
+        return new RWLock( resource, ragManager, clock, lockAcquisitionTimeoutMillis, contention );
     }
 
     private RWLock getRWLockForReleasing( Object resource, Object tx, int readCountPrerequisite,
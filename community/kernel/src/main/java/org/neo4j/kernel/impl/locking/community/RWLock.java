@@ -29,6 +29,7 @@ import java.util.Map;
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.impl.locking.LockAcquisitionTimeoutException;
+import org.neo4j.kernel.impl.locking.LockContention;
 import org.neo4j.kernel.impl.locking.LockType;
 import org.neo4j.logging.Logger;
 import org.neo4j.storageengine.api.lock.LockTracer;
@@ -73,6 +74,7 @@ class RWLock
     private final RagManager ragManager;
     private final Clock clock;
     private final long lockAcquisitionTimeoutMillis;
+    private final LockContention contention;
 
     // access to these is guarded by synchronized blocks
     private int totalReadCount;
@@ -80,11 +82,18 @@ class RWLock
     private int marked; // synch helper in LockManager
 
     RWLock( LockResource resource, RagManager ragManager, Clock clock, long lockAcquisitionTimeoutMillis )
+    {
+        this( resource, ragManager, clock, lockAcquisitionTimeoutMillis, LockContention.DISABLED );
+    }
+
+    RWLock( LockResource resource, RagManager ragManager, Clock clock, long lockAcquisitionTimeoutMillis,
+            LockContention contention )
     {
         this.resource = resource;
         this.ragManager = ragManager;
         this.clock = clock;
         this.lockAcquisitionTimeoutMillis = lockAcquisitionTimeoutMillis;
+        this.contention = contention;
     }
 
     // keeps track of a transactions read and write lock count on this RWLock
@@ -216,7 +225,8 @@ class RWLock
 
                 if ( waitEvent == null )
                 {
-                    waitEvent = tracer.waitForLock( false, resource.type(), resource.resourceId() );
+                    waitEvent = contention.waitForLock( tracer, false, resource.type(), resource.resourceId(),
+                            lockSessionId( tx ), holderLockSessionId( tx, false ) );
                 }
                 addLockRequest = waitUninterruptedly( lockAcquisitionTimeBoundary );
                 ragManager.stopWaitOn( this, tx );
@@ -404,7 +414,8 @@ class RWLock
 
                 if ( waitEvent == null )
                 {
-                    waitEvent = tracer.waitForLock( true, resource.type(), resource.resourceId() );
+                    waitEvent = contention.waitForLock( tracer, true, resource.type(), resource.resourceId(),
+                            lockSessionId( tx ), holderLockSessionId( tx, true ) );
                 }
                 addLockRequest = waitUninterruptedly( lockAcquisitionTimeBoundary );
                 ragManager.stopWaitOn( this, tx );
@@ -713,6 +724,35 @@ class RWLock
         return tle;
     }
 
+    private static int lockSessionId( Object tx )
+    {
+        return tx instanceof LockTransaction ? ((LockTransaction) tx).getId() : -1;
+    }
+
+    /**
+     * @return the lock session of a transaction other than the given one, that holds this lock in a way that
+     * conflicts with the wanted lock, preferring the writer, or {@code -1} if no such transaction is known.
+     */
+    private int holderLockSessionId( Object tx, boolean exclusive )
+    {
+        int holder = -1;
+        for ( TxLockElement element : txLockElementMap.values() )
+        {
+            if ( element.tx != tx && element.tx instanceof LockTransaction )
+            {
+                if ( element.writeCount > 0 )
+                {
+                    return ((LockTransaction) element.tx).getId();
+                }
+                if ( exclusive && element.readCount > 0 )
+                {
+                    holder = ((LockTransaction) element.tx).getId();
+                }
+            }
+        }
+        return holder;
+    }
+
     private void assertNotExpired( long timeBoundary )
     {
         if ( lockAcquisitionTimeoutMillis > 0 )
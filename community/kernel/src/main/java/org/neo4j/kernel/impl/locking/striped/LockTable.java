@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * The state of the locks on all the resources of one {@link ResourceType}, in a primitive long-keyed hash table that
+ * is split into stripes, which are each guarded by their own monitor.
+ * <p>
+ * The state of a lock is a single long, so that locking and unlocking allocates nothing. It is the number of clients
+ * that share the lock when positive, and the negated id of the client that holds it exclusively when negative.
+ * Resources that are not locked are not in the table at all. The table does not know which clients share a lock, nor
+ * how many times a client has acquired it. Clients keep track of that themselves, and only come here when they
+ * acquire their first, or release their last, lock on a resource. A client that holds a shared lock on a resource
+ * can upgrade it to exclusive when it is the only one sharing it, in which case the lock no longer counts its shared
+ * lock, which then has to be given back when the exclusive lock is released.
+ */
+class LockTable
+{
+    private static final int STRIPES = 128;
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    private final ResourceType resourceType;
+    private final LongLongHashMap[] stripes = new LongLongHashMap[STRIPES];
+
+    LockTable( ResourceType resourceType )
+    {
+        this.resourceType = resourceType;
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            stripes[i] = new LongLongHashMap();
+        }
+    }
+
+    boolean tryAcquireShared( long resourceId )
+    {
+        LongLongHashMap stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            long state = stripe.get( resourceId );
+            if ( state < 0 )
+            {
+                return false;
+            }
+            stripe.put( resourceId, state + 1 );
+            return true;
+        }
+    }
+
+    /**
+     * @param holdsShared whether or not the client holds a shared lock on the resource, that it wants to upgrade.
+     */
+    boolean tryAcquireExclusive( long resourceId, long clientId, boolean holdsShared )
+    {
+        LongLongHashMap stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            long state = stripe.get( resourceId );
+            if ( state == 0 || (holdsShared && state == 1) )
+            {
+                stripe.put( resourceId, -clientId );
+                return true;
+            }
+            return false;
+        }
+    }
+
+    void releaseShared( long resourceId )
+    {
+        LongLongHashMap stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            long state = stripe.get( resourceId );
+            if ( state <= 0 )
+            {
+                throw new IllegalStateException( "No shared lock on " + resourceType + "(" + resourceId + ")" );
+            }
+            if ( state == 1 )
+            {
+                stripe.remove( resourceId );
+            }
+            else
+            {
+                stripe.put( resourceId, state - 1 );
+            }
+        }
+    }
+
+    /**
+     * @param keepShared whether or not the client still holds a shared lock on the resource, that it had before it
+     * acquired the exclusive lock, or acquired while holding it.
+     */
+    void releaseExclusive( long resourceId, long clientId, boolean keepShared )
+    {
+        LongLongHashMap stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            if ( stripe.get( resourceId ) != -clientId )
+            {
+                throw new IllegalStateException(
+                        "No exclusive lock on " + resourceType + "(" + resourceId + ") by client " + clientId );
+            }
+            if ( keepShared )
+            {
+                stripe.put( resourceId, 1 );
+            }
+            else
+            {
+                stripe.remove( resourceId );
+            }
+        }
+    }
+
+    /**
+     * @return the id of the client that holds an exclusive lock on the resource, or {@code 0} if there is none.
+     */
+    long exclusiveOwner( long resourceId )
+    {
+        LongLongHashMap stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            long state = stripe.get( resourceId );
+            return state < 0 ? -state : 0;
+        }
+    }
+
+    void accept( Locks.Visitor visitor )
+    {
+        for ( LongLongHashMap stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                stripe.forEachKeyValue( ( resourceId, state ) -> visitor.visit( resourceType, resourceId,
+                        state < 0 ? "ExclusiveLock[Client[" + -state + "]]" : "SharedLock[" + state + " clients]", 0,
+                        System.identityHashCode( stripe ) ^ Long.hashCode( resourceId ) ) );
+            }
+        }
+    }
+
+    private LongLongHashMap stripe( long resourceId )
+    {
+        // Spread the ids, since the resources that are locked together often have consecutive ids
+        return stripes[(int) ((resourceId * 0x9E3779B97F4A7C15L) >>> 40) & STRIPE_MASK];
+    }
+}
@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.eclipse.collections.api.map.primitive.MutableLongIntMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.ActiveLock;
+import org.neo4j.kernel.impl.locking.LockAcquisitionTimeoutException;
+import org.neo4j.kernel.impl.locking.LockClientStateHolder;
+import org.neo4j.kernel.impl.locking.LockClientStoppedException;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.storageengine.api.lock.LockWaitEvent;
+import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.lock.WaitStrategy;
+
+import static java.lang.String.format;
+
+// Please note. Except separate test cases for particular classes related to striped locking
+// see also org.neo4j.kernel.impl.locking.striped.StripedLocksTest test suite
+
+/**
+ * Client of the {@link StripedLockManager}. The locks held by a client are counted in primitive maps, per resource
+ * type, and only the first acquisition and the last release of a lock touch the shared {@link LockTable}.
+ * <p>
+ * Only the thread using a client changes its maps, but it does so under the monitor of the client, so that other
+ * clients can see which shared locks it holds while they look for deadlocks.
+ */
+public class StripedLockClient implements Locks.Client
+{
+    /**
+     * The number of times a client retries a lock, before it starts to look for deadlocks.
+     */
+    private static final int DEADLOCK_DETECTION_DELAY = 1024;
+    /**
+     * The number of times a client retries a lock, between looking for deadlocks.
+     */
+    private static final int DEADLOCK_DETECTION_INTERVAL = 128;
+
+    private final StripedLockManager manager;
+    private final long id;
+    private final MutableLongIntMap[] sharedLocks;
+    private final MutableLongIntMap[] exclusiveLocks;
+    private final LockClientStateHolder stateHolder = new LockClientStateHolder();
+    private volatile WaitingFor waitingFor;
+
+    StripedLockClient( StripedLockManager manager, long id )
+    {
+        this.manager = manager;
+        this.id = id;
+        this.sharedLocks = new MutableLongIntMap[manager.resourceTypeIdBound()];
+        this.exclusiveLocks = new MutableLongIntMap[manager.resourceTypeIdBound()];
+    }
+
+    long id()
+    {
+        return id;
+    }
+
+    @Override
+    public void acquireShared( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongIntMap shared = locks( sharedLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                if ( !reEnter( shared, resourceId ) )
+                {
+                    if ( !holdsExclusive( resourceType, resourceId ) )
+                    {
+                        acquire( tracer, resourceType, resourceId, false, false );
+                    }
+                    add( shared, resourceId );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void acquireExclusive( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongIntMap exclusive = locks( exclusiveLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                if ( !reEnter( exclusive, resourceId ) )
+                {
+                    acquire( tracer, resourceType, resourceId, true, holdsShared( resourceType, resourceId ) );
+                    add( exclusive, resourceId );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean tryExclusiveLock( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongIntMap exclusive = locks( exclusiveLocks, resourceType );
+            if ( reEnter( exclusive, resourceId ) )
+            {
+                return true;
+            }
+            boolean holdsShared = holdsShared( resourceType, resourceId );
+            if ( manager.lockTable( resourceType ).tryAcquireExclusive( resourceId, id, holdsShared ) )
+            {
+                add( exclusive, resourceId );
+                return true;
+            }
+            return false;
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean trySharedLock( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongIntMap shared = locks( sharedLocks, resourceType );
+            if ( reEnter( shared, resourceId ) )
+            {
+                return true;
+            }
+            if ( holdsExclusive( resourceType, resourceId ) ||
+                 manager.lockTable( resourceType ).tryAcquireShared( resourceId ) )
+            {
+                add( shared, resourceId );
+                return true;
+            }
+            return false;
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean reEnterShared( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            return reEnter( locks( sharedLocks, resourceType ), resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean reEnterExclusive( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            return reEnter( locks( exclusiveLocks, resourceType ), resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void releaseShared( ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongIntMap shared = locks( sharedLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                if ( release( shared, resourceType, resourceId, "shared" ) &&
+                     !holdsExclusive( resourceType, resourceId ) )
+                {
+                    manager.lockTable( resourceType ).releaseShared( resourceId );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void releaseExclusive( ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongIntMap exclusive = locks( exclusiveLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                if ( release( exclusive, resourceType, resourceId, "exclusive" ) )
+                {
+                    boolean keepShared = holdsShared( resourceType, resourceId );
+                    manager.lockTable( resourceType ).releaseExclusive( resourceId, id, keepShared );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void prepare()
+    {
+        stateHolder.prepare( this );
+    }
+
+    @Override
+    public void stop()
+    {
+        // stopping the client prevents new calls, and makes the waiting ones give up
+        if ( stateHolder.stopClient() )
+        {
+            waitForClientsToLeave();
+            releaseLocks();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        stateHolder.closeClient();
+        waitForClientsToLeave();
+        releaseLocks();
+        manager.closed( this );
+    }
+
+    @Override
+    public int getLockSessionId()
+    {
+        return (int) id;
+    }
+
+    @Override
+    public synchronized Stream<ActiveLock> activeLocks()
+    {
+        List<ActiveLock> locks = new ArrayList<>();
+        collectActiveLocks( locks, exclusiveLocks, ActiveLock.Factory.EXCLUSIVE_LOCK );
+        collectActiveLocks( locks, sharedLocks, ActiveLock.Factory.SHARED_LOCK );
+        return locks.stream();
+    }
+
+    @Override
+    public synchronized long activeLockCount()
+    {
+        return countLocks( exclusiveLocks ) + countLocks( sharedLocks );
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "%s[%d]", getClass().getSimpleName(), id );
+    }
+
+    private void acquire( LockTracer tracer, ResourceType resourceType, long resourceId, boolean exclusive,
+            boolean holdsShared )
+    {
+        LockTable lockTable = manager.lockTable( resourceType );
+        if ( !tryAcquire( lockTable, resourceId, exclusive, holdsShared ) )
+        {
+            waitForLock( tracer, lockTable, resourceType, resourceId, exclusive, holdsShared );
+        }
+    }
+
+    private boolean tryAcquire( LockTable lockTable, long resourceId, boolean exclusive, boolean holdsShared )
+    {
+        return exclusive ? lockTable.tryAcquireExclusive( resourceId, id, holdsShared )
+                         : lockTable.tryAcquireShared( resourceId );
+    }
+
+    private void waitForLock( LockTracer tracer, LockTable lockTable, ResourceType resourceType, long resourceId,
+            boolean exclusive, boolean holdsShared )
+    {
+        Clock clock = manager.clock();
+        long timeoutMillis = manager.lockAcquisitionTimeoutMillis();
+        long waitStartMillis = clock.millis();
+        LockWaitEvent waitEvent = manager.contention().waitForLock( tracer, exclusive, resourceType, resourceId,
+                getLockSessionId(), holderLockSessionId( lockTable, resourceType, resourceId, exclusive ) );
+        waitingFor = new WaitingFor( resourceType, resourceId, exclusive );
+        try
+        {
+            for ( long iteration = 0; !tryAcquire( lockTable, resourceId, exclusive, holdsShared ); iteration++ )
+            {
+                if ( stateHolder.isStopped() )
+                {
+                    throw new LockClientStoppedException( this );
+                }
+                if ( timeoutMillis > 0 && clock.millis() - waitStartMillis > timeoutMillis )
+                {
+                    throw new LockAcquisitionTimeoutException( resourceType, resourceId, timeoutMillis );
+                }
+                if ( iteration >= DEADLOCK_DETECTION_DELAY && iteration % DEADLOCK_DETECTION_INTERVAL == 0 )
+                {
+                    detectDeadlock( resourceType, resourceId, exclusive );
+                }
+                waitStrategy( resourceType ).apply( iteration );
+            }
+        }
+        finally
+        {
+            waitingFor = null;
+            waitEvent.close();
+        }
+    }
+
+    /**
+     * @return the lock session of a client that holds the lock in a way that conflicts with the wanted lock,
+     * preferring the exclusive owner, or {@code -1} if none was found.
+     */
+    private int holderLockSessionId( LockTable lockTable, ResourceType resourceType, long resourceId,
+            boolean exclusive )
+    {
+        long owner = lockTable.exclusiveOwner( resourceId );
+        if ( owner != 0 )
+        {
+            return (int) owner;
+        }
+        if ( exclusive )
+        {
+            for ( StripedLockClient client : manager.clients() )
+            {
+                if ( client != this && client.holdsShared( resourceType, resourceId ) )
+                {
+                    return client.getLockSessionId();
+                }
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static WaitStrategy<AcquireLockTimeoutException> waitStrategy( ResourceType resourceType )
+    {
+        return resourceType.waitStrategy();
+    }
+
+    /**
+     * Follows the locks that the holders of the wanted lock are waiting for, and the holders of those, and so on.
+     * If that leads back to this client, all clients on the way are deadlocked, and the one with the highest id
+     * gives up, so that exactly one of them fails even if several of them find the same cycle.
+     */
+    private void detectDeadlock( ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        long highestId = findCycle( this, waitingFor, id, new LongHashSet() );
+        if ( highestId == id )
+        {
+            throw new DeadlockDetectedException( format(
+                    "%s can't acquire %s lock on %s(%d), since the clients holding it are waiting for locks held by %s",
+                    this, exclusive ? "exclusive" : "shared", resourceType, resourceId, this ) );
+        }
+    }
+
+    /**
+     * @return the highest client id on a cycle of waits leading back to this client, or {@code 0} if none was found.
+     */
+    private long findCycle( StripedLockClient waiter, WaitingFor wait, long highestId, LongHashSet visited )
+    {
+        long owner = manager.lockTable( wait.resourceType ).exclusiveOwner( wait.resourceId );
+        if ( owner != 0 && owner != waiter.id )
+        {
+            long found = followWaitsOf( manager.client( owner ), highestId, visited );
+            if ( found != 0 )
+            {
+                return found;
+            }
+        }
+        if ( wait.exclusive )
+        {
+            for ( StripedLockClient client : manager.clients() )
+            {
+                if ( client != waiter && client.holdsShared( wait.resourceType, wait.resourceId ) )
+                {
+                    long found = followWaitsOf( client, highestId, visited );
+                    if ( found != 0 )
+                    {
+                        return found;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    private long followWaitsOf( StripedLockClient holder, long highestId, LongHashSet visited )
+    {
+        if ( holder == null )
+        {
+            return 0;
+        }
+        if ( holder == this )
+        {
+            return highestId;
+        }
+        if ( !visited.add( holder.id ) )
+        {
+            return 0;
+        }
+        WaitingFor wait = holder.waitingFor;
+        return wait == null ? 0 : findCycle( holder, wait, Math.max( highestId, holder.id ), visited );
+    }
+
+    private synchronized boolean holdsShared( ResourceType resourceType, long resourceId )
+    {
+        MutableLongIntMap shared = sharedLocks[resourceType.typeId()];
+        return shared != null && shared.containsKey( resourceId );
+    }
+
+    private boolean holdsExclusive( ResourceType resourceType, long resourceId )
+    {
+        MutableLongIntMap exclusive = exclusiveLocks[resourceType.typeId()];
+        return exclusive != null && exclusive.containsKey( resourceId );
+    }
+
+    private MutableLongIntMap locks( MutableLongIntMap[] locksByType, ResourceType resourceType )
+    {
+        MutableLongIntMap locks = locksByType[resourceType.typeId()];
+        if ( locks == null )
+        {
+            synchronized ( this )
+            {
+                locks = new LongIntHashMap();
+                locksByType[resourceType.typeId()] = locks;
+            }
+        }
+        return locks;
+    }
+
+    private boolean reEnter( MutableLongIntMap locks, long resourceId )
+    {
+        int count = locks.get( resourceId );
+        if ( count == 0 )
+        {
+            return false;
+        }
+        synchronized ( this )
+        {
+            locks.put( resourceId, count + 1 );
+        }
+        return true;
+    }
+
+    private synchronized void add( MutableLongIntMap locks, long resourceId )
+    {
+        locks.put( resourceId, 1 );
+    }
+
+    /**
+     * @return {@code true} if the last lock on the resource was released, {@code false} if it is still held.
+     */
+    private boolean release( MutableLongIntMap locks, ResourceType resourceType, long resourceId, String mode )
+    {
+        int count = locks.get( resourceId );
+        if ( count == 0 )
+        {
+            throw new IllegalStateException( format( "%s cannot release %s lock on %s(%d) that it does not hold",
+                    this, mode, resourceType, resourceId ) );
+        }
+        synchronized ( this )
+        {
+            if ( count == 1 )
+            {
+                locks.remove( resourceId );
+            }
+            else
+            {
+                locks.put( resourceId, count - 1 );
+            }
+        }
+        return count == 1;
+    }
+
+    private void waitForClientsToLeave()
+    {
+        // clients waiting for a lock notice that they are stopped on their next attempt
+        while ( stateHolder.hasActiveClients() )
+        {
+            LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 20 ) );
+        }
+    }
+
+    private synchronized void releaseLocks()
+    {
+        for ( int typeId = 0; typeId < exclusiveLocks.length; typeId++ )
+        {
+            MutableLongIntMap exclusive = exclusiveLocks[typeId];
+            MutableLongIntMap shared = sharedLocks[typeId];
+            if ( exclusive != null )
+            {
+                LockTable lockTable = manager.lockTable( ResourceTypes.fromId( typeId ) );
+                exclusive.forEachKey( resourceId -> lockTable.releaseExclusive( resourceId, id,
+                        shared != null && shared.containsKey( resourceId ) ) );
+                exclusive.clear();
+            }
+            if ( shared != null )
+            {
+                LockTable lockTable = manager.lockTable( ResourceTypes.fromId( typeId ) );
+                shared.forEachKey( lockTable::releaseShared );
+                shared.clear();
+            }
+        }
+    }
+
+    private static void collectActiveLocks( List<ActiveLock> locks, MutableLongIntMap[] locksByType,
+            ActiveLock.Factory activeLock )
+    {
+        for ( int typeId = 0; typeId < locksByType.length; typeId++ )
+        {
+            if ( locksByType[typeId] != null )
+            {
+                ResourceType resourceType = ResourceTypes.fromId( typeId );
+                locksByType[typeId].forEachKey(
+                        resourceId -> locks.add( activeLock.create( resourceType, resourceId ) ) );
+            }
+        }
+    }
+
+    private static long countLocks( MutableLongIntMap[] locksByType )
+    {
+        long count = 0;
+        for ( MutableLongIntMap locks : locksByType )
+        {
+            if ( locks != null )
+            {
+                count += locks.size();
+            }
+        }
+        return count;
+    }
+
+    private static class WaitingFor
+    {
+        final ResourceType resourceType;
+        final long resourceId;
+        final boolean exclusive;
+
+        WaitingFor( ResourceType resourceType, long resourceId, boolean exclusive )
+        {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+            this.exclusive = exclusive;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.LockContention;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * A lock manager that keeps the state of the locks in {@link LockTable striped primitive tables}, one per resource
+ * type, instead of in a single map of lock objects guarded by one monitor, like the community lock manager does.
+ * Acquiring and releasing a lock that nobody else is waiting for thus only briefly holds the monitor of one stripe,
+ * and allocates nothing.
+ * <p>
+ * Deadlocks are detected by the clients that have been waiting for a lock for a while, which periodically look for a
+ * cycle in the graph of which clients wait for locks held by which other clients. The graph is sampled from the
+ * clients while they keep running, so a detected deadlock may in rare cases have been resolved by the time it was
+ * found. Clients that are not waiting never take part in the detection.
+ *
+ * @see StripedLockClient
+ */
+public class StripedLockManager implements Locks
+{
+    private final LockTable[] lockTables;
+    private final Map<Long,StripedLockClient> clients = new ConcurrentHashMap<>();
+    private final AtomicLong clientIds = new AtomicLong();
+    private final Clock clock;
+    private final long lockAcquisitionTimeoutMillis;
+    private final LockContention contention;
+    private volatile boolean closed;
+
+    public StripedLockManager( Config config, Clock clock, ResourceType... resourceTypes )
+    {
+        this.clock = clock;
+        this.lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
+        this.contention = new LockContention( config.get( GraphDatabaseSettings.lock_contention_tracked_resources ) );
+        int maxTypeId = 0;
+        for ( ResourceType resourceType : resourceTypes )
+        {
+            maxTypeId = Math.max( maxTypeId, resourceType.typeId() );
+        }
+        lockTables = new LockTable[maxTypeId + 1];
+        for ( ResourceType resourceType : resourceTypes )
+        {
+            lockTables[resourceType.typeId()] = new LockTable( resourceType );
+        }
+    }
+
+    @Override
+    public Client newClient()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( this + " already closed" );
+        }
+        StripedLockClient client = new StripedLockClient( this, clientIds.incrementAndGet() );
+        clients.put( client.id(), client );
+        return client;
+    }
+
+    @Override
+    public void accept( Visitor visitor )
+    {
+        for ( LockTable lockTable : lockTables )
+        {
+            if ( lockTable != null )
+            {
+                lockTable.accept( visitor );
+            }
+        }
+    }
+
+    @Override
+    public LockContention contention()
+    {
+        return contention;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+
+    int resourceTypeIdBound()
+    {
+        return lockTables.length;
+    }
+
+    LockTable lockTable( ResourceType resourceType )
+    {
+        return lockTables[resourceType.typeId()];
+    }
+
+    StripedLockClient client( long clientId )
+    {
+        return clients.get( clientId );
+    }
+
+    Iterable<StripedLockClient> clients()
+    {
+        return clients.values();
+    }
+
+    void closed( StripedLockClient client )
+    {
+        clients.remove( client.id() );
+    }
+
+    Clock clock()
+    {
+        return clock;
+    }
+
+    long lockAcquisitionTimeoutMillis()
+    {
+        return lockAcquisitionTimeoutMillis;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.time.Clock;
+
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.DynamicLocksFactory;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+public class StripedLocksFactory extends DynamicLocksFactory
+{
+    public StripedLocksFactory()
+    {
+        super( "striped" );
+    }
+
+    /**
+     * The striped lock manager is only used when asked for by name.
+     */
+    @Override
+    public boolean isDefault()
+    {
+        return false;
+    }
+
+    @Override
+    public Locks newInstance( Config config, Clock clock, ResourceType[] resourceTypes )
+    {
+        return new StripedLockManager( config, clock, resourceTypes );
+    }
+}
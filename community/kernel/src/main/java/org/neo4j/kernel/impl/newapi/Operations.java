@@ -115,7 +115,8 @@ import static org.neo4j.values.storable.Values.NO_VALUE;
  * Collects all Kernel API operations and guards them from being used outside of transaction.
  *
  * Many methods assume cursors to be initialized before use in private methods, even if they're not passed in explicitly.
- * Keep that in mind: e.g. nodeCursor, propertyCursor and relationshipCursor
+ * Keep that in mind: e.g. nodeCursor(), propertyCursor() and relationshipCursor(). They are allocated the first
+ * time they are needed, since most transactions never write anything.
  */
 public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 {
@@ -153,9 +154,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     public void initialize()
     {
-        this.nodeCursor = cursors.allocateNodeCursor();
-        this.propertyCursor = cursors.allocatePropertyCursor();
-        this.relationshipCursor = cursors.allocateRelationshipScanCursor();
+        // The cursors used by writes are allocated on first use, see nodeCursor() and friends
     }
 
     @Override
@@ -185,8 +184,8 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         ktx.statementLocks().optimistic().acquireShared( ktx.lockTracer(), ResourceTypes.LABEL, lockingIds );
         long nodeId = statement.reserveNode();
         ktx.txState().nodeDoCreate( nodeId );
-        nodeCursor.single( nodeId, allStoreHolder );
-        nodeCursor.next();
+        nodeCursor().single( nodeId, allStoreHolder );
+        nodeCursor().next();
 
         int prevLabel = NO_SUCH_LABEL;
         for ( long lockingId : lockingIds )
@@ -264,7 +263,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         ktx.assertOpen();
         singleNode( node );
 
-        if ( nodeCursor.hasLabel( nodeLabel ) )
+        if ( nodeCursor().hasLabel( nodeLabel ) )
         {
             //label already there, nothing to do
             return false;
@@ -298,7 +297,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
         //node is there and doesn't already have the label, let's add
         ktx.txState().nodeDoAddLabel( nodeLabel, node );
-        updater.onLabelChange( nodeLabel, nodeCursor, propertyCursor, ADDED_LABEL );
+        updater.onLabelChange( nodeLabel, nodeCursor(), propertyCursor(), ADDED_LABEL );
     }
 
     private boolean nodeDelete( long node, boolean lock ) throws AutoIndexingKernelException
@@ -325,8 +324,8 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
             ktx.statementLocks().optimistic().acquireExclusive( ktx.lockTracer(), ResourceTypes.NODE, node );
         }
 
-        allStoreHolder.singleNode( node, nodeCursor );
-        if ( nodeCursor.next() )
+        allStoreHolder.singleNode( node, nodeCursor() );
+        if ( nodeCursor().next() )
         {
             acquireSharedNodeLabelLocks();
 
@@ -344,19 +343,19 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
      */
     private void acquireSharedNodeLabelLocks()
     {
-        ktx.statementLocks().optimistic().acquireShared( ktx.lockTracer(), ResourceTypes.LABEL, nodeCursor.labels().all() );
+        ktx.statementLocks().optimistic().acquireShared( ktx.lockTracer(), ResourceTypes.LABEL, nodeCursor().labels().all() );
     }
 
     private boolean relationshipDelete( long relationship, boolean lock ) throws AutoIndexingKernelException
     {
-        allStoreHolder.singleRelationship( relationship, relationshipCursor ); // tx-state aware
+        allStoreHolder.singleRelationship( relationship, relationshipCursor() ); // tx-state aware
 
-        if ( relationshipCursor.next() )
+        if ( relationshipCursor().next() )
         {
             if ( lock )
             {
-                lockRelationshipNodes( relationshipCursor.sourceNodeReference(),
-                        relationshipCursor.targetNodeReference() );
+                lockRelationshipNodes( relationshipCursor().sourceNodeReference(),
+                        relationshipCursor().targetNodeReference() );
                 acquireExclusiveRelationshipLock( relationship );
             }
             if ( !allStoreHolder.relationshipExists( relationship ) )
@@ -375,8 +374,8 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
             }
             else
             {
-                txState.relationshipDoDelete( relationship, relationshipCursor.type(),
-                        relationshipCursor.sourceNodeReference(), relationshipCursor.targetNodeReference() );
+                txState.relationshipDoDelete( relationship, relationshipCursor().type(),
+                        relationshipCursor().sourceNodeReference(), relationshipCursor().targetNodeReference() );
             }
             return true;
         }
@@ -387,8 +386,8 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     private void singleNode( long node ) throws EntityNotFoundException
     {
-        allStoreHolder.singleNode( node, nodeCursor );
-        if ( !nodeCursor.next() )
+        allStoreHolder.singleNode( node, nodeCursor() );
+        if ( !nodeCursor().next() )
         {
             throw new EntityNotFoundException( EntityType.NODE, node );
         }
@@ -396,8 +395,8 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     private void singleRelationship( long relationship ) throws EntityNotFoundException
     {
-        allStoreHolder.singleRelationship( relationship, relationshipCursor );
-        if ( !relationshipCursor.next() )
+        allStoreHolder.singleRelationship( relationship, relationshipCursor() );
+        if ( !relationshipCursor().next() )
         {
             throw new EntityNotFoundException( EntityType.RELATIONSHIP, relationship );
         }
@@ -414,16 +413,16 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         IndexQuery.ExactPredicate[] values = new IndexQuery.ExactPredicate[schemaPropertyIds.length];
 
         int nMatched = 0;
-        nodeCursor.properties( propertyCursor );
-        while ( propertyCursor.next() )
+        nodeCursor().properties( propertyCursor() );
+        while ( propertyCursor().next() )
         {
-            int nodePropertyId = propertyCursor.propertyKey();
+            int nodePropertyId = propertyCursor().propertyKey();
             int k = ArrayUtils.indexOf( schemaPropertyIds, nodePropertyId );
             if ( k >= 0 )
             {
                 if ( nodePropertyId != StatementConstants.NO_SUCH_PROPERTY_KEY )
                 {
-                    values[k] = IndexQuery.exact( nodePropertyId, propertyCursor.propertyValue() );
+                    values[k] = IndexQuery.exact( nodePropertyId, propertyCursor().propertyValue() );
                 }
                 nMatched++;
             }
@@ -502,7 +501,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
         singleNode( node );
 
-        if ( !nodeCursor.hasLabel( labelId ) )
+        if ( !nodeCursor().hasLabel( labelId ) )
         {
             //the label wasn't there, nothing to do
             return false;
@@ -510,7 +509,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
         sharedSchemaLock( ResourceTypes.LABEL, labelId );
         ktx.txState().nodeDoRemoveLabel( labelId, node );
-        updater.onLabelChange( labelId, nodeCursor, propertyCursor, REMOVED_LABEL );
+        updater.onLabelChange( labelId, nodeCursor(), propertyCursor(), REMOVED_LABEL );
         return true;
     }
 
@@ -527,7 +526,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         Iterator<IndexBackedConstraintDescriptor> uniquenessConstraints =
                 new CastingIterator<>( constraints, IndexBackedConstraintDescriptor.class );
 
-        NodeSchemaMatcher.onMatchingSchema( uniquenessConstraints, nodeCursor, propertyCursor, propertyKey,
+        NodeSchemaMatcher.onMatchingSchema( uniquenessConstraints, nodeCursor(), propertyCursor(), propertyKey,
                 ( constraint, propertyIds ) ->
                 {
                     if ( propertyIds.contains( propertyKey ) )
@@ -550,7 +549,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
             //no existing value, we just add it
             autoIndexing.nodes().propertyAdded( this, node, propertyKey, value );
             ktx.txState().nodeDoAddProperty( node, propertyKey, value );
-            updater.onPropertyAdd( nodeCursor, propertyCursor, propertyKey, value );
+            updater.onPropertyAdd( nodeCursor(), propertyCursor(), propertyKey, value );
             return NO_VALUE;
         }
         else
@@ -561,7 +560,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
             {
                 //the value has changed to a new value
                 ktx.txState().nodeDoChangeProperty( node, propertyKey, value );
-                updater.onPropertyChange( nodeCursor, propertyCursor, propertyKey, existingValue, value );
+                updater.onPropertyChange( nodeCursor(), propertyCursor(), propertyKey, existingValue, value );
             }
             return existingValue;
         }
@@ -581,7 +580,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
             acquireSharedNodeLabelLocks();
             autoIndexing.nodes().propertyRemoved( this, node, propertyKey );
             ktx.txState().nodeDoRemoveProperty( node, propertyKey );
-            updater.onPropertyRemove( nodeCursor, propertyCursor, propertyKey, existingValue );
+            updater.onPropertyRemove( nodeCursor(), propertyCursor(), propertyKey, existingValue );
         }
 
         return existingValue;
@@ -737,11 +736,11 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
             throws ExplicitIndexNotFoundKernelException, EntityNotFoundException
     {
         ktx.assertOpen();
-        allStoreHolder.singleRelationship( relationship, relationshipCursor );
-        if ( relationshipCursor.next() )
+        allStoreHolder.singleRelationship( relationship, relationshipCursor() );
+        if ( relationshipCursor().next() )
         {
             allStoreHolder.explicitIndexTxState().relationshipChanges( indexName ).addRelationship( relationship, key, value,
-                    relationshipCursor.sourceNodeReference(), relationshipCursor.targetNodeReference() );
+                    relationshipCursor().sourceNodeReference(), relationshipCursor().targetNodeReference() );
         }
         else
         {
@@ -799,15 +798,15 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     private Value readNodeProperty( int propertyKey )
     {
-        nodeCursor.properties( propertyCursor );
+        nodeCursor().properties( propertyCursor() );
 
         //Find out if the property had a value
         Value existingValue = NO_VALUE;
-        while ( propertyCursor.next() )
+        while ( propertyCursor().next() )
         {
-            if ( propertyCursor.propertyKey() == propertyKey )
+            if ( propertyCursor().propertyKey() == propertyKey )
             {
-                existingValue = propertyCursor.propertyValue();
+                existingValue = propertyCursor().propertyValue();
                 break;
             }
         }
@@ -816,15 +815,15 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     private Value readRelationshipProperty( int propertyKey )
     {
-        relationshipCursor.properties( propertyCursor );
+        relationshipCursor().properties( propertyCursor() );
 
         //Find out if the property had a value
         Value existingValue = NO_VALUE;
-        while ( propertyCursor.next() )
+        while ( propertyCursor().next() )
         {
-            if ( propertyCursor.propertyKey() == propertyKey )
+            if ( propertyCursor().propertyKey() == propertyKey )
             {
-                existingValue = propertyCursor.propertyValue();
+                existingValue = propertyCursor().propertyValue();
                 break;
             }
         }
@@ -833,15 +832,15 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     private Value readGraphProperty( int propertyKey )
     {
-        allStoreHolder.graphProperties( propertyCursor );
+        allStoreHolder.graphProperties( propertyCursor() );
 
         //Find out if the property had a value
         Value existingValue = NO_VALUE;
-        while ( propertyCursor.next() )
+        while ( propertyCursor().next() )
         {
-            if ( propertyCursor.propertyKey() == propertyKey )
+            if ( propertyCursor().propertyKey() == propertyKey )
             {
-                existingValue = propertyCursor.propertyValue();
+                existingValue = propertyCursor().propertyValue();
                 break;
             }
         }
@@ -902,16 +901,28 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
 
     public DefaultNodeCursor nodeCursor()
     {
+        if ( nodeCursor == null )
+        {
+            nodeCursor = cursors.allocateNodeCursor();
+        }
         return nodeCursor;
     }
 
     public DefaultRelationshipScanCursor relationshipCursor()
     {
+        if ( relationshipCursor == null )
+        {
+            relationshipCursor = cursors.allocateRelationshipScanCursor();
+        }
         return relationshipCursor;
     }
 
     public DefaultPropertyCursor propertyCursor()
     {
+        if ( propertyCursor == null )
+        {
+            propertyCursor = cursors.allocatePropertyCursor();
+        }
         return propertyCursor;
     }
 
@@ -1041,7 +1052,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         try ( NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor() )
         {
             allStoreHolder.nodeLabelScan( descriptor.getLabelId(), nodes );
-            constraintSemantics.validateNodeKeyConstraint( nodes, nodeCursor, propertyCursor, descriptor );
+            constraintSemantics.validateNodeKeyConstraint( nodes, nodeCursor(), propertyCursor(), descriptor );
         }
 
         //create constraint
@@ -1067,7 +1078,7 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         {
             allStoreHolder.nodeLabelScan( descriptor.getLabelId(), nodes );
             constraintSemantics
-                    .validateNodePropertyExistenceConstraint( nodes, nodeCursor, propertyCursor, descriptor );
+                    .validateNodePropertyExistenceConstraint( nodes, nodeCursor(), propertyCursor(), descriptor );
         }
 
         //create constraint
@@ -1089,9 +1100,9 @@ public class Operations implements Write, ExplicitIndexWrite, SchemaWrite
         assertConstraintDoesNotExist( constraint );
 
         //enforce constraints
-        allStoreHolder.relationshipTypeScan( descriptor.getRelTypeId(), relationshipCursor );
+        allStoreHolder.relationshipTypeScan( descriptor.getRelTypeId(), relationshipCursor() );
         constraintSemantics
-                .validateRelationshipPropertyExistenceConstraint( relationshipCursor, propertyCursor, descriptor );
+                .validateRelationshipPropertyExistenceConstraint( relationshipCursor(), propertyCursor(), descriptor );
 
         //Create
         ktx.txState().constraintDoAdd( constraint );
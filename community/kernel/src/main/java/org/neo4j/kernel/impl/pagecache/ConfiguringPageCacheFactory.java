@@ -19,30 +19,56 @@
  */
 package org.neo4j.kernel.impl.pagecache;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.neo4j.graphdb.config.InvalidSettingException;
 import org.neo4j.helpers.Service;
 import org.neo4j.io.ByteUnit;
+import org.neo4j.io.compress.CompressingPageSwapperFactory;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseFile;
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.os.OsBeanUtil;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.DirectIOPageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.transaction.log.LogForceBarrier;
 import org.neo4j.logging.Log;
 import org.neo4j.memory.GlobalMemoryTracker;
 import org.neo4j.scheduler.JobScheduler;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_background_flush;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_background_flush_iops_limit;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_compression;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_heat_map_sampling_interval;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_reservations;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_stripes;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.relaxed_durability_force_interval;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
 
 public class ConfiguringPageCacheFactory
 {
+    private static final String INDEX_RESERVATION = "INDEX";
+    private static final String SCHEMA_DIRECTORY_NAME = "schema";
+
     private PageSwapperFactory swapperFactory;
     private final FileSystemAbstraction fs;
     private final Config config;
@@ -52,6 +78,7 @@ public class ConfiguringPageCacheFactory
     private PageCache pageCache;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final JobScheduler scheduler;
+    private final LogForceBarrier logForceBarrier;
 
     /**
      * Construct configuring page cache factory
@@ -67,6 +94,17 @@ public class ConfiguringPageCacheFactory
     public ConfiguringPageCacheFactory( FileSystemAbstraction fs, Config config, PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier, Log log,
             VersionContextSupplier versionContextSupplier, JobScheduler scheduler )
+    {
+        this( fs, config, pageCacheTracer, pageCursorTracerSupplier, log, versionContextSupplier, scheduler, null );
+    }
+
+    /**
+     * @param logForceBarrier barrier that makes the transaction logs durable before pages are written, when
+     * durability is relaxed, or {@code null} if durability can't be relaxed for the databases that use this page cache.
+     */
+    public ConfiguringPageCacheFactory( FileSystemAbstraction fs, Config config, PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier, Log log,
+            VersionContextSupplier versionContextSupplier, JobScheduler scheduler, LogForceBarrier logForceBarrier )
     {
         this.fs = fs;
         this.versionContextSupplier = versionContextSupplier;
@@ -75,13 +113,14 @@ public class ConfiguringPageCacheFactory
         this.log = log;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.scheduler = scheduler;
+        this.logForceBarrier = logForceBarrier;
     }
 
     public synchronized PageCache getOrCreatePageCache()
     {
         if ( pageCache == null )
         {
-            this.swapperFactory = createAndConfigureSwapperFactory( fs, config, log );
+            this.swapperFactory = createAndConfigureSwapperFactory( fs, config, log, logForceBarrier );
             this.pageCache = createPageCache();
         }
         return pageCache;
@@ -91,8 +130,167 @@ public class ConfiguringPageCacheFactory
     {
         checkPageSize( config );
         MemoryAllocator memoryAllocator = buildMemoryAllocator( config );
-        return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, pageCursorTracerSupplier,
-                versionContextSupplier, scheduler );
+        MuninnPageCache pageCache = new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer,
+                pageCursorTracerSupplier, versionContextSupplier, scheduler );
+        try
+        {
+            int stripeCount = config.get( pagecache_stripes );
+            if ( stripeCount > 1 )
+            {
+                partitionIntoStripes( pageCache, stripeCount );
+            }
+            reservePages( pageCache, config.get( pagecache_reservations ) );
+            if ( config.get( pagecache_background_flush ) )
+            {
+                startBackgroundFlushing( pageCache, config.get( pagecache_background_flush_iops_limit ) );
+            }
+            configureHeatMap( config.get( pagecache_heat_map_sampling_interval ) );
+            config.registerDynamicUpdateListener( pagecache_heat_map_sampling_interval,
+                    ( previous, update ) -> configureHeatMap( update ) );
+        }
+        catch ( RuntimeException e )
+        {
+            pageCache.close();
+            throw e;
+        }
+        return pageCache;
+    }
+
+    private void configureHeatMap( int samplingInterval )
+    {
+        try
+        {
+            pageCacheTracer.heatMap().setSamplingInterval( samplingInterval );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            log.warn( "The page cache heat map cannot be enabled, because page cache tracing is disabled." );
+        }
+    }
+
+    private void partitionIntoStripes( MuninnPageCache pageCache, int stripeCount )
+    {
+        try
+        {
+            pageCache.partitionIntoStripes( stripeCount );
+            log.info( "Partitioned the page cache into " + stripeCount + " stripes." );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            log.warn( "The page cache was not partitioned into stripes. " + e.getMessage() );
+        }
+    }
+
+    private void startBackgroundFlushing( MuninnPageCache pageCache, int iopsLimit )
+    {
+        IOLimiter limiter = iopsLimit > 0 ? new FixedRateIOLimiter( iopsLimit ) : IOLimiter.UNLIMITED;
+        try
+        {
+            pageCache.startBackgroundFlushing( limiter );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        log.info( "Background flushing of the page cache enabled" +
+                  (iopsLimit > 0 ? ", limited to " + iopsLimit + " IOs per second." : ".") );
+    }
+
+    private void reservePages( MuninnPageCache pageCache, List<String> reservations )
+    {
+        for ( String reservation : reservations )
+        {
+            int separator = reservation.lastIndexOf( ':' );
+            if ( separator == -1 )
+            {
+                throw invalidReservation( reservation, "Expected an entry on the form KEY:SIZE." );
+            }
+            String key = reservation.substring( 0, separator ).trim();
+            String size = reservation.substring( separator + 1 ).trim();
+            long pageCount = reservedPageCount( pageCache, reservation, size );
+            try
+            {
+                pageCache.reservePages( key, reservedFiles( reservation, key ), pageCount );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                throw invalidReservation( reservation, e.getMessage() );
+            }
+            log.info( "Reserved " + pageCount + " pages of the page cache for " + key + "." );
+        }
+    }
+
+    private static long reservedPageCount( PageCache pageCache, String reservation, String size )
+    {
+        if ( size.endsWith( "%" ) )
+        {
+            double percentage;
+            try
+            {
+                percentage = Double.parseDouble( size.substring( 0, size.length() - 1 ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                percentage = Double.NaN;
+            }
+            if ( !(percentage >= 0 && percentage <= 100) )
+            {
+                throw invalidReservation( reservation, "The percentage must be between 0 and 100." );
+            }
+            return (long) (pageCache.maxCachedPages() * percentage / 100);
+        }
+        try
+        {
+            return BYTES.apply( size ) / pageCache.pageSize();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw invalidReservation( reservation, e.getMessage() );
+        }
+    }
+
+    private static Predicate<File> reservedFiles( String reservation, String key )
+    {
+        if ( INDEX_RESERVATION.equalsIgnoreCase( key ) )
+        {
+            return ConfiguringPageCacheFactory::isIndexFile;
+        }
+        StoreType storeType;
+        try
+        {
+            storeType = StoreType.valueOf( key.toUpperCase() );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw invalidReservation( reservation, "Unknown store type " + key + "." );
+        }
+        return file -> storeTypeOf( file ).filter( storeType::equals ).isPresent();
+    }
+
+    private static Optional<StoreType> storeTypeOf( File file )
+    {
+        return DatabaseFile.fileOf( file.getName() ).flatMap( StoreType::typeOf );
+    }
+
+    private static boolean isIndexFile( File file )
+    {
+        if ( DatabaseFile.fileOf( file.getName() ).filter( DatabaseFile.LABEL_SCAN_STORE::equals ).isPresent() )
+        {
+            return true;
+        }
+        for ( File parent = file.getParentFile(); parent != null; parent = parent.getParentFile() )
+        {
+            if ( SCHEMA_DIRECTORY_NAME.equals( parent.getName() ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static InvalidSettingException invalidReservation( String reservation, String message )
+    {
+        return new InvalidSettingException( pagecache_reservations.name(), reservation, message );
     }
 
     private MemoryAllocator buildMemoryAllocator( Config config )
@@ -181,13 +379,52 @@ public class ConfiguringPageCacheFactory
         log.info( msg );
     }
 
-    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, Log log )
+    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, Log log,
+            LogForceBarrier logForceBarrier )
     {
         PageSwapperFactory factory = getPageSwapperFactory( config, log );
+        // The compressing factory is used even when nothing is to be compressed, because it refuses to open
+        // compressed files without compression.
+        List<String> compressedStores = config.get( pagecache_compression );
+        Set<StoreType> storeTypes = compressedStoreTypes( compressedStores );
+        factory = new CompressingPageSwapperFactory( factory,
+                file -> storeTypeOf( file ).filter( storeTypes::contains ).isPresent() );
+        if ( !storeTypes.isEmpty() )
+        {
+            log.info( "Page cache compression enabled for " + storeTypes + "." );
+        }
+        if ( logForceBarrier != null && !config.get( relaxed_durability_force_interval ).isZero() )
+        {
+            factory = new LogForcingPageSwapperFactory( factory, logForceBarrier );
+        }
         factory.open( fs, config );
         return factory;
     }
 
+    private static Set<StoreType> compressedStoreTypes( List<String> compressedStores )
+    {
+        Set<StoreType> storeTypes = EnumSet.noneOf( StoreType.class );
+        for ( String compressedStore : compressedStores )
+        {
+            StoreType storeType;
+            try
+            {
+                storeType = StoreType.valueOf( compressedStore.trim().toUpperCase() );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                storeType = null;
+            }
+            if ( storeType == null || !storeType.isRecordStore() || storeType == StoreType.META_DATA )
+            {
+                throw new InvalidSettingException( pagecache_compression.name(), compressedStore,
+                        "Only record stores other than the META_DATA store can be compressed." );
+            }
+            storeTypes.add( storeType );
+        }
+        return storeTypes;
+    }
+
     private static PageSwapperFactory getPageSwapperFactory( Config config, Log log )
     {
         String desiredImplementation = config.get( pagecache_swapper );
@@ -198,6 +435,11 @@ public class ConfiguringPageCacheFactory
                 if ( factory.implementationName().equals( desiredImplementation ) )
                 {
                     log.info( "Configured " + pagecache_swapper.name() + ": " + desiredImplementation );
+                    if ( factory instanceof DirectIOPageSwapperFactory )
+                    {
+                        ((DirectIOPageSwapperFactory) factory).setMonitor( ( file, reason ) -> log.info(
+                                "Using buffered IO rather than direct IO for " + file + ", because " + reason + "." ) );
+                    }
                     return factory;
                 }
             }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * An {@link IOLimiter} that keeps a flush at or below a fixed number of IOs per second, by pausing the flush whenever
+ * it gets ahead of that rate.
+ * <p>
+ * The rate is measured over quanta of {@value #QUANTUM_MILLIS} milliseconds. The stamp holds the start time of the
+ * current quantum in the upper 32 bits, and the number of IOs completed within it in the lower 32 bits, so the limiter
+ * itself is stateless and can be shared by concurrent flushes, each of which is then limited individually.
+ */
+public class FixedRateIOLimiter implements IOLimiter
+{
+    private static final long QUANTUM_MILLIS = 100;
+    private static final long TIME_MASK = 0x7FFF_FFFFL;
+    private static final long IOS_MASK = 0xFFFF_FFFFL;
+
+    private final int iopsLimit;
+    private final long origin = System.nanoTime();
+    private final AtomicInteger disabledCounter = new AtomicInteger();
+
+    public FixedRateIOLimiter( int iopsLimit )
+    {
+        if ( iopsLimit <= 0 )
+        {
+            throw new IllegalArgumentException( "The IOPS limit must be positive, but was " + iopsLimit );
+        }
+        this.iopsLimit = iopsLimit;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        long now = currentTimeMillis();
+        if ( previousStamp == INITIAL_STAMP || !isLimited() )
+        {
+            return stamp( now, recentlyCompletedIOs );
+        }
+
+        long quantumStart = previousStamp >>> 32;
+        long ios = (previousStamp & IOS_MASK) + recentlyCompletedIOs;
+        // The time is kept modulo the time mask, so we only ever look at the difference between two points in time.
+        long elapsedMillis = (now - quantumStart) & TIME_MASK;
+        long requiredMillis = ios * 1000 / iopsLimit;
+        if ( requiredMillis > elapsedMillis )
+        {
+            // We are going faster than the limit allows, so we wait for the rate to come down again.
+            try
+            {
+                Thread.sleep( requiredMillis - elapsedMillis );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return stamp( currentTimeMillis(), 0 );
+        }
+        if ( elapsedMillis >= QUANTUM_MILLIS )
+        {
+            return stamp( now, 0 );
+        }
+        return stamp( quantumStart, ios );
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        disabledCounter.getAndIncrement();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        disabledCounter.getAndDecrement();
+    }
+
+    @Override
+    public boolean isLimited()
+    {
+        return disabledCounter.get() == 0;
+    }
+
+    private long currentTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - origin );
+    }
+
+    private static long stamp( long quantumStart, long ios )
+    {
+        return ((quantumStart & TIME_MASK) << 32) | Math.min( ios, IOS_MASK );
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.kernel.impl.transaction.log.LogForceBarrier;
+
+/**
+ * A {@link PageSwapperFactory} that decorates another factory, and makes the transaction logs durable before every
+ * write of pages to a file.
+ * <p>
+ * This is what keeps the store files from getting changes that are not in the durable part of the transaction log,
+ * when the log is not forced on every commit. The check for whether there is anything to force is cheap, so it
+ * mostly costs a force when pages are written shortly after the transactions that changed them were committed.
+ */
+public class LogForcingPageSwapperFactory implements PageSwapperFactory
+{
+    private final PageSwapperFactory delegate;
+    private final LogForceBarrier barrier;
+
+    public LogForcingPageSwapperFactory( PageSwapperFactory delegate, LogForceBarrier barrier )
+    {
+        this.delegate = delegate;
+        this.barrier = barrier;
+    }
+
+    @Override
+    public void open( FileSystemAbstraction fs, Configuration config )
+    {
+        delegate.open( fs, config );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return delegate.implementationName();
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return delegate.getRequiredBufferAlignment();
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean noChannelStriping ) throws IOException
+    {
+        PageSwapper swapper =
+                delegate.createPageSwapper( file, filePageSize, onEviction, createIfNotExist, noChannelStriping );
+        return new LogForcingPageSwapper( swapper, barrier );
+    }
+
+    @Override
+    public void syncDevice()
+    {
+        delegate.syncDevice();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    private static class LogForcingPageSwapper implements PageSwapper
+    {
+        private final PageSwapper delegate;
+        private final LogForceBarrier barrier;
+
+        LogForcingPageSwapper( PageSwapper delegate, LogForceBarrier barrier )
+        {
+            this.delegate = delegate;
+            this.barrier = barrier;
+        }
+
+        @Override
+        public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+        {
+            return delegate.read( filePageId, bufferAddress, bufferSize );
+        }
+
+        @Override
+        public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+                throws IOException
+        {
+            return delegate.read( startFilePageId, bufferAddresses, bufferSize, arrayOffset, length );
+        }
+
+        @Override
+        public long write( long filePageId, long bufferAddress ) throws IOException
+        {
+            barrier.awaitLogsDurable();
+            return delegate.write( filePageId, bufferAddress );
+        }
+
+        @Override
+        public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length )
+                throws IOException
+        {
+            barrier.awaitLogsDurable();
+            return delegate.write( startFilePageId, bufferAddresses, arrayOffset, length );
+        }
+
+        @Override
+        public void evicted( long pageId )
+        {
+            delegate.evicted( pageId );
+        }
+
+        @Override
+        public File file()
+        {
+            return delegate.file();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            delegate.close();
+        }
+
+        @Override
+        public void closeAndDelete() throws IOException
+        {
+            delegate.closeAndDelete();
+        }
+
+        @Override
+        public void force() throws IOException
+        {
+            delegate.force();
+        }
+
+        @Override
+        public long getLastPageId() throws IOException
+        {
+            return delegate.getLastPageId();
+        }
+
+        @Override
+        public void truncate() throws IOException
+        {
+            delegate.truncate();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+/**
+ * Periodically records which pages of the mapped store files are in memory, and uses those profiles to load the same
+ * pages back into memory when the database starts up again.
+ * <p>
+ * A profile is a gzipped bitmap with one bit per file page, set if the page was in memory when the profile was taken.
+ * Profiles are kept in the {@value #PROFILES_DIRECTORY_NAME} directory of the database, mirroring the relative paths
+ * of the files they describe.
+ * <p>
+ * Reheating happens in the background, in parallel per mapped file, so it does not delay the database from becoming
+ * available. Consecutive pages are loaded with {@link PagedFile#touch(long, int)}, which allows the page swapper to
+ * use vectored reads. The page faults are reported through the page cache tracer like any other page fault.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String PROFILES_DIRECTORY_NAME = "profiles";
+    public static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_TEMPORARY = ".tmp";
+    private static final int TOUCH_CHUNK_SIZE = 128;
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File databaseDirectory;
+    private final File profilesDirectory;
+    private final Config config;
+    private final Log log;
+    private volatile boolean stopped;
+    private JobHandle warmupJob;
+    private JobHandle profileJob;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler,
+            File databaseDirectory, Config config, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.databaseDirectory = databaseDirectory;
+        this.profilesDirectory = new File( databaseDirectory, PROFILES_DIRECTORY_NAME );
+        this.config = config;
+        this.log = log;
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+        {
+            stopped = false;
+            warmupJob = scheduler.schedule( Group.FILE_IO_HELPER, this::reheatAndStartProfiling );
+        }
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        stopped = true;
+        JobHandle warmup;
+        synchronized ( this )
+        {
+            warmup = warmupJob;
+            warmupJob = null;
+        }
+        // Wait for the warmup job first, since it is the one that schedules the profiling job.
+        awaitTermination( warmup );
+        JobHandle profile;
+        synchronized ( this )
+        {
+            profile = profileJob;
+            profileJob = null;
+        }
+        awaitTermination( profile );
+    }
+
+    private static void awaitTermination( JobHandle job ) throws InterruptedException
+    {
+        if ( job != null )
+        {
+            job.cancel( false );
+            try
+            {
+                job.waitTermination();
+            }
+            catch ( CancellationException | ExecutionException ignore )
+            {
+                // The job was either never started, or has already logged its failure.
+            }
+        }
+    }
+
+    private void reheatAndStartProfiling()
+    {
+        try
+        {
+            long pagesLoaded = reheat();
+            log.info( "Page cache warmup completed. %d pages loaded.", pagesLoaded );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache warmup failed.", e );
+        }
+        synchronized ( this )
+        {
+            // Profiles are written into the database directory, which we must not do in read-only mode.
+            if ( !stopped && !config.get( GraphDatabaseSettings.read_only ) )
+            {
+                long interval = config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ).toMillis();
+                profileJob = scheduler.scheduleRecurring(
+                        Group.FILE_IO_HELPER, this::profileQuietly, interval, interval, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
+    private void profileQuietly()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache profiling failed.", e );
+        }
+    }
+
+    /**
+     * Load the pages recorded in the profiles into memory, one mapped file at a time per scheduled job.
+     *
+     * @return the number of pages that were loaded into memory.
+     */
+    public long reheat() throws IOException, InterruptedException
+    {
+        List<PagedFile> files = mappedDatabaseFiles();
+        List<ReheatJob> jobs = new ArrayList<>( files.size() );
+        for ( PagedFile file : files )
+        {
+            File profile = profileFile( file );
+            if ( fs.fileExists( profile ) )
+            {
+                ReheatJob job = new ReheatJob( file, profile );
+                job.handle = scheduler.schedule( Group.FILE_IO_HELPER, job );
+                jobs.add( job );
+            }
+        }
+
+        long pagesLoaded = 0;
+        for ( ReheatJob job : jobs )
+        {
+            try
+            {
+                job.handle.waitTermination();
+            }
+            catch ( CancellationException | ExecutionException ignore )
+            {
+                // The job itself logs any failure.
+            }
+            pagesLoaded += job.pagesLoaded;
+        }
+        return pagesLoaded;
+    }
+
+    /**
+     * Record which pages of the mapped files are currently in memory.
+     *
+     * @return the number of in-memory pages that were recorded in the profiles.
+     */
+    public synchronized long profile() throws IOException
+    {
+        long pagesInMemory = 0;
+        for ( PagedFile file : mappedDatabaseFiles() )
+        {
+            if ( stopped )
+            {
+                break;
+            }
+            try
+            {
+                pagesInMemory += profile( file );
+            }
+            catch ( FileIsNotMappedException ignore )
+            {
+                // The file was unmapped concurrently, so there is nothing to profile.
+            }
+        }
+        return pagesInMemory;
+    }
+
+    private long profile( PagedFile file ) throws IOException
+    {
+        File profile = profileFile( file );
+        File temporaryProfile = new File( profile.getParentFile(), profile.getName() + SUFFIX_TEMPORARY );
+        fs.mkdirs( profile.getParentFile() );
+
+        long pagesInMemory = 0;
+        try ( OutputStream output = new GZIPOutputStream( new BufferedOutputStream(
+                      fs.openAsOutputStream( temporaryProfile, false ) ) );
+              PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            int bits = 0;
+            int bitCount = 0;
+            while ( cursor.next() )
+            {
+                if ( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    bits |= 1 << bitCount;
+                    pagesInMemory++;
+                }
+                bitCount++;
+                if ( bitCount == Byte.SIZE )
+                {
+                    output.write( bits );
+                    bits = 0;
+                    bitCount = 0;
+                }
+            }
+            if ( bitCount > 0 )
+            {
+                output.write( bits );
+            }
+        }
+        fs.renameFile( temporaryProfile, profile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        return pagesInMemory;
+    }
+
+    private long reheat( PagedFile file, File profile ) throws IOException
+    {
+        long pagesLoaded = 0;
+        long runStart = -1;
+        long pageId = 0;
+        try ( InputStream input = new GZIPInputStream( new BufferedInputStream( fs.openAsInputStream( profile ) ) ) )
+        {
+            int bits;
+            while ( (bits = input.read()) != -1 && !stopped )
+            {
+                for ( int i = 0; i < Byte.SIZE; i++, pageId++ )
+                {
+                    boolean inMemory = (bits & (1 << i)) != 0;
+                    if ( inMemory && runStart == -1 )
+                    {
+                        runStart = pageId;
+                    }
+                    else if ( runStart != -1 && (!inMemory || pageId - runStart == TOUCH_CHUNK_SIZE) )
+                    {
+                        pagesLoaded += file.touch( runStart, (int) (pageId - runStart) );
+                        runStart = inMemory ? pageId : -1;
+                    }
+                }
+            }
+            if ( runStart != -1 && !stopped )
+            {
+                pagesLoaded += file.touch( runStart, (int) (pageId - runStart) );
+            }
+        }
+        finally
+        {
+            // Publish the page faults of this thread to the page cache tracer.
+            pageCache.reportEvents();
+        }
+        return pagesLoaded;
+    }
+
+    private List<PagedFile> mappedDatabaseFiles() throws IOException
+    {
+        File canonicalDatabaseDirectory = databaseDirectory.getCanonicalFile();
+        List<PagedFile> files = new ArrayList<>();
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            if ( file.file().toPath().startsWith( canonicalDatabaseDirectory.toPath() ) )
+            {
+                files.add( file );
+            }
+        }
+        return files;
+    }
+
+    private File profileFile( PagedFile file ) throws IOException
+    {
+        String relativePath = databaseDirectory.getCanonicalFile().toPath().relativize( file.file().toPath() ).toString();
+        return new File( profilesDirectory, relativePath + SUFFIX_CACHEPROF );
+    }
+
+    private class ReheatJob implements Runnable
+    {
+        private final PagedFile file;
+        private final File profile;
+        private volatile JobHandle handle;
+        private volatile long pagesLoaded;
+
+        ReheatJob( PagedFile file, File profile )
+        {
+            this.file = file;
+            this.profile = profile;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                pagesLoaded = reheat( file, profile );
+            }
+            catch ( FileIsNotMappedException ignore )
+            {
+                // The file was unmapped concurrently, so there is nothing to warm up.
+            }
+            catch ( IOException e )
+            {
+                log.warn( "Failed to warm up " + file.file() + " from profile " + profile, e );
+            }
+        }
+    }
+}
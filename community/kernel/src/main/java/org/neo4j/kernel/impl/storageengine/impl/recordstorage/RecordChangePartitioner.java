@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * Splits the node, relationship, relationship group and property commands of a batch of transactions into partitions
+ * that can be applied to the stores concurrently.
+ * <p>
+ * Two commands depend on each other if they write any of the same records, including the secondary units of the
+ * records, the dynamic label records of nodes, and the dynamic string and array records of properties. The commands
+ * that depend on each other, directly or through other commands, end up in the same partition, in the order of the
+ * transactions. The commands of different partitions write disjoint sets of records, so the partitions can be applied
+ * in any order, or all at once.
+ */
+class RecordChangePartitioner
+{
+    private static final long NODE = 0;
+    private static final long RELATIONSHIP = 1;
+    private static final long RELATIONSHIP_GROUP = 2;
+    private static final long PROPERTY = 3;
+    private static final long NODE_LABELS = 4;
+    private static final long PROPERTY_STRING = 5;
+    private static final long PROPERTY_ARRAY = 6;
+    private static final int STORE_SHIFT = 56;
+
+    private RecordChangePartitioner()
+    {
+    }
+
+    /**
+     * @return {@code true} if the given command is one that this partitioner partitions.
+     */
+    static boolean isRecordChange( Command command )
+    {
+        return command instanceof NodeCommand || command instanceof RelationshipCommand ||
+               command instanceof RelationshipGroupCommand || command instanceof PropertyCommand;
+    }
+
+    /**
+     * Partition the record changes of the given batch of transactions.
+     *
+     * @param batch the first transaction of the batch.
+     * @param maxPartitions the maximum number of partitions to create.
+     * @return the non-empty partitions, each with its commands in transaction order.
+     */
+    static List<List<Command>> partition( CommandsToApply batch, int maxPartitions ) throws IOException
+    {
+        return partition( batch, null, maxPartitions );
+    }
+
+    /**
+     * Partition the record changes of the transactions of a batch, from the given transaction up to, but not including,
+     * the given end transaction.
+     *
+     * @param first the first transaction to partition.
+     * @param end the transaction after the last transaction to partition, or {@code null} for the rest of the batch.
+     * @param maxPartitions the maximum number of partitions to create.
+     * @return the non-empty partitions, each with its commands in transaction order.
+     */
+    static List<List<Command>> partition( CommandsToApply first, CommandsToApply end, int maxPartitions )
+            throws IOException
+    {
+        List<Command> commands = new ArrayList<>();
+        for ( CommandsToApply transaction = first; transaction != end; transaction = transaction.next() )
+        {
+            transaction.accept( element ->
+            {
+                Command command = (Command) element;
+                if ( isRecordChange( command ) )
+                {
+                    commands.add( command );
+                }
+                return false;
+            } );
+        }
+
+        // Union the commands that write the same records, with the first command to write a record as its owner.
+        int[] parents = new int[commands.size()];
+        long[] firstRecords = new long[commands.size()];
+        LongIntHashMap owners = new LongIntHashMap();
+        for ( int i = 0; i < parents.length; i++ )
+        {
+            int command = i;
+            parents[command] = command;
+            firstRecords[command] = -1;
+            forEachRecord( commands.get( command ), record ->
+            {
+                if ( firstRecords[command] == -1 )
+                {
+                    firstRecords[command] = record;
+                }
+                int owner = owners.getIfAbsentPut( record, command );
+                if ( owner != command )
+                {
+                    union( parents, owner, command );
+                }
+            } );
+        }
+
+        // Gather the commands of every component, in transaction order.
+        List<Component> components = new ArrayList<>();
+        int[] componentIndexes = new int[parents.length];
+        for ( int i = 0; i < parents.length; i++ )
+        {
+            int root = find( parents, i );
+            if ( root == i )
+            {
+                componentIndexes[i] = components.size();
+                components.add( new Component( firstRecords[i] ) );
+            }
+            components.get( componentIndexes[root] ).commands.add( commands.get( i ) );
+        }
+
+        // Cut the components, ordered by the first record they write, into partitions of about the same number of
+        // commands. Partitions that cover ranges of records, rather than records from all over the stores, rarely
+        // write to the same pages, so they don't contend for page write locks.
+        components.sort( Comparator.comparingLong( component -> component.firstRecord ) );
+        int partitionCount = Math.min( maxPartitions, components.size() );
+        List<List<Command>> partitions = new ArrayList<>( partitionCount );
+        List<Command> partition = null;
+        long assigned = 0;
+        for ( Component component : components )
+        {
+            if ( partitions.size() < partitionCount &&
+                 assigned >= (long) partitions.size() * commands.size() / partitionCount )
+            {
+                partition = new ArrayList<>();
+                partitions.add( partition );
+            }
+            partition.addAll( component.commands );
+            assigned += component.commands.size();
+        }
+        return partitions;
+    }
+
+    private static class Component
+    {
+        private final long firstRecord;
+        private final List<Command> commands = new ArrayList<>();
+
+        Component( long firstRecord )
+        {
+            this.firstRecord = firstRecord;
+        }
+    }
+
+    private static int find( int[] parents, int command )
+    {
+        while ( parents[command] != command )
+        {
+            parents[command] = parents[parents[command]];
+            command = parents[command];
+        }
+        return command;
+    }
+
+    private static void union( int[] parents, int a, int b )
+    {
+        int rootA = find( parents, a );
+        int rootB = find( parents, b );
+        // Keep the earliest command as the root, so the roots are met in transaction order.
+        parents[Math.max( rootA, rootB )] = Math.min( rootA, rootB );
+    }
+
+    private static void forEachRecord( Command command, LongConsumer records )
+    {
+        if ( command instanceof NodeCommand )
+        {
+            NodeCommand nodeCommand = (NodeCommand) command;
+            forEachRecord( NODE, nodeCommand.getBefore(), records );
+            forEachRecord( NODE, nodeCommand.getAfter(), records );
+            forEachDynamicLabelRecord( nodeCommand.getBefore(), records );
+            forEachDynamicLabelRecord( nodeCommand.getAfter(), records );
+        }
+        else if ( command instanceof RelationshipCommand )
+        {
+            RelationshipCommand relationshipCommand = (RelationshipCommand) command;
+            forEachRecord( RELATIONSHIP, relationshipCommand.getBefore(), records );
+            forEachRecord( RELATIONSHIP, relationshipCommand.getAfter(), records );
+        }
+        else if ( command instanceof RelationshipGroupCommand )
+        {
+            RelationshipGroupCommand groupCommand = (RelationshipGroupCommand) command;
+            forEachRecord( RELATIONSHIP_GROUP, groupCommand.getBefore(), records );
+            forEachRecord( RELATIONSHIP_GROUP, groupCommand.getAfter(), records );
+        }
+        else
+        {
+            PropertyCommand propertyCommand = (PropertyCommand) command;
+            forEachRecord( PROPERTY, propertyCommand.getBefore(), records );
+            forEachRecord( PROPERTY, propertyCommand.getAfter(), records );
+            forEachDynamicPropertyRecord( propertyCommand.getBefore(), records );
+            forEachDynamicPropertyRecord( propertyCommand.getAfter(), records );
+        }
+    }
+
+    private static void forEachRecord( long store, AbstractBaseRecord record, LongConsumer records )
+    {
+        if ( record == null )
+        {
+            return;
+        }
+        records.accept( key( store, record.getId() ) );
+        if ( record.hasSecondaryUnitId() )
+        {
+            records.accept( key( store, record.getSecondaryUnitId() ) );
+        }
+    }
+
+    private static void forEachDynamicLabelRecord( NodeRecord record, LongConsumer records )
+    {
+        if ( record != null )
+        {
+            for ( DynamicRecord dynamicRecord : record.getDynamicLabelRecords() )
+            {
+                records.accept( key( NODE_LABELS, dynamicRecord.getId() ) );
+            }
+        }
+    }
+
+    private static void forEachDynamicPropertyRecord( PropertyRecord record, LongConsumer records )
+    {
+        if ( record == null )
+        {
+            return;
+        }
+        for ( PropertyBlock block : record )
+        {
+            if ( !block.isLight() )
+            {
+                forEachDynamicPropertyRecord( block.getValueRecords(), records );
+            }
+        }
+        forEachDynamicPropertyRecord( record.getDeletedRecords(), records );
+    }
+
+    private static void forEachDynamicPropertyRecord( List<DynamicRecord> dynamicRecords, LongConsumer records )
+    {
+        for ( DynamicRecord dynamicRecord : dynamicRecords )
+        {
+            // The property store only writes string and array records. Counting any other record as a string record
+            // can at worst put independent commands in the same partition.
+            long store = dynamicRecord.getType() == PropertyType.ARRAY ? PROPERTY_ARRAY : PROPERTY_STRING;
+            records.accept( key( store, dynamicRecord.getId() ) );
+        }
+    }
+
+    private static long key( long store, long id )
+    {
+        return (store << STORE_SHIFT) | id;
+    }
+}
@@ -51,7 +51,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         }
         if ( pageCursor == null )
         {
-            pageCursor = nodePage( 0 );
+            pageCursor = read.openPageCursorForScanning( 0 );
         }
         this.next = 0;
         this.highMark = nodeHighMark();
@@ -54,7 +54,7 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
         }
         if ( pageCursor == null )
         {
-            pageCursor = relationshipPage( 0 );
+            pageCursor = relationshipStore.openPageCursorForScanning( 0 );
         }
         this.next = 0;
         this.filterType = type;
@@ -20,13 +20,18 @@
 package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Exceptions;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.internal.diagnostics.DiagnosticsManager;
@@ -34,6 +39,7 @@ import org.neo4j.internal.kernel.api.TokenNameLookup;
 import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
 import org.neo4j.internal.kernel.api.exceptions.schema.CreateConstraintFailureException;
+import org.neo4j.io.compress.CompressingPageSwapperFactory;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.IOLimiter;
@@ -83,12 +89,14 @@ import org.neo4j.kernel.impl.store.format.RecordFormat;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.transaction.command.CacheInvalidationBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexActivator;
 import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
 import org.neo4j.kernel.impl.transaction.command.LabelUpdateWork;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.NeoStoreTransactionApplier;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
 import org.neo4j.kernel.impl.transaction.state.storeview.DynamicIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.storeview.NeoStoreIndexStoreView;
@@ -100,6 +108,7 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.kernel.monitoring.Monitors;
 import org.neo4j.kernel.spi.explicitindex.IndexImplementation;
 import org.neo4j.logging.LogProvider;
+import org.neo4j.scheduler.Group;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.CommandReaderFactory;
 import org.neo4j.storageengine.api.CommandsToApply;
@@ -122,7 +131,14 @@ import static org.neo4j.storageengine.api.TransactionApplicationMode.REVERSE_REC
 
 public class RecordStorageEngine implements StorageEngine, Lifecycle
 {
+    /**
+     * The fewest record changes of a {@link TransactionSegment} that are applied in parallel. Fewer changes are
+     * applied faster by the applying thread than they are handed over to other threads.
+     */
+    static final int MIN_PARALLEL_RECORD_CHANGES = 64;
+
     private final IndexingService indexingService;
+    private final FileSystemAbstraction fs;
     private final NeoStores neoStores;
     private final TokenHolders tokenHolders;
     private final DatabaseHealth databaseHealth;
@@ -141,12 +157,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync;
     private final CommandReaderFactory commandReaderFactory;
     private final WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync;
+    private final IndexBatchTransactionApplier.Monitor indexUpdatesMonitor;
     private final IndexStoreView indexStoreView;
     private final ExplicitIndexProvider explicitIndexProviderLookup;
     private final PropertyPhysicalToLogicalConverter indexUpdatesConverter;
     private final IdController idController;
     private final int denseNodeThreshold;
     private final int recordIdBatchSize;
+    private final JobScheduler scheduler;
+    private final int applyParallelism;
 
     public RecordStorageEngine(
             DatabaseLayout databaseLayout,
@@ -174,6 +193,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             OperationalMode operationalMode,
             VersionContextSupplier versionContextSupplier )
     {
+        this.fs = fs;
         this.tokenHolders = tokenHolders;
         this.schemaState = schemaState;
         this.lockService = lockService;
@@ -182,6 +202,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         this.indexConfigStore = indexConfigStore;
         this.constraintSemantics = constraintSemantics;
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
+        this.scheduler = scheduler;
+        this.applyParallelism = config.get( GraphDatabaseSettings.tx_apply_parallelism );
 
         this.idController = idController;
         StoreFactory factory = new StoreFactory( databaseLayout, config, idGeneratorFactory, pageCache, fs, logProvider,
@@ -216,6 +238,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
 
             commandReaderFactory = new RecordStorageCommandReaderFactory();
             indexUpdatesSync = new WorkSync<>( indexingService );
+            indexUpdatesMonitor = monitors.newMonitor( IndexBatchTransactionApplier.Monitor.class );
 
             denseNodeThreshold = config.get( GraphDatabaseSettings.dense_node_threshold );
             recordIdBatchSize = config.get( GraphDatabaseSettings.record_id_batch_size );
@@ -284,6 +307,12 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
     {
+        if ( applyParallelism > 1 && !mode.needsIdempotencyChecks() )
+        {
+            applyInParallel( batch, mode, scheduler.workStealingExecutor( Group.TRANSACTION_APPLY, applyParallelism ),
+                    applyParallelism );
+            return;
+        }
         // Have these command appliers as separate try-with-resource to have better control over
         // point between closing this and the locks above
         try ( IndexActivator indexActivator = new IndexActivator( indexingService );
@@ -308,6 +337,118 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    /**
+     * Applies the batch one {@link TransactionSegment segment} at a time, where the index updates of no transaction
+     * depend on the record changes of the later transactions of its segment. The record changes of a segment are
+     * applied first, with the {@link RecordChangePartitioner partitions} of independent changes applied concurrently,
+     * and then the rest of its commands are applied in transaction order.
+     * <p>
+     * This holds for recovered transactions too. Their index updates are read from the stores just the same, so
+     * applying the record changes of a whole batch up front could, for instance, delete a node before the index
+     * updates of an earlier transaction that changed it were gathered. The write locks of the nodes and relationships
+     * of a segment are taken up front by the applying thread, and are held until the whole batch has been applied,
+     * just like when the batch is applied serially.
+     */
+    @Override
+    public void applyInParallel( CommandsToApply batch, TransactionApplicationMode mode, ExecutorService executor,
+            int parallelism ) throws Exception
+    {
+        RecordChangeSkippingApplier storeApplier = new RecordChangeSkippingApplier(
+                new NeoStoreBatchTransactionApplier( mode.version(), neoStores, cacheAccess, lockService( mode ) ) );
+        try ( IndexActivator indexActivator = new IndexActivator( indexingService );
+              LockGroup locks = new LockGroup();
+              BatchTransactionApplier batchApplier = applier( mode, indexActivator, storeApplier ) )
+        {
+            while ( batch != null )
+            {
+                TransactionSegment segment = TransactionSegment.startingAt( batch );
+                boolean parallel = segment.isIndependent() && segment.recordChanges() >= MIN_PARALLEL_RECORD_CHANGES;
+                if ( parallel )
+                {
+                    segment.lock( lockService( mode ), locks );
+                    applyRecordChanges( RecordChangePartitioner.partition( batch, segment.end(), parallelism ),
+                            mode, executor );
+                }
+                storeApplier.skipRecordChanges( parallel );
+                batch = applyRemainingCommands( batch, segment.end(), batchApplier, locks );
+            }
+        }
+        catch ( Throwable cause )
+        {
+            TransactionApplyKernelException kernelException =
+                    new TransactionApplyKernelException( cause, "Failed to apply transaction: %s", batch );
+            databaseHealth.panic( kernelException );
+            throw kernelException;
+        }
+    }
+
+    private static CommandsToApply applyRemainingCommands( CommandsToApply batch, CommandsToApply end,
+            BatchTransactionApplier batchApplier, LockGroup locks ) throws Exception
+    {
+        while ( batch != end )
+        {
+            try ( TransactionApplier txApplier = batchApplier.startTx( batch, locks ) )
+            {
+                batch.accept( txApplier );
+            }
+            batch = batch.next();
+        }
+        return batch;
+    }
+
+    /**
+     * Applies the partitions of record changes, without taking any entity locks, since recovery needs none and the
+     * applying thread holds them otherwise.
+     */
+    private void applyRecordChanges( List<List<Command>> partitions, TransactionApplicationMode mode,
+            ExecutorService executor ) throws Exception
+    {
+        if ( partitions.size() == 1 )
+        {
+            applyRecordChanges( partitions.get( 0 ), mode );
+            return;
+        }
+        List<Future<?>> applications = new ArrayList<>( partitions.size() );
+        for ( List<Command> partition : partitions )
+        {
+            applications.add( executor.submit( () ->
+            {
+                applyRecordChanges( partition, mode );
+                return null;
+            } ) );
+        }
+        // Wait for all the partitions, so that none of them are still being applied when this method returns.
+        ExecutionException failure = null;
+        for ( Future<?> application : applications )
+        {
+            try
+            {
+                application.get();
+            }
+            catch ( ExecutionException e )
+            {
+                failure = Exceptions.chain( failure, e );
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void applyRecordChanges( List<Command> partition, TransactionApplicationMode mode ) throws Exception
+    {
+        try ( LockGroup locks = new LockGroup();
+              TransactionApplier applier = new NeoStoreTransactionApplier( mode.version(), neoStores, cacheAccess,
+                      NO_LOCK_SERVICE, -1, locks ) )
+        {
+            for ( Command command : partition )
+            {
+                command.handle( applier );
+            }
+        }
+    }
+
     /**
      * Creates a {@link BatchTransactionApplierFacade} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -316,10 +457,17 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
      * After all transactions have been applied the appliers are closed.
      */
     protected BatchTransactionApplierFacade applier( TransactionApplicationMode mode, IndexActivator indexActivator )
+    {
+        return applier( mode, indexActivator,
+                new NeoStoreBatchTransactionApplier( mode.version(), neoStores, cacheAccess, lockService( mode ) ) );
+    }
+
+    private BatchTransactionApplierFacade applier( TransactionApplicationMode mode, IndexActivator indexActivator,
+            BatchTransactionApplier storeApplier )
     {
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        appliers.add( new NeoStoreBatchTransactionApplier( mode.version(), neoStores, cacheAccess, lockService( mode ) ) );
+        appliers.add( storeApplier );
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -336,7 +484,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             // Schema index application
             appliers.add( new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, indexUpdatesSync,
                     neoStores.getNodeStore(), neoStores.getRelationshipStore(),
-                    indexUpdatesConverter, indexActivator ) );
+                    indexUpdatesConverter, indexActivator, indexUpdatesMonitor ) );
 
             // Explicit index application
             appliers.add(
@@ -350,6 +498,66 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
                 appliers.toArray( new BatchTransactionApplier[appliers.size()] ) );
     }
 
+    /**
+     * Applies everything but the record changes that {@link #applyInParallel(CommandsToApply,
+     * TransactionApplicationMode, ExecutorService, int)} has already applied, or everything for the transactions whose
+     * record changes it has not applied.
+     */
+    private static class RecordChangeSkippingApplier extends BatchTransactionApplier.Adapter
+    {
+        private final BatchTransactionApplier delegate;
+        private boolean skipRecordChanges = true;
+
+        RecordChangeSkippingApplier( BatchTransactionApplier delegate )
+        {
+            this.delegate = delegate;
+        }
+
+        void skipRecordChanges( boolean skipRecordChanges )
+        {
+            this.skipRecordChanges = skipRecordChanges;
+        }
+
+        @Override
+        public TransactionApplier startTx( CommandsToApply transaction ) throws IOException
+        {
+            TransactionApplier applier = delegate.startTx( transaction );
+            return skipRecordChanges ? withoutRecordChanges( applier ) : applier;
+        }
+
+        @Override
+        public TransactionApplier startTx( CommandsToApply transaction, LockGroup lockGroup ) throws IOException
+        {
+            TransactionApplier applier = delegate.startTx( transaction, lockGroup );
+            return skipRecordChanges ? withoutRecordChanges( applier ) : applier;
+        }
+
+        private static TransactionApplier withoutRecordChanges( TransactionApplier applier )
+        {
+            return new TransactionApplier.Adapter()
+            {
+                @Override
+                public boolean visit( StorageCommand element ) throws IOException
+                {
+                    Command command = (Command) element;
+                    return !RecordChangePartitioner.isRecordChange( command ) && command.handle( applier );
+                }
+
+                @Override
+                public void close() throws Exception
+                {
+                    applier.close();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            delegate.close();
+        }
+    }
+
     private LockService lockService( TransactionApplicationMode mode )
     {
         return mode == RECOVERY || mode == REVERSE_RECOVERY ? NO_LOCK_SERVICE : lockService;
@@ -465,6 +673,12 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
                 StoreFileMetadata metadata =
                         new StoreFileMetadata( recordStore.getStorageFile(), recordStore.getRecordSize() );
                 files.add( metadata );
+                File pageTableFile = CompressingPageSwapperFactory.pageTableFile( recordStore.getStorageFile() );
+                if ( fs.fileExists( pageTableFile ) )
+                {
+                    // The store is compressed, and cannot be read without its page table.
+                    files.add( new StoreFileMetadata( pageTableFile, RecordFormat.NO_RECORD_SIZE ) );
+                }
             }
         }
         return files;
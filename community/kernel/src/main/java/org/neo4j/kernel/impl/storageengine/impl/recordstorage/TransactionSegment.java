@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.SchemaRuleCommand;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+import static org.neo4j.kernel.impl.locking.LockService.LockType.WRITE_LOCK;
+
+/**
+ * A run of consecutive transactions of a batch, whose record changes can be applied to the stores before the rest of
+ * their commands, without the index updates of any of the transactions seeing the changes of a later transaction.
+ * <p>
+ * The index updates of a transaction are gathered from the stores when the transaction has been applied, for the nodes
+ * and relationships that the transaction changed. The transactions of a segment therefore change disjoint sets of nodes
+ * and relationships. A transaction that changes the schema is always a segment of its own, and is applied serially,
+ * since creating an index must see the stores as they were when the transaction was committed.
+ */
+class TransactionSegment
+{
+    private final CommandsToApply first;
+    private final MutableLongSet nodes = new LongHashSet();
+    private final MutableLongSet relationships = new LongHashSet();
+    private CommandsToApply end;
+    private int recordChanges;
+    private boolean independent = true;
+
+    private TransactionSegment( CommandsToApply first )
+    {
+        this.first = first;
+    }
+
+    /**
+     * Collects the longest segment that starts with the given transaction.
+     *
+     * @param first the first transaction of the segment.
+     * @return the segment, of at least the given transaction.
+     */
+    static TransactionSegment startingAt( CommandsToApply first ) throws IOException
+    {
+        TransactionSegment segment = new TransactionSegment( first );
+        Changes changes = Changes.of( first );
+        segment.add( changes );
+        segment.independent = changes.independent;
+        segment.end = first.next();
+        while ( segment.independent && segment.end != null )
+        {
+            changes = Changes.of( segment.end );
+            if ( !changes.independent || !segment.isDisjointFrom( changes ) )
+            {
+                break;
+            }
+            segment.add( changes );
+            segment.end = segment.end.next();
+        }
+        return segment;
+    }
+
+    CommandsToApply first()
+    {
+        return first;
+    }
+
+    /**
+     * @return the transaction after the last transaction of this segment, or {@code null} if this segment ends the
+     * batch.
+     */
+    CommandsToApply end()
+    {
+        return end;
+    }
+
+    /**
+     * @return the number of node, relationship, relationship group and property commands of this segment.
+     */
+    int recordChanges()
+    {
+        return recordChanges;
+    }
+
+    /**
+     * @return {@code true} if the record changes of this segment can be applied before the rest of its commands.
+     */
+    boolean isIndependent()
+    {
+        return independent;
+    }
+
+    /**
+     * Acquires the write locks of all the nodes and relationships that this segment changes, that the store applier
+     * would otherwise acquire for each of the changes, on the calling thread.
+     */
+    void lock( LockService lockService, LockGroup locks )
+    {
+        nodes.forEach( node -> locks.add( lockService.acquireNodeLock( node, WRITE_LOCK ) ) );
+        relationships.forEach(
+                relationship -> locks.add( lockService.acquireRelationshipLock( relationship, WRITE_LOCK ) ) );
+    }
+
+    private boolean isDisjointFrom( Changes changes )
+    {
+        return !changes.nodes.anySatisfy( nodes::contains ) &&
+               !changes.relationships.anySatisfy( relationships::contains );
+    }
+
+    private void add( Changes changes )
+    {
+        nodes.addAll( changes.nodes );
+        relationships.addAll( changes.relationships );
+        recordChanges += changes.recordChanges;
+    }
+
+    private static class Changes
+    {
+        private final MutableLongSet nodes = new LongHashSet();
+        private final MutableLongSet relationships = new LongHashSet();
+        private int recordChanges;
+        private boolean independent = true;
+
+        static Changes of( CommandsToApply transaction ) throws IOException
+        {
+            Changes changes = new Changes();
+            transaction.accept( element ->
+            {
+                Command command = (Command) element;
+                if ( command instanceof NodeCommand )
+                {
+                    changes.nodes.add( command.getKey() );
+                }
+                else if ( command instanceof RelationshipCommand )
+                {
+                    changes.relationships.add( command.getKey() );
+                }
+                else if ( command instanceof PropertyCommand )
+                {
+                    PropertyCommand propertyCommand = (PropertyCommand) command;
+                    if ( propertyCommand.getNodeId() != -1 )
+                    {
+                        changes.nodes.add( propertyCommand.getNodeId() );
+                    }
+                    else if ( propertyCommand.getRelId() != -1 )
+                    {
+                        changes.relationships.add( propertyCommand.getRelId() );
+                    }
+                }
+                else if ( command instanceof SchemaRuleCommand )
+                {
+                    changes.independent = false;
+                }
+                if ( RecordChangePartitioner.isRecordChange( command ) )
+                {
+                    changes.recordChanges++;
+                }
+                return false;
+            } );
+            return changes;
+        }
+    }
+}
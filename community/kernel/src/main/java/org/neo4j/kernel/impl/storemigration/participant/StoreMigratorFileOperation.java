@@ -49,6 +49,9 @@ class StoreMigratorFileOperation
         {
             File[] files = Stream.concat( fromLayout.file( databaseStore ), ofOptional( fromLayout.idFile( databaseStore ) ) ).toArray( File[]::new );
             perform( operation, fs, fromLayout, toLayout, allowSkipNonExistentFiles, existingTargetStrategy, files );
+            // The page table only exists if the store is compressed, but then the store cannot be read without it.
+            File[] pageTableFiles = ofOptional( fromLayout.pageTableFile( databaseStore ) ).toArray( File[]::new );
+            perform( operation, fs, fromLayout, toLayout, true, existingTargetStrategy, pageTableFiles );
         }
     }
 
@@ -53,12 +53,27 @@ import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
  */
 public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapter
 {
+    public interface Monitor
+    {
+        Monitor NULL = nanos ->
+        {
+        };
+
+        /**
+         * The label scan store and schema index updates of some transactions have been applied.
+         *
+         * @param nanos the time it took to apply the updates.
+         */
+        void indexUpdatesApplied( long nanos );
+    }
+
     private final IndexingService indexingService;
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync;
     private final WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync;
     private final SingleTransactionApplier transactionApplier;
     private final IndexActivator indexActivator;
     private final PropertyPhysicalToLogicalConverter indexUpdateConverter;
+    private final Monitor monitor;
 
     private List<NodeLabelUpdate> labelUpdates;
     private IndexUpdates indexUpdates;
@@ -66,7 +81,7 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
 
     public IndexBatchTransactionApplier( IndexingService indexingService, WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync,
             WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync, NodeStore nodeStore, RelationshipStore relationshipStore,
-            PropertyPhysicalToLogicalConverter indexUpdateConverter, IndexActivator indexActivator )
+            PropertyPhysicalToLogicalConverter indexUpdateConverter, IndexActivator indexActivator, Monitor monitor )
     {
         this.indexingService = indexingService;
         this.labelScanStoreSync = labelScanStoreSync;
@@ -74,6 +89,7 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
         this.indexUpdateConverter = indexUpdateConverter;
         this.transactionApplier = new SingleTransactionApplier( nodeStore, relationshipStore );
         this.indexActivator = indexActivator;
+        this.monitor = monitor;
     }
 
     @Override
@@ -85,6 +101,11 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
 
     private void applyPendingLabelAndIndexUpdates() throws IOException
     {
+        if ( labelUpdates == null && (indexUpdates == null || !indexUpdates.hasUpdates()) )
+        {
+            return;
+        }
+        long startNanos = System.nanoTime();
         AsyncApply labelUpdatesApply = null;
         if ( labelUpdates != null )
         {
@@ -117,6 +138,7 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
                 throw new IOException( "Failed to flush label updates", e );
             }
         }
+        monitor.indexUpdatesApplied( System.nanoTime() - startNanos );
     }
 
     @Override
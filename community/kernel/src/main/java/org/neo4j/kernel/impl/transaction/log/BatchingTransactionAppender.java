@@ -23,6 +23,8 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
@@ -33,6 +35,7 @@ import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
@@ -49,10 +52,19 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
 
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
- * log file in batches for higher throughput in a concurrent scenario.
+ * log file in batches for higher throughput in a concurrent scenario. The thread that gets to force the log may wait
+ * for a short, adaptive {@link GroupCommitWindow window} for more committers to join the batch before forcing.
+ * <p>
+ * When durability is relaxed, committers don't force the log at all. The log is then instead forced by
+ * {@link #makeDurable()}, which is called periodically by the {@link LogForceScheduler}, and before anything that
+ * depends on the appended transactions is written to the store files. Committed transactions can then be lost in a
+ * crash, but only the ones after the {@link #getDurableTransactionId() durable transaction}, and the database will
+ * still recover to a consistent state.
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    private static final long GROUP_COMMIT_WINDOW_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 10 );
+
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
     // log. For the explicit indexes there are no such locks, and hence no such ordering. This queue below
@@ -60,13 +72,23 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final IdOrderingQueue explicitIndexTransactionOrdering;
 
     private final AtomicReference<ThreadLink> threadLinkHead = new AtomicReference<>( ThreadLink.END );
+    // The number of ThreadLinks that are waiting in the stack above, for deciding when a group commit window can end.
+    private final AtomicInteger waitingCommitters = new AtomicInteger();
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogFile logFile;
+    private final TransactionLogIndex logIndex;
     private final LogRotation logRotation;
     private final TransactionIdStore transactionIdStore;
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final GroupCommitWindow groupCommitWindow;
+    private final boolean compressCommands;
+    private final boolean relaxedDurability;
+    // Only changes under the logFile monitor, but is read without it.
+    private volatile long lastAppendedTransactionId;
+    // Only ever moves forward, since the log can also be forced under the logFile monitor, without the forceLock.
+    private final AtomicLong durableTransactionId = new AtomicLong();
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
@@ -76,7 +98,24 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth )
     {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, GroupCommitWindow.DISABLED, false, false );
+    }
+
+    /**
+     * @param relaxedDurability whether or not to let committers return without forcing the log, leaving that to
+     * {@link #makeDurable()}.
+     */
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            GroupCommitWindow groupCommitWindow, boolean compressCommands, boolean relaxedDurability )
+    {
+        this.groupCommitWindow = groupCommitWindow;
+        this.compressCommands = compressCommands;
+        this.relaxedDurability = relaxedDurability;
         this.logFile = logFiles.getLogFile();
+        this.logIndex = logFiles.getLogIndex();
         this.logRotation = logRotation;
         this.transactionIdStore = transactionIdStore;
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
@@ -89,11 +128,39 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     {
         this.writer = logFile.getWriter();
         this.indexCommandDetector = new IndexCommandDetector();
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer, compressCommands ) );
+        // Everything in the log at this point has been recovered from it, and is thus durable
+        this.lastAppendedTransactionId = transactionIdStore.getLastCommittedTransactionId();
+        this.durableTransactionId.set( lastAppendedTransactionId );
     }
 
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
+    {
+        long lastTransactionId = appendWithoutForce( batch, logAppendEvent );
+
+        // At this point we've appended all transactions in this batch, but we can't mark any of them
+        // as committed since they haven't been forced to disk yet. So here we force, or potentially
+        // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
+        // in this batch exist durably on disk. Unless durability is relaxed, in which case they are forced later.
+        forceAndRotateLogIfNeeded( logAppendEvent );
+
+        // Mark all transactions as committed
+        publishAsCommitted( batch );
+
+        return lastTransactionId;
+    }
+
+    /**
+     * Appends the given batch of transactions to the log, without forcing the log. The transactions are not durable,
+     * and must not be {@link #publishAsCommitted(TransactionToApply) published as committed}, until
+     * {@link #forceAndRotateLogIfNeeded(LogAppendEvent)} has been called after this call.
+     *
+     * @param batch the transactions to append.
+     * @param logAppendEvent a trace event for the given log append operation.
+     * @return the transaction id of the last transaction in the batch.
+     */
+    public long appendWithoutForce( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
     {
         // Assigned base tx id just to make compiler happy
         long lastTransactionId = TransactionIdStore.BASE_TX_ID;
@@ -122,25 +189,32 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     tx = tx.next();
                     lastTransactionId = transactionId;
                 }
+                lastAppendedTransactionId = lastTransactionId;
             }
         }
+        return lastTransactionId;
+    }
 
-        // At this point we've appended all transactions in this batch, but we can't mark any of them
-        // as committed since they haven't been forced to disk yet. So here we force, or potentially
-        // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
-        // in this batch exist durably on disk.
-        if ( forceAfterAppend( logAppendEvent ) )
+    /**
+     * Forces everything that has been appended to the log so far, and rotates the log if it has grown big enough.
+     * The force is skipped when durability is relaxed.
+     *
+     * @param logAppendEvent a trace event for the log append operation that is waiting for the force.
+     */
+    public void forceAndRotateLogIfNeeded( LogAppendEvent logAppendEvent ) throws IOException
+    {
+        if ( relaxedDurability )
+        {
+            // Rotation forces the log file it rotates away from, so it doesn't need to wait for a force here
+            logAppendEvent.setLogRotated( logRotation.rotateLogIfNeeded( logAppendEvent ) );
+        }
+        else if ( forceAfterAppend( logAppendEvent ) )
         {
             // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committers
             // checks the need for log rotation.
             boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
             logAppendEvent.setLogRotated( logRotated );
         }
-
-        // Mark all transactions as committed
-        publishAsCommitted( batch );
-
-        return lastTransactionId;
     }
 
     private void matchAgainstExpectedTransactionIdIfAny( long transactionId, TransactionToApply tx )
@@ -160,7 +234,11 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
-    private void publishAsCommitted( TransactionToApply batch )
+    /**
+     * Marks the given batch of transactions as committed, which they are once they have been appended and forced,
+     * or only appended when durability is relaxed.
+     */
+    public void publishAsCommitted( TransactionToApply batch )
     {
         while ( batch != null )
         {
@@ -172,11 +250,13 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     @Override
     public void checkPoint( LogPosition logPosition, LogCheckPointEvent logCheckPointEvent ) throws IOException
     {
+        LogPosition checkPointEntryPosition;
         try
         {
             // Synchronized with logFile to get absolute control over concurrent rotations happening
             synchronized ( logFile )
             {
+                checkPointEntryPosition = writer.getCurrentPosition( positionMarker ).newPosition();
                 transactionLogWriter.checkPoint( logPosition );
             }
         }
@@ -187,6 +267,33 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
 
         forceAfterAppend( logCheckPointEvent );
+        // Only index the check point once it is durable, since the index may be read before the log is recovered
+        logIndex.checkPointAppended( checkPointEntryPosition, logPosition );
+    }
+
+    @Override
+    public void makeDurable() throws IOException
+    {
+        if ( durableTransactionId.get() < lastAppendedTransactionId )
+        {
+            if ( Thread.holdsLock( logFile ) )
+            {
+                // This thread is rotating the log, and is writing pages to the store while doing so. Another thread
+                // may hold the forceLock and wait for the logFile monitor in force(), so waiting for the forceLock
+                // here could deadlock. Nothing can be appended while the monitor is held, so force it right here.
+                forceUnderLogFileMonitor();
+            }
+            else
+            {
+                forceAfterAppend( LogAppendEvent.NULL );
+            }
+        }
+    }
+
+    @Override
+    public long getDurableTransactionId()
+    {
+        return durableTransactionId.get();
     }
 
     /**
@@ -217,6 +324,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             transactionMetadataCache
                     .cacheTransactionMetadata( transactionId, logPositionBeforeCommit, transaction.getMasterId(),
                             transaction.getAuthorId(), transactionChecksum, transaction.getTimeCommitted() );
+            logIndex.transactionAppended( transactionId, logPositionBeforeCommit );
 
             transaction.accept( indexCommandDetector );
             boolean hasExplicitIndexChanges = indexCommandDetector.hasWrittenAnyExplicitIndexCommand();
@@ -247,6 +355,11 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // This is okay, however, because unparkAll() spins when it sees a null next pointer.
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
         threadLink.next = threadLinkHead.getAndSet( threadLink );
+        waitingCommitters.incrementAndGet();
+        if ( groupCommitWindow.isEnabled() )
+        {
+            groupCommitWindow.arrived( System.nanoTime() );
+        }
         boolean attemptedForce = false;
 
         try ( LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait() )
@@ -293,10 +406,16 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
+        awaitGroupCommitWindow();
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
+            int batchSize = countLinks( links );
+            waitingCommitters.addAndGet( -batchSize );
+            logForceEvent.setBatchSize( batchSize );
+            long startNanos = System.nanoTime();
             force();
+            groupCommitWindow.forced( System.nanoTime() - startNanos );
         }
         catch ( final Throwable panic )
         {
@@ -309,6 +428,46 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
+    /**
+     * Gives committers that are about to arrive a chance to be included in the coming force, if the
+     * {@link GroupCommitWindow} deems it worth waiting for them. The wait ends early when the expected number of
+     * committers are waiting.
+     */
+    private void awaitGroupCommitWindow()
+    {
+        long windowNanos = groupCommitWindow.windowNanos();
+        if ( windowNanos == 0 || waitingCommitters.get() == 0 )
+        {
+            return;
+        }
+        int targetBatchSize = groupCommitWindow.targetBatchSize( windowNanos );
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining = windowNanos;
+        while ( waitingCommitters.get() < targetBatchSize && remaining > 0 )
+        {
+            LockSupport.parkNanos( this, Math.min( remaining, GROUP_COMMIT_WINDOW_PARK_NANOS ) );
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static int countLinks( ThreadLink links )
+    {
+        int count = 0;
+        while ( links != ThreadLink.END )
+        {
+            count++;
+            ThreadLink tmp;
+            do
+            {
+                // Spin because of the race:y update when consing.
+                tmp = links.next;
+            }
+            while ( tmp == null );
+            links = tmp;
+        }
+        return count;
+    }
+
     private void unparkAll( ThreadLink links )
     {
         do
@@ -340,9 +499,11 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // on logFile because it would cause deadlocks. Synchronizing on writer assumes that appenders
         // also synchronize on writer.
         Flushable flushable;
+        long appendedTransactionId;
         synchronized ( logFile )
         {
             flushable = writer.prepareForFlush();
+            appendedTransactionId = lastAppendedTransactionId;
         }
         // Force the writer outside of the lock.
         // This allows other threads access to the buffer while the writer is being forced.
@@ -357,5 +518,20 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             // successful in emptying the buffer *UNDER THE LOCK* we know that the rotating thread included the changes
             // we emptied into the channel, and thus it is already flushed by that thread.
         }
+        durableTransactionId.accumulateAndGet( appendedTransactionId, Math::max );
+    }
+
+    private void forceUnderLogFileMonitor() throws IOException
+    {
+        try
+        {
+            writer.prepareForFlush().flush();
+        }
+        catch ( final Throwable panic )
+        {
+            databaseHealth.panic( panic );
+            throw panic;
+        }
+        durableTransactionId.accumulateAndGet( lastAppendedTransactionId, Math::max );
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how long the thread forcing the transaction log should wait for more committers to arrive, before it forces
+ * the log on behalf of all of them.
+ * <p>
+ * Waiting only pays off when other committers are likely to arrive before the wait would have cost more than the
+ * force that they would otherwise need for themselves. The window therefore learns two moving averages: the time
+ * between committers arriving, and the latency of forcing the log. The window is at most half the force latency, and
+ * never larger than the configured maximum. If committers arrive more rarely than that, the window is zero and the
+ * log is forced right away, like it would be without a window.
+ * <p>
+ * The averages are updated without synchronization. Lost updates under contention only make the averages adapt a
+ * little slower, which is fine for a heuristic.
+ */
+public class GroupCommitWindow
+{
+    public static final GroupCommitWindow DISABLED = new GroupCommitWindow( 0 );
+
+    // Exponentially weighted moving averages, where each new sample gets a weight of 1/2^AVERAGE_SHIFT.
+    private static final int AVERAGE_SHIFT = 3;
+
+    private final long maxWindowNanos;
+    // Idle periods are capped to this, such that the average recovers quickly when the load picks up again.
+    private final long maxInterArrivalNanos;
+    private final AtomicLong lastArrivalNanos = new AtomicLong();
+    private volatile long averageInterArrivalNanos;
+    private volatile long averageForceNanos;
+
+    public GroupCommitWindow( long maxWindow, TimeUnit unit )
+    {
+        this( unit.toNanos( maxWindow ) );
+    }
+
+    private GroupCommitWindow( long maxWindowNanos )
+    {
+        this.maxWindowNanos = maxWindowNanos;
+        this.maxInterArrivalNanos = 2 * maxWindowNanos;
+        this.averageInterArrivalNanos = maxInterArrivalNanos;
+    }
+
+    /**
+     * @return {@code true} if this window can ever be greater than zero.
+     */
+    public boolean isEnabled()
+    {
+        return maxWindowNanos > 0;
+    }
+
+    /**
+     * Called when a committer arrives wanting the log forced.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}.
+     */
+    public void arrived( long nowNanos )
+    {
+        long previous = lastArrivalNanos.getAndSet( nowNanos );
+        if ( previous != 0 )
+        {
+            long sample = Math.min( Math.max( nowNanos - previous, 0 ), maxInterArrivalNanos );
+            long average = averageInterArrivalNanos;
+            averageInterArrivalNanos = average + ((sample - average) >> AVERAGE_SHIFT);
+        }
+    }
+
+    /**
+     * Called after the log has been forced.
+     *
+     * @param forceNanos the time it took to force the log.
+     */
+    public void forced( long forceNanos )
+    {
+        long average = averageForceNanos;
+        averageForceNanos = average == 0 ? forceNanos : average + ((forceNanos - average) >> AVERAGE_SHIFT);
+    }
+
+    /**
+     * @return the number of nanoseconds to wait for more committers before forcing the log, or zero if the log
+     * should be forced right away.
+     */
+    public long windowNanos()
+    {
+        long window = Math.min( maxWindowNanos, averageForceNanos / 2 );
+        return window > 0 && averageInterArrivalNanos <= window ? window : 0;
+    }
+
+    /**
+     * @param windowNanos the window, as returned from {@link #windowNanos()}.
+     * @return the number of committers that are expected to have arrived by the end of the window, and after which
+     * there is no point in waiting any longer.
+     */
+    public int targetBatchSize( long windowNanos )
+    {
+        long interArrival = Math.max( averageInterArrivalNanos, 1 );
+        return (int) Math.min( 1 + windowNanos / interArrival, Integer.MAX_VALUE );
+    }
+
+    long averageInterArrivalNanos()
+    {
+        return averageInterArrivalNanos;
+    }
+
+    long averageForceNanos()
+    {
+        return averageForceNanos;
+    }
+}
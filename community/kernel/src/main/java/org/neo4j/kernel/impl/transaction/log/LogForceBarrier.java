@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the write-ahead logging rule when durability is relaxed, by letting the page cache make the transaction logs
+ * durable before it writes a page to a store file. Only transaction logs whose {@link TransactionAppender appenders}
+ * do not force the log on commit are registered here.
+ *
+ * @see LogForceScheduler
+ */
+public class LogForceBarrier
+{
+    private final List<TransactionAppender> appenders = new CopyOnWriteArrayList<>();
+
+    public void register( TransactionAppender appender )
+    {
+        appenders.add( appender );
+    }
+
+    public void unregister( TransactionAppender appender )
+    {
+        appenders.remove( appender );
+    }
+
+    /**
+     * Makes all the transactions that have been appended to the registered logs so far durable, so that the changes
+     * they made to the store can be written.
+     *
+     * @throws IOException if a log could not be forced.
+     */
+    public void awaitLogsDurable() throws IOException
+    {
+        for ( TransactionAppender appender : appenders )
+        {
+            appender.makeDurable();
+        }
+    }
+}
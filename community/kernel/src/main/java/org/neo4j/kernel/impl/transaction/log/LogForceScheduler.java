@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Forces the transaction log of an appender with relaxed durability at a regular interval, which bounds the
+ * transactions that can be lost in a crash. While started, it also registers the appender with the
+ * {@link LogForceBarrier}, so that the log is forced before any changes of the appended transactions are written to
+ * the store files.
+ */
+public class LogForceScheduler extends LifecycleAdapter
+{
+    private final TransactionAppender appender;
+    private final LogForceBarrier barrier;
+    private final JobScheduler scheduler;
+    private final long forceIntervalMillis;
+    private JobHandle handle;
+
+    public LogForceScheduler( TransactionAppender appender, LogForceBarrier barrier, JobScheduler scheduler,
+            long forceIntervalMillis )
+    {
+        this.appender = appender;
+        this.barrier = barrier;
+        this.scheduler = scheduler;
+        this.forceIntervalMillis = forceIntervalMillis;
+    }
+
+    @Override
+    public void start()
+    {
+        barrier.register( appender );
+        handle = scheduler.scheduleRecurring( Group.LOG_FORCE, this::force, forceIntervalMillis, MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws IOException
+    {
+        if ( handle != null )
+        {
+            handle.cancel( false );
+        }
+        try
+        {
+            appender.makeDurable();
+        }
+        finally
+        {
+            barrier.unregister( appender );
+        }
+    }
+
+    private void force()
+    {
+        try
+        {
+            appender.makeDurable();
+        }
+        catch ( IOException ignored )
+        {
+            // A failure to force the log has already panicked the database, which will fail the commits from now on
+        }
+    }
+}
@@ -103,10 +103,11 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
             logFiles.accept( headerVisitor );
 
-            // ask LogFile
+            // ask LogFile, from the closest indexed transaction before the one asked for, if there is one
             TransactionPositionLocator transactionPositionLocator =
                     new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+            logFile.accept( transactionPositionLocator,
+                    startPosition( headerVisitor.getLogPosition(), transactionIdToStartFrom ) );
             LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
@@ -120,6 +121,32 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
         }
     }
 
+    /**
+     * @return the indexed position of the last transaction before the given one, in the log file that starts at the
+     * given position, if there is a transaction at that position, or else the start of the log file.
+     */
+    private LogPosition startPosition( LogPosition logFileStart, long transactionId )
+    {
+        LogPosition indexedPosition =
+                logFiles.getLogIndex().transactionPosition( logFileStart.getLogVersion(), transactionId );
+        if ( indexedPosition == null || indexedPosition.compareTo( logFileStart ) <= 0 )
+        {
+            return logFileStart;
+        }
+        try ( ReadableLogChannel channel = logFile.getReader( indexedPosition, LogVersionBridge.NO_MORE_CHANNELS ) )
+        {
+            if ( logEntryReader.readLogEntry( channel ) instanceof LogEntryStart )
+            {
+                return indexedPosition;
+            }
+        }
+        catch ( Exception e )
+        {
+            // The index is stale, and the position is in the middle of some entry
+        }
+        return logFileStart;
+    }
+
     @Override
     public TransactionMetadata getMetadataFor( long transactionId ) throws IOException
     {
@@ -28,6 +28,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -96,6 +97,13 @@ public class PhysicalTransactionCursor<T extends ReadableClosablePositionAwareCh
                     break;
                 }
 
+                if ( entry instanceof LogEntryCompressedCommands )
+                {
+                    LogEntryCompressedCommands commands = entry.as();
+                    entries.addAll( commands.getCommands() );
+                    continue;
+                }
+
                 LogEntryCommand command = entry.as();
                 entries.add( command.getCommand() );
             }
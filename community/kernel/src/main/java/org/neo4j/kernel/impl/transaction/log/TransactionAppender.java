@@ -65,4 +65,19 @@ public interface TransactionAppender
      * how to handle exceptions in general thrown from this method.
      */
     void checkPoint( LogPosition logPosition, LogCheckPointEvent logCheckPointEvent ) throws IOException;
+
+    /**
+     * Forces the transactions that have been appended to the log so far, unless they have been forced already.
+     * Appended transactions are normally forced before {@link #append(TransactionToApply, LogAppendEvent)} returns,
+     * but when durability is relaxed this must be called before their changes are written anywhere else on disk.
+     *
+     * @throws IOException if there was a problem forcing the log.
+     */
+    void makeDurable() throws IOException;
+
+    /**
+     * @return the id of the last transaction that is known to have been forced to the log, and which will thus
+     * survive a crash.
+     */
+    long getDurableTransactionId();
 }
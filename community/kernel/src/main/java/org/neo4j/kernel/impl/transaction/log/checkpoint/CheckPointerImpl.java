@@ -23,6 +23,7 @@ import java.io.IOException;
 
 import org.neo4j.graphdb.Resource;
 import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
@@ -50,6 +51,8 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     private final Log msgLog;
     private final CheckPointTracer tracer;
     private final StoreCopyCheckPointMutex mutex;
+    private final PageCache pageCache;
+    private final boolean incremental;
 
     private long lastCheckPointedTx;
 
@@ -64,6 +67,30 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
             CheckPointTracer tracer,
             IOLimiter ioLimiter,
             StoreCopyCheckPointMutex mutex )
+    {
+        this( transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider, tracer,
+                ioLimiter, mutex, null, false );
+    }
+
+    /**
+     * @param pageCache the page cache holding the store files of the {@code storageEngine}.
+     * @param incremental whether or not to write out the dirty pages of the {@code pageCache} before deciding on
+     * the position a check point covers, such that the flush of the {@code storageEngine} that precedes writing the
+     * check point only has to write the pages that were modified in the meantime.
+     */
+    public CheckPointerImpl(
+            TransactionIdStore transactionIdStore,
+            CheckPointThreshold threshold,
+            StorageEngine storageEngine,
+            LogPruning logPruning,
+            TransactionAppender appender,
+            DatabaseHealth databaseHealth,
+            LogProvider logProvider,
+            CheckPointTracer tracer,
+            IOLimiter ioLimiter,
+            StoreCopyCheckPointMutex mutex,
+            PageCache pageCache,
+            boolean incremental )
     {
         this.appender = appender;
         this.transactionIdStore = transactionIdStore;
@@ -75,6 +102,8 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
         this.msgLog = logProvider.getLog( CheckPointerImpl.class );
         this.tracer = tracer;
         this.mutex = mutex;
+        this.pageCache = pageCache;
+        this.incremental = incremental && pageCache != null;
     }
 
     @Override
@@ -144,6 +173,20 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     {
         try ( LogCheckPointEvent event = tracer.beginCheckPoint() )
         {
+            long startTime = currentTimeMillis();
+            if ( incremental )
+            {
+                /*
+                 * Write out the bulk of the dirty pages while transactions keep committing. This doesn't make the
+                 * store any more consistent with a particular position in the log, which is why the position for
+                 * this check point is only decided afterwards. What it does is leave only the pages modified
+                 * during this pass for the flush below, which is what can make commits stall behind check point IO.
+                 * The files are not forced here, since the flush below forces them anyway.
+                 */
+                msgLog.info( triggerInfo.describe( transactionIdStore.getLastClosedTransactionId() ) +
+                             " incremental checkpoint flushing dirty pages..." );
+                pageCache.flushWithoutForce( ioLimiter );
+            }
             long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
             long lastClosedTransactionId = lastClosedTransaction[0];
             LogPosition logPosition = new LogPosition( lastClosedTransaction[1], lastClosedTransaction[2] );
@@ -159,7 +202,13 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
              * earlier check point and replay from there all the log entries. Everything will be ok.
              */
             msgLog.info( prefix + " checkpoint started..." );
-            long startTime = currentTimeMillis();
+            long flushStartTime = currentTimeMillis();
+            /*
+             * The transactions that are about to be flushed are only guaranteed to be in the durable part of the log
+             * when durability is relaxed, if we force the log first. The page cache does that by itself before it
+             * writes any pages, but not all of the store is written through the page cache, like explicit indexes.
+             */
+            appender.makeDurable();
             storageEngine.flushAndForce( ioLimiter );
             /*
              * Check kernel health before going to write the next check point.  In case of a panic this check point
@@ -169,7 +218,10 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
             databaseHealth.assertHealthy( IOException.class );
             appender.checkPoint( logPosition, event );
             threshold.checkPointHappened( lastClosedTransactionId );
-            msgLog.info( prefix + " checkpoint completed in " + duration( currentTimeMillis() - startTime ) );
+            long endTime = currentTimeMillis();
+            msgLog.info( prefix + " checkpoint completed in " + duration( endTime - startTime ) +
+                         (incremental ? ", of which " + duration( endTime - flushStartTime ) + " after the position " +
+                                        "of the checkpoint was decided" : "") );
             /*
              * Prune up to the version pointed from the latest check point,
              * since it might be an earlier version than the current log version.
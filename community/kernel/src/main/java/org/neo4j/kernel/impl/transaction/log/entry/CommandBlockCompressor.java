@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.io.ByteUnit;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.WritableChannel;
+import org.neo4j.unsafe.impl.batchimport.input.ByteBufferReadableChannel;
+
+import static java.lang.String.format;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMANDS;
+
+/**
+ * Collects the commands of a transaction, as the {@link LogEntryCommand command entries} they would otherwise have
+ * been written as, and writes them as a single deflate compressed {@link LogEntryByteCodes#COMPRESSED_COMMANDS}
+ * entry. Blocks that are too small to gain anything, or that don't compress, are written as the plain command
+ * entries instead. The {@link LogEntryVersion#V3_5} compressed entry is laid out as:
+ * <pre>
+ * version | type | uncompressed length (int) | compressed length (int) | compressed command entries
+ * </pre>
+ * Instances are not thread safe, and are meant to be used by a single {@link LogEntryWriter}.
+ */
+class CommandBlockCompressor implements Visitor<StorageCommand,IOException>
+{
+    static final int MIN_COMPRESSED_BLOCK_SIZE = 256;
+    private static final int INITIAL_BLOCK_SIZE = (int) ByteUnit.kibiBytes( 8 );
+    private static final int MAX_RETAINED_BLOCK_SIZE = (int) ByteUnit.mebiBytes( 1 );
+
+    private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+    private final BlockChannel block = new BlockChannel();
+    private final StorageCommandSerializer serializer = new StorageCommandSerializer( block );
+    private byte[] compressed = new byte[INITIAL_BLOCK_SIZE];
+
+    @Override
+    public boolean visit( StorageCommand command ) throws IOException
+    {
+        return serializer.visit( command );
+    }
+
+    /**
+     * Writes the commands visited since the last call to the {@code channel}, compressed if worthwhile.
+     */
+    void writeTo( WritableChannel channel ) throws IOException
+    {
+        try
+        {
+            int length = block.buffer.position();
+            byte[] entries = block.buffer.array();
+            int compressedLength = length < MIN_COMPRESSED_BLOCK_SIZE ? -1 : compress( entries, length );
+            if ( compressedLength < 0 )
+            {
+                channel.put( entries, length );
+            }
+            else
+            {
+                channel.put( LogEntryVersion.V3_5.byteCode() ).put( COMPRESSED_COMMANDS );
+                channel.putInt( length ).putInt( compressedLength ).put( compressed, compressedLength );
+            }
+        }
+        finally
+        {
+            block.clear();
+            if ( compressed.length > MAX_RETAINED_BLOCK_SIZE )
+            {
+                compressed = new byte[INITIAL_BLOCK_SIZE];
+            }
+        }
+    }
+
+    /**
+     * @return the compressed length, or {@code -1} if compressing doesn't make the entries smaller.
+     */
+    private int compress( byte[] entries, int length )
+    {
+        if ( compressed.length < length )
+        {
+            compressed = new byte[length];
+        }
+        deflater.reset();
+        deflater.setInput( entries, 0, length );
+        deflater.finish();
+        int compressedLength = deflater.deflate( compressed, 0, length );
+        return deflater.finished() && compressedLength < length ? compressedLength : -1;
+    }
+
+    /**
+     * Reads the body of a {@link LogEntryByteCodes#COMPRESSED_COMMANDS} entry, i.e. what follows its version and type.
+     */
+    static List<StorageCommand> readCommands( ReadableClosableChannel channel, LogPositionMarker marker,
+            CommandReaderFactory commandReaderFactory ) throws IOException
+    {
+        int length = channel.getInt();
+        int compressedLength = channel.getInt();
+        if ( length < 0 || compressedLength < 0 || compressedLength > length )
+        {
+            throw new IllegalArgumentException( format( "Invalid compressed command block of %d bytes, which " +
+                    "decompresses into %d bytes", compressedLength, length ) );
+        }
+        byte[] compressedEntries = new byte[compressedLength];
+        channel.get( compressedEntries, compressedLength );
+
+        byte[] entries = new byte[length];
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput( compressedEntries );
+            if ( inflater.inflate( entries ) != length || !inflater.finished() )
+            {
+                throw new IllegalArgumentException( format( "Compressed command block of %d bytes didn't " +
+                        "decompress into the expected %d bytes", compressedLength, length ) );
+            }
+        }
+        catch ( DataFormatException e )
+        {
+            throw new IOException( e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap( entries );
+        ReadableClosableChannel entriesChannel = new ByteBufferReadableChannel( buffer );
+        List<StorageCommand> commands = new ArrayList<>();
+        while ( buffer.hasRemaining() )
+        {
+            LogEntryVersion version = LogEntryVersion.byVersion( entriesChannel.get() );
+            LogEntry entry = version.entryParser( entriesChannel.get() )
+                    .parse( version, entriesChannel, marker, commandReaderFactory );
+            if ( !(entry instanceof LogEntryCommand) )
+            {
+                throw new IllegalArgumentException( "Compressed command block contains " + entry );
+            }
+            commands.add( ((LogEntryCommand) entry).getCommand() );
+        }
+        return commands;
+    }
+
+    private static class BlockChannel implements WritableChannel
+    {
+        private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_BLOCK_SIZE );
+
+        @Override
+        public WritableChannel put( byte value )
+        {
+            ensureRemaining( Byte.BYTES ).put( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putShort( short value )
+        {
+            ensureRemaining( Short.BYTES ).putShort( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putInt( int value )
+        {
+            ensureRemaining( Integer.BYTES ).putInt( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putLong( long value )
+        {
+            ensureRemaining( Long.BYTES ).putLong( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putFloat( float value )
+        {
+            ensureRemaining( Float.BYTES ).putFloat( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putDouble( double value )
+        {
+            ensureRemaining( Double.BYTES ).putDouble( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel put( byte[] value, int length )
+        {
+            ensureRemaining( length ).put( value, 0, length );
+            return this;
+        }
+
+        private ByteBuffer ensureRemaining( int bytes )
+        {
+            if ( buffer.remaining() < bytes )
+            {
+                ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+                buffer.flip();
+                grown.put( buffer );
+                buffer = grown;
+            }
+            return buffer;
+        }
+
+        void clear()
+        {
+            // Don't hold on to the memory of an unusually large transaction
+            buffer = buffer.capacity() > MAX_RETAINED_BLOCK_SIZE ? ByteBuffer.allocate( INITIAL_BLOCK_SIZE ) : buffer;
+            buffer.clear();
+        }
+    }
+}
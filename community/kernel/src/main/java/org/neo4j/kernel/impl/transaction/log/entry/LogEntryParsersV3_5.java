@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+
+/**
+ * The entries of {@link LogEntryParsersV2_3}, plus {@link LogEntryByteCodes#COMPRESSED_COMMANDS}.
+ */
+public enum LogEntryParsersV3_5 implements LogEntryParser<LogEntry>
+{
+    TX_START( LogEntryParsersV2_3.TX_START ),
+    COMMAND( LogEntryParsersV2_3.COMMAND ),
+    TX_COMMIT( LogEntryParsersV2_3.TX_COMMIT ),
+    CHECK_POINT( LogEntryParsersV2_3.CHECK_POINT ),
+    COMPRESSED_COMMANDS( null )
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    return new LogEntryCompressedCommands( version,
+                            CommandBlockCompressor.readCommands( channel, marker, commandReader ) );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMANDS;
+                }
+            };
+
+    private final LogEntryParser<LogEntry> parser;
+
+    LogEntryParsersV3_5( LogEntryParser<LogEntry> parser )
+    {
+        this.parser = parser;
+    }
+
+    @Override
+    public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                           CommandReaderFactory commandReader ) throws IOException
+    {
+        return parser.parse( version, channel, marker, commandReader );
+    }
+
+    @Override
+    public byte byteCode()
+    {
+        return parser.byteCode();
+    }
+
+    @Override
+    public boolean skip()
+    {
+        return false;
+    }
+}
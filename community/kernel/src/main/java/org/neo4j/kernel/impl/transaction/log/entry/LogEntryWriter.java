@@ -38,15 +38,28 @@ public class LogEntryWriter
 {
     protected final WritableChannel channel;
     private final Visitor<StorageCommand,IOException> serializer;
+    private final CommandBlockCompressor compressor;
 
     /**
      * Create a writer that uses {@link LogEntryVersion#CURRENT} for versioning.
      * @param channel underlying channel
      */
     public LogEntryWriter( WritableChannel channel )
+    {
+        this( channel, false );
+    }
+
+    /**
+     * Create a writer that uses {@link LogEntryVersion#CURRENT} for versioning, except for compressed commands.
+     * @param channel underlying channel
+     * @param compressCommands whether or not to write the commands of a transaction as a single compressed
+     * {@link LogEntryVersion#V3_5} entry, when that makes them smaller.
+     */
+    public LogEntryWriter( WritableChannel channel, boolean compressCommands )
     {
         this.channel = channel;
         this.serializer = new StorageCommandSerializer( channel );
+        this.compressor = compressCommands ? new CommandBlockCompressor() : null;
     }
 
     protected static void writeLogEntryHeader( byte type, WritableChannel channel ) throws IOException
@@ -81,7 +94,15 @@ public class LogEntryWriter
 
     public void serialize( TransactionRepresentation tx ) throws IOException
     {
-        tx.accept( serializer );
+        if ( compressor != null )
+        {
+            tx.accept( compressor );
+            compressor.writeTo( channel );
+        }
+        else
+        {
+            tx.accept( serializer );
+        }
     }
 
     public void serialize( CommittedTransactionRepresentation tx ) throws IOException
@@ -93,9 +114,14 @@ public class LogEntryWriter
 
     public void serialize( Collection<StorageCommand> commands ) throws IOException
     {
+        Visitor<StorageCommand,IOException> visitor = compressor != null ? compressor : serializer;
         for ( StorageCommand command : commands )
         {
-            serializer.visit( command );
+            visitor.visit( command );
+        }
+        if ( compressor != null )
+        {
+            compressor.writeTo( channel );
         }
     }
 
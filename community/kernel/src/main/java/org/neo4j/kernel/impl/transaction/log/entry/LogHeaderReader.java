@@ -56,8 +56,8 @@ public class LogHeaderReader
      * @param buffer {@link ByteBuffer} to read into. Passed in to allow control over allocation.
      * @param channel {@link ReadableByteChannel} to read from, typically a channel over a file containing the data.
      * @param strict if {@code true} then will fail with {@link IncompleteLogHeaderException} on incomplete
-     * header, i.e. if there's not enough data in the channel to even read the header. If {@code false} then
-     * the return value will instead be {@code null}.
+     * header, i.e. if there's not enough data in the channel to even read the header, or if the header is zeroed.
+     * If {@code false} then the return value will instead be {@code null}.
      * @param fileForAdditionalErrorInformationOrNull when in {@code strict} mode the exception can be
      * amended with information about which file the channel represents, if any. Purely for better forensics
      * ability.
@@ -72,6 +72,12 @@ public class LogHeaderReader
         buffer.limit( LOG_HEADER_SIZE );
 
         int read = channel.read( buffer );
+        // No log format version is zero, so a header of zeros has not been written yet. That is the case for a
+        // preallocated or recycled log file, which is treated as if the header could not be read at all.
+        if ( read == LOG_HEADER_SIZE && decodeLogFormatVersion( buffer.getLong( 0 ) ) == 0 )
+        {
+            read = 0;
+        }
         if ( read != LOG_HEADER_SIZE )
         {
             if ( strict )
@@ -43,6 +43,8 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.byVers
  */
 public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionAwareChannel> implements LogEntryReader<SOURCE>
 {
+    private static final int ZEROED_TAIL_PROBE_BYTES = 64;
+
     private final CommandReaderFactory commandReaderFactory;
     private final InvalidLogEntryHandler invalidLogEntryHandler;
 
@@ -70,6 +72,13 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
                 channel.getCurrentPosition( positionMarker );
 
                 byte versionCode = channel.get();
+                if ( versionCode == 0 && channelSupportsPositioning( channel ) &&
+                        isZeroedTail( channel, positionMarker.getByteOffset() ) )
+                {
+                    // This is the zeroed, not yet written, part of a preallocated log file.
+                    // The log ends where the entry would have started.
+                    return null;
+                }
                 byte typeCode = channel.get();
 
                 LogEntryVersion version = null;
@@ -127,6 +136,34 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
         }
     }
 
+    /**
+     * No log entry version is zero, but a single zero byte can just as well be part of a corrupted entry.
+     * Only a run of zeros, or zeros up to the end of the channel, is taken as the unwritten tail of a
+     * preallocated log file. The channel is left positioned at {@code entryStart} if so, or right after the
+     * zero version byte otherwise.
+     */
+    private boolean isZeroedTail( SOURCE channel, long entryStart ) throws IOException
+    {
+        PositionableChannel positionable = (PositionableChannel) channel;
+        try
+        {
+            for ( int i = 1; i < ZEROED_TAIL_PROBE_BYTES; i++ )
+            {
+                if ( channel.get() != 0 )
+                {
+                    positionable.setCurrentPosition( entryStart + 1 );
+                    return false;
+                }
+            }
+        }
+        catch ( ReadPastEndException e )
+        {
+            // Zeros all the way to the end
+        }
+        positionable.setCurrentPosition( entryStart );
+        return true;
+    }
+
     private boolean channelSupportsPositioning( SOURCE channel )
     {
         return channel instanceof PositionableChannel;
@@ -59,8 +59,22 @@ public interface LogFiles extends Lifecycle
 
     boolean hasAnyEntries( long version );
 
+    /**
+     * Removes the log file of the given version, which must no longer be needed, along with its index. If log files are
+     * preallocated, the file may instead be zeroed and kept, to be reused for a future log version.
+     *
+     * @param version the version of the log file to remove.
+     */
+    void deleteOrRecycleLogFile( long version );
+
     void accept( LogVersionVisitor visitor );
 
+    /**
+     * @return the index of the positions of transactions and check points in the log files, which is
+     * {@link TransactionLogIndex#NO_INDEX} unless log files are indexed.
+     */
+    TransactionLogIndex getLogIndex();
+
     void accept( LogHeaderVisitor visitor ) throws IOException;
 
     LogFile getLogFile();
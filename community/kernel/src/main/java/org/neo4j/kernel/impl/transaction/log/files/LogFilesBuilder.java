@@ -38,6 +38,7 @@ import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.util.Dependencies;
+import org.neo4j.scheduler.JobScheduler;
 
 import static java.util.Objects.requireNonNull;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.database_path;
@@ -63,9 +64,12 @@ public class LogFilesBuilder
     private File logsDirectory;
     private Config config;
     private Long rotationThreshold;
+    private Boolean preallocateLogFiles;
+    private Boolean indexLogFiles;
     private LogEntryReader logEntryReader;
     private LogFileCreationMonitor logFileCreationMonitor;
     private Dependencies dependencies;
+    private JobScheduler jobScheduler;
     private FileSystemAbstraction fileSystem;
     private LogVersionRepository logVersionRepository;
     private TransactionIdStore transactionIdStore;
@@ -171,6 +175,28 @@ public class LogFilesBuilder
         return this;
     }
 
+    public LogFilesBuilder withPreallocation( boolean preallocateLogFiles )
+    {
+        this.preallocateLogFiles = preallocateLogFiles;
+        return this;
+    }
+
+    public LogFilesBuilder withLogIndex( boolean indexLogFiles )
+    {
+        this.indexLogFiles = indexLogFiles;
+        return this;
+    }
+
+    /**
+     * The scheduler is used to preallocate the next log file in the background, when log files are preallocated.
+     * Without it, only recycled log files are preallocated.
+     */
+    public LogFilesBuilder withJobScheduler( JobScheduler jobScheduler )
+    {
+        this.jobScheduler = jobScheduler;
+        return this;
+    }
+
     public LogFilesBuilder withDependencies( Dependencies dependencies )
     {
         this.dependencies = dependencies;
@@ -239,7 +265,34 @@ public class LogFilesBuilder
         AtomicLong rotationThreshold = getRotationThresholdAndRegisterForUpdates();
 
         return new TransactionLogFilesContext( rotationThreshold, logEntryReader,
-                lastCommittedIdSupplier, committingTransactionIdSupplier, logFileCreationMonitor, logVersionRepositorySupplier, fileSystem );
+                lastCommittedIdSupplier, committingTransactionIdSupplier, logFileCreationMonitor, logVersionRepositorySupplier, fileSystem,
+                isPreallocateLogFiles(), isIndexLogFiles(), jobScheduler );
+    }
+
+    private boolean isPreallocateLogFiles()
+    {
+        if ( preallocateLogFiles != null )
+        {
+            return preallocateLogFiles;
+        }
+        if ( readOnly || config == null )
+        {
+            return false;
+        }
+        return config.get( GraphDatabaseSettings.preallocate_logical_logs );
+    }
+
+    private boolean isIndexLogFiles()
+    {
+        if ( indexLogFiles != null )
+        {
+            return indexLogFiles;
+        }
+        if ( readOnly || config == null )
+        {
+            return false;
+        }
+        return config.get( GraphDatabaseSettings.index_logical_logs );
     }
 
     private AtomicLong getRotationThresholdAndRegisterForUpdates()
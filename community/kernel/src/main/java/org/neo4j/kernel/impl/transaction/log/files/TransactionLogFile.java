@@ -21,12 +21,14 @@ package org.neo4j.kernel.impl.transaction.log.files;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
@@ -35,8 +37,11 @@ import org.neo4j.kernel.impl.transaction.log.PositionAwarePhysicalFlushableChann
 import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReaderLogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
 /**
  * {@link LogFile} backed by one or more files in a {@link FileSystemAbstraction}.
  */
@@ -77,10 +82,55 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = logFiles.createLogChannelForVersion( lastLogVersionUsed, OpenMode.READ_WRITE, context::getLastCommittedTransactionId );
         // Move to the end
-        channel.position( channel.size() );
+        channel.position( endOfEntries( channel ) );
         writer = new PositionAwarePhysicalFlushableChannel( channel );
     }
 
+    /**
+     * The entries of a log file normally end where the file ends, but a preallocated log file is followed by zeros.
+     * Such a file is read up to the first zero where an entry would have started, or up to the first entry that
+     * cannot be read. Corrupted entries are dealt with by recovery, which may be configured to tolerate them, so
+     * they must not fail the start of the log file.
+     */
+    private long endOfEntries( PhysicalLogVersionedStoreChannel channel ) throws IOException
+    {
+        long size = channel.size();
+        if ( size <= LOG_HEADER_SIZE )
+        {
+            return size;
+        }
+        ByteBuffer lastByte = ByteBuffer.allocate( 1 );
+        channel.position( size - 1 );
+        if ( channel.read( lastByte ) != 1 || lastByte.get( 0 ) != 0 )
+        {
+            return size;
+        }
+        LogEntryReader<ReadableLogChannel> logEntryReader = context.getLogEntryReader();
+        LogPositionMarker positionMarker = new LogPositionMarker();
+        try ( ReadableLogChannel reader = getReader( new LogPosition( channel.getVersion(), LOG_HEADER_SIZE ),
+                LogVersionBridge.NO_MORE_CHANNELS ) )
+        {
+            do
+            {
+                reader.getCurrentPosition( positionMarker );
+            }
+            while ( readLogEntry( logEntryReader, reader ) );
+        }
+        return positionMarker.getByteOffset();
+    }
+
+    private static boolean readLogEntry( LogEntryReader<ReadableLogChannel> logEntryReader, ReadableLogChannel reader )
+    {
+        try
+        {
+            return logEntryReader.readLogEntry( reader ) != null;
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            return false;
+        }
+    }
+
     // In order to be able to write into a logfile after life.stop during shutdown sequence
     // we will close channel and writer only during shutdown phase when all pending changes (like last
     // checkpoint) are already in
@@ -170,6 +220,17 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
          * transaction complete in the log we're rotating away. Awesome.
          */
         writer.prepareForFlush().flush();
+        /*
+         * A preallocated log file may not have been filled up, if it was rotated early. Its zeroed tail is cut off,
+         * and that is made durable before the next log file is created, since readers would otherwise stop at the
+         * zeros instead of continuing into the next log file.
+         */
+        if ( currentLog.size() > currentLog.position() )
+        {
+            currentLog.truncate( currentLog.position() );
+            currentLog.force( false );
+        }
+        logFiles.getLogIndex().rotated( currentLog.getVersion() );
         /*
          * The log version is now in the store, flushed and persistent. If we crash
          * now, on recovery we'll attempt to open the version we're about to create
@@ -24,8 +24,14 @@ import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.LongSupplier;
 
+import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
@@ -34,6 +40,9 @@ import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -52,6 +61,9 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     public static final String DEFAULT_NAME = "neostore.transaction.db";
     public static final FilenameFilter DEFAULT_FILENAME_FILTER = TransactionLogFilesHelper.DEFAULT_FILENAME_FILTER;
     private static final File[] EMPTY_FILES_ARRAY = {};
+    // The number of preallocated or pruned log files that are kept around for reuse, when log files are preallocated.
+    private static final int MAX_SPARE_LOG_FILES = 2;
+    private static final int ZEROS_BUFFER_SIZE = (int) ByteUnit.mebiBytes( 1 );
 
     private final TransactionLogFilesContext logFilesContext;
     private final TransactionLogFileInformation logFileInformation;
@@ -61,7 +73,13 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     private final LogFileCreationMonitor monitor;
     private final TransactionLogFilesHelper fileHelper;
     private final TransactionLogFile logFile;
+    private final TransactionLogIndex logIndex;
     private final File logsDirectory;
+    // Guards the choice of spare log file names, and the renaming of files to and from them
+    private final Object sparesLock = new Object();
+    private final AtomicBoolean preallocating = new AtomicBoolean();
+    private volatile JobHandle preallocationJob;
+    private volatile boolean stopped;
 
     TransactionLogFiles( File logsDirectory, String name, TransactionLogFilesContext context )
     {
@@ -72,6 +90,8 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         this.monitor = context.getLogFileCreationMonitor();
         this.logHeaderCache = new LogHeaderCache( 1000 );
         this.logFileInformation = new TransactionLogFileInformation( this, logHeaderCache, context );
+        this.logIndex = context.isIndexLogFiles() ? new TransactionLogIndex( fileSystem, fileHelper )
+                                                  : TransactionLogIndex.NO_INDEX;
         this.logFile = new TransactionLogFile( this, context );
     }
 
@@ -84,12 +104,16 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     @Override
     public void start() throws IOException
     {
+        stopped = false;
         logFile.start();
+        preallocateSpareLogFileInBackground();
     }
 
     @Override
     public void shutdown() throws IOException
     {
+        stopped = true;
+        awaitPreallocation();
         logFile.shutdown();
     }
 
@@ -155,7 +179,44 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     @Override
     public boolean hasAnyEntries( long version )
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        File logFile = getLogFileForVersion( version );
+        if ( fileSystem.getFileSize( logFile ) <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+        // A preallocated log file is bigger than its entries, which are followed by zeros
+        try ( StoreChannel channel = fileSystem.open( logFile, OpenMode.READ ) )
+        {
+            ByteBuffer firstByte = ByteBuffer.allocate( 1 );
+            return channel.read( firstByte, LOG_HEADER_SIZE ) == 1 && firstByte.get( 0 ) != 0;
+        }
+        catch ( IOException e )
+        {
+            // The file exists and is bigger than the header, so assume that it has entries, like we always used to
+            return true;
+        }
+    }
+
+    @Override
+    public void deleteOrRecycleLogFile( long version )
+    {
+        logIndex.delete( version );
+        File logFile = getLogFileForVersion( version );
+        if ( logFilesContext.isPreallocateLogFiles() )
+        {
+            try
+            {
+                if ( recycle( logFile ) )
+                {
+                    return;
+                }
+            }
+            catch ( IOException e )
+            {
+                // Recycling is only an optimization, so fall back to deleting the file below
+            }
+        }
+        fileSystem.deleteFile( logFile );
     }
 
     @Override
@@ -246,7 +307,20 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
             LongSupplier lastTransactionIdSupplier ) throws IOException
     {
         File toOpen = getLogFileForVersion( forVersion );
+        boolean preallocate = logFilesContext.isPreallocateLogFiles() && !fileSystem.fileExists( toOpen );
+        if ( preallocate )
+        {
+            // A spare log file is already allocated, and zeroed such that none of its old entries can be mistaken
+            // for entries of the new version. Its header is zeroed too, so it is written below like for a new file.
+            // This may run on a committing thread that rotates the log, so when there is no spare, the new log file
+            // is not preallocated here, but grows as it is written, like when log files are not preallocated.
+            takeSpareLogFile( toOpen );
+        }
         StoreChannel storeChannel = fileSystem.open( toOpen, mode );
+        if ( preallocate )
+        {
+            preallocateSpareLogFileInBackground();
+        }
         ByteBuffer headerBuffer = ByteBuffer.allocate( LOG_HEADER_SIZE );
         LogHeader header = readLogHeader( headerBuffer, storeChannel, false, toOpen );
         if ( header == null )
@@ -255,6 +329,7 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
             long lastTxId = lastTransactionIdSupplier.getAsLong();
             writeLogHeader( headerBuffer, forVersion, lastTxId );
             logHeaderCache.putHeader( forVersion, lastTxId );
+            storeChannel.position( 0 );
             storeChannel.writeAll( headerBuffer );
             monitor.created( toOpen, forVersion, lastTxId );
         }
@@ -296,6 +371,12 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         }
     }
 
+    @Override
+    public TransactionLogIndex getLogIndex()
+    {
+        return logIndex;
+    }
+
     @Override
     public LogFile getLogFile()
     {
@@ -313,6 +394,184 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         return fileSystem.open( file, mode );
     }
 
+    /**
+     * Keeps the given, pruned, log file as a spare for a future log version, unless there are enough spares already.
+     * The file is zeroed under a temporary name first, such that a spare never contains any old entries, even after
+     * a crash in the middle of recycling.
+     */
+    private boolean recycle( File logFile ) throws IOException
+    {
+        if ( freeSpareLogFile() == null )
+        {
+            return false;
+        }
+        File recycling = fileHelper.getRecyclingLogFile();
+        fileSystem.renameFile( logFile, recycling, StandardCopyOption.REPLACE_EXISTING );
+        try ( StoreChannel channel = fileSystem.open( recycling, OpenMode.READ_WRITE ) )
+        {
+            writeZeros( channel, 0, channel.size(), () -> false );
+        }
+        makeSpare( recycling );
+        return true;
+    }
+
+    /**
+     * Schedules the preallocation of a spare log file, for a future log version, unless it is already scheduled.
+     * Preallocation writes as many zeros as the rotation threshold, which is why it happens in the background rather
+     * than when the log is rotated.
+     */
+    private void preallocateSpareLogFileInBackground()
+    {
+        JobScheduler jobScheduler = logFilesContext.getJobScheduler();
+        if ( !logFilesContext.isPreallocateLogFiles() || jobScheduler == null || stopped ||
+             !preallocating.compareAndSet( false, true ) )
+        {
+            return;
+        }
+        preallocationJob = jobScheduler.schedule( Group.LOG_PREALLOCATION, () ->
+        {
+            try
+            {
+                preallocateSpareLogFile();
+            }
+            catch ( IOException e )
+            {
+                // Preallocation is only an optimization, so the next log file will grow as it is written instead
+            }
+            finally
+            {
+                preallocating.set( false );
+            }
+        } );
+    }
+
+    /**
+     * Zeroes a new file up to the rotation threshold, under a temporary name, and then keeps it as a spare, unless
+     * there is a spare already. A file that is left over from an earlier preallocation only contains zeros, so it is
+     * simply extended.
+     */
+    private void preallocateSpareLogFile() throws IOException
+    {
+        if ( hasSpareLogFile() )
+        {
+            return;
+        }
+        File preallocating = fileHelper.getPreallocatingLogFile();
+        try ( StoreChannel channel = fileSystem.open( preallocating, OpenMode.READ_WRITE ) )
+        {
+            long size = logFilesContext.getRotationThreshold().get();
+            if ( !writeZeros( channel, channel.size(), size, () -> stopped ) )
+            {
+                return;
+            }
+        }
+        makeSpare( preallocating );
+    }
+
+    private void awaitPreallocation()
+    {
+        JobHandle job = preallocationJob;
+        if ( job != null )
+        {
+            try
+            {
+                job.waitTermination();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch ( ExecutionException | CancellationException e )
+            {
+                // The preallocation has ended either way
+            }
+        }
+    }
+
+    private boolean hasSpareLogFile()
+    {
+        for ( int i = 0; i < MAX_SPARE_LOG_FILES; i++ )
+        {
+            if ( fileSystem.fileExists( fileHelper.getRecycledLogFile( i ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private File freeSpareLogFile()
+    {
+        for ( int i = 0; i < MAX_SPARE_LOG_FILES; i++ )
+        {
+            File candidate = fileHelper.getRecycledLogFile( i );
+            if ( !fileSystem.fileExists( candidate ) )
+            {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void makeSpare( File zeroedFile ) throws IOException
+    {
+        synchronized ( sparesLock )
+        {
+            File spare = freeSpareLogFile();
+            if ( spare == null )
+            {
+                fileSystem.deleteFile( zeroedFile );
+            }
+            else
+            {
+                fileSystem.renameFile( zeroedFile, spare );
+            }
+        }
+    }
+
+    private void takeSpareLogFile( File logFile ) throws IOException
+    {
+        synchronized ( sparesLock )
+        {
+            for ( int i = 0; i < MAX_SPARE_LOG_FILES; i++ )
+            {
+                File spare = fileHelper.getRecycledLogFile( i );
+                if ( fileSystem.fileExists( spare ) )
+                {
+                    fileSystem.renameFile( spare, logFile );
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes zeros to the given channel from the given position up to the given size, and forces the channel, such
+     * that the file system has allocated all of the zeroed range when this method returns.
+     *
+     * @return {@code false} if writing was halted before all of the range was zeroed, in which case the channel is
+     * not forced.
+     */
+    private static boolean writeZeros( StoreChannel channel, long from, long to, BooleanSupplier halted )
+            throws IOException
+    {
+        ByteBuffer zeros = ByteBuffer.allocate( ZEROS_BUFFER_SIZE );
+        long position = from;
+        while ( position < to )
+        {
+            if ( halted.getAsBoolean() )
+            {
+                return false;
+            }
+            zeros.clear();
+            zeros.limit( (int) Math.min( zeros.capacity(), to - position ) );
+            channel.writeAll( zeros, position );
+            position += zeros.limit();
+        }
+        channel.force( true );
+        return true;
+    }
+
     private static class RangeLogVersionVisitor implements LogVersionVisitor
     {
         private long lowest = -1;
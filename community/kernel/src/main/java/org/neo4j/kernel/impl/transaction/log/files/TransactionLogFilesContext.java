@@ -26,6 +26,7 @@ import java.util.function.Supplier;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+import org.neo4j.scheduler.JobScheduler;
 
 class TransactionLogFilesContext
 {
@@ -36,11 +37,15 @@ class TransactionLogFilesContext
     private final Supplier<LogVersionRepository> logVersionRepositorySupplier;
     private final LogFileCreationMonitor logFileCreationMonitor;
     private final FileSystemAbstraction fileSystem;
+    private final boolean preallocateLogFiles;
+    private final boolean indexLogFiles;
+    private final JobScheduler jobScheduler;
 
     TransactionLogFilesContext( AtomicLong rotationThreshold, LogEntryReader logEntryReader,
             LongSupplier lastCommittedTransactionIdSupplier, LongSupplier committingTransactionIdSupplier,
             LogFileCreationMonitor logFileCreationMonitor, Supplier<LogVersionRepository> logVersionRepositorySupplier,
-            FileSystemAbstraction fileSystem )
+            FileSystemAbstraction fileSystem, boolean preallocateLogFiles, boolean indexLogFiles,
+            JobScheduler jobScheduler )
     {
         this.rotationThreshold = rotationThreshold;
         this.logEntryReader = logEntryReader;
@@ -49,6 +54,9 @@ class TransactionLogFilesContext
         this.logVersionRepositorySupplier = logVersionRepositorySupplier;
         this.logFileCreationMonitor = logFileCreationMonitor;
         this.fileSystem = fileSystem;
+        this.preallocateLogFiles = preallocateLogFiles;
+        this.indexLogFiles = indexLogFiles;
+        this.jobScheduler = jobScheduler;
     }
 
     AtomicLong getRotationThreshold()
@@ -85,4 +93,22 @@ class TransactionLogFilesContext
     {
         return fileSystem;
     }
+
+    boolean isPreallocateLogFiles()
+    {
+        return preallocateLogFiles;
+    }
+
+    boolean isIndexLogFiles()
+    {
+        return indexLogFiles;
+    }
+
+    /**
+     * @return the scheduler for background work on the log files, or {@code null} if there is none.
+     */
+    JobScheduler getJobScheduler()
+    {
+        return jobScheduler;
+    }
 }
@@ -30,6 +30,13 @@ class TransactionLogFilesHelper
     private static final String REGEX_DEFAULT_NAME = "neostore\\.transaction\\.db";
     private static final String VERSION_SUFFIX = ".";
     private static final String REGEX_VERSION_SUFFIX = "\\.";
+    // Recycled log files must not match the log file name filter, so they are prefixed rather than suffixed
+    private static final String RECYCLED_PREFIX = "recycled-";
+    private static final String RECYCLING_PREFIX = "recycling-";
+    private static final String PREALLOCATING_PREFIX = "preallocating-";
+    // Log index files are prefixed for the same reason
+    private static final String INDEX_PREFIX = "index-";
+    private static final String TEMPORARY_INDEX_PREFIX = "index-tmp-";
 
     static final FilenameFilter DEFAULT_FILENAME_FILTER = new LogicalLogFilenameFilter( REGEX_DEFAULT_NAME );
 
@@ -47,6 +54,31 @@ class TransactionLogFilesHelper
         return new File( logBaseName.getPath() + VERSION_SUFFIX + version );
     }
 
+    File getRecycledLogFile( int index )
+    {
+        return new File( logBaseName.getParentFile(), RECYCLED_PREFIX + logBaseName.getName() + VERSION_SUFFIX + index );
+    }
+
+    File getRecyclingLogFile()
+    {
+        return new File( logBaseName.getParentFile(), RECYCLING_PREFIX + logBaseName.getName() );
+    }
+
+    File getPreallocatingLogFile()
+    {
+        return new File( logBaseName.getParentFile(), PREALLOCATING_PREFIX + logBaseName.getName() );
+    }
+
+    File getLogIndexFileForVersion( long version )
+    {
+        return new File( logBaseName.getParentFile(), INDEX_PREFIX + logBaseName.getName() + VERSION_SUFFIX + version );
+    }
+
+    File getTemporaryLogIndexFile()
+    {
+        return new File( logBaseName.getParentFile(), TEMPORARY_INDEX_PREFIX + logBaseName.getName() );
+    }
+
     long getLogVersion( String historyLogFilename )
     {
         int index = historyLogFilename.lastIndexOf( VERSION_SUFFIX );
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.StandardCopyOption;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+
+/**
+ * Maps some of the transactions of each transaction log file, and the last check point in it, to their byte offsets,
+ * such that a transaction, or the tail of the log, can be found without scanning the log file from its start.
+ * <p>
+ * The index of each log version is kept in a small sidecar file next to the log file. The index of the log version
+ * that is being appended to is kept in memory, and is written to its sidecar file when a check point is appended to
+ * the log, and when the log is rotated. Sidecar files are replaced atomically, so a sidecar file only points to
+ * entries that were in the log file when it was written. The sidecar files of log files that are truncated or pruned
+ * are deleted. Readers still verify the entries that they find at the indexed positions, and scan the log file from
+ * its start when they don't match, since the index is only an optimization.
+ */
+public class TransactionLogIndex
+{
+    /**
+     * An index that neither writes nor finds anything.
+     */
+    public static final TransactionLogIndex NO_INDEX = new TransactionLogIndex( null, null );
+
+    /** The minimum number of log bytes between two indexed transactions. */
+    static final long INDEX_INTERVAL_BYTES = ByteUnit.mebiBytes( 1 );
+    private static final long NO_CHECK_POINT = -1;
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int TRANSACTION_SIZE = Long.BYTES * 2;
+    private static final int CHECK_POINT_SIZE = Long.BYTES * 3;
+
+    private final FileSystemAbstraction fileSystem;
+    private final TransactionLogFilesHelper fileHelper;
+    private Entries current;
+
+    TransactionLogIndex( FileSystemAbstraction fileSystem, TransactionLogFilesHelper fileHelper )
+    {
+        this.fileSystem = fileSystem;
+        this.fileHelper = fileHelper;
+    }
+
+    /**
+     * Called for every transaction that is appended to the log, in transaction id order.
+     *
+     * @param transactionId the id of the appended transaction.
+     * @param startPosition the position of the start entry of the transaction.
+     */
+    public synchronized void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        if ( isDisabled() )
+        {
+            return;
+        }
+        Entries entries = current( startPosition.getLogVersion() );
+        long offset = startPosition.getByteOffset();
+        if ( entries.transactionIds.isEmpty() ||
+             offset - entries.offsets.getLast() >= INDEX_INTERVAL_BYTES )
+        {
+            entries.transactionIds.add( transactionId );
+            entries.offsets.add( offset );
+        }
+    }
+
+    /**
+     * Called when a check point has been appended to the log and forced, which writes the index of the current log
+     * version to its sidecar file.
+     *
+     * @param entryPosition the position of the check point entry.
+     * @param checkPointedPosition the log position that the check point entry points to.
+     */
+    public synchronized void checkPointAppended( LogPosition entryPosition, LogPosition checkPointedPosition )
+    {
+        if ( isDisabled() )
+        {
+            return;
+        }
+        Entries entries = current( entryPosition.getLogVersion() );
+        entries.checkPointEntryOffset = entryPosition.getByteOffset();
+        entries.checkPointedVersion = checkPointedPosition.getLogVersion();
+        entries.checkPointedOffset = checkPointedPosition.getByteOffset();
+        write( entries );
+    }
+
+    /**
+     * Called when the log has been rotated away from the given version, which writes the index of that version to
+     * its sidecar file.
+     *
+     * @param version the version of the log file that is complete.
+     */
+    public synchronized void rotated( long version )
+    {
+        if ( isDisabled() )
+        {
+            return;
+        }
+        if ( current != null && current.version == version )
+        {
+            write( current );
+            current = null;
+        }
+    }
+
+    /**
+     * Deletes the index of the given log version, whose log file is being removed or truncated.
+     *
+     * @param version the version of the log file.
+     */
+    public synchronized void delete( long version )
+    {
+        if ( isDisabled() )
+        {
+            return;
+        }
+        if ( current != null && current.version == version )
+        {
+            current = null;
+        }
+        fileSystem.deleteFile( fileHelper.getLogIndexFileForVersion( version ) );
+    }
+
+    /**
+     * @param version the log version that is known to contain the transaction.
+     * @param transactionId the id of the transaction to find.
+     * @return the position of the start entry of the last indexed transaction of the given log version that is not
+     * after the given transaction, or {@code null} if there is none.
+     */
+    public synchronized LogPosition transactionPosition( long version, long transactionId )
+    {
+        Entries entries = isDisabled() ? null : entries( version );
+        if ( entries == null )
+        {
+            return null;
+        }
+        LogPosition position = null;
+        for ( int i = 0; i < entries.transactionIds.size() && entries.transactionIds.get( i ) <= transactionId; i++ )
+        {
+            position = new LogPosition( version, entries.offsets.get( i ) );
+        }
+        return position;
+    }
+
+    /**
+     * @param version the log version to find the last check point of.
+     * @return the last indexed check point of the given log version, or {@code null} if there is none.
+     */
+    public synchronized IndexedCheckPoint lastCheckPoint( long version )
+    {
+        Entries entries = isDisabled() ? null : entries( version );
+        if ( entries == null || entries.checkPointEntryOffset == NO_CHECK_POINT )
+        {
+            return null;
+        }
+        return new IndexedCheckPoint( new LogPosition( version, entries.checkPointEntryOffset ),
+                new LogPosition( entries.checkPointedVersion, entries.checkPointedOffset ) );
+    }
+
+    private boolean isDisabled()
+    {
+        return fileSystem == null;
+    }
+
+    private Entries current( long version )
+    {
+        if ( current == null || current.version != version )
+        {
+            if ( current != null )
+            {
+                // Appends have moved on to a later version without a rotation, which is not expected, but the index of
+                // the previous version is complete all the same.
+                write( current );
+            }
+            // Continue the index of the version, if appending to a log file that was indexed before a restart.
+            Entries existing = read( version );
+            current = existing != null ? existing : new Entries( version );
+        }
+        return current;
+    }
+
+    private Entries entries( long version )
+    {
+        return current != null && current.version == version ? current : read( version );
+    }
+
+    private void write( Entries entries )
+    {
+        int transactions = entries.transactionIds.size();
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + transactions * TRANSACTION_SIZE + CHECK_POINT_SIZE );
+        buffer.putLong( entries.version );
+        buffer.putInt( transactions );
+        for ( int i = 0; i < transactions; i++ )
+        {
+            buffer.putLong( entries.transactionIds.get( i ) );
+            buffer.putLong( entries.offsets.get( i ) );
+        }
+        buffer.putLong( entries.checkPointEntryOffset );
+        buffer.putLong( entries.checkPointedVersion );
+        buffer.putLong( entries.checkPointedOffset );
+        buffer.flip();
+
+        File file = fileHelper.getLogIndexFileForVersion( entries.version );
+        File temporaryFile = fileHelper.getTemporaryLogIndexFile();
+        try
+        {
+            try ( StoreChannel channel = fileSystem.open( temporaryFile, OpenMode.READ_WRITE ) )
+            {
+                channel.truncate( 0 );
+                channel.writeAll( buffer );
+                channel.force( false );
+            }
+            fileSystem.renameFile( temporaryFile, file, StandardCopyOption.REPLACE_EXISTING );
+        }
+        catch ( IOException e )
+        {
+            // The previous sidecar file, if any, is left as it was, and still points to entries in the log file.
+        }
+    }
+
+    private Entries read( long version )
+    {
+        File file = fileHelper.getLogIndexFileForVersion( version );
+        if ( !fileSystem.fileExists( file ) )
+        {
+            return null;
+        }
+        try ( StoreChannel channel = fileSystem.open( file, OpenMode.READ ) )
+        {
+            long size = channel.size();
+            if ( size < HEADER_SIZE + CHECK_POINT_SIZE || size > Integer.MAX_VALUE )
+            {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate( (int) size );
+            while ( buffer.hasRemaining() && channel.read( buffer ) >= 0 )
+            {
+                // Read the whole file
+            }
+            buffer.flip();
+            if ( buffer.remaining() != size || buffer.getLong() != version )
+            {
+                return null;
+            }
+            int transactions = buffer.getInt();
+            if ( transactions < 0 || size != HEADER_SIZE + (long) transactions * TRANSACTION_SIZE + CHECK_POINT_SIZE )
+            {
+                return null;
+            }
+            Entries entries = new Entries( version );
+            for ( int i = 0; i < transactions; i++ )
+            {
+                entries.transactionIds.add( buffer.getLong() );
+                entries.offsets.add( buffer.getLong() );
+            }
+            entries.checkPointEntryOffset = buffer.getLong();
+            entries.checkPointedVersion = buffer.getLong();
+            entries.checkPointedOffset = buffer.getLong();
+            return entries;
+        }
+        catch ( IOException e )
+        {
+            // Without the index, the log file is scanned from its start instead.
+            return null;
+        }
+    }
+
+    /**
+     * The position of a check point entry in the log, and the position that the check point points to.
+     */
+    public static class IndexedCheckPoint
+    {
+        public final LogPosition entryPosition;
+        public final LogPosition checkPointedPosition;
+
+        IndexedCheckPoint( LogPosition entryPosition, LogPosition checkPointedPosition )
+        {
+            this.entryPosition = entryPosition;
+            this.checkPointedPosition = checkPointedPosition;
+        }
+    }
+
+    private static class Entries
+    {
+        private final long version;
+        private final LongArrayList transactionIds = new LongArrayList();
+        private final LongArrayList offsets = new LongArrayList();
+        private long checkPointEntryOffset = NO_CHECK_POINT;
+        private long checkPointedVersion = NO_CHECK_POINT;
+        private long checkPointedOffset = NO_CHECK_POINT;
+
+        Entries( long version )
+        {
+            this.version = version;
+        }
+    }
+}
@@ -19,7 +19,6 @@
  */
 package org.neo4j.kernel.impl.transaction.log.pruning;
 
-import java.io.File;
 import java.time.Clock;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -68,15 +67,13 @@ public class LogPruningImpl implements LogPruning
     {
         private static final int NO_VERSION = -1;
         private final LogFiles logFiles;
-        private final FileSystemAbstraction fs;
         private final long upToVersion;
         private long fromVersion;
         private long toVersion;
 
-        private CountingDeleter( LogFiles logFiles, FileSystemAbstraction fs, long upToVersion )
+        private CountingDeleter( LogFiles logFiles, long upToVersion )
         {
             this.logFiles = logFiles;
-            this.fs = fs;
             this.upToVersion = upToVersion;
             fromVersion = NO_VERSION;
             toVersion = NO_VERSION;
@@ -87,8 +84,7 @@ public class LogPruningImpl implements LogPruning
         {
             fromVersion = fromVersion == NO_VERSION ? version : Math.min( fromVersion, version );
             toVersion = toVersion == NO_VERSION ? version : Math.max( toVersion, version );
-            File logFile = logFiles.getLogFileForVersion( version );
-            fs.deleteFile( logFile );
+            logFiles.deleteOrRecycleLogFile( version );
         }
 
         public String describeResult()
@@ -120,7 +116,7 @@ public class LogPruningImpl implements LogPruning
         {
             try
             {
-                CountingDeleter deleter = new CountingDeleter( logFiles, fs, upToVersion );
+                CountingDeleter deleter = new CountingDeleter( logFiles, upToVersion );
                 pruneStrategy.findLogVersionsToDelete( upToVersion ).forEachOrdered( deleter );
                 msgLog.info( deleter.describeResult() );
             }
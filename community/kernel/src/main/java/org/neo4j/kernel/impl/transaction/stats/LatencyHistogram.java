@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies in nanoseconds, with log-linear buckets in the style of an HDR histogram: values
+ * below {@code 2^SUB_BUCKET_BITS} get a bucket of their own, and every higher power of two range is split into
+ * {@code 2^SUB_BUCKET_BITS} equally wide buckets. Percentiles are thereby reported with a relative error of at most
+ * {@code 2^-SUB_BUCKET_BITS}, or about 3%, for any latency, in a fixed amount of memory.
+ * <p>
+ * Recording a value is a couple of atomic increments, so a histogram can be updated by every committing thread.
+ */
+public class LatencyHistogram
+{
+    static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS);
+
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record( long nanos )
+    {
+        long value = Math.max( nanos, 0 );
+        buckets.incrementAndGet( bucket( value ) );
+        count.increment();
+        totalNanos.add( value );
+    }
+
+    public long count()
+    {
+        return count.sum();
+    }
+
+    public long meanNanos()
+    {
+        long count = this.count.sum();
+        return count == 0 ? 0 : totalNanos.sum() / count;
+    }
+
+    /**
+     * @return the highest recorded latency, up to the precision of its bucket, or zero if nothing has been recorded.
+     */
+    public long maxNanos()
+    {
+        for ( int i = BUCKETS - 1; i >= 0; i-- )
+        {
+            if ( buckets.get( i ) > 0 )
+            {
+                return highestValueOf( i );
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency that the given percentage of recorded latencies are at or below, up to the precision of its
+     * bucket, or zero if nothing has been recorded.
+     */
+    public long percentileNanos( double percentile )
+    {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts[i] = buckets.get( i );
+            total += counts[i];
+        }
+        if ( total == 0 )
+        {
+            return 0;
+        }
+        long rank = Math.max( 1, (long) Math.ceil( total * Math.min( Math.max( percentile, 0 ), 100 ) / 100 ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts[i];
+            if ( seen >= rank )
+            {
+                return highestValueOf( i );
+            }
+        }
+        return highestValueOf( BUCKETS - 1 );
+    }
+
+    public long percentile( double percentile, TimeUnit unit )
+    {
+        return unit.convert( percentileNanos( percentile ), TimeUnit.NANOSECONDS );
+    }
+
+    static int bucket( long value )
+    {
+        if ( value < SUB_BUCKETS )
+        {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf( int bucket )
+    {
+        if ( bucket < SUB_BUCKETS )
+        {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -31,6 +31,18 @@ public interface CommitEvent extends AutoCloseable
         {
         }
 
+        @Override
+        public LockAcquisitionEvent beginLockAcquisition()
+        {
+            return LockAcquisitionEvent.NULL;
+        }
+
+        @Override
+        public CommandExtractionEvent beginCommandExtraction()
+        {
+            return CommandExtractionEvent.NULL;
+        }
+
         @Override
         public LogAppendEvent beginLogAppend()
         {
@@ -42,6 +54,12 @@ public interface CommitEvent extends AutoCloseable
         {
             return StoreApplyEvent.NULL;
         }
+
+        @Override
+        public PublishEvent beginPublish()
+        {
+            return PublishEvent.NULL;
+        }
     };
 
     /**
@@ -50,6 +68,16 @@ public interface CommitEvent extends AutoCloseable
     @Override
     void close();
 
+    /**
+     * Begin taking the locks of the committing transaction that were deferred until commit.
+     */
+    LockAcquisitionEvent beginLockAcquisition();
+
+    /**
+     * Begin turning the state of the committing transaction into commands.
+     */
+    CommandExtractionEvent beginCommandExtraction();
+
     /**
      * Begin appending commands for the committing transaction, to the transaction log.
      */
@@ -59,4 +87,9 @@ public interface CommitEvent extends AutoCloseable
      * Begin applying the commands of the committed transaction to the stores.
      */
     StoreApplyEvent beginStoreApply();
+
+    /**
+     * Begin marking the committed transaction as closed, once it has been applied.
+     */
+    PublishEvent beginPublish();
 }
@@ -26,10 +26,24 @@ package org.neo4j.kernel.impl.transaction.tracing;
  */
 public interface LogForceEvent extends AutoCloseable
 {
-    LogForceEvent NULL = () ->
+    LogForceEvent NULL = new LogForceEvent()
     {
+        @Override
+        public void setBatchSize( int batchSize )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
     };
 
+    /**
+     * Set the number of committers, including the one performing the force, that will be released by this force.
+     */
+    void setBatchSize( int batchSize );
+
     /**
      * Marks the end of the force call on the transaction log file.
      */
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+import org.neo4j.util.VisibleForTesting;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.neo4j.helpers.Numbers.log2floor;
+import static org.neo4j.util.Preconditions.requirePositive;
+import static org.neo4j.util.Preconditions.requirePowerOfTwo;
+
+/**
+ * Block allocator that allocates blocks from the decorated allocator while they fit in a given amount of memory,
+ * like {@link CapacityLimitingBlockAllocatorDecorator}, but carves the blocks that don't fit out of segments that are
+ * mapped from temporary files in a spill directory, instead of failing to allocate them.
+ * <p>
+ * The operating system writes the spilled blocks back to their segment files when it needs the memory, and reads them
+ * in again when they are accessed, so huge transaction states slow down rather than exhaust the memory. Each segment
+ * is one mapping of one file, so the number of mappings grows with the amount of spilled memory, not with the number
+ * of spilled blocks. Spilled blocks are rounded up to a power of two, and freed blocks are reused for blocks of the
+ * same size in the same segment. Blocks larger than a segment get a segment of their own.
+ * <p>
+ * A segment is dropped once none of its blocks are in use anymore, except for the segment that new blocks are being
+ * carved from. Its file is deleted as soon as it is mapped, where the platform allows it, and its mapping is left to
+ * be released when it is garbage collected.
+ * <p>
+ * This class is thread safe.
+ */
+public class SpillingBlockAllocatorDecorator implements OffHeapBlockAllocator
+{
+    static final long DEFAULT_SEGMENT_SIZE = ByteUnit.mebiBytes( 64 );
+
+    private final OffHeapBlockAllocator impl;
+    private final long maxMemory;
+    private final File spillDirectory;
+    private final long segmentSize;
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final AtomicLong spilledMemory = new AtomicLong();
+
+    // access to these is guarded by the monitor of this allocator
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment currentSegment;
+
+    public SpillingBlockAllocatorDecorator( OffHeapBlockAllocator impl, long maxMemory, File spillDirectory )
+    {
+        this( impl, maxMemory, spillDirectory, DEFAULT_SEGMENT_SIZE );
+    }
+
+    /**
+     * @param segmentSize the size of the files that spilled blocks are carved out of, a power of two that fits in a
+     * single mapping.
+     */
+    public SpillingBlockAllocatorDecorator( OffHeapBlockAllocator impl, long maxMemory, File spillDirectory,
+            long segmentSize )
+    {
+        this.impl = requireNonNull( impl );
+        this.maxMemory = requirePositive( maxMemory );
+        this.spillDirectory = requireNonNull( spillDirectory );
+        this.segmentSize = requirePowerOfTwo( segmentSize );
+        if ( segmentSize > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "Segment size exceeds the size of a mapping: " + segmentSize );
+        }
+    }
+
+    @Override
+    public MemoryBlock allocate( long size, MemoryAllocationTracker tracker )
+    {
+        while ( true )
+        {
+            final long usedMemoryBefore = usedMemory.get();
+            final long usedMemoryAfter = usedMemoryBefore + size;
+            if ( usedMemoryAfter > maxMemory )
+            {
+                return spill( size, tracker );
+            }
+            if ( usedMemory.compareAndSet( usedMemoryBefore, usedMemoryAfter ) )
+            {
+                break;
+            }
+        }
+        try
+        {
+            return impl.allocate( size, tracker );
+        }
+        catch ( Throwable t )
+        {
+            usedMemory.addAndGet( -size );
+            throw t;
+        }
+    }
+
+    @Override
+    public void free( MemoryBlock block, MemoryAllocationTracker tracker )
+    {
+        if ( block instanceof SpilledMemoryBlock )
+        {
+            if ( freeSpilled( (SpilledMemoryBlock) block ) )
+            {
+                tracker.deallocated( block.unalignedSize );
+            }
+            return;
+        }
+        try
+        {
+            impl.free( block, tracker );
+        }
+        finally
+        {
+            usedMemory.addAndGet( -block.size );
+        }
+    }
+
+    @Override
+    public void release()
+    {
+        try
+        {
+            impl.release();
+        }
+        finally
+        {
+            usedMemory.set( 0 );
+            synchronized ( this )
+            {
+                segments.forEach( segment -> segment.dropped = true );
+                segments.clear();
+                currentSegment = null;
+                spilledMemory.set( 0 );
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes of the blocks that are currently carved out of segments.
+     */
+    public long spilledMemory()
+    {
+        return spilledMemory.get();
+    }
+
+    @VisibleForTesting
+    synchronized int segments()
+    {
+        return segments.size();
+    }
+
+    private MemoryBlock spill( long size, MemoryAllocationTracker tracker )
+    {
+        final long slotSize = slotSize( requirePositive( size ) );
+        if ( size > Integer.MAX_VALUE || slotSize > Integer.MAX_VALUE )
+        {
+            throw new RuntimeException( format( "Can't spill a block of %d bytes, since it exceeds the size of a " +
+                    "mapping; used=%d, max=%d", size, usedMemory.get(), maxMemory ) );
+        }
+        final SpilledMemoryBlock block = allocateSpilled( size, slotSize );
+        spilledMemory.addAndGet( slotSize );
+        tracker.allocated( slotSize );
+        return block;
+    }
+
+    /**
+     * @return the given size, rounded up to a power of two, and at least the size of a long, which keeps the blocks
+     * of a segment aligned.
+     */
+    private static long slotSize( long size )
+    {
+        final long slotSize = Long.highestOneBit( Math.max( size, Long.BYTES ) );
+        return slotSize < size ? slotSize << 1 : slotSize;
+    }
+
+    private synchronized SpilledMemoryBlock allocateSpilled( long size, long slotSize )
+    {
+        if ( slotSize > segmentSize )
+        {
+            final Segment segment = newSegment( slotSize );
+            return segment.allocate( size, slotSize );
+        }
+        for ( Segment segment : segments )
+        {
+            final SpilledMemoryBlock block = segment.reuse( size, slotSize );
+            if ( block != null )
+            {
+                return block;
+            }
+        }
+        if ( currentSegment == null || !currentSegment.fits( slotSize ) )
+        {
+            // The full segment stays around for as long as any of its blocks are in use
+            currentSegment = newSegment( segmentSize );
+        }
+        return currentSegment.allocate( size, slotSize );
+    }
+
+    /**
+     * @return {@code true} if the block was freed, or {@code false} if its segment has already been released.
+     */
+    private synchronized boolean freeSpilled( SpilledMemoryBlock block )
+    {
+        final Segment segment = block.segment;
+        if ( segment.dropped )
+        {
+            return false;
+        }
+        segment.free( block );
+        spilledMemory.addAndGet( -block.unalignedSize );
+        if ( segment.liveBlocks == 0 && segment != currentSegment )
+        {
+            drop( segment );
+        }
+        return true;
+    }
+
+    private void drop( Segment segment )
+    {
+        segment.dropped = true;
+        segments.remove( segment );
+    }
+
+    private Segment newSegment( long size )
+    {
+        try
+        {
+            spillDirectory.mkdirs();
+            final File file = File.createTempFile( "tx-state-", ".spill", spillDirectory );
+            final MappedByteBuffer buffer;
+            try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" );
+                  FileChannel channel = randomAccessFile.getChannel() )
+            {
+                buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, size );
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                file.delete();
+                throw e;
+            }
+            // The mapping outlives the file on platforms that allow deleting mapped files, and the others can only
+            // delete it once the mapping has been garbage collected
+            if ( !file.delete() )
+            {
+                file.deleteOnExit();
+            }
+            final Segment segment = new Segment( buffer, size );
+            segments.add( segment );
+            return segment;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException(
+                    format( "Can't spill a segment of %d bytes to %s", size, spillDirectory ), e );
+        }
+    }
+
+    /**
+     * A file mapping that spilled blocks are carved out of. Guarded by the monitor of the allocator.
+     */
+    private static class Segment
+    {
+        // Referenced to keep the mapping alive for as long as the segment is in use
+        private final MappedByteBuffer buffer;
+        private final long address;
+        private final long size;
+        // The offsets of the freed blocks, indexed by the log2 of their size
+        private final MutableLongList[] freeSlots = new MutableLongList[Long.SIZE];
+        private long top;
+        private int liveBlocks;
+        private boolean dropped;
+
+        Segment( MappedByteBuffer buffer, long size )
+        {
+            this.buffer = buffer;
+            this.address = UnsafeUtil.getDirectByteBufferAddress( buffer );
+            this.size = size;
+        }
+
+        boolean fits( long slotSize )
+        {
+            return top + slotSize <= size;
+        }
+
+        SpilledMemoryBlock allocate( long size, long slotSize )
+        {
+            final SpilledMemoryBlock block = new SpilledMemoryBlock( this, address + top, size, slotSize );
+            top += slotSize;
+            liveBlocks++;
+            return block;
+        }
+
+        SpilledMemoryBlock reuse( long size, long slotSize )
+        {
+            final MutableLongList slots = freeSlots[log2floor( slotSize )];
+            if ( slots == null || slots.isEmpty() )
+            {
+                return null;
+            }
+            final long offset = slots.removeAtIndex( slots.size() - 1 );
+            liveBlocks++;
+            return new SpilledMemoryBlock( this, address + offset, size, slotSize );
+        }
+
+        void free( SpilledMemoryBlock block )
+        {
+            liveBlocks--;
+            if ( liveBlocks == 0 )
+            {
+                // Start over rather than keep track of the free slots of an empty segment
+                top = 0;
+                for ( int i = 0; i < freeSlots.length; i++ )
+                {
+                    freeSlots[i] = null;
+                }
+                return;
+            }
+            final int sizeClass = log2floor( block.unalignedSize );
+            if ( freeSlots[sizeClass] == null )
+            {
+                freeSlots[sizeClass] = new LongArrayList();
+            }
+            freeSlots[sizeClass].add( block.addr - address );
+        }
+    }
+
+    private static class SpilledMemoryBlock extends MemoryBlock
+    {
+        private final Segment segment;
+
+        SpilledMemoryBlock( Segment segment, long address, long size, long slotSize )
+        {
+            super( address, size, address, slotSize );
+            this.segment = segment;
+        }
+    }
+}
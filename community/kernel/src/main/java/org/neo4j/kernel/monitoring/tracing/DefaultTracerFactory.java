@@ -52,7 +52,9 @@ public class DefaultTracerFactory implements TracerFactory
     public TransactionTracer createTransactionTracer( Monitors monitors, JobScheduler jobScheduler )
     {
         DefaultTransactionTracer.Monitor monitor = monitors.newMonitor( DefaultTransactionTracer.Monitor.class );
-        return new DefaultTransactionTracer( monitor, jobScheduler );
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( monitor, jobScheduler );
+        monitors.addMonitorListener( tracer.indexUpdatesMonitor() );
+        return tracer;
     }
 
     @Override
@@ -85,9 +85,14 @@ public class CorruptedLogsTruncator
             throws IOException
     {
         File lastRecoveredTransactionLog = logFiles.getLogFileForVersion( recoveredTransactionLogVersion );
+        // The index of a truncated log file may point to entries that are cut off
+        logFiles.getLogIndex().delete( recoveredTransactionLogVersion );
         fs.truncate( lastRecoveredTransactionLog, recoveredTransactionOffset );
-        forEachSubsequentLogFile( recoveredTransactionLogVersion,
-                fileIndex -> fs.deleteFile( logFiles.getLogFileForVersion( fileIndex ) ) );
+        forEachSubsequentLogFile( recoveredTransactionLogVersion, fileIndex ->
+        {
+            logFiles.getLogIndex().delete( fileIndex );
+            fs.deleteFile( logFiles.getLogFileForVersion( fileIndex ) );
+        } );
     }
 
     private void forEachSubsequentLogFile( long recoveredTransactionLogVersion, LongConsumer action )
@@ -163,7 +168,34 @@ public class CorruptedLogsTruncator
     }
 
     private boolean isRecoveredLogCorrupted( long recoveredTransactionLogVersion, long recoveredTransactionOffset )
+            throws IOException
+    {
+        File logFile = logFiles.getLogFileForVersion( recoveredTransactionLogVersion );
+        return logFile.length() > recoveredTransactionOffset && !isZeroed( logFile, recoveredTransactionOffset );
+    }
+
+    /**
+     * A preallocated log file is followed by zeros after the last recovered transaction, which is not corruption.
+     */
+    private boolean isZeroed( File logFile, long fromOffset ) throws IOException
     {
-        return logFiles.getLogFileForVersion( recoveredTransactionLogVersion ).length() > recoveredTransactionOffset;
+        try ( StoreChannel channel = fs.open( logFile, OpenMode.READ ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( (int) ByteUnit.kibiBytes( 64 ) );
+            channel.position( fromOffset );
+            while ( channel.read( buffer ) >= 0 )
+            {
+                buffer.flip();
+                while ( buffer.hasRemaining() )
+                {
+                    if ( buffer.get() != 0 )
+                    {
+                        return false;
+                    }
+                }
+                buffer.clear();
+            }
+            return true;
+        }
     }
 }
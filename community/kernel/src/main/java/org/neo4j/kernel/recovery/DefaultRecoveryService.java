@@ -20,6 +20,7 @@
 package org.neo4j.kernel.recovery;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
@@ -31,6 +32,8 @@ import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 
@@ -43,15 +46,33 @@ public class DefaultRecoveryService implements RecoveryService
     private final TransactionIdStore transactionIdStore;
     private final LogicalTransactionStore logicalTransactionStore;
     private final LogVersionRepository logVersionRepository;
+    private final JobScheduler scheduler;
+    private final int parallelism;
 
     public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
             TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
             LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor )
+    {
+        this( storageEngine, logTailScanner, transactionIdStore, logicalTransactionStore, logVersionRepository,
+                monitor, null, 1 );
+    }
+
+    /**
+     * @param scheduler the scheduler to get the threads for parallel recovery from; only used if the parallelism is
+     * more than one.
+     * @param parallelism the number of threads to apply recovered transactions with.
+     */
+    public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
+            TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
+            LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor,
+            JobScheduler scheduler, int parallelism )
     {
         this.storageEngine = storageEngine;
         this.transactionIdStore = transactionIdStore;
         this.logicalTransactionStore = logicalTransactionStore;
         this.logVersionRepository = logVersionRepository;
+        this.scheduler = scheduler;
+        this.parallelism = parallelism;
         this.recoveryStartInformationProvider = new RecoveryStartInformationProvider( logTailScanner, monitor );
     }
 
@@ -75,6 +96,11 @@ public class DefaultRecoveryService implements RecoveryService
     @Override
     public RecoveryApplier getRecoveryApplier( TransactionApplicationMode mode ) throws Exception
     {
+        if ( parallelism > 1 )
+        {
+            ExecutorService executor = scheduler.workStealingExecutor( Group.RECOVERY, parallelism );
+            return new ParallelRecoveryVisitor( storageEngine, mode, executor, parallelism );
+        }
         return new RecoveryVisitor( storageEngine, mode );
     }
 
@@ -123,12 +149,7 @@ public class DefaultRecoveryService implements RecoveryService
         @Override
         public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
         {
-            TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
-            long txId = transaction.getCommitEntry().getTxId();
-            TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
-            tx.commitment( NO_COMMITMENT, txId );
-            tx.logPosition( transaction.getStartEntry().getStartPosition() );
-            storageEngine.apply( tx, mode );
+            storageEngine.apply( toApply( transaction ), mode );
             return false;
         }
 
@@ -137,4 +158,84 @@ public class DefaultRecoveryService implements RecoveryService
         {   // nothing to close
         }
     }
+
+    /**
+     * Collects the recovered transactions into batches, and applies each batch with
+     * {@link StorageEngine#applyInParallel(org.neo4j.storageengine.api.CommandsToApply, TransactionApplicationMode,
+     * ExecutorService, int)}. The last batch is applied when the visitor is closed.
+     */
+    static class ParallelRecoveryVisitor implements RecoveryApplier
+    {
+        static final int MAX_BATCH_COMMANDS = 100_000;
+
+        private final StorageEngine storageEngine;
+        private final TransactionApplicationMode mode;
+        private final ExecutorService executor;
+        private final int parallelism;
+        private TransactionToApply first;
+        private TransactionToApply last;
+        private int batchCommands;
+
+        ParallelRecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode,
+                ExecutorService executor, int parallelism )
+        {
+            this.storageEngine = storageEngine;
+            this.mode = mode;
+            this.executor = executor;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
+        {
+            TransactionToApply tx = toApply( transaction );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+            tx.accept( command ->
+            {
+                batchCommands++;
+                return false;
+            } );
+            if ( batchCommands >= MAX_BATCH_COMMANDS )
+            {
+                applyBatch();
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            applyBatch();
+        }
+
+        private void applyBatch() throws Exception
+        {
+            if ( first != null )
+            {
+                TransactionToApply batch = first;
+                first = null;
+                last = null;
+                batchCommands = 0;
+                storageEngine.applyInParallel( batch, mode, executor, parallelism );
+            }
+        }
+    }
+
+    private static TransactionToApply toApply( CommittedTransactionRepresentation transaction )
+    {
+        TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
+        long txId = transaction.getCommitEntry().getTxId();
+        TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
+        tx.commitment( NO_COMMITMENT, txId );
+        tx.logPosition( transaction.getStartEntry().getStartPosition() );
+        return tx;
+    }
 }
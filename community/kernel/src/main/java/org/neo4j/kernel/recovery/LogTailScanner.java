@@ -36,6 +36,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex.IndexedCheckPoint;
 import org.neo4j.kernel.monitoring.Monitors;
 
 import static org.neo4j.kernel.impl.transaction.log.LogVersionRepository.INITIAL_LOG_VERSION;
@@ -90,7 +91,7 @@ public class LogTailScanner
         {
             oldestVersionFound = version;
             CheckPoint latestCheckPoint = null;
-            try ( LogVersionedStoreChannel channel = logFiles.openForVersion( version );
+            try ( LogVersionedStoreChannel channel = openForScan( version );
                   ReadAheadLogChannel readAheadLogChannel = new ReadAheadLogChannel( channel );
                   LogEntryCursor cursor = new LogEntryCursor( logEntryReader, readAheadLogChannel ) )
             {
@@ -168,6 +169,44 @@ public class LogTailScanner
                 oldestStartEntryTransaction, oldestVersionFound, highestLogVersion, latestLogEntryVersion );
     }
 
+    /**
+     * Opens the log file of the given version for scanning. If the log index knows where the last check point of the
+     * log file is, and the position that it points to is in the same log file, then the scan starts at that position,
+     * since none of the entries before it are needed: start entries before the check pointed position don't count as
+     * being after the check point. Otherwise, the scan starts at the first entry of the log file.
+     */
+    private LogVersionedStoreChannel openForScan( long version ) throws IOException
+    {
+        IndexedCheckPoint checkPoint = logFiles.getLogIndex().lastCheckPoint( version );
+        LogVersionedStoreChannel channel = logFiles.openForVersion( version );
+        if ( checkPoint != null && checkPoint.checkPointedPosition.getLogVersion() == version &&
+             checkPoint.checkPointedPosition.getByteOffset() <= checkPoint.entryPosition.getByteOffset() &&
+             isCheckPointAt( checkPoint ) )
+        {
+            channel.position( Math.max( checkPoint.checkPointedPosition.getByteOffset(), channel.position() ) );
+        }
+        return channel;
+    }
+
+    private boolean isCheckPointAt( IndexedCheckPoint checkPoint )
+    {
+        try ( LogVersionedStoreChannel channel = logFiles.openForVersion( checkPoint.entryPosition.getLogVersion() ) )
+        {
+            channel.position( checkPoint.entryPosition.getByteOffset() );
+            try ( ReadAheadLogChannel readAheadLogChannel = new ReadAheadLogChannel( channel ) )
+            {
+                LogEntry entry = logEntryReader.readLogEntry( readAheadLogChannel );
+                return entry instanceof CheckPoint &&
+                       ((CheckPoint) entry).getLogPosition().equals( checkPoint.checkPointedPosition );
+            }
+        }
+        catch ( Exception e )
+        {
+            // The index is stale, and the position is past the end of the log, or in the middle of some entry
+            return false;
+        }
+    }
+
     private boolean hasUnreadableBytes( LogVersionedStoreChannel channel, long maxEntryReadEndPosition ) throws IOException
     {
         return channel.position() > maxEntryReadEndPosition;
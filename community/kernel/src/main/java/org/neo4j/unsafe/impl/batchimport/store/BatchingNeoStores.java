@@ -219,6 +219,7 @@ public class BatchingNeoStores implements AutoCloseable, MemoryStatsVisitor.Visi
                 DatabaseFile databaseFile = type.getDatabaseFile();
                 databaseLayout.file( databaseFile ).forEach( fileSystem::deleteFile );
                 databaseLayout.idFile( databaseFile ).ifPresent( fileSystem::deleteFile );
+                databaseLayout.pageTableFile( databaseFile ).ifPresent( fileSystem::deleteFile );
             }
         }
     }
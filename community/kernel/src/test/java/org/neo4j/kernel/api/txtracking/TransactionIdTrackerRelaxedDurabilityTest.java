@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.txtracking;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.kernel.NeoStoreDataSource;
+import org.neo4j.kernel.availability.DatabaseAvailabilityGuard;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.TransactionCommitProcess;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.LogForceBarrier;
+import org.neo4j.kernel.impl.transaction.log.LogicalTransactionStore;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.util.Dependencies;
+import org.neo4j.test.rule.NeoStoreDataSourceRule;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static java.time.Duration.ofSeconds;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.relaxed_durability_force_interval;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+public class TransactionIdTrackerRelaxedDurabilityTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    @Rule
+    public final TestDirectory dir = TestDirectory.testDirectory( fs );
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+    @Rule
+    public final NeoStoreDataSourceRule dsRule = new NeoStoreDataSourceRule();
+
+    @Test
+    public void bookmarkMustCoverTheWriteOfTheClientAndResolveToTheSameTransactionAfterCrash() throws Exception
+    {
+        // Given a transaction that has been forced, and the write of a client that has only been appended to the log
+        NeoStoreDataSource dataSource = startDataSource( fs.get() );
+        commitNode( dataSource, 0 );
+        resolve( dataSource, TransactionAppender.class ).makeDurable();
+        commitNode( dataSource, 1 );
+        long writeTxId = resolve( dataSource, TransactionIdStore.class ).getLastCommittedTransactionId();
+        assertTrue( resolve( dataSource, TransactionAppender.class ).getDurableTransactionId() < writeTxId );
+
+        // When a bookmark is handed out to the client
+        long bookmark = newTransactionIdTracker( dataSource ).newestEncounteredTxId();
+
+        // Then it covers the write of the client, which is now durable
+        assertEquals( writeTxId, bookmark );
+        assertEquals( writeTxId, resolve( dataSource, TransactionAppender.class ).getDurableTransactionId() );
+        CommittedTransactionRepresentation bookmarkedTransaction = transaction( dataSource, bookmark );
+        assertEquals( 1, bookmarkedTransaction.getTransactionRepresentation().getTimeCommitted() );
+
+        // And given the power goes out
+        try ( EphemeralFileSystemAbstraction crashedFs = fs.get().snapshot() )
+        {
+            dataSource.stop();
+            dataSource = startDataSource( crashedFs );
+
+            // Then the write of the client survived, and the bookmark still resolves to the very same transaction
+            assertEquals( writeTxId, resolve( dataSource, TransactionIdStore.class ).getLastCommittedTransactionId() );
+            newTransactionIdTracker( dataSource ).awaitUpToDate( bookmark, ofSeconds( 10 ) );
+            assertEquals( bookmarkedTransaction, transaction( dataSource, bookmark ) );
+
+            // And its id is not reused for later transactions
+            commitNode( dataSource, 2 );
+            assertEquals( writeTxId + 1, resolve( dataSource, TransactionIdStore.class ).getLastCommittedTransactionId() );
+            dataSource.stop();
+        }
+    }
+
+    private NeoStoreDataSource startDataSource( EphemeralFileSystemAbstraction fileSystem ) throws IOException
+    {
+        Dependencies dependencies = new Dependencies();
+        // Long enough for the log to never be forced in the background during the test
+        dependencies.satisfyDependency( Config.defaults( relaxed_durability_force_interval, "1h" ) );
+        dependencies.satisfyDependency( new LogForceBarrier() );
+        NeoStoreDataSource dataSource = dsRule.getDataSource( dir.databaseLayout(), fileSystem,
+                pageCacheRule.getPageCache( fileSystem ), dependencies );
+        dataSource.start();
+        return dataSource;
+    }
+
+    private static void commitNode( NeoStoreDataSource dataSource, long nodeId ) throws Exception
+    {
+        NodeRecord after = new NodeRecord( nodeId );
+        after.initialize( true, -1, false, -1, 0 );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation(
+                Collections.singletonList( new Command.NodeCommand( new NodeRecord( nodeId ), after ) ) );
+        // The node id doubles as commit time, to tell the transactions apart
+        transaction.setHeader( new byte[0], 0, 0, nodeId, 0, nodeId, 0 );
+        resolve( dataSource, TransactionCommitProcess.class )
+                .commit( new TransactionToApply( transaction ), CommitEvent.NULL, INTERNAL );
+    }
+
+    private static TransactionIdTracker newTransactionIdTracker( NeoStoreDataSource dataSource )
+    {
+        DependencyResolver resolver = dataSource.getDependencyResolver();
+        return new TransactionIdTracker( resolver.provideDependency( TransactionIdStore.class ),
+                resolver.provideDependency( TransactionAppender.class ),
+                resolver.resolveDependency( DatabaseAvailabilityGuard.class ) );
+    }
+
+    private static CommittedTransactionRepresentation transaction( NeoStoreDataSource dataSource, long txId )
+            throws Exception
+    {
+        try ( TransactionCursor cursor = resolve( dataSource, LogicalTransactionStore.class ).getTransactions( txId ) )
+        {
+            assertTrue( cursor.next() );
+            return cursor.get();
+        }
+    }
+
+    private static <T> T resolve( NeoStoreDataSource dataSource, Class<T> type )
+    {
+        return dataSource.getDependencyResolver().resolveDependency( type );
+    }
+}
@@ -29,6 +29,7 @@ import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.availability.AvailabilityGuard;
 import org.neo4j.kernel.availability.DatabaseAvailabilityGuard;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 
 import static java.time.Duration.ofMillis;
@@ -48,6 +49,7 @@ public class TransactionIdTrackerTest
     private static final Duration DEFAULT_DURATION = ofSeconds( 10 );
 
     private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+    private final TransactionAppender transactionAppender = mock( TransactionAppender.class );
     private final AvailabilityGuard databaseAvailabilityGuard = mock( DatabaseAvailabilityGuard.class );
 
     private TransactionIdTracker transactionIdTracker;
@@ -56,7 +58,8 @@ public class TransactionIdTrackerTest
     public void setup()
     {
         when( databaseAvailabilityGuard.isAvailable() ).thenReturn( true );
-        transactionIdTracker = new TransactionIdTracker( () -> transactionIdStore, databaseAvailabilityGuard );
+        transactionIdTracker = new TransactionIdTracker( () -> transactionIdStore, () -> transactionAppender,
+                databaseAvailabilityGuard );
     }
 
     @Test
@@ -130,7 +133,29 @@ public class TransactionIdTrackerTest
     {
         when( transactionIdStore.getLastClosedTransactionId() ).thenReturn( 42L );
         when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 4242L );
+        when( transactionAppender.getDurableTransactionId() ).thenReturn( 4242L );
 
         assertEquals( 4242L, transactionIdTracker.newestEncounteredTxId() );
     }
+
+    @Test
+    public void shouldMakeTheLogDurableBeforeReturningTransactionIdNewerThanTheDurableOne() throws Exception
+    {
+        when( transactionIdStore.getLastClosedTransactionId() ).thenReturn( 42L );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 4242L );
+        when( transactionAppender.getDurableTransactionId() ).thenReturn( 4200L );
+
+        assertEquals( 4242L, transactionIdTracker.newestEncounteredTxId() );
+        verify( transactionAppender ).makeDurable();
+    }
+
+    @Test
+    public void shouldNotMakeTheLogDurableWhenTheLastCommittedTransactionIsDurable() throws Exception
+    {
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 4242L );
+        when( transactionAppender.getDurableTransactionId() ).thenReturn( 4242L );
+
+        assertEquals( 4242L, transactionIdTracker.newestEncounteredTxId() );
+        verify( transactionAppender, never() ).makeDurable();
+    }
 }
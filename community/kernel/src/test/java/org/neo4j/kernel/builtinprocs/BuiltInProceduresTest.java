@@ -24,17 +24,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.stubbing.Answer;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.IntSupplier;
 
 import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.internal.kernel.api.IndexReference;
@@ -49,6 +52,8 @@ import org.neo4j.internal.kernel.api.procs.ProcedureSignature;
 import org.neo4j.internal.kernel.api.schema.IndexProviderDescriptor;
 import org.neo4j.internal.kernel.api.schema.SchemaDescriptor;
 import org.neo4j.internal.kernel.api.security.SecurityContext;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.api.ResourceTracker;
 import org.neo4j.kernel.api.Statement;
@@ -57,21 +62,35 @@ import org.neo4j.kernel.api.proc.BasicContext;
 import org.neo4j.kernel.api.proc.Key;
 import org.neo4j.kernel.api.schema.constraints.ConstraintDescriptor;
 import org.neo4j.kernel.api.schema.constraints.ConstraintDescriptorFactory;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor;
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor.Phase;
+import org.neo4j.kernel.impl.api.DefaultTransactionTracer;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.factory.Edition;
+import org.neo4j.kernel.impl.locking.LockContention;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.lock.LockTracer;
 import org.neo4j.storageengine.api.schema.IndexDescriptorFactory;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyIterator;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -186,6 +205,77 @@ public class BuiltInProceduresTest
                 getIndexProviderDescriptorMap( EMPTY.getProviderDescriptor() ), 42L, "" ) ) );
     }
 
+    @Test
+    public void shouldListPageCacheHeatMap() throws Throwable
+    {
+        // Given
+        DefaultPageCacheTracer pageCacheTracer = new DefaultPageCacheTracer();
+        pageCacheTracer.heatMap().hit( new File( "neostore.nodestore.db" ), 1500, 10 );
+        pageCacheTracer.heatMap().fault( new File( "neostore.nodestore.db" ), 1500, 20 );
+        when( resolver.resolveDependency( PageCacheTracer.class ) ).thenReturn( pageCacheTracer );
+
+        // When/Then
+        assertThat( call( "dbms.pageCache.heatMap" ),
+                contains( record( "neostore.nodestore.db", 1024L, 2047L, 10L, 20L, 0L ) ) );
+    }
+
+    @Test
+    public void shouldListCommitLatencyOfEveryPhase() throws Throwable
+    {
+        // Given
+        DefaultTransactionTracer tracer =
+                new DefaultTransactionTracer( mock( DefaultTransactionTracer.Monitor.class ), mock( JobScheduler.class ) );
+        tracer.commitLatency( Phase.LOG_FORCE_WAIT ).record( TimeUnit.MICROSECONDS.toNanos( 10 ) );
+        when( resolver.resolveDependency( CommitLatencyMonitor.class ) ).thenReturn( tracer );
+
+        // When
+        List<Object[]> latencies = call( "dbms.commitLatency" );
+
+        // Then
+        assertEquals( Phase.values().length, latencies.size() );
+        assertThat( latencies, hasItem( record( "LOG_FORCE_WAIT", 1L, 10L, 10L, 10L, 10L, 10L, 10L ) ) );
+        assertThat( latencies, hasItem( record( "PUBLISH", 0L, 0L, 0L, 0L, 0L, 0L, 0L ) ) );
+    }
+
+    @Test
+    public void shouldShowDurableTransactionWhenDurabilityIsRelaxed() throws Throwable
+    {
+        // Given
+        TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 42L );
+        TransactionAppender appender = mock( TransactionAppender.class );
+        when( appender.getDurableTransactionId() ).thenReturn( 40L );
+        when( resolver.resolveDependency( TransactionIdStore.class ) ).thenReturn( transactionIdStore );
+        when( resolver.resolveDependency( TransactionAppender.class ) ).thenReturn( appender );
+        when( resolver.resolveDependency( Config.class ) ).thenReturn(
+                Config.defaults( GraphDatabaseSettings.relaxed_durability_force_interval, "1s" ) );
+
+        // When/Then
+        assertThat( call( "dbms.transactionDurability" ), contains( record( 42L, 40L, true ) ) );
+    }
+
+    @Test
+    public void shouldListLockContention() throws Throwable
+    {
+        // Given
+        LockContention contention = new LockContention( 10 );
+        contention.waitForLock( LockTracer.NONE, true, ResourceTypes.NODE, 7, -1, 3 ).close();
+        contention.waitForLock( LockTracer.NONE, false, ResourceTypes.NODE, 7, -1, 3 ).close();
+        contention.waitForLock( LockTracer.NONE, true, ResourceTypes.RELATIONSHIP, 5, -1, 4 ).close();
+        Locks locks = mock( Locks.class );
+        when( locks.contention() ).thenReturn( contention );
+        when( resolver.resolveDependency( Locks.class ) ).thenReturn( locks );
+
+        // When
+        List<Object[]> hotSpots = call( "dbms.listLockContention" );
+
+        // Then
+        assertEquals( 2, hotSpots.size() );
+        assertEquals( asList( "NODE", 7L, 2L, 0L ), asList( hotSpots.get( 0 ) ).subList( 0, 4 ) );
+        assertEquals( asList( 0L, 1L, 3L ), asList( hotSpots.get( 0 ) ).subList( 6, 9 ) );
+        assertEquals( asList( "RELATIONSHIP", 5L, 1L, 0L ), asList( hotSpots.get( 1 ) ).subList( 0, 4 ) );
+    }
+
     @Test
     public void shouldListPropertyKeys() throws Throwable
     {
@@ -389,6 +479,32 @@ public class BuiltInProceduresTest
                 record( "dbms.clearQueryCaches",
                         "dbms.clearQueryCaches() :: (value :: STRING?)",
                         "Clears all query caches.", "DBMS" ),
+                record( "dbms.pageCache.heatMap",
+                        "dbms.pageCache.heatMap() :: (file :: STRING?, firstPageId :: INTEGER?, lastPageId :: " +
+                        "INTEGER?, hits :: INTEGER?, faults :: INTEGER?, evictions :: INTEGER?)",
+                        "List the sampled hits, faults and evictions of the page cache, per range of pages in every " +
+                        "mapped file. The heat map is only recorded while " +
+                        "`dbms.memory.pagecache.heat_map.sampling_interval` is set.", "DBMS" ),
+                record( "dbms.commitLatency",
+                        "dbms.commitLatency() :: (phase :: STRING?, count :: INTEGER?, mean :: INTEGER?, " +
+                        "p50 :: INTEGER?, p90 :: INTEGER?, p99 :: INTEGER?, p999 :: INTEGER?, max :: INTEGER?)",
+                        "List the latency percentiles of every phase of committing transactions since the database " +
+                        "started, in microseconds.", "DBMS" ),
+                record( "dbms.listLockContention",
+                        "dbms.listLockContention() :: (resourceType :: STRING?, resourceId :: INTEGER?, waits :: INTEGER?, " +
+                        "overestimatedWaits :: INTEGER?, totalWaitTime :: INTEGER?, maxWaitTime :: INTEGER?, " +
+                        "waiting :: INTEGER?, maxWaiting :: INTEGER?, lastHolderLockSessionId :: INTEGER?)",
+                        "List the resources that transactions have waited the most for to lock, the most waited for first, " +
+                        "with wait times in microseconds. At most `dbms.lock.contention.tracked_resources` resources " +
+                        "are tracked, and the wait count of a resource may be overestimated by as much as " +
+                        "`overestimatedWaits`.", "DBMS" ),
+                record( "dbms.transactionDurability",
+                        "dbms.transactionDurability() :: (lastCommittedTransactionId :: INTEGER?, " +
+                        "durableTransactionId :: INTEGER?, relaxed :: BOOLEAN?)",
+                        "Show the last committed transaction, and the last transaction that is durable in the transaction " +
+                        "log. They only differ while durability is relaxed with " +
+                        "`dbms.tx_log.relaxed_durability.force_interval`, in which case the transactions after the " +
+                        "durable one are lost if the machine crashes.", "DBMS" ),
                 record( "db.createIndex",
                         "db.createIndex(index :: STRING?, providerName :: STRING?) :: (index :: STRING?, providerName :: STRING?, status :: STRING?)",
                         "Create a schema index with specified index provider (for example: CALL db.createIndex(\":Person(name)\", \"lucene+native-2.0\")) - " +
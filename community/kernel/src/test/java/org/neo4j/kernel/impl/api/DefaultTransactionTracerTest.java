@@ -24,15 +24,25 @@ import org.junit.Test;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor.Phase;
 import org.neo4j.kernel.impl.api.DefaultTransactionTracer.Monitor;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
+import org.neo4j.kernel.impl.transaction.tracing.CommandExtractionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LockAcquisitionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
+import org.neo4j.kernel.impl.transaction.tracing.PublishEvent;
+import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
+import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.test.OnDemandJobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.FakeClock;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -76,6 +86,85 @@ public class DefaultTransactionTracerTest
         verifyZeroInteractions( monitor );
     }
 
+    @Test
+    public void shouldComputeCountTotalTimeAndBatchSizeDistributionForLogForce()
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler );
+
+        triggerLogForce( tracer, 1, 10 );
+        triggerLogForce( tracer, 3, 20 );
+        triggerLogForce( tracer, 2, 5 );
+        triggerLogForce( tracer, 100_000, 5 );
+
+        assertEquals( 4, tracer.numberOfLogForceEvents() );
+        assertEquals( 40, tracer.logForceAccumulatedTotalTimeMillis() );
+        long[] expected = new long[LogForceMonitor.BATCH_SIZE_BUCKETS];
+        expected[0] = 1;
+        expected[1] = 2;
+        expected[LogForceMonitor.BATCH_SIZE_BUCKETS - 1] = 1;
+        assertArrayEquals( expected, tracer.logForceBatchSizeDistribution() );
+    }
+
+    @Test
+    public void shouldRecordLatencyOfEveryCommitPhase()
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler );
+
+        try ( TransactionEvent txEvent = tracer.beginTransaction();
+              CommitEvent commitEvent = txEvent.beginCommitEvent() )
+        {
+            try ( LockAcquisitionEvent event = commitEvent.beginLockAcquisition() )
+            {
+                clock.forward( 1, TimeUnit.MICROSECONDS );
+            }
+            try ( CommandExtractionEvent event = commitEvent.beginCommandExtraction() )
+            {
+                clock.forward( 2, TimeUnit.MICROSECONDS );
+            }
+            try ( LogAppendEvent logAppendEvent = commitEvent.beginLogAppend() )
+            {
+                try ( SerializeTransactionEvent event = logAppendEvent.beginSerializeTransaction() )
+                {
+                    clock.forward( 3, TimeUnit.MICROSECONDS );
+                }
+                try ( LogForceWaitEvent event = logAppendEvent.beginLogForceWait() )
+                {
+                    clock.forward( 4, TimeUnit.MICROSECONDS );
+                }
+            }
+            try ( StoreApplyEvent event = commitEvent.beginStoreApply() )
+            {
+                clock.forward( 5, TimeUnit.MICROSECONDS );
+                tracer.indexUpdatesMonitor().indexUpdatesApplied( TimeUnit.MICROSECONDS.toNanos( 6 ) );
+            }
+            try ( PublishEvent event = commitEvent.beginPublish() )
+            {
+                clock.forward( 7, TimeUnit.MICROSECONDS );
+            }
+        }
+
+        Phase[] phases = {Phase.LOCK_ACQUISITION, Phase.COMMAND_EXTRACTION, Phase.LOG_SERIALIZATION,
+                Phase.LOG_FORCE_WAIT, Phase.STORE_APPLY, Phase.INDEX_UPDATE, Phase.PUBLISH};
+        for ( int i = 0; i < phases.length; i++ )
+        {
+            LatencyHistogram histogram = tracer.commitLatency( phases[i] );
+            assertEquals( 1, histogram.count() );
+            assertEquals( i + 1, histogram.percentile( 100, TimeUnit.MICROSECONDS ) );
+        }
+    }
+
+    private void triggerLogForce( DefaultTransactionTracer tracer, int batchSize, int eventDuration )
+    {
+        try ( TransactionEvent txEvent = tracer.beginTransaction();
+              CommitEvent commitEvent = txEvent.beginCommitEvent();
+              LogAppendEvent logAppendEvent = commitEvent.beginLogAppend();
+              LogForceEvent event = logAppendEvent.beginLogForce() )
+        {
+            event.setBatchSize( batchSize );
+            clock.forward( eventDuration, TimeUnit.MILLISECONDS );
+        }
+    }
+
     private void triggerEvent( DefaultTransactionTracer tracer, int eventDuration )
     {
         try ( TransactionEvent txEvent = tracer.beginTransaction() )
@@ -47,11 +47,13 @@ import org.neo4j.kernel.api.security.AnonymousContext;
 import org.neo4j.kernel.api.txstate.ExplicitIndexTransactionState;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.api.txstate.auxiliary.AuxiliaryTransactionState;
+import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.NoOpClient;
 import org.neo4j.kernel.impl.locking.SimpleStatementLocks;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.resources.CpuClock;
 import org.neo4j.resources.HeapAllocation;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -74,6 +76,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -286,6 +289,71 @@ public class KernelTransactionImplementationTest extends KernelTransactionTestBa
         verifyExtraInteractionWithTheMonitor( transactionMonitor, isWriteTx );
     }
 
+    @Test
+    public void shouldTerminateTransactionThatExceedsMemoryLimit()
+    {
+        // GIVEN
+        config = Config.defaults( GraphDatabaseSettings.transaction_memory_limit, "1k" );
+        KernelTransaction transaction = newTransaction( loginContext() );
+        transactionInitializer.accept( transaction );
+        doReturn( (MemoryTracker) () -> 2048 ).when( collectionsFactory ).getMemoryTracker();
+
+        try
+        {
+            // WHEN
+            transaction.assertOpen();
+            fail( "Exception expected" );
+        }
+        catch ( TransactionTerminatedException e )
+        {
+            // THEN
+            assertEquals( Status.Transaction.TransactionMemoryLimitExceeded, e.status() );
+        }
+        assertEquals( Status.Transaction.TransactionMemoryLimitExceeded, transaction.getReasonIfTerminated().get() );
+        verify( transactionMonitor, times( 1 ) ).transactionTerminated( isWriteTx );
+    }
+
+    @Test
+    public void shouldTerminateTransactionWhoseOnHeapTransactionStateExceedsMemoryLimit()
+    {
+        // GIVEN
+        config = Config.defaults( GraphDatabaseSettings.transaction_memory_limit, "1k" );
+        KernelTransactionImplementation transaction = newTransaction( loginContext() );
+        transactionInitializer.accept( transaction );
+        transaction.assertOpen();
+
+        // WHEN
+        for ( long nodeId = 0; nodeId < 100; nodeId++ )
+        {
+            transaction.txState().nodeDoAddLabel( 1, nodeId );
+        }
+
+        // THEN
+        try
+        {
+            transaction.assertOpen();
+            fail( "Exception expected" );
+        }
+        catch ( TransactionTerminatedException e )
+        {
+            assertEquals( Status.Transaction.TransactionMemoryLimitExceeded, e.status() );
+        }
+    }
+
+    @Test
+    public void shouldNotTerminateTransactionWithinMemoryLimit() throws Exception
+    {
+        config = Config.defaults( GraphDatabaseSettings.transaction_memory_limit, "1k" );
+        try ( KernelTransaction transaction = newTransaction( loginContext() ) )
+        {
+            transactionInitializer.accept( transaction );
+            doReturn( (MemoryTracker) () -> 1024 ).when( collectionsFactory ).getMemoryTracker();
+
+            transaction.assertOpen();
+            assertFalse( transaction.getReasonIfTerminated().isPresent() );
+        }
+    }
+
     @Test
     public void shouldNotDowngradeFailureState() throws Exception
     {
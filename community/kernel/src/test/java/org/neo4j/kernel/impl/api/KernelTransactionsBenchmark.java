@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.api.explicitindex.AutoIndexing;
+import org.neo4j.kernel.api.txstate.auxiliary.AuxiliaryTransactionStateManager;
+import org.neo4j.kernel.availability.DatabaseAvailabilityGuard;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.IndexingProvidersService;
+import org.neo4j.kernel.impl.constraints.ConstraintSemantics;
+import org.neo4j.kernel.impl.factory.CanWrite;
+import org.neo4j.kernel.impl.index.ExplicitIndexStore;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.SimpleStatementLocksFactory;
+import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.stats.DatabaseTransactionStats;
+import org.neo4j.kernel.impl.util.Dependencies;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.kernel.monitoring.tracing.Tracers;
+import org.neo4j.logging.NullLog;
+import org.neo4j.resources.CpuClock;
+import org.neo4j.resources.HeapAllocation;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.StorageReader;
+import org.neo4j.time.Clocks;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.internal.kernel.api.Transaction.Type.implicit;
+import static org.neo4j.internal.kernel.api.security.LoginContext.AUTH_DISABLED;
+import static org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory.DEFAULT;
+import static org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier.ON_HEAP;
+import static org.neo4j.test.MockedNeoStores.mockedTokenHolders;
+
+/**
+ * Measures how many short read transactions per second a number of threads can begin and close through
+ * {@link KernelTransactions}, with lock clients created when transactions begin and with lock clients created
+ * lazily, at 1, 2, 4 and so on up to the given number of threads.
+ * <p>
+ * Every transaction acquires and closes a statement, as a single read would, but doesn't read anything, so what is
+ * measured is the transaction lifecycle itself. The storage engine is a stub that does nothing.
+ * <p>
+ * Usage: {@code KernelTransactionsBenchmark [max threads] [seconds per run]}
+ */
+public final class KernelTransactionsBenchmark
+{
+    private KernelTransactionsBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Throwable
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt( args[0] ) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt( args[1] ) : 5;
+
+        for ( int round = 0; round < 2; round++ )
+        {
+            // The first round warms up the JIT.
+            boolean report = round > 0;
+            for ( int threads = 1; threads <= maxThreads; threads *= 2 )
+            {
+                long eager = run( false, threads, seconds );
+                long lazy = run( true, threads, seconds );
+                if ( report )
+                {
+                    System.out.printf( "threads: %3d   eager locks: %,12d tx/s   lazy locks: %,12d tx/s%n",
+                            threads, eager / seconds, lazy / seconds );
+                }
+            }
+        }
+    }
+
+    private static long run( boolean lazyStatementLocks, int threadCount, int seconds ) throws Throwable
+    {
+        Config config = Config.defaults( GraphDatabaseSettings.lazy_statement_locks, String.valueOf( lazyStatementLocks ) );
+        Locks locks = new CommunityLockManger( config, Clocks.systemClock() );
+        KernelTransactions transactions = newKernelTransactions( config, locks );
+        transactions.start();
+
+        AtomicBoolean end = new AtomicBoolean();
+        LongAdder committed = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[threadCount];
+        for ( int i = 0; i < threadCount; i++ )
+        {
+            threads[i] = new Thread( () ->
+            {
+                try
+                {
+                    while ( !end.get() )
+                    {
+                        try ( KernelTransaction tx = transactions.newInstance( implicit, AUTH_DISABLED, 0 ) )
+                        {
+                            try ( Statement ignored = tx.acquireStatement() )
+                            {
+                                tx.success();
+                            }
+                        }
+                        committed.increment();
+                    }
+                }
+                catch ( Throwable t )
+                {
+                    failure.compareAndSet( null, t );
+                }
+            } );
+            threads[i].start();
+        }
+        Thread.sleep( TimeUnit.SECONDS.toMillis( seconds ) );
+        end.set( true );
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        transactions.stop();
+        transactions.shutdown();
+        locks.close();
+        if ( failure.get() != null )
+        {
+            throw failure.get();
+        }
+        return committed.sum();
+    }
+
+    private static KernelTransactions newKernelTransactions( Config config, Locks locks )
+    {
+        SystemNanoClock clock = Clocks.nanoClock();
+        // Stub only, so that the mocks don't record the calls of millions of transactions
+        StorageEngine storageEngine = mock( StorageEngine.class, withSettings().stubOnly() );
+        when( storageEngine.newReader() ).then( invocation -> mock( StorageReader.class, withSettings().stubOnly() ) );
+        Tracers tracers = new Tracers( "null", NullLog.getInstance(), new Monitors(), mock( JobScheduler.class ), clock );
+        return new KernelTransactions( config, new SimpleStatementLocksFactory( locks ), null,
+                mock( StatementOperationParts.class ), null, DEFAULT, mock( TransactionCommitProcess.class ),
+                mock( AuxiliaryTransactionStateManager.class ), new TransactionHooks(), new DatabaseTransactionStats(),
+                new DatabaseAvailabilityGuard( DEFAULT_DATABASE_NAME, clock, NullLog.getInstance() ), tracers,
+                storageEngine, new Procedures(), new SimpleTransactionIdStore(), clock,
+                new AtomicReference<>( CpuClock.NOT_AVAILABLE ), new AtomicReference<>( HeapAllocation.NOT_AVAILABLE ),
+                new CanWrite(), AutoIndexing.UNSUPPORTED, mock( ExplicitIndexStore.class ),
+                EmptyVersionContextSupplier.EMPTY, ON_HEAP, mock( ConstraintSemantics.class ),
+                mock( SchemaState.class ), mock( IndexingProvidersService.class ), mockedTokenHolders(),
+                DEFAULT_DATABASE_NAME, new Dependencies() );
+    }
+}
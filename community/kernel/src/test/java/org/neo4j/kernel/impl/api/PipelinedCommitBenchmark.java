@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.StandalonePageCacheFactory;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.rule.RecordStorageEngineRule;
+
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.scheduler.JobSchedulerFactory.createInitialisedScheduler;
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+/**
+ * Compares the commit throughput of {@link TransactionRepresentationCommitProcess}, where every committing thread
+ * appends, forces and applies its own transaction, with that of {@link PipelinedTransactionCommitProcess}, at 1, 2, 4
+ * and so on up to the given number of committing threads.
+ * <p>
+ * Every transaction creates a number of nodes. Each run commits to a fresh store and transaction log.
+ * <p>
+ * Usage: {@code PipelinedCommitBenchmark [directory] [transactions] [nodes per transaction] [max threads]}
+ */
+public final class PipelinedCommitBenchmark
+{
+    private PipelinedCommitBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Throwable
+    {
+        File directory = new File( args.length > 0 ? args[0] : "target/pipelined-commit-benchmark" ).getCanonicalFile();
+        int transactions = args.length > 1 ? Integer.parseInt( args[1] ) : 20_000;
+        int nodesPerTransaction = args.length > 2 ? Integer.parseInt( args[2] ) : 10;
+        int maxThreads = args.length > 3 ? Integer.parseInt( args[3] ) : 64;
+
+        ExecutorService executor = Executors.newFixedThreadPool( maxThreads );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              JobScheduler scheduler = createInitialisedScheduler() )
+        {
+            for ( int round = 0; round < 3; round++ )
+            {
+                // The first round warms up the JIT.
+                boolean report = round > 0;
+                for ( int threads = 1; threads <= maxThreads; threads *= 2 )
+                {
+                    for ( boolean pipelined : new boolean[]{false, true} )
+                    {
+                        fs.deleteRecursively( directory );
+                        fs.mkdirs( directory );
+                        try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs, scheduler ) )
+                        {
+                            long nanos = commit( fs, pageCache, DatabaseLayout.of( directory ), scheduler, executor,
+                                    pipelined, threads, transactions, nodesPerTransaction );
+                            if ( report )
+                            {
+                                System.out.printf( "pipelined: %5b   threads: %3d   transactions: %,10d   " +
+                                                   "time: %,8d ms   throughput: %,10d tx/s%n", pipelined, threads,
+                                        transactions, TimeUnit.NANOSECONDS.toMillis( nanos ),
+                                        transactions * TimeUnit.SECONDS.toNanos( 1 ) / Math.max( 1, nanos ) );
+                            }
+                        }
+                    }
+                }
+            }
+            fs.deleteRecursively( directory );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static long commit( FileSystemAbstraction fs, PageCache pageCache, DatabaseLayout databaseLayout,
+            JobScheduler scheduler, ExecutorService executor, boolean pipelined, int threads,
+            int transactions, int nodesPerTransaction ) throws Throwable
+    {
+        long[] nanos = new long[1];
+        RecordStorageEngineRule storageEngineRule = new RecordStorageEngineRule();
+        storageEngineRule.apply( new Statement()
+        {
+            @Override
+            public void evaluate() throws Throwable
+            {
+                RecordStorageEngine engine = storageEngineRule.getWith( fs, pageCache, databaseLayout ).build();
+                MetaDataStore metaDataStore = engine.testAccessNeoStores().getMetaDataStore();
+                LifeSupport life = new LifeSupport();
+                try
+                {
+                    LogFiles logFiles = life.add( LogFilesBuilder.builder( databaseLayout, fs )
+                            .withTransactionIdStore( metaDataStore )
+                            .withLogVersionRepository( metaDataStore ).build() );
+                    BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles,
+                            NO_ROTATION, new TransactionMetadataCache(), metaDataStore, BYPASS,
+                            mock( DatabaseHealth.class ) ) );
+                    TransactionCommitProcess commitProcess = pipelined
+                            ? life.add( new PipelinedTransactionCommitProcess( appender, engine, scheduler ) )
+                            : new TransactionRepresentationCommitProcess( appender, engine );
+                    life.start();
+
+                    AtomicLong nextNodeId = new AtomicLong();
+                    int transactionsPerThread = transactions / threads;
+                    long start = System.nanoTime();
+                    List<Future<?>> committers = new ArrayList<>();
+                    for ( int i = 0; i < threads; i++ )
+                    {
+                        committers.add( executor.submit( () ->
+                        {
+                            for ( int j = 0; j < transactionsPerThread; j++ )
+                            {
+                                commitProcess.commit( transaction( nextNodeId, nodesPerTransaction ), CommitEvent.NULL,
+                                        INTERNAL );
+                            }
+                            return null;
+                        } ) );
+                    }
+                    for ( Future<?> committer : committers )
+                    {
+                        committer.get();
+                    }
+                    nanos[0] = System.nanoTime() - start;
+                }
+                finally
+                {
+                    life.shutdown();
+                }
+            }
+        }, Description.EMPTY ).evaluate();
+        return nanos[0];
+    }
+
+    private static TransactionToApply transaction( AtomicLong nextNodeId, int nodesPerTransaction )
+    {
+        List<StorageCommand> commands = new ArrayList<>( nodesPerTransaction );
+        long firstNodeId = nextNodeId.getAndAdd( nodesPerTransaction );
+        for ( int n = 0; n < nodesPerTransaction; n++ )
+        {
+            NodeRecord after = new NodeRecord( firstNodeId + n );
+            after.initialize( true, -1, false, -1, 0 );
+            commands.add( new Command.NodeCommand( new NodeRecord( firstNodeId + n ), after ) );
+        }
+        PhysicalTransactionRepresentation representation = new PhysicalTransactionRepresentation( commands );
+        representation.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
+        return new TransactionToApply( representation );
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.io.ByteUnit;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.files.LogFile;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.PublishEvent;
+import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.scheduler.JobSchedulerFactory.createScheduler;
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+public class PipelinedTransactionCommitProcessTest
+{
+    @Rule
+    public final LifeRule life = new LifeRule( true );
+
+    private final CommitEvent commitEvent = CommitEvent.NULL;
+    private final LogFile logFile = mock( LogFile.class );
+    private final LogFiles logFiles = mock( TransactionLogFiles.class );
+    private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+    private final StorageEngine storageEngine = mock( StorageEngine.class );
+    private final AtomicLong nextTxId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+
+    @Before
+    public void setUp()
+    {
+        when( logFiles.getLogFile() ).thenReturn( logFile );
+        when( logFiles.getLogIndex() ).thenReturn( TransactionLogIndex.NO_INDEX );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( invocation -> nextTxId.incrementAndGet() );
+    }
+
+    @Test
+    public void shouldCommitConcurrentTransactionsThroughAllStages() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryClosableChannel( (int) ByteUnit.mebiBytes( 1 ) ) );
+        AtomicInteger appliedTransactions = new AtomicInteger();
+        doAnswer( invocation ->
+        {
+            appliedTransactions.addAndGet( chainLength( invocation.getArgument( 0 ) ) );
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), eq( INTERNAL ) );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+        int threads = 8;
+        int transactionsPerThread = 100;
+        Set<Long> committedTxIds = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<?>> committers = new ArrayList<>();
+            for ( int i = 0; i < threads; i++ )
+            {
+                committers.add( executor.submit( () ->
+                {
+                    for ( int j = 0; j < transactionsPerThread; j++ )
+                    {
+                        committedTxIds.add( commitProcess.commit( transaction(), commitEvent, INTERNAL ) );
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> committer : committers )
+            {
+                committer.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // THEN
+        int transactions = threads * transactionsPerThread;
+        assertEquals( transactions, committedTxIds.size() );
+        assertEquals( transactions, appliedTransactions.get() );
+        verify( transactionIdStore, times( transactions ) ).transactionCommitted( anyLong(), anyLong(), anyLong() );
+        verify( transactionIdStore, times( transactions ) ).transactionClosed( anyLong(), anyLong(), anyLong() );
+        for ( PipelinedTransactionCommitProcess.Stage stage : stages( commitProcess ) )
+        {
+            assertEquals( stage.name(), transactions, stage.processed() );
+            assertEquals( stage.name(), 0, stage.queueDepth() );
+        }
+    }
+
+    @Test
+    public void shouldApplyTransactionsQueuedForTheApplyStageAsOneBatch() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryClosableChannel() );
+        CountDownLatch applying = new CountDownLatch( 1 );
+        CountDownLatch continueApplying = new CountDownLatch( 1 );
+        List<Integer> appliedBatchLengths = new CopyOnWriteArrayList<>();
+        doAnswer( invocation ->
+        {
+            appliedBatchLengths.add( chainLength( invocation.getArgument( 0 ) ) );
+            applying.countDown();
+            continueApplying.await();
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), eq( INTERNAL ) );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+        int queuedTransactions = 5;
+
+        // WHEN
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try
+        {
+            List<Future<Long>> committers = new ArrayList<>();
+            committers.add( executor.submit( () -> commitProcess.commit( transaction(), commitEvent, INTERNAL ) ) );
+            applying.await();
+            for ( int i = 0; i < queuedTransactions; i++ )
+            {
+                committers.add( executor.submit( () -> commitProcess.commit( transaction(), commitEvent, INTERNAL ) ) );
+            }
+            while ( commitProcess.applyStage().queueDepth() < queuedTransactions )
+            {
+                Thread.sleep( 1 );
+            }
+            continueApplying.countDown();
+            for ( Future<Long> committer : committers )
+            {
+                committer.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // THEN
+        assertEquals( Arrays.asList( 1, queuedTransactions ), appliedBatchLengths );
+        verify( transactionIdStore, times( queuedTransactions + 1 ) ).transactionClosed( anyLong(), anyLong(),
+                anyLong() );
+    }
+
+    @Test
+    public void shouldKeepWaitingWhenInterruptedUntilTheTransactionHasBeenApplied() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryClosableChannel() );
+        CountDownLatch applying = new CountDownLatch( 1 );
+        CountDownLatch continueApplying = new CountDownLatch( 1 );
+        doAnswer( invocation ->
+        {
+            applying.countDown();
+            continueApplying.await();
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), eq( INTERNAL ) );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+        AtomicLong committedTxId = new AtomicLong( -1 );
+        AtomicBoolean interruptedAfterCommit = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread committer = new Thread( () ->
+        {
+            try
+            {
+                committedTxId.set( commitProcess.commit( transaction(), commitEvent, INTERNAL ) );
+                interruptedAfterCommit.set( Thread.currentThread().isInterrupted() );
+            }
+            catch ( Throwable e )
+            {
+                failure.set( e );
+            }
+        } );
+
+        // WHEN
+        committer.start();
+        applying.await();
+        committer.interrupt();
+        committer.join( 100 );
+
+        // THEN the committer must not return, and release the locks of its transaction, before it has been applied
+        assertTrue( committer.isAlive() );
+        verify( transactionIdStore, never() ).transactionClosed( anyLong(), anyLong(), anyLong() );
+
+        // WHEN
+        continueApplying.countDown();
+        committer.join();
+
+        // THEN
+        assertNull( failure.get() );
+        assertEquals( nextTxId.get(), committedTxId.get() );
+        assertTrue( interruptedAfterCommit.get() );
+        verify( transactionIdStore ).transactionClosed( eq( nextTxId.get() ), anyLong(), anyLong() );
+    }
+
+    @Test
+    public void shouldTraceTheStoreApplicationOfEveryTransactionInABatch() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryClosableChannel() );
+        CountDownLatch applying = new CountDownLatch( 1 );
+        CountDownLatch continueApplying = new CountDownLatch( 1 );
+        List<Integer> appliedBatchLengths = new CopyOnWriteArrayList<>();
+        doAnswer( invocation ->
+        {
+            appliedBatchLengths.add( chainLength( invocation.getArgument( 0 ) ) );
+            applying.countDown();
+            continueApplying.await();
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), eq( INTERNAL ) );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+        int queuedTransactions = 3;
+        List<StoreApplyEvent> storeApplyEvents = new ArrayList<>();
+
+        // WHEN
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try
+        {
+            List<Future<Long>> committers = new ArrayList<>();
+            committers.add( executor.submit( () -> commitProcess.commit( transaction(), commitEvent, INTERNAL ) ) );
+            applying.await();
+            for ( int i = 0; i < queuedTransactions; i++ )
+            {
+                StoreApplyEvent storeApplyEvent = mock( StoreApplyEvent.class );
+                storeApplyEvents.add( storeApplyEvent );
+                CommitEvent tracedCommitEvent = tracingStoreApplication( storeApplyEvent );
+                committers.add( executor.submit(
+                        () -> commitProcess.commit( transaction(), tracedCommitEvent, INTERNAL ) ) );
+            }
+            while ( commitProcess.applyStage().queueDepth() < queuedTransactions )
+            {
+                Thread.sleep( 1 );
+            }
+            continueApplying.countDown();
+            for ( Future<Long> committer : committers )
+            {
+                committer.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // THEN
+        assertEquals( Arrays.asList( 1, queuedTransactions ), appliedBatchLengths );
+        for ( StoreApplyEvent storeApplyEvent : storeApplyEvents )
+        {
+            verify( storeApplyEvent ).close();
+        }
+    }
+
+    @Test
+    public void shouldCloseTransactionThatFailedToBeAppliedToTheStore() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryClosableChannel() );
+        IOException rootCause = new IOException( "Mock exception" );
+        doThrow( rootCause ).when( storageEngine ).apply( any( TransactionToApply.class ),
+                any( TransactionApplicationMode.class ) );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+
+        // WHEN
+        try
+        {
+            commitProcess.commit( transaction(), commitEvent, INTERNAL );
+            fail( "Should have failed, something is wrong with the mocking in this test" );
+        }
+        catch ( TransactionFailureException e )
+        {
+            // THEN
+            assertThat( e.getMessage(), containsString( "Could not apply the transaction to the store" ) );
+            assertEquals( rootCause, e.getCause() );
+        }
+        verify( transactionIdStore ).transactionClosed( eq( nextTxId.get() ), anyLong(), anyLong() );
+    }
+
+    @Test
+    public void shouldNotApplyOrCloseTransactionThatFailedToBeForced() throws Exception
+    {
+        // GIVEN
+        IOException failure = new IOException( "Forces a failure" );
+        FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
+        Flushable flushable = mock( Flushable.class );
+        doAnswer( invocation ->
+        {
+            invocation.callRealMethod();
+            return flushable;
+        } ).when( channel ).prepareForFlush();
+        doThrow( failure ).when( flushable ).flush();
+        when( logFile.getWriter() ).thenReturn( channel );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+
+        // WHEN
+        try
+        {
+            commitProcess.commit( transaction(), commitEvent, INTERNAL );
+            fail( "Should have failed, something is wrong with the mocking in this test" );
+        }
+        catch ( TransactionFailureException e )
+        {
+            // THEN
+            assertThat( e.getMessage(), containsString( "Could not append transaction representation to log" ) );
+            assertEquals( failure, e.getCause() );
+        }
+        verify( storageEngine, never() ).apply( any( TransactionToApply.class ),
+                any( TransactionApplicationMode.class ) );
+        verify( transactionIdStore, never() ).transactionCommitted( anyLong(), anyLong(), anyLong() );
+        verify( transactionIdStore, never() ).transactionClosed( anyLong(), anyLong(), anyLong() );
+    }
+
+    @Test
+    public void shouldRefuseToCommitWhenStopped() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( new InMemoryClosableChannel() );
+        PipelinedTransactionCommitProcess commitProcess = pipeline();
+        commitProcess.stop();
+
+        // WHEN
+        try
+        {
+            commitProcess.commit( transaction(), commitEvent, INTERNAL );
+            fail( "Should have failed to commit on a stopped pipeline" );
+        }
+        catch ( TransactionFailureException e )
+        {
+            // THEN
+            assertEquals( Status.General.DatabaseUnavailable, e.status() );
+        }
+        verify( transactionIdStore, never() ).nextCommittingTransactionId();
+    }
+
+    private PipelinedTransactionCommitProcess pipeline()
+    {
+        JobScheduler scheduler = life.add( createScheduler() );
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                new TransactionMetadataCache(), transactionIdStore, BYPASS, mock( DatabaseHealth.class ) ) );
+        return life.add( new PipelinedTransactionCommitProcess( appender, storageEngine, scheduler ) );
+    }
+
+    private static List<PipelinedTransactionCommitProcess.Stage> stages( PipelinedTransactionCommitProcess commitProcess )
+    {
+        List<PipelinedTransactionCommitProcess.Stage> stages = new ArrayList<>();
+        stages.add( commitProcess.appendStage() );
+        stages.add( commitProcess.forceStage() );
+        stages.add( commitProcess.applyStage() );
+        return stages;
+    }
+
+    private static CommitEvent tracingStoreApplication( StoreApplyEvent storeApplyEvent )
+    {
+        CommitEvent commitEvent = mock( CommitEvent.class );
+        when( commitEvent.beginLogAppend() ).thenReturn( LogAppendEvent.NULL );
+        when( commitEvent.beginStoreApply() ).thenReturn( storeApplyEvent );
+        when( commitEvent.beginPublish() ).thenReturn( PublishEvent.NULL );
+        return commitEvent;
+    }
+
+    private static int chainLength( TransactionToApply batch )
+    {
+        int length = 0;
+        while ( batch != null )
+        {
+            length++;
+            batch = batch.next();
+        }
+        return length;
+    }
+
+    private static TransactionToApply transaction()
+    {
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( Collections.emptyList() );
+        transaction.setHeader( new byte[0], -1, -1, -1, -1, -1, -1 );
+        return new TransactionToApply( transaction );
+    }
+}
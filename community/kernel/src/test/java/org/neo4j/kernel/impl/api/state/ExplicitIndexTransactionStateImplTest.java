@@ -275,6 +275,30 @@ public class ExplicitIndexTransactionStateImplTest
         assertFalse( exists );
     }
 
+    @Test
+    public void shouldEstimateHeapUsageOfCommands()
+    {
+        // given
+        ExplicitIndexTransactionStateImpl state = newExplicitIndexTxState();
+        assertEquals( 0, state.estimatedHeapUsage() );
+
+        // when
+        state.addNode( "index", 1, "key", "short" );
+        long shortValueUsage = state.estimatedHeapUsage();
+        state.addNode( "index", 2, "key", "a considerably longer value" );
+        long usage = state.estimatedHeapUsage();
+
+        // then
+        assertTrue( shortValueUsage > 0 );
+        assertTrue( usage - shortValueUsage > shortValueUsage );
+
+        // when
+        state.deleteIndex( IndexEntityType.Node, "index" );
+
+        // then
+        assertTrue( state.estimatedHeapUsage() < shortValueUsage );
+    }
+
     private static Set<StorageCommand> extractCommands( ExplicitIndexTransactionStateImpl state )
     {
         Set<StorageCommand> commands = new HashSet<>();
@@ -58,6 +58,7 @@ import org.neo4j.kernel.impl.util.collection.CachingOffHeapBlockAllocator;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
 import org.neo4j.kernel.impl.util.collection.OffHeapCollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
 import org.neo4j.kernel.impl.util.diffsets.MutableLongDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.MutableLongDiffSetsImpl;
 import org.neo4j.storageengine.api.StorageProperty;
@@ -361,6 +362,31 @@ public class TxStateTest
 
     //region miscellaneous
 
+    @Test
+    public void shouldEstimateHeapUsageOfChangedNodesWhateverTheCollectionsFactory()
+    {
+        assertEquals( 0, state.estimatedHeapUsage() );
+
+        state.nodeDoAddProperty( 0, 1, stringValue( "value" ) );
+        long oneNode = state.estimatedHeapUsage();
+        state.nodeDoAddProperty( 1, 1, stringValue( "value" ) );
+
+        assertTrue( oneNode > 0 );
+        assertEquals( 2 * oneNode, state.estimatedHeapUsage() );
+    }
+
+    @Test
+    public void shouldEstimateHeapUsageOfPropertiesOnlyWhenTheyAreStoredOnHeap()
+    {
+        state.nodeDoAddProperty( 0, 1, stringValue( "value" ) );
+        long before = state.estimatedHeapUsage();
+
+        state.nodeDoAddProperty( 0, 2, stringValue( "a considerably longer value" ) );
+
+        boolean onHeap = collectionsFactory instanceof OnHeapCollectionsFactory;
+        assertEquals( onHeap, state.estimatedHeapUsage() > before );
+    }
+
     @Test
     public void shouldListNodeAsDeletedIfItIsDeleted()
     {
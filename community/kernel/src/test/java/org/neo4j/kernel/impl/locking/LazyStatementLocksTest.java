@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.Future;
+
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.test.rule.concurrent.OtherThreadRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.test.rule.concurrent.OtherThreadRule.isWaiting;
+
+public class LazyStatementLocksTest
+{
+    @Rule
+    public final OtherThreadRule<Void> otherThread = new OtherThreadRule<>();
+
+    private final StatementLocksFactory factory = mock( StatementLocksFactory.class );
+    private final Locks.Client client = mock( Locks.Client.class );
+    private final LightweightSharedLocks sharedLocks = new LightweightSharedLocks();
+
+    public LazyStatementLocksTest()
+    {
+        when( factory.newInstance() ).then( invocation -> new SimpleStatementLocks( client ) );
+    }
+
+    private static StatementLocksFactory factoryOf( Locks.Client client )
+    {
+        StatementLocksFactory factory = mock( StatementLocksFactory.class );
+        when( factory.newInstance() ).then( invocation -> new SimpleStatementLocks( client ) );
+        return factory;
+    }
+
+    @Test
+    public void shouldNotCreateLocksThatAreNeverUsed()
+    {
+        // given
+        LazyStatementLocks locks = new LazyStatementLocks( factory );
+
+        // when
+        assertEquals( 0, locks.activeLockCount() );
+        assertEquals( 0, locks.activeLocks().count() );
+        assertEquals( -1, locks.lockSessionId() );
+        locks.stop();
+        locks.close();
+
+        // then
+        verify( factory, never() ).newInstance();
+    }
+
+    @Test
+    public void shouldCreateLocksOnceWhenFirstUsed()
+    {
+        // given
+        LazyStatementLocks locks = new LazyStatementLocks( factory );
+
+        // when
+        when( client.getLockSessionId() ).thenReturn( 42 );
+        Locks.Client pessimistic = locks.pessimistic();
+        Locks.Client optimistic = locks.optimistic();
+        assertEquals( 42, locks.lockSessionId() );
+        locks.prepareForCommit( LockTracer.NONE );
+        locks.close();
+
+        // then
+        assertSame( client, pessimistic );
+        assertSame( client, optimistic );
+        verify( factory, times( 1 ) ).newInstance();
+        verify( client ).prepare();
+        verify( client ).close();
+    }
+
+    @Test
+    public void shouldStopLocksThatAreCreatedAfterStop()
+    {
+        // given
+        LazyStatementLocks locks = new LazyStatementLocks( factory );
+        locks.stop();
+
+        // when
+        locks.pessimistic();
+
+        // then
+        verify( client ).stop();
+    }
+
+    @Test
+    public void shouldCloseLocksThatAreCreatedAfterClose()
+    {
+        // given
+        LazyStatementLocks locks = new LazyStatementLocks( factory );
+        locks.close();
+
+        // when
+        locks.pessimistic();
+        locks.close();
+
+        // then
+        verify( client, times( 1 ) ).close();
+    }
+
+    @Test
+    public void shouldTakeUncontendedSchemaLocksWithoutCreatingLocks()
+    {
+        // given
+        LazyStatementLocks locks = new LazyStatementLocks( factory, sharedLocks );
+
+        // when
+        locks.pessimistic().acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1, 2 );
+        locks.optimistic().acquireShared( LockTracer.NONE, ResourceTypes.RELATIONSHIP_TYPE, 1 );
+
+        // then
+        assertEquals( 3, locks.activeLockCount() );
+        assertEquals( -1, locks.pessimistic().getLockSessionId() );
+        locks.close();
+        verify( factory, never() ).newInstance();
+    }
+
+    @Test
+    public void shouldMoveSchemaLocksToTheLockClientWhenItIsCreated()
+    {
+        // given
+        LazyStatementLocks locks = new LazyStatementLocks( factory, sharedLocks );
+        locks.pessimistic().acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+
+        // when
+        locks.pessimistic().acquireExclusive( LockTracer.NONE, ResourceTypes.NODE, 7 );
+        locks.pessimistic().releaseShared( ResourceTypes.LABEL, 1 );
+
+        // then
+        verify( client ).acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+        verify( client ).acquireExclusive( LockTracer.NONE, ResourceTypes.NODE, 7 );
+        verify( client ).releaseShared( ResourceTypes.LABEL, 1 );
+        locks.close();
+    }
+
+    @Test
+    public void shouldTakeSchemaLocksFromTheLockClientWhenSomeoneWantsThemExclusively()
+    {
+        // given
+        LazyStatementLocks writer = new LazyStatementLocks( factoryOf( mock( Locks.Client.class ) ), sharedLocks );
+        writer.pessimistic().acquireExclusive( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+        LazyStatementLocks reader = new LazyStatementLocks( factory, sharedLocks );
+
+        // when
+        reader.pessimistic().acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+
+        // then
+        verify( client ).acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+        reader.close();
+        writer.close();
+    }
+
+    @Test( timeout = 30_000 )
+    public void shouldMakeExclusiveLockersWaitForSchemaLocksTakenWithoutLockClient() throws Exception
+    {
+        // given
+        LazyStatementLocks reader = new LazyStatementLocks( factory, sharedLocks );
+        reader.pessimistic().acquireShared( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+        Locks.Client writerClient = mock( Locks.Client.class );
+        LazyStatementLocks writer = new LazyStatementLocks( factoryOf( writerClient ), sharedLocks );
+
+        // when
+        Future<Void> exclusiveLock = otherThread.execute( state ->
+        {
+            writer.pessimistic().acquireExclusive( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+            return null;
+        } );
+        assertThat( otherThread, isWaiting() );
+        assertFalse( exclusiveLock.isDone() );
+        reader.close();
+
+        // then
+        exclusiveLock.get();
+        verify( writerClient ).acquireExclusive( LockTracer.NONE, ResourceTypes.LABEL, 1 );
+        verify( factory, never() ).newInstance();
+        writer.close();
+    }
+}
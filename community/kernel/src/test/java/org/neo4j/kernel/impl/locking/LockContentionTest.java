@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import org.neo4j.kernel.impl.locking.LockContention.HotSpot;
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.storageengine.api.lock.LockWaitEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.RELATIONSHIP;
+
+public class LockContentionTest
+{
+    @Test
+    public void shouldListResourcesByWaitCount()
+    {
+        // given
+        LockContention contention = new LockContention( 10 );
+
+        // when
+        wait( contention, NODE, 1, 3 );
+        wait( contention, RELATIONSHIP, 1, 4 );
+        wait( contention, RELATIONSHIP, 1, 5 );
+
+        // then
+        List<HotSpot> hotSpots = contention.hotSpots();
+        assertEquals( 2, hotSpots.size() );
+        assertHotSpot( hotSpots.get( 0 ), RELATIONSHIP, 1, 2, 0 );
+        assertEquals( 5, hotSpots.get( 0 ).lastHolderLockSessionId() );
+        assertHotSpot( hotSpots.get( 1 ), NODE, 1, 1, 0 );
+        assertEquals( 3, hotSpots.get( 1 ).lastHolderLockSessionId() );
+    }
+
+    @Test
+    public void shouldCountConcurrentWaiters()
+    {
+        // given
+        LockContention contention = new LockContention( 10 );
+
+        // when
+        LockWaitEvent first = contention.waitForLock( LockTracer.NONE, true, NODE, 1, 4, 3 );
+        LockWaitEvent second = contention.waitForLock( LockTracer.NONE, true, NODE, 1, 4, 3 );
+        first.close();
+
+        // then
+        HotSpot hotSpot = contention.hotSpots().get( 0 );
+        assertEquals( 1, hotSpot.waiting() );
+        assertEquals( 2, hotSpot.maxWaiting() );
+        second.close();
+        assertEquals( 0, contention.hotSpots().get( 0 ).waiting() );
+        assertTrue( contention.hotSpots().get( 0 ).totalWaitNanos() >= contention.hotSpots().get( 0 ).maxWaitNanos() );
+    }
+
+    @Test
+    public void shouldReplaceLeastWaitedForResourceWhenFull()
+    {
+        // given
+        LockContention contention = new LockContention( 2 );
+        wait( contention, NODE, 1, 3 );
+        wait( contention, NODE, 1, 3 );
+        wait( contention, NODE, 2, 3 );
+
+        // when
+        wait( contention, NODE, 3, 3 );
+
+        // then
+        List<HotSpot> hotSpots = contention.hotSpots();
+        assertEquals( 2, hotSpots.size() );
+        assertHotSpot( hotSpots.get( 0 ), NODE, 1, 2, 0 );
+        assertHotSpot( hotSpots.get( 1 ), NODE, 3, 2, 1 );
+    }
+
+    @Test
+    public void shouldNotReplaceResourceThatIsWaitedFor()
+    {
+        // given
+        LockContention contention = new LockContention( 2 );
+        wait( contention, NODE, 1, 3 );
+        LockWaitEvent ongoing = contention.waitForLock( LockTracer.NONE, true, NODE, 2, 4, 3 );
+        wait( contention, NODE, 2, 3 );
+
+        // when
+        wait( contention, NODE, 3, 3 );
+        ongoing.close();
+
+        // then
+        List<HotSpot> hotSpots = contention.hotSpots();
+        assertEquals( 2, hotSpots.size() );
+        assertHotSpot( hotSpots.get( 0 ), NODE, 2, 2, 0 );
+        assertHotSpot( hotSpots.get( 1 ), NODE, 3, 2, 1 );
+    }
+
+    @Test
+    public void shouldPassWaitsOnToTheTracer()
+    {
+        // given
+        LockTracer tracer = mock( LockTracer.class );
+        LockWaitEvent event = mock( LockWaitEvent.class );
+        when( tracer.waitForLockHeldBy( true, NODE, 7, 4, 3 ) ).thenReturn( event );
+
+        // when
+        new LockContention( 10 ).waitForLock( tracer, true, NODE, 7, 4, 3 ).close();
+
+        // then
+        verify( tracer ).waitForLockHeldBy( true, NODE, 7, 4, 3 );
+        verify( event ).close();
+    }
+
+    @Test
+    public void shouldOnlyPassWaitsOnToTheTracerWhenDisabled()
+    {
+        // given
+        LockTracer tracer = mock( LockTracer.class );
+        LockWaitEvent event = mock( LockWaitEvent.class );
+        when( tracer.waitForLockHeldBy( true, NODE, 7, 4, 3 ) ).thenReturn( event );
+
+        // when
+        LockWaitEvent returned = LockContention.DISABLED.waitForLock( tracer, true, NODE, 7, 4, 3 );
+
+        // then
+        assertSame( event, returned );
+        assertTrue( LockContention.DISABLED.hotSpots().isEmpty() );
+    }
+
+    @Test
+    public void shouldForgetResourcesWhenCleared()
+    {
+        // given
+        LockContention contention = new LockContention( 10 );
+        wait( contention, NODE, 1, 3 );
+
+        // when
+        contention.clear();
+
+        // then
+        assertTrue( contention.hotSpots().isEmpty() );
+    }
+
+    private static void wait( LockContention contention, ResourceTypes resourceType, long resourceId, int holder )
+    {
+        contention.waitForLock( LockTracer.NONE, true, resourceType, resourceId, -1, holder ).close();
+    }
+
+    private static void assertHotSpot( HotSpot hotSpot, ResourceTypes resourceType, long resourceId, long waits,
+            long overestimatedWaits )
+    {
+        assertEquals( resourceType, hotSpot.resourceType() );
+        assertEquals( resourceId, hotSpot.resourceId() );
+        assertEquals( waits, hotSpot.waits() );
+        assertEquals( overestimatedWaits, hotSpot.overestimatedWaits() );
+    }
+}
@@ -31,6 +31,7 @@ import org.neo4j.storageengine.api.lock.LockWaitEvent;
 import org.neo4j.storageengine.api.lock.ResourceType;
 
 import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
 import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
 
 @Ignore( "Not a test. This is a compatibility suite, run from LockingCompatibilityTestSuite." )
@@ -95,9 +96,53 @@ public class TracerCompatibility extends LockingCompatibilityTestSuite.Compatibi
         tracerB.assertCalls( 1 );
     }
 
+    @Test
+    public void shouldAccountWaitsToTheContendedResource() throws Exception
+    {
+        // given
+        clientA.acquireExclusive( LockTracer.NONE, NODE, 17 );
+        clientA.acquireShared( LockTracer.NONE, NODE, 18 );
+
+        // when
+        Future<Object> future = acquireShared( clientB, LockTracer.NONE, NODE, 17 ).callAndAssertWaiting();
+        clientA.releaseExclusive( NODE, 17 );
+        future.get();
+
+        // then
+        List<LockContention.HotSpot> hotSpots = locks.contention().hotSpots();
+        assertEquals( 1, hotSpots.size() );
+        LockContention.HotSpot hotSpot = hotSpots.get( 0 );
+        assertEquals( NODE, hotSpot.resourceType() );
+        assertEquals( 17, hotSpot.resourceId() );
+        assertEquals( 1, hotSpot.waits() );
+        assertEquals( 0, hotSpot.waiting() );
+        assertEquals( 1, hotSpot.maxWaiting() );
+        assertEquals( clientA.getLockSessionId(), hotSpot.lastHolderLockSessionId() );
+    }
+
+    @Test
+    public void shouldTellTheTracerWhichLockSessionsWaitAndHold() throws Exception
+    {
+        // given
+        Tracer tracer = new Tracer();
+        clientA.acquireExclusive( LockTracer.NONE, NODE, 17 );
+
+        // when
+        Future<Object> future = acquireShared( clientB, tracer, NODE, 17 ).callAndAssertWaiting();
+        clientA.releaseExclusive( NODE, 17 );
+        future.get();
+
+        // then
+        tracer.assertCalls( 1 );
+        assertEquals( clientB.getLockSessionId(), tracer.waiterLockSessionId );
+        assertEquals( clientA.getLockSessionId(), tracer.holderLockSessionId );
+    }
+
     static class Tracer implements LockTracer, LockWaitEvent
     {
         int done;
+        int waiterLockSessionId = -1;
+        int holderLockSessionId = -1;
         final List<StackTraceElement[]> waitCalls = new ArrayList<>();
 
         @Override
@@ -107,6 +152,15 @@ public class TracerCompatibility extends LockingCompatibilityTestSuite.Compatibi
             return this;
         }
 
+        @Override
+        public LockWaitEvent waitForLockHeldBy( boolean exclusive, ResourceType resourceType, long resourceId,
+                int waiterLockSessionId, int holderLockSessionId )
+        {
+            this.waiterLockSessionId = waiterLockSessionId;
+            this.holderLockSessionId = holderLockSessionId;
+            return waitForLock( exclusive, resourceType, resourceId );
+        }
+
         @Override
         public void close()
         {
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.time.Clocks;
+
+/**
+ * Measures how many transactions per second a number of threads can lock through the {@link CommunityLockManger}
+ * and through the {@link StripedLockManager}, at 1, 2, 4 and so on up to the given number of threads.
+ * <p>
+ * Every transaction opens a new client, locks a handful of random nodes out of a given range, mostly shared and
+ * now and then exclusively, and closes the client again. The nodes are locked in ascending order, so that the
+ * transactions never deadlock, and a smaller range of nodes means more contention.
+ * <p>
+ * Usage: {@code LockManagerContentionBenchmark [max threads] [nodes] [locks per transaction] [seconds per run]}
+ */
+public final class LockManagerContentionBenchmark
+{
+    private LockManagerContentionBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws InterruptedException
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt( args[0] ) : 64;
+        int nodes = args.length > 1 ? Integer.parseInt( args[1] ) : 10_000;
+        int locksPerTransaction = args.length > 2 ? Integer.parseInt( args[2] ) : 8;
+        int seconds = args.length > 3 ? Integer.parseInt( args[3] ) : 5;
+
+        for ( int round = 0; round < 2; round++ )
+        {
+            // The first round warms up the JIT.
+            boolean report = round > 0;
+            for ( int threads = 1; threads <= maxThreads; threads *= 2 )
+            {
+                long community = run( new CommunityLockManger( Config.defaults(), Clocks.systemClock() ), threads,
+                        nodes, locksPerTransaction, seconds );
+                long striped = run( new StripedLockManager( Config.defaults(), Clocks.systemClock(),
+                        ResourceTypes.values() ), threads, nodes, locksPerTransaction, seconds );
+                if ( report )
+                {
+                    System.out.printf( "threads: %3d   community: %,12d tx/s   striped: %,12d tx/s%n",
+                            threads, community / seconds, striped / seconds );
+                }
+            }
+        }
+    }
+
+    private static long run( Locks locks, int threadCount, int nodes, int locksPerTransaction, int seconds )
+            throws InterruptedException
+    {
+        AtomicBoolean end = new AtomicBoolean();
+        LongAdder transactions = new LongAdder();
+        Thread[] threads = new Thread[threadCount];
+        for ( int i = 0; i < threadCount; i++ )
+        {
+            SplittableRandom random = new SplittableRandom( i );
+            threads[i] = new Thread( () ->
+            {
+                long[] nodeIds = new long[locksPerTransaction];
+                while ( !end.get() )
+                {
+                    for ( int n = 0; n < nodeIds.length; n++ )
+                    {
+                        nodeIds[n] = random.nextInt( nodes );
+                    }
+                    Arrays.sort( nodeIds );
+                    try ( Locks.Client client = locks.newClient() )
+                    {
+                        for ( int n = 0; n < nodeIds.length; n++ )
+                        {
+                            long nodeId = nodeIds[n];
+                            if ( n > 0 && nodeId == nodeIds[n - 1] )
+                            {
+                                // Locking a node twice could upgrade a shared lock, which can deadlock.
+                                continue;
+                            }
+                            if ( random.nextInt( 10 ) == 0 )
+                            {
+                                client.acquireExclusive( LockTracer.NONE, ResourceTypes.NODE, nodeId );
+                            }
+                            else
+                            {
+                                client.acquireShared( LockTracer.NONE, ResourceTypes.NODE, nodeId );
+                            }
+                        }
+                    }
+                    transactions.increment();
+                }
+            } );
+            threads[i].start();
+        }
+        Thread.sleep( TimeUnit.SECONDS.toMillis( seconds ) );
+        end.set( true );
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        locks.close();
+        return transactions.sum();
+    }
+}
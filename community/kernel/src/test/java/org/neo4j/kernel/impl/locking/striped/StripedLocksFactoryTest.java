@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.junit.jupiter.api.Test;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.kernel.impl.locking.DynamicLocksFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StripedLocksFactoryTest
+{
+
+    @Test
+    void loadStripedLocksFactoryByName()
+    {
+        DynamicLocksFactory factory = Service.load( DynamicLocksFactory.class, "striped" );
+
+        assertThat( factory, instanceOf( StripedLocksFactory.class ) );
+    }
+
+    @Test
+    void notPickedWhenNoLockManagerIsConfigured()
+    {
+        assertFalse( new StripedLocksFactory().isDefault() );
+    }
+}
@@ -23,10 +23,21 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+
+import org.neo4j.graphdb.config.InvalidSettingException;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.layout.DatabaseFile;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
@@ -41,7 +52,15 @@ import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_background_flush;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_background_flush_iops_limit;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_compression;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_heat_map_sampling_interval;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_reservations;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_stripes;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
 import static org.neo4j.kernel.impl.pagecache.PageSwapperFactoryForTesting.TEST_PAGESWAPPER_NAME;
@@ -50,6 +69,8 @@ public class ConfiguringPageCacheFactoryTest
 {
     @Rule
     public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final ExpectedException expectedException = ExpectedException.none();
 
     private JobScheduler jobScheduler;
 
@@ -133,6 +154,33 @@ public class ConfiguringPageCacheFactoryTest
         logProvider.assertContainsMessageContaining( TEST_PAGESWAPPER_NAME );
     }
 
+    @Test
+    public void mustUseDirectIOPageSwapperWhenConfigured() throws IOException
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_swapper.name(), "direct" ) );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        Log log = logProvider.getLog( PageCache.class );
+
+        File nodeStore = new File( DatabaseFile.NODE_STORE.getName() ).getCanonicalFile();
+
+        // When
+        try ( PageCache pageCache = new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, log, EmptyVersionContextSupplier.EMPTY, jobScheduler )
+                .getOrCreatePageCache() )
+        {
+            // The page size of the node store, which has 15 byte records.
+            int nodeStorePageSize = pageCache.pageSize() - pageCache.pageSize() % 15;
+            pageCache.map( nodeStore, nodeStorePageSize, StandardOpenOption.CREATE ).close();
+        }
+
+        // Then
+        logProvider.assertContainsMessageContaining( pagecache_swapper.name() + ": direct" );
+        logProvider.assertContainsMessageContaining( "Using buffered IO rather than direct IO for " + nodeStore );
+    }
+
     @Test( expected = IllegalArgumentException.class )
     public void mustThrowIfConfiguredPageSwapperCannotBeFound()
     {
@@ -145,4 +193,186 @@ public class ConfiguringPageCacheFactoryTest
         new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL,
                 NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY, jobScheduler ).getOrCreatePageCache().close();
     }
+
+    @Test
+    public void mustReserveConfiguredPagesForStoreFiles()
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_reservations.name(), "NODE:10%,index:1m" ) );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        Log log = logProvider.getLog( PageCache.class );
+
+        // When
+        new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL,
+                log, EmptyVersionContextSupplier.EMPTY, jobScheduler ).getOrCreatePageCache().close();
+
+        // Then
+        logProvider.assertContainsMessageContaining( "Reserved 102 pages of the page cache for NODE." );
+        logProvider.assertContainsMessageContaining( "Reserved 128 pages of the page cache for index." );
+    }
+
+    @Test( expected = InvalidSettingException.class )
+    public void mustThrowIfReservationIsForUnknownStoreType()
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_reservations.name(), "NODES:10%" ) );
+
+        // When
+        new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL,
+                NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY, jobScheduler ).getOrCreatePageCache().close();
+    }
+
+    @Test( expected = InvalidSettingException.class )
+    public void mustThrowIfReservationsExceedPageCache()
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_reservations.name(), "NODE:60%,RELATIONSHIP:60%" ) );
+
+        // When
+        new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL,
+                NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY, jobScheduler ).getOrCreatePageCache().close();
+    }
+
+    @Test
+    public void mustStartAndLogBackgroundFlushingWhenEnabled() throws Exception
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_background_flush.name(), "true",
+                pagecache_background_flush_iops_limit.name(), "500" ) );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        Log log = logProvider.getLog( PageCache.class );
+
+        // When
+        try ( MuninnPageCache pageCache = (MuninnPageCache) new ConfiguringPageCacheFactory( fsRule.get(), config,
+                PageCacheTracer.NULL, PageCursorTracerSupplier.NULL, log, EmptyVersionContextSupplier.EMPTY,
+                jobScheduler ).getOrCreatePageCache() )
+        {
+            // Then
+            logProvider.assertContainsMessageContaining(
+                    "Background flushing of the page cache enabled, limited to 500 IOs per second." );
+            expectedException.expect( IllegalStateException.class );
+            pageCache.startBackgroundFlushing( IOLimiter.UNLIMITED );
+        }
+    }
+
+    @Test
+    public void mustCompressConfiguredStoreFiles() throws Exception
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_compression.name(), "property,PROPERTY_STRING" ) );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        Log log = logProvider.getLog( PageCache.class );
+        File propertyStore = new File( DatabaseFile.PROPERTY_STORE.getName() ).getCanonicalFile();
+        File nodeStore = new File( DatabaseFile.NODE_STORE.getName() ).getCanonicalFile();
+
+        // When
+        try ( PageCache pageCache = new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, log, EmptyVersionContextSupplier.EMPTY, jobScheduler )
+                .getOrCreatePageCache() )
+        {
+            pageCache.map( propertyStore, pageCache.pageSize(), StandardOpenOption.CREATE ).close();
+            pageCache.map( nodeStore, pageCache.pageSize(), StandardOpenOption.CREATE ).close();
+        }
+
+        // Then
+        logProvider.assertContainsMessageContaining(
+                "Page cache compression enabled for [PROPERTY_STRING, PROPERTY]." );
+        assertTrue( fsRule.get().fileExists( new File( propertyStore.getPath() + ".pagetable" ) ) );
+        assertFalse( fsRule.get().fileExists( new File( nodeStore.getPath() + ".pagetable" ) ) );
+    }
+
+    @Test
+    public void mustRefuseToOpenCompressedStoreWithoutCompression() throws IOException
+    {
+        // Given
+        File propertyStore = new File( DatabaseFile.PROPERTY_STORE.getName() ).getCanonicalFile();
+        Config compressing = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_compression.name(), "property" ) );
+        try ( PageCache pageCache = new ConfiguringPageCacheFactory( fsRule.get(), compressing, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY, jobScheduler )
+                .getOrCreatePageCache() )
+        {
+            try ( PagedFile pagedFile = pageCache.map( propertyStore, pageCache.pageSize(), StandardOpenOption.CREATE );
+                  PageCursor cursor = pagedFile.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( 42 );
+            }
+        }
+
+        // When
+        Config notCompressing = Config.defaults( pagecache_memory, "8m" );
+        try ( PageCache pageCache = new ConfiguringPageCacheFactory( fsRule.get(), notCompressing, PageCacheTracer.NULL,
+                PageCursorTracerSupplier.NULL, NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY, jobScheduler )
+                .getOrCreatePageCache() )
+        {
+            // Then
+            expectedException.expect( IOException.class );
+            expectedException.expectMessage( "is compressed, but is being opened without compression" );
+            pageCache.map( propertyStore, pageCache.pageSize() );
+        }
+    }
+
+    @Test( expected = InvalidSettingException.class )
+    public void mustThrowIfCompressionIsForUnknownStoreType()
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_compression.name(), "PROPERTIES" ) );
+
+        // When
+        new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL,
+                NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY, jobScheduler ).getOrCreatePageCache().close();
+    }
+
+    @Test
+    public void mustPartitionIntoStripesWhenConfigured()
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_stripes.name(), "2" ) );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        Log log = logProvider.getLog( PageCache.class );
+
+        // When
+        new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL,
+                log, EmptyVersionContextSupplier.EMPTY, jobScheduler ).getOrCreatePageCache().close();
+
+        // Then
+        logProvider.assertContainsMessageContaining( "Partitioned the page cache into 2 stripes." );
+    }
+
+    @Test
+    public void mustConfigureHeatMapSamplingIntervalDynamically()
+    {
+        // Given
+        Config config = Config.defaults( stringMap(
+                pagecache_memory.name(), "8m",
+                pagecache_heat_map_sampling_interval.name(), "100" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        // When
+        try ( PageCache ignore = new ConfiguringPageCacheFactory( fsRule.get(), config, tracer,
+                PageCursorTracerSupplier.NULL, NullLog.getInstance(), EmptyVersionContextSupplier.EMPTY,
+                jobScheduler ).getOrCreatePageCache() )
+        {
+            // Then
+            assertThat( tracer.heatMap().samplingInterval(), is( 100 ) );
+            config.updateDynamicSetting( pagecache_heat_map_sampling_interval.name(), "0", "test" );
+            assertThat( tracer.heatMap().samplingInterval(), is( 0 ) );
+        }
+    }
 }
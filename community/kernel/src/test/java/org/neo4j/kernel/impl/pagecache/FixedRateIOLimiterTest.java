@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FixedRateIOLimiterTest
+{
+    private static final Flushable FLUSHABLE = () ->
+    {
+    };
+
+    @Test
+    public void mustPauseFlushThatGoesFasterThanTheLimit()
+    {
+        // Given
+        IOLimiter limiter = new FixedRateIOLimiter( 1000 );
+
+        // When
+        long startNanos = System.nanoTime();
+        long stamp = IOLimiter.INITIAL_STAMP;
+        for ( int i = 0; i < 30; i++ )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 10, FLUSHABLE );
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+
+        // Then 300 IOs at 1000 IOPS, of which the first 10 were free, must take almost 300 milliseconds.
+        assertThat( elapsedMillis, greaterThanOrEqualTo( 280L ) );
+    }
+
+    @Test
+    public void mustNotPauseFlushWhenLimitIsDisabled()
+    {
+        // Given
+        IOLimiter limiter = new FixedRateIOLimiter( 1 );
+        limiter.disableLimit();
+
+        // When
+        long startNanos = System.nanoTime();
+        long stamp = IOLimiter.INITIAL_STAMP;
+        for ( int i = 0; i < 100; i++ )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 100, FLUSHABLE );
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+
+        // Then
+        assertFalse( limiter.isLimited() );
+        assertThat( elapsedMillis, lessThan( 1000L ) );
+        limiter.enableLimit();
+        assertTrue( limiter.isLimited() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustRejectNonPositiveLimit()
+    {
+        new FixedRateIOLimiter( 0 );
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.File;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.kernel.impl.transaction.log.LogForceBarrier;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class LogForcingPageSwapperFactoryTest
+{
+    private final File file = new File( "neostore.nodestore.db" );
+    private final PageSwapperFactory delegateFactory = mock( PageSwapperFactory.class );
+    private final PageSwapper delegate = mock( PageSwapper.class );
+    private final TransactionAppender appender = mock( TransactionAppender.class );
+    private final LogForceBarrier barrier = new LogForceBarrier();
+
+    @Test
+    public void shouldMakeLogsDurableBeforeWritingPages() throws Exception
+    {
+        // Given
+        PageSwapper swapper = createSwapper();
+        barrier.register( appender );
+
+        // When
+        swapper.write( 1, 1024 );
+        swapper.write( 2, new long[]{1024, 2048}, 0, 2 );
+
+        // Then
+        InOrder order = inOrder( appender, delegate );
+        order.verify( appender ).makeDurable();
+        order.verify( delegate ).write( 1, 1024 );
+        order.verify( appender ).makeDurable();
+        order.verify( delegate ).write( 2, new long[]{1024, 2048}, 0, 2 );
+    }
+
+    @Test
+    public void shouldNotMakeLogsDurableBeforeReadingPages() throws Exception
+    {
+        // Given
+        PageSwapper swapper = createSwapper();
+        barrier.register( appender );
+
+        // When
+        swapper.read( 1, 1024, 8192 );
+
+        // Then
+        verify( delegate ).read( 1, 1024, 8192 );
+        verifyZeroInteractions( appender );
+    }
+
+    @Test
+    public void shouldNotMakeUnregisteredLogsDurable() throws Exception
+    {
+        // Given
+        PageSwapper swapper = createSwapper();
+        barrier.register( appender );
+        barrier.unregister( appender );
+
+        // When
+        swapper.write( 1, 1024 );
+
+        // Then
+        verify( delegate ).write( 1, 1024 );
+        verifyZeroInteractions( appender );
+    }
+
+    private PageSwapper createSwapper() throws Exception
+    {
+        when( delegateFactory.createPageSwapper( any(), anyInt(), any(), anyBoolean(), anyBoolean() ) )
+                .thenReturn( delegate );
+        return new LogForcingPageSwapperFactory( delegateFactory, barrier )
+                .createPageSwapper( file, 8192, null, true, false );
+    }
+}
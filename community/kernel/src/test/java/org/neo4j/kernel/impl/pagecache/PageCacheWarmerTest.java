@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.nio.file.StandardOpenOption;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+public class PageCacheWarmerTest
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int PAGE_COUNT = 20;
+    private static final long[] HOT_PAGES = {1, 2, 3, 7, 15};
+
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( fsRule );
+    private final PageCacheRule pageCacheRule = new PageCacheRule( config().withPageSize( PAGE_SIZE ) );
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fsRule ).around( directory ).around( pageCacheRule );
+
+    private JobScheduler scheduler;
+    private FileSystemAbstraction fs;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        scheduler = new ThreadPoolJobScheduler();
+        fs = fsRule.get();
+        file = directory.databaseLayout().nodeStore();
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE, StandardOpenOption.CREATE );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < PAGE_COUNT; i++ )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        scheduler.close();
+    }
+
+    @Test
+    public void mustReheatPagesThatWereInMemoryWhenProfiled() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            for ( long pageId : HOT_PAGES )
+            {
+                try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            assertEquals( HOT_PAGES.length, newWarmer( pageCache ).profile() );
+        }
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        pageCache = pageCacheRule.getPageCache( fs, config().withTracer( tracer )
+                .withCursorTracerSupplier( DefaultPageCursorTracerSupplier.INSTANCE ) );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertEquals( HOT_PAGES.length, newWarmer( pageCache ).reheat() );
+            assertEquals( HOT_PAGES.length, tracer.faults() );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                int hotPageIndex = 0;
+                while ( cursor.next() )
+                {
+                    boolean expectedInMemory = hotPageIndex < HOT_PAGES.length &&
+                                               HOT_PAGES[hotPageIndex] == cursor.getCurrentPageId();
+                    if ( expectedInMemory )
+                    {
+                        hotPageIndex++;
+                    }
+                    else
+                    {
+                        assertEquals( PageCursor.UNBOUND_PAGE_ID, cursor.getCurrentPageId() );
+                    }
+                }
+                assertEquals( HOT_PAGES.length, hotPageIndex );
+            }
+        }
+    }
+
+    @Test
+    public void reheatMustNotLoadAnythingWithoutProfile() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile ignore = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertEquals( 0, newWarmer( pageCache ).reheat() );
+        }
+        assertFalse( fs.fileExists( new File( directory.databaseDir(), PageCacheWarmer.PROFILES_DIRECTORY_NAME ) ) );
+    }
+
+    private PageCacheWarmer newWarmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, scheduler, directory.databaseDir(), Config.defaults(),
+                NullLog.getInstance() );
+    }
+}
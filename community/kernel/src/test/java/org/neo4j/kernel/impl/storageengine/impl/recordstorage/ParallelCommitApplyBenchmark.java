@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.StandalonePageCacheFactory;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.Commitment;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+import org.neo4j.test.rule.RecordStorageEngineRule;
+
+/**
+ * Measures the throughput of applying batches of committed transactions to the store, serially with
+ * {@link RecordStorageEngine#apply(org.neo4j.storageengine.api.CommandsToApply, TransactionApplicationMode)}, and
+ * with {@link RecordStorageEngine#applyInParallel(org.neo4j.storageengine.api.CommandsToApply,
+ * TransactionApplicationMode, ExecutorService, int)} at 2, 4, 8 and so on up to the given number of threads.
+ * <p>
+ * Every transaction creates a number of nodes, and also updates a node that was created by an earlier transaction,
+ * which now and then ends a {@link TransactionSegment segment} of independent transactions early. Each run applies
+ * the transactions to a fresh store.
+ * <p>
+ * Usage: {@code ParallelCommitApplyBenchmark [directory] [transactions] [nodes per transaction] [batch size]
+ * [max threads]}
+ */
+public final class ParallelCommitApplyBenchmark
+{
+    private ParallelCommitApplyBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Throwable
+    {
+        File directory = new File( args.length > 0 ? args[0] : "target/commit-apply-benchmark" ).getCanonicalFile();
+        int transactions = args.length > 1 ? Integer.parseInt( args[1] ) : 20_000;
+        int nodesPerTransaction = args.length > 2 ? Integer.parseInt( args[2] ) : 10;
+        int batchSize = args.length > 3 ? Integer.parseInt( args[3] ) : 100;
+        int maxThreads = args.length > 4 ? Integer.parseInt( args[4] ) : 128;
+
+        ExecutorService executor = Executors.newFixedThreadPool( maxThreads );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              ThreadPoolJobScheduler scheduler = new ThreadPoolJobScheduler() )
+        {
+            for ( int round = 0; round < 3; round++ )
+            {
+                // The first round warms up the JIT.
+                boolean report = round > 0;
+                for ( int parallelism = 1; parallelism <= maxThreads; parallelism *= 2 )
+                {
+                    fs.deleteRecursively( directory );
+                    fs.mkdirs( directory );
+                    try ( PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs, scheduler ) )
+                    {
+                        long nanos = apply( fs, pageCache, DatabaseLayout.of( directory ), executor, parallelism,
+                                batches( transactions, nodesPerTransaction, batchSize ) );
+                        if ( report )
+                        {
+                            System.out.printf( "threads: %3d   transactions: %,10d   time: %,8d ms   " +
+                                               "throughput: %,10d tx/s%n", parallelism, transactions,
+                                    TimeUnit.NANOSECONDS.toMillis( nanos ),
+                                    transactions * TimeUnit.SECONDS.toNanos( 1 ) / Math.max( 1, nanos ) );
+                        }
+                    }
+                }
+            }
+            fs.deleteRecursively( directory );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static long apply( FileSystemAbstraction fs, PageCache pageCache, DatabaseLayout databaseLayout,
+            ExecutorService executor, int parallelism, List<TransactionToApply> batches ) throws Throwable
+    {
+        long[] nanos = new long[1];
+        RecordStorageEngineRule storageEngineRule = new RecordStorageEngineRule();
+        storageEngineRule.apply( new Statement()
+        {
+            @Override
+            public void evaluate() throws Throwable
+            {
+                RecordStorageEngine engine = storageEngineRule.getWith( fs, pageCache, databaseLayout ).build();
+                long start = System.nanoTime();
+                for ( TransactionToApply batch : batches )
+                {
+                    if ( parallelism == 1 )
+                    {
+                        engine.apply( batch, TransactionApplicationMode.INTERNAL );
+                    }
+                    else
+                    {
+                        engine.applyInParallel( batch, TransactionApplicationMode.INTERNAL, executor, parallelism );
+                    }
+                }
+                engine.flushAndForce( IOLimiter.UNLIMITED );
+                nanos[0] = System.nanoTime() - start;
+            }
+        }, Description.EMPTY ).evaluate();
+        return nanos[0];
+    }
+
+    private static List<TransactionToApply> batches( int transactions, int nodesPerTransaction, int batchSize )
+    {
+        SplittableRandom random = new SplittableRandom( 42 );
+        List<TransactionToApply> batches = new ArrayList<>();
+        TransactionToApply last = null;
+        long nextNodeId = 0;
+        for ( int i = 0; i < transactions; i++ )
+        {
+            List<StorageCommand> commands = new ArrayList<>( nodesPerTransaction + 1 );
+            if ( nextNodeId > 0 )
+            {
+                long updatedNodeId = random.nextLong( nextNodeId );
+                commands.add( new Command.NodeCommand( node( updatedNodeId, i ), node( updatedNodeId, i + 1 ) ) );
+            }
+            for ( int n = 0; n < nodesPerTransaction; n++ )
+            {
+                long createdNodeId = nextNodeId++;
+                commands.add( new Command.NodeCommand( new NodeRecord( createdNodeId ), node( createdNodeId, i ) ) );
+            }
+            PhysicalTransactionRepresentation representation = new PhysicalTransactionRepresentation( commands );
+            representation.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
+            long txId = TransactionIdStore.BASE_TX_ID + 1 + i;
+            TransactionToApply tx = new TransactionToApply( representation, txId );
+            tx.commitment( Commitment.NO_COMMITMENT, txId );
+            if ( i % batchSize == 0 )
+            {
+                batches.add( tx );
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+        }
+        return batches;
+    }
+
+    private static NodeRecord node( long nodeId, long nextRel )
+    {
+        NodeRecord record = new NodeRecord( nodeId );
+        record.initialize( true, -1, false, nextRel, 0 );
+        return record;
+    }
+}
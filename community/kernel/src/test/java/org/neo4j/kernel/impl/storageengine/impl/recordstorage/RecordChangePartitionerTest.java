@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class RecordChangePartitionerTest
+{
+    @Test
+    public void shouldSplitIndependentRecordChanges() throws IOException
+    {
+        Command first = node( 1 );
+        Command second = node( 2 );
+        Command third = relationship( 1 );
+
+        List<List<Command>> partitions = RecordChangePartitioner.partition( batch( tx( first, second ), tx( third ) ), 4 );
+
+        assertEquals( 3, partitions.size() );
+        assertThat( partitions, containsInAnyOrder( contains( first ), contains( second ), contains( third ) ) );
+    }
+
+    @Test
+    public void shouldKeepChangesToTheSameRecordTogetherInTransactionOrder() throws IOException
+    {
+        Command first = node( 1 );
+        Command second = node( 2 );
+        Command third = node( 1 );
+
+        List<List<Command>> partitions = RecordChangePartitioner.partition( batch( tx( first, second ), tx( third ) ), 4 );
+
+        assertThat( partitions, containsInAnyOrder( contains( first, third ), contains( second ) ) );
+    }
+
+    @Test
+    public void shouldKeepPropertyChangesThatShareDynamicRecordsTogether() throws IOException
+    {
+        Command first = property( 1, 10, PropertyType.STRING );
+        Command second = property( 2, 10, PropertyType.STRING );
+        Command third = property( 3, 10, PropertyType.ARRAY );
+
+        List<List<Command>> partitions = RecordChangePartitioner.partition( batch( tx( first ), tx( second, third ) ), 4 );
+
+        assertThat( partitions, containsInAnyOrder( contains( first, second ), contains( third ) ) );
+    }
+
+    @Test
+    public void shouldMergeChainsOfDependentChanges() throws IOException
+    {
+        Command first = property( 1, 10, PropertyType.STRING );
+        Command second = property( 2, 10, PropertyType.STRING );
+        Command third = property( 2, 11, PropertyType.STRING );
+        Command fourth = property( 3, 11, PropertyType.STRING );
+
+        List<List<Command>> partitions =
+                RecordChangePartitioner.partition( batch( tx( first ), tx( fourth ), tx( second, third ) ), 4 );
+
+        assertThat( partitions, contains( contains( first, fourth, second, third ) ) );
+    }
+
+    @Test
+    public void shouldNotCreateMorePartitionsThanAsked() throws IOException
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            commands.add( node( i ) );
+        }
+
+        List<List<Command>> partitions = RecordChangePartitioner.partition( batch( tx( commands ) ), 3 );
+
+        assertEquals( 3, partitions.size() );
+        for ( List<Command> partition : partitions )
+        {
+            assertTrue( partition.size() >= 33 );
+        }
+    }
+
+    @Test
+    public void shouldOnlyPartitionTransactionsBeforeTheEnd() throws IOException
+    {
+        Command first = node( 1 );
+        Command second = node( 2 );
+        TransactionToApply end = tx( node( 3 ) );
+
+        List<List<Command>> partitions =
+                RecordChangePartitioner.partition( batch( tx( first ), tx( second ), end ), end, 4 );
+
+        assertThat( partitions, containsInAnyOrder( contains( first ), contains( second ) ) );
+    }
+
+    @Test
+    public void shouldLeaveOtherCommandsOut() throws IOException
+    {
+        Command counts = new NodeCountsCommand( 1, 1 );
+
+        List<List<Command>> partitions = RecordChangePartitioner.partition( batch( tx( counts ) ), 4 );
+
+        assertTrue( partitions.isEmpty() );
+    }
+
+    private static NodeCommand node( long id )
+    {
+        NodeRecord after = new NodeRecord( id );
+        after.setInUse( true );
+        return new NodeCommand( new NodeRecord( id ), after );
+    }
+
+    private static RelationshipCommand relationship( long id )
+    {
+        RelationshipRecord after = new RelationshipRecord( id );
+        after.setInUse( true );
+        return new RelationshipCommand( new RelationshipRecord( id ), after );
+    }
+
+    private static PropertyCommand property( long id, long dynamicRecordId, PropertyType type )
+    {
+        DynamicRecord dynamicRecord = new DynamicRecord( dynamicRecordId );
+        dynamicRecord.setType( type.intValue() );
+        PropertyBlock block = new PropertyBlock();
+        block.setValueBlocks( new long[]{0} );
+        block.addValueRecord( dynamicRecord );
+        PropertyRecord after = new PropertyRecord( id );
+        after.setInUse( true );
+        after.addPropertyBlock( block );
+        return new PropertyCommand( new PropertyRecord( id ), after );
+    }
+
+    private static TransactionToApply tx( StorageCommand... commands )
+    {
+        return tx( Arrays.asList( commands ) );
+    }
+
+    private static TransactionToApply tx( List<StorageCommand> commands )
+    {
+        return new TransactionToApply( new PhysicalTransactionRepresentation( commands ) );
+    }
+
+    private static TransactionToApply batch( TransactionToApply... transactions )
+    {
+        for ( int i = 1; i < transactions.length; i++ )
+        {
+            transactions[i - 1].next( transactions[i] );
+        }
+        return transactions[0];
+    }
+}
@@ -27,9 +27,13 @@ import org.mockito.InOrder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -40,6 +44,7 @@ import org.neo4j.helpers.Exceptions;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.internal.kernel.api.exceptions.KernelException;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseFile;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.DelegatingPageCache;
 import org.neo4j.io.pagecache.IOLimiter;
@@ -53,13 +58,20 @@ import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.locking.Lock;
 import org.neo4j.kernel.impl.locking.LockGroup;
 import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.Commitment;
 import org.neo4j.kernel.impl.transaction.log.FakeCommitment;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.storageengine.api.CommandsToApply;
@@ -70,16 +82,21 @@ import org.neo4j.test.rule.PageCacheRule;
 import org.neo4j.test.rule.RecordStorageEngineRule;
 import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+import org.neo4j.values.storable.Values;
 
+import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
@@ -212,6 +229,19 @@ public class RecordStorageEngineTest
         assertEquals( currentFiles, allPossibleFiles );
     }
 
+    @Test
+    public void shouldListPageTablesOfCompressedStores() throws IOException
+    {
+        RecordStorageEngine engine = buildRecordStorageEngine();
+        DatabaseLayout databaseLayout = testDirectory.databaseLayout();
+        File pageTable = databaseLayout.pageTableFile( DatabaseFile.PROPERTY_STORE ).orElseThrow( AssertionError::new );
+        fsRule.get().create( pageTable ).close();
+
+        Set<File> currentFiles = engine.listStorageFiles().stream().map( StoreFileMetadata::file ).collect( Collectors.toSet() );
+        assertTrue( currentFiles.contains( pageTable ) );
+        assertFalse( currentFiles.contains( databaseLayout.pageTableFile( DatabaseFile.NODE_STORE ).orElseThrow( AssertionError::new ) ) );
+    }
+
     @Test
     public void shouldCloseLockGroupAfterAppliers() throws Exception
     {
@@ -248,6 +278,186 @@ public class RecordStorageEngineTest
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void shouldApplyRecoveredRecordChangesInParallel() throws Exception
+    {
+        // given
+        RecordStorageEngine engine = buildRecordStorageEngine();
+        int nodeCount = 100;
+        List<StorageCommand> creations = new ArrayList<>();
+        List<StorageCommand> updates = new ArrayList<>();
+        for ( int nodeId = 0; nodeId < nodeCount; nodeId++ )
+        {
+            creations.add( new Command.NodeCommand( new NodeRecord( nodeId ), node( nodeId, 1 ) ) );
+            updates.add( new Command.NodeCommand( node( nodeId, 1 ), node( nodeId, 2 ) ) );
+        }
+        TransactionToApply batch = transaction( creations, 2 );
+        batch.next( transaction( updates, 3 ) );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        // when
+        try
+        {
+            engine.applyInParallel( batch, TransactionApplicationMode.RECOVERY, executor, 4 );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        NodeStore nodeStore = engine.testAccessNeoStores().getNodeStore();
+        for ( int nodeId = 0; nodeId < nodeCount; nodeId++ )
+        {
+            NodeRecord record = nodeStore.getRecord( nodeId, nodeStore.newRecord(), RecordLoad.NORMAL );
+            assertEquals( 2, record.getNextRel() );
+        }
+    }
+
+    @Test
+    public void shouldGatherIndexUpdatesOfRecoveredTransactionBeforeLaterTransactionOfTheBatchDeletesTheNode()
+            throws Exception
+    {
+        // given a node with a property
+        RecordStorageEngine engine = buildRecordStorageEngine();
+        PropertyStore propertyStore = engine.testAccessNeoStores().getPropertyStore();
+        NodeRecord node = new NodeRecord( 0 );
+        node.initialize( true, 0, false, -1, 0 );
+        NodeRecord deletedNode = new NodeRecord( 0 );
+        PropertyRecord property = property( propertyStore, 0, 1 );
+        PropertyRecord changedProperty = property( propertyStore, 0, 2 );
+        PropertyRecord createdProperty = new PropertyRecord( 0 );
+        createdProperty.setNodeId( 0 );
+        PropertyRecord deletedProperty = new PropertyRecord( 0 );
+        deletedProperty.setNodeId( 0 );
+        List<StorageCommand> creation = new ArrayList<>();
+        creation.add( new Command.NodeCommand( new NodeRecord( 0 ), node ) );
+        creation.add( new Command.PropertyCommand( createdProperty, property ) );
+        engine.apply( transaction( creation, 2 ), TransactionApplicationMode.INTERNAL );
+
+        // and a recovered batch that changes the property, and then deletes the node
+        List<StorageCommand> deletion = new ArrayList<>();
+        deletion.add( new Command.NodeCommand( node, deletedNode ) );
+        deletion.add( new Command.PropertyCommand( changedProperty, deletedProperty ) );
+        TransactionToApply batch = transaction( singletonList(
+                new Command.PropertyCommand( property, changedProperty ) ), 3 );
+        batch.next( transaction( deletion, 4 ) );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        // when
+        try
+        {
+            engine.applyInParallel( batch, TransactionApplicationMode.RECOVERY, executor, 4 );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        NodeStore nodeStore = engine.testAccessNeoStores().getNodeStore();
+        assertFalse( nodeStore.getRecord( 0, nodeStore.newRecord(), RecordLoad.CHECK ).inUse() );
+    }
+
+    @Test
+    public void shouldApplyCommittedRecordChangesInParallel() throws Exception
+    {
+        // given
+        RecordStorageEngine engine = buildRecordStorageEngine();
+        int nodeCount = RecordStorageEngine.MIN_PARALLEL_RECORD_CHANGES * 2;
+        List<StorageCommand> creations = new ArrayList<>();
+        List<StorageCommand> otherCreations = new ArrayList<>();
+        List<StorageCommand> updates = new ArrayList<>();
+        for ( int nodeId = 0; nodeId < nodeCount; nodeId++ )
+        {
+            creations.add( new Command.NodeCommand( new NodeRecord( nodeId ), node( nodeId, 1 ) ) );
+            otherCreations.add( new Command.NodeCommand( new NodeRecord( nodeCount + nodeId ), node( nodeCount + nodeId, 1 ) ) );
+            updates.add( new Command.NodeCommand( node( nodeId, 1 ), node( nodeId, 2 ) ) );
+        }
+        TransactionToApply batch = transaction( creations, 2 );
+        batch.next( transaction( otherCreations, 3 ) );
+        batch.next().next( transaction( updates, 4 ) );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        // when
+        try
+        {
+            engine.applyInParallel( batch, TransactionApplicationMode.INTERNAL, executor, 4 );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        NodeStore nodeStore = engine.testAccessNeoStores().getNodeStore();
+        for ( int nodeId = 0; nodeId < nodeCount; nodeId++ )
+        {
+            NodeRecord record = nodeStore.getRecord( nodeId, nodeStore.newRecord(), RecordLoad.NORMAL );
+            assertEquals( 2, record.getNextRel() );
+            NodeRecord otherRecord = nodeStore.getRecord( nodeCount + nodeId, nodeStore.newRecord(), RecordLoad.NORMAL );
+            assertEquals( 1, otherRecord.getNextRel() );
+        }
+    }
+
+    @Test
+    public void shouldLockEveryEntityOnceWhenApplyingCommitsInParallel() throws Exception
+    {
+        // given
+        LockService lockService = mock( LockService.class );
+        Lock nodeLock = mock( Lock.class );
+        when( lockService.acquireNodeLock( anyLong(), eq( LockService.LockType.WRITE_LOCK ) ) ).thenReturn( nodeLock );
+        RecordStorageEngine engine = recordStorageEngineBuilder().lockService( lockService ).build();
+        List<StorageCommand> creations = new ArrayList<>();
+        for ( int nodeId = 0; nodeId < RecordStorageEngine.MIN_PARALLEL_RECORD_CHANGES; nodeId++ )
+        {
+            creations.add( new Command.NodeCommand( new NodeRecord( nodeId ), node( nodeId, 1 ) ) );
+        }
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        // when
+        try
+        {
+            engine.applyInParallel( transaction( creations, 2 ), TransactionApplicationMode.INTERNAL,
+                    executor, 4 );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        verify( lockService, times( creations.size() ) ).acquireNodeLock( anyLong(), eq( LockService.LockType.WRITE_LOCK ) );
+        verify( nodeLock, times( creations.size() ) ).release();
+    }
+
+    private static TransactionToApply transaction( List<StorageCommand> commands, long txId )
+    {
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
+        TransactionToApply tx = new TransactionToApply( transaction, txId );
+        tx.commitment( Commitment.NO_COMMITMENT, txId );
+        return tx;
+    }
+
+    private static PropertyRecord property( PropertyStore propertyStore, long nodeId, int value )
+    {
+        PropertyRecord record = new PropertyRecord( 0 );
+        record.setInUse( true );
+        record.setNodeId( nodeId );
+        PropertyBlock block = new PropertyBlock();
+        propertyStore.encodeValue( block, 0, Values.of( value ) );
+        record.addPropertyBlock( block );
+        return record;
+    }
+
+    private static NodeRecord node( long nodeId, long nextRel )
+    {
+        NodeRecord record = new NodeRecord( nodeId );
+        record.initialize( true, -1, false, nextRel, 0 );
+        return record;
+    }
+
     private RecordStorageEngine buildRecordStorageEngine()
     {
         return recordStorageEngineBuilder().build();
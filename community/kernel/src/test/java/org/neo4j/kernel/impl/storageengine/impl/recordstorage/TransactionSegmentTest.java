@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.SchemaRuleCommand;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.schema.IndexDescriptorFactory;
+import org.neo4j.storageengine.api.schema.StoreIndexDescriptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.api.schema.SchemaDescriptorFactory.forLabel;
+import static org.neo4j.kernel.impl.locking.LockService.LockType.WRITE_LOCK;
+
+public class TransactionSegmentTest
+{
+    @Test
+    public void shouldJoinTransactionsThatChangeDisjointEntities() throws IOException
+    {
+        TransactionToApply first = tx( node( 1 ), property( 10, 2, -1 ) );
+        TransactionToApply second = tx( relationship( 1 ), node( 3 ), new NodeCountsCommand( 1, 1 ) );
+
+        TransactionSegment segment = TransactionSegment.startingAt( batch( first, second ) );
+
+        assertSame( first, segment.first() );
+        assertNull( segment.end() );
+        assertEquals( 4, segment.recordChanges() );
+        assertTrue( segment.isIndependent() );
+    }
+
+    @Test
+    public void shouldEndBeforeTransactionThatChangesTheSameNode() throws IOException
+    {
+        TransactionToApply first = tx( node( 1 ) );
+        TransactionToApply second = tx( node( 2 ) );
+        TransactionToApply third = tx( property( 10, 1, -1 ) );
+
+        TransactionSegment segment = TransactionSegment.startingAt( batch( first, second, third ) );
+
+        assertSame( third, segment.end() );
+        assertEquals( 2, segment.recordChanges() );
+    }
+
+    @Test
+    public void shouldEndBeforeTransactionThatChangesTheSameRelationship() throws IOException
+    {
+        TransactionToApply first = tx( property( 10, -1, 5 ) );
+        TransactionToApply second = tx( relationship( 5 ) );
+
+        TransactionSegment segment = TransactionSegment.startingAt( batch( first, second ) );
+
+        assertSame( second, segment.end() );
+    }
+
+    @Test
+    public void shouldKeepSchemaTransactionsInSegmentsOfTheirOwn() throws IOException
+    {
+        TransactionToApply first = tx( node( 1 ) );
+        TransactionToApply second = tx( schemaRule() );
+        TransactionToApply third = tx( node( 2 ) );
+        TransactionToApply batch = batch( first, second, third );
+
+        TransactionSegment firstSegment = TransactionSegment.startingAt( batch );
+        TransactionSegment secondSegment = TransactionSegment.startingAt( firstSegment.end() );
+
+        assertSame( second, firstSegment.end() );
+        assertTrue( firstSegment.isIndependent() );
+        assertSame( third, secondSegment.end() );
+        assertFalse( secondSegment.isIndependent() );
+    }
+
+    @Test
+    public void shouldLockAllChangedEntities() throws IOException
+    {
+        LockService lockService = mock( LockService.class );
+        when( lockService.acquireNodeLock( anyLong(), any() ) ).thenReturn( mock( Lock.class ) );
+        when( lockService.acquireRelationshipLock( anyLong(), any() ) ).thenReturn( mock( Lock.class ) );
+        TransactionSegment segment =
+                TransactionSegment.startingAt( batch( tx( node( 1 ), property( 10, 1, -1 ) ), tx( relationship( 2 ) ) ) );
+
+        segment.lock( lockService, new LockGroup() );
+
+        verify( lockService ).acquireNodeLock( 1, WRITE_LOCK );
+        verify( lockService ).acquireRelationshipLock( 2, WRITE_LOCK );
+        verifyNoMoreInteractions( lockService );
+    }
+
+    private static NodeCommand node( long id )
+    {
+        NodeRecord after = new NodeRecord( id );
+        after.setInUse( true );
+        return new NodeCommand( new NodeRecord( id ), after );
+    }
+
+    private static RelationshipCommand relationship( long id )
+    {
+        RelationshipRecord after = new RelationshipRecord( id );
+        after.setInUse( true );
+        return new RelationshipCommand( new RelationshipRecord( id ), after );
+    }
+
+    private static PropertyCommand property( long id, long nodeId, long relationshipId )
+    {
+        PropertyRecord after = new PropertyRecord( id );
+        after.setInUse( true );
+        if ( nodeId != -1 )
+        {
+            after.setNodeId( nodeId );
+        }
+        else
+        {
+            after.setRelId( relationshipId );
+        }
+        return new PropertyCommand( new PropertyRecord( id ), after );
+    }
+
+    private static SchemaRuleCommand schemaRule()
+    {
+        StoreIndexDescriptor rule = IndexDescriptorFactory.forSchema( forLabel( 1, 1 ) ).withId( 1 );
+        DynamicRecord after = new DynamicRecord( 1 );
+        after.setInUse( true );
+        return new SchemaRuleCommand( Collections.emptyList(), Collections.singletonList( after ), rule );
+    }
+
+    private static TransactionToApply tx( StorageCommand... commands )
+    {
+        return new TransactionToApply( new PhysicalTransactionRepresentation( Arrays.asList( commands ) ) );
+    }
+
+    private static TransactionToApply batch( TransactionToApply... transactions )
+    {
+        for ( int i = 1; i < transactions.length; i++ )
+        {
+            transactions[i - 1].next( transactions[i] );
+        }
+        return transactions[0];
+    }
+}
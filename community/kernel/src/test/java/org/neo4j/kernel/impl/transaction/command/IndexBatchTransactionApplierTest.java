@@ -76,7 +76,8 @@ public class IndexBatchTransactionApplierTest
         TransactionToApply tx = mock( TransactionToApply.class );
         PropertyStore propertyStore = mock( PropertyStore.class );
         try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync, indexUpdatesSync, mock( NodeStore.class ),
-                mock( RelationshipStore.class ), new PropertyPhysicalToLogicalConverter( propertyStore ), new IndexActivator( indexing ) ) )
+                mock( RelationshipStore.class ), new PropertyPhysicalToLogicalConverter( propertyStore ), new IndexActivator( indexing ),
+                IndexBatchTransactionApplier.Monitor.NULL ) )
         {
             try ( TransactionApplier txApplier = applier.startTx( tx ) )
             {
@@ -114,7 +115,8 @@ public class IndexBatchTransactionApplierTest
         StoreIndexDescriptor rule3 = uniqueForSchema( forLabel( 3, 1 ), providerDescriptor ).withIds( indexId3, constraintId3 );
         try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync,
                 indexUpdatesSync, mock( NodeStore.class ), mock( RelationshipStore.class ),
-                new PropertyPhysicalToLogicalConverter( propertyStore ), indexActivator ) )
+                new PropertyPhysicalToLogicalConverter( propertyStore ), indexActivator,
+                IndexBatchTransactionApplier.Monitor.NULL ) )
         {
             try ( TransactionApplier txApplier = applier.startTx( tx ) )
             {
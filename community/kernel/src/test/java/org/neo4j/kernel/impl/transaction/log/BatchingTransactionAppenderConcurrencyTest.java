@@ -55,6 +55,7 @@ import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
 import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex;
 import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
@@ -121,6 +122,7 @@ public class BatchingTransactionAppenderConcurrencyTest
     public void setUp()
     {
         when( logFiles.getLogFile() ).thenReturn( logFile );
+        when( logFiles.getLogIndex() ).thenReturn( TransactionLogIndex.NO_INDEX );
         when( logFile.getWriter() ).thenReturn( new CommandQueueChannel() );
     }
 
@@ -143,7 +143,7 @@ public class BatchingTransactionAppenderRotationIT
         @Override
         public LogForceEvent beginLogForce()
         {
-            return null;
+            return LogForceEvent.NULL;
         }
 
         @Override
@@ -26,6 +26,7 @@ import org.mockito.Mockito;
 
 import java.io.Flushable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -41,8 +42,14 @@ import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotationImpl;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifeRule;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -92,6 +99,7 @@ public class BatchingTransactionAppenderTest
     public void setUp()
     {
         when( logFiles.getLogFile() ).thenReturn( logFile );
+        when( logFiles.getLogIndex() ).thenReturn( TransactionLogIndex.NO_INDEX );
     }
 
     @Test
@@ -125,6 +133,28 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldReportBatchSizeOfLogForce() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L );
+        TransactionAppender appender = life.add( createTransactionAppender() );
+        LogAppendEvent appendEvent = mock( LogAppendEvent.class );
+        LogForceEvent forceEvent = mock( LogForceEvent.class );
+        when( appendEvent.beginSerializeTransaction() ).thenReturn( SerializeTransactionEvent.NULL );
+        when( appendEvent.beginLogForceWait() ).thenReturn( LogForceWaitEvent.NULL );
+        when( appendEvent.beginLogForce() ).thenReturn( forceEvent );
+
+        // WHEN
+        appender.append( new TransactionToApply( transaction( singleCreateNodeCommand( 0 ),
+                new byte[0], 0, 0, 0, 1, 0 ) ), appendEvent );
+
+        // THEN
+        verify( forceEvent ).setBatchSize( 1 );
+        verify( forceEvent ).close();
+    }
+
     @Test
     public void shouldAppendBatchOfTransactions() throws Exception
     {
@@ -311,6 +341,104 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldNotForceLogOnAppendWhenDurabilityIsRelaxed() throws Exception
+    {
+        // GIVEN
+        FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
+        Flushable flushable = mock( Flushable.class );
+        doAnswer( invocation ->
+        {
+            invocation.callRealMethod();
+            return flushable;
+        } ).when( channel ).prepareForFlush();
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 4L );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 5L, 6L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, GroupCommitWindow.DISABLED, false, true ) );
+
+        // WHEN
+        appender.append( batchOf(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( singleCreateNodeCommand( 1 ), new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+
+        // THEN
+        verify( flushable, never() ).flush();
+        assertEquals( 4L, appender.getDurableTransactionId() );
+
+        // WHEN
+        appender.makeDurable();
+        appender.makeDurable();
+
+        // THEN
+        verify( flushable, times( 1 ) ).flush();
+        assertEquals( 6L, appender.getDurableTransactionId() );
+    }
+
+    @Test( timeout = 60_000 )
+    public void shouldForceLogWhenPagesAreEvictedDuringRotationWhileAnotherThreadHoldsTheForceLock() throws Exception
+    {
+        // GIVEN an appended transaction that is not yet durable
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 4L );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 5L );
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, GroupCommitWindow.DISABLED, false, true ) );
+        appender.append( new TransactionToApply( transaction( singleCreateNodeCommand( 0 ),
+                new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+        LogForceBarrier barrier = new LogForceBarrier();
+        barrier.register( appender );
+
+        // and a rotation that evicts a page, while another thread has taken the force lock, and waits for the log file
+        Thread forcer = new Thread( () ->
+        {
+            try
+            {
+                appender.makeDurable();
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        } );
+        doAnswer( invocation ->
+        {
+            forcer.start();
+            while ( forcer.getState() != Thread.State.BLOCKED )
+            {
+                Thread.sleep( 1 );
+            }
+            // This is what the log forcing page swapper does before it writes the evicted page
+            barrier.awaitLogsDurable();
+            return null;
+        } ).when( logFile ).rotate();
+        LogRotation logRotation = new LogRotationImpl( mock( LogRotation.Monitor.class ), logFiles, databaseHealth );
+
+        // WHEN
+        logRotation.rotateLogFile();
+        forcer.join();
+
+        // THEN
+        assertEquals( 5L, appender.getDurableTransactionId() );
+    }
+
+    @Test
+    public void shouldBeDurableUpToLastAppendedTransactionAfterAppend() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 7L );
+        TransactionAppender appender = life.add( createTransactionAppender() );
+
+        // WHEN
+        appender.append( new TransactionToApply( transaction( singleCreateNodeCommand( 0 ),
+                new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+
+        // THEN
+        assertEquals( 7L, appender.getDurableTransactionId() );
+    }
+
     @Test
     public void shouldBeAbleToWriteACheckPoint() throws Throwable
     {
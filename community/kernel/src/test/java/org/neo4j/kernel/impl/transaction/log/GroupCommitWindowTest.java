@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitWindowTest
+{
+    private long nowNanos = 1;
+
+    @Test
+    public void shouldNeverOpenDisabledWindow()
+    {
+        GroupCommitWindow window = GroupCommitWindow.DISABLED;
+        assertFalse( window.isEnabled() );
+
+        arrive( window, 100, 1_000 );
+        window.forced( MICROSECONDS.toNanos( 1_000 ) );
+
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void shouldNotOpenWindowBeforeAnyForceHasBeenObserved()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 500, MICROSECONDS );
+        assertTrue( window.isEnabled() );
+
+        arrive( window, 100, 1_000 );
+
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void shouldOpenWindowOfHalfTheForceLatencyWhenCommittersArriveOften()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 500, MICROSECONDS );
+
+        arrive( window, 100, 10_000 );
+        window.forced( MICROSECONDS.toNanos( 400 ) );
+
+        assertEquals( MICROSECONDS.toNanos( 200 ), window.windowNanos() );
+        assertEquals( 21, window.targetBatchSize( window.windowNanos() ) );
+    }
+
+    @Test
+    public void shouldLimitWindowToConfiguredMaximum()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 50, MICROSECONDS );
+
+        arrive( window, 100, 1_000 );
+        window.forced( MICROSECONDS.toNanos( 4_000 ) );
+
+        assertEquals( MICROSECONDS.toNanos( 50 ), window.windowNanos() );
+    }
+
+    @Test
+    public void shouldCloseWindowWhenCommittersArriveRarely()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 500, MICROSECONDS );
+        arrive( window, 100, 10_000 );
+        window.forced( MICROSECONDS.toNanos( 400 ) );
+        assertTrue( window.windowNanos() > 0 );
+
+        arrive( window, 100, MICROSECONDS.toNanos( 1_000 ) );
+
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void shouldReopenWindowQuicklyAfterIdlePeriod()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( 500, MICROSECONDS );
+        window.forced( MICROSECONDS.toNanos( 400 ) );
+        arrive( window, 2, MICROSECONDS.toNanos( 1_000_000 ) );
+        assertEquals( 0, window.windowNanos() );
+
+        arrive( window, 20, 10_000 );
+
+        assertTrue( window.windowNanos() > 0 );
+    }
+
+    private void arrive( GroupCommitWindow window, int committers, long interArrivalNanos )
+    {
+        for ( int i = 0; i < committers; i++ )
+        {
+            nowNanos += interArrivalNanos;
+            window.arrived( nowNanos );
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.neo4j.kernel.impl.api.TransactionToApply;
@@ -60,6 +61,7 @@ import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -122,6 +124,53 @@ public class PhysicalLogicalTransactionStoreTest
                 latestCommittedTxWhenStarted, timeCommitted, store );
     }
 
+    @Test
+    public void shouldReadTransactionWithCompressedCommands() throws Exception
+    {
+        // GIVEN
+        TransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+        TransactionMetadataCache positionCache = new TransactionMetadataCache();
+        LifeSupport life = new LifeSupport();
+        final LogFiles logFiles = LogFilesBuilder.builder( dir.databaseLayout(), fileSystemRule.get() )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( mock( LogVersionRepository.class ) ).build();
+        life.add( logFiles );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, DATABASE_HEALTH, GroupCommitWindow.DISABLED, true, false ) );
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( long id = 0; id < 100; id++ )
+        {
+            NodeRecord after = new NodeRecord( id );
+            after.initialize( true, -1, false, id + 1, 0 );
+            commands.add( new Command.NodeCommand( new NodeRecord( id ), after ) );
+        }
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 1, 2, 3, 4, 5, -1 );
+
+        life.start();
+        try
+        {
+            // WHEN
+            appender.append( new TransactionToApply( transaction ), LogAppendEvent.NULL );
+            LogicalTransactionStore store = new PhysicalLogicalTransactionStore( logFiles, positionCache,
+                    new VersionAwareLogEntryReader<>(), monitors, true );
+
+            // THEN
+            try ( TransactionCursor cursor = store.getTransactions( TransactionIdStore.BASE_TX_ID + 1 ) )
+            {
+                assertTrue( cursor.next() );
+                List<StorageCommand> readCommands = new ArrayList<>();
+                cursor.get().getTransactionRepresentation().accept( command -> !readCommands.add( command ) );
+                assertEquals( commands.toString(), readCommands.toString() );
+                assertFalse( cursor.next() );
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
     @Test
     public void shouldOpenCleanStore() throws Exception
     {
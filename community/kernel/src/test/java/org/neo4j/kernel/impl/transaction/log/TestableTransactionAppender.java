@@ -52,4 +52,15 @@ public class TestableTransactionAppender implements TransactionAppender
     public void checkPoint( LogPosition logPosition, LogCheckPointEvent logCheckPointEvent )
     {
     }
+
+    @Override
+    public void makeDurable()
+    {
+    }
+
+    @Override
+    public long getDurableTransactionId()
+    {
+        return transactionIdStore.getLastCommittedTransactionId();
+    }
 }
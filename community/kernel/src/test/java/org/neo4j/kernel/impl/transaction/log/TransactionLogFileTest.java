@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
+import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.RuleChain;
@@ -26,24 +27,35 @@ import org.junit.rules.RuleChain;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.IncompleteLogHeaderException;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
 import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
 import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -53,6 +65,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_COMMIT_TIMESTAMP;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 
 public class TransactionLogFileTest
@@ -64,10 +77,19 @@ public class TransactionLogFileTest
     @Rule
     public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule ).around( life );
 
+    private static final long PREALLOCATED_SIZE = ByteUnit.kibiBytes( 64 );
+
+    private final ThreadPoolJobScheduler jobScheduler = new ThreadPoolJobScheduler();
     private final LogVersionRepository logVersionRepository = new SimpleLogVersionRepository( 1L );
     private final TransactionIdStore transactionIdStore =
             new SimpleTransactionIdStore( 2L, 0, BASE_TX_COMMIT_TIMESTAMP, 0, 0 );
 
+    @After
+    public void tearDown()
+    {
+        jobScheduler.close();
+    }
+
     @Test
     public void skipLogFileWithoutHeader() throws IOException
     {
@@ -223,6 +245,166 @@ public class TransactionLogFileTest
         assertTrue( called.get() );
     }
 
+    @Test
+    public void shouldPreallocateLogFileAndAppendAfterItsEntriesWhenStartedAgain() throws Throwable
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        LifeSupport firstLife = new LifeSupport();
+        LogFiles logFiles = firstLife.add( preallocatedLogFiles( fs, jobScheduler ) );
+        firstLife.start();
+        awaitSpareLogFile( fs, logFiles );
+        logFiles.getLogFile().rotate();
+        File file = logFiles.getLogFileForVersion( 2L );
+        assertEquals( PREALLOCATED_SIZE, fs.getFileSize( file ) );
+        assertFalse( logFiles.hasAnyEntries( 2L ) );
+        LogPosition endOfEntries = writeCheckPoint( logFiles.getLogFile() );
+        firstLife.shutdown();
+
+        // WHEN
+        life.start();
+        LogFiles restartedLogFiles = life.add( preallocatedLogFiles( fs, jobScheduler ) );
+
+        // THEN
+        assertEquals( PREALLOCATED_SIZE, fs.getFileSize( file ) );
+        assertTrue( restartedLogFiles.hasAnyEntries( 2L ) );
+        LogPositionMarker positionMarker = new LogPositionMarker();
+        restartedLogFiles.getLogFile().getWriter().getCurrentPosition( positionMarker );
+        assertEquals( endOfEntries, positionMarker.newPosition() );
+    }
+
+    @Test
+    public void shouldStartPreallocatedLogFileWithUnreadableEntryAfterTheLastReadableOne() throws Throwable
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        LifeSupport firstLife = new LifeSupport();
+        LogFiles logFiles = firstLife.add( preallocatedLogFiles( fs, jobScheduler ) );
+        firstLife.start();
+        awaitSpareLogFile( fs, logFiles );
+        logFiles.getLogFile().rotate();
+        LogPosition endOfEntries = writeCheckPoint( logFiles.getLogFile() );
+        firstLife.shutdown();
+        try ( StoreChannel channel = fs.open( logFiles.getLogFileForVersion( 2L ), OpenMode.READ_WRITE ) )
+        {
+            // A torn entry, with a log entry version that does not exist, followed by the zeroed tail
+            channel.writeAll( ByteBuffer.wrap( new byte[]{85, 85, 85} ), endOfEntries.getByteOffset() );
+        }
+
+        // WHEN
+        life.start();
+        LogFiles restartedLogFiles = life.add( preallocatedLogFiles( fs, jobScheduler ) );
+
+        // THEN
+        LogPositionMarker positionMarker = new LogPositionMarker();
+        restartedLogFiles.getLogFile().getWriter().getCurrentPosition( positionMarker );
+        assertEquals( endOfEntries, positionMarker.newPosition() );
+    }
+
+    @Test
+    public void shouldCutOffZeroedTailOfPreallocatedLogFileWhenRotating() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        life.start();
+        LogFiles logFiles = life.add( preallocatedLogFiles( fs, jobScheduler ) );
+        LogFile logFile = logFiles.getLogFile();
+        awaitSpareLogFile( fs, logFiles );
+        logFile.rotate();
+        LogPosition endOfPreallocatedLog = writeCheckPoint( logFile );
+
+        // WHEN
+        awaitSpareLogFile( fs, logFiles );
+        logFile.rotate();
+        writeCheckPoint( logFile );
+
+        // THEN
+        assertEquals( endOfPreallocatedLog.getByteOffset(), fs.getFileSize( logFiles.getLogFileForVersion( 2L ) ) );
+        assertEquals( PREALLOCATED_SIZE, fs.getFileSize( logFiles.getLogFileForVersion( 3L ) ) );
+        LogEntryReader<ReadableLogChannel> entryReader = new VersionAwareLogEntryReader<>();
+        try ( ReadableLogChannel reader = logFile.getReader( new LogPosition( 2L, LOG_HEADER_SIZE ) ) )
+        {
+            assertTrue( entryReader.readLogEntry( reader ) instanceof CheckPoint );
+            assertTrue( entryReader.readLogEntry( reader ) instanceof CheckPoint );
+            assertNull( entryReader.readLogEntry( reader ) );
+        }
+    }
+
+    @Test
+    public void shouldRotateToNewLogFileThatGrowsWhenNoPreallocatedLogFileIsReady() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        life.start();
+        LogFiles logFiles = life.add( preallocatedLogFiles( fs, null ) );
+        LogFile logFile = logFiles.getLogFile();
+
+        // WHEN
+        logFile.rotate();
+
+        // THEN
+        assertEquals( LOG_HEADER_SIZE, fs.getFileSize( logFiles.getLogFileForVersion( 2L ) ) );
+        LogPosition endOfEntries = writeCheckPoint( logFile );
+        assertEquals( endOfEntries.getByteOffset(), fs.getFileSize( logFiles.getLogFileForVersion( 2L ) ) );
+    }
+
+    @Test
+    public void shouldRecyclePrunedPreallocatedLogFileForLaterLogVersion() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        life.start();
+        LogFiles logFiles = life.add( preallocatedLogFiles( fs, null ) );
+        LogFile logFile = logFiles.getLogFile();
+        writeCheckPoint( logFile );
+        logFile.rotate();
+
+        // WHEN
+        logFiles.deleteOrRecycleLogFile( 1L );
+
+        // THEN
+        assertFalse( fs.fileExists( logFiles.getLogFileForVersion( 1L ) ) );
+        assertEquals( 2L, logFiles.getLowestLogVersion() );
+        File[] recycledFiles = spareLogFiles( fs, logFiles );
+        assertEquals( 1, recycledFiles.length );
+        byte[] recycledContent = new byte[(int) fs.getFileSize( recycledFiles[0] )];
+        try ( StoreChannel channel = fs.open( recycledFiles[0], OpenMode.READ ) )
+        {
+            channel.readAll( ByteBuffer.wrap( recycledContent ) );
+        }
+        assertArrayEquals( new byte[recycledContent.length], recycledContent );
+
+        // WHEN
+        logFile.rotate();
+
+        // THEN
+        assertFalse( fs.fileExists( recycledFiles[0] ) );
+        File reusedFile = logFiles.getLogFileForVersion( 3L );
+        assertEquals( recycledContent.length, fs.getFileSize( reusedFile ) );
+        assertEquals( 3L, readLogHeader( fs, reusedFile ).logVersion );
+        assertFalse( logFiles.hasAnyEntries( 3L ) );
+    }
+
+    @Test
+    public void shouldDeletePrunedLogFileWhenNotPreallocating() throws Exception
+    {
+        // GIVEN
+        FileSystemAbstraction fs = fileSystemRule.get();
+        LogFiles logFiles = LogFilesBuilder.builder( directory.databaseLayout(), fs )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( logVersionRepository ).build();
+        life.start();
+        life.add( logFiles );
+        logFiles.getLogFile().rotate();
+
+        // WHEN
+        logFiles.deleteOrRecycleLogFile( 1L );
+
+        // THEN
+        assertFalse( fs.fileExists( logFiles.getLogFileForVersion( 1L ) ) );
+        assertEquals( 0, spareLogFiles( fs, logFiles ).length );
+    }
+
     @Test
     public void shouldCloseChannelInFailedAttemptToReadHeaderAfterOpen() throws Exception
     {
@@ -282,6 +464,39 @@ public class TransactionLogFileTest
         }
     }
 
+    private LogFiles preallocatedLogFiles( FileSystemAbstraction fs, JobScheduler scheduler ) throws IOException
+    {
+        return LogFilesBuilder.builder( directory.databaseLayout(), fs )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( logVersionRepository )
+                .withRotationThreshold( PREALLOCATED_SIZE )
+                .withPreallocation( true )
+                .withJobScheduler( scheduler ).build();
+    }
+
+    private static File[] spareLogFiles( FileSystemAbstraction fs, LogFiles logFiles )
+    {
+        return fs.listFiles( logFiles.logFilesDirectory(), ( dir, name ) -> name.startsWith( "recycled-" ) );
+    }
+
+    private static void awaitSpareLogFile( FileSystemAbstraction fs, LogFiles logFiles ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis( 1 );
+        while ( spareLogFiles( fs, logFiles ).length == 0 )
+        {
+            assertTrue( "No log file was preallocated in the background", System.currentTimeMillis() < deadline );
+            Thread.sleep( 1 );
+        }
+    }
+
+    private static LogPosition writeCheckPoint( LogFile logFile ) throws IOException
+    {
+        FlushablePositionAwareChannel writer = logFile.getWriter();
+        new TransactionLogWriter( new LogEntryWriter( writer ) ).checkPoint( new LogPosition( 1L, LOG_HEADER_SIZE ) );
+        writer.prepareForFlush().flush();
+        return writer.getCurrentPosition( new LogPositionMarker() ).newPosition();
+    }
+
     private static byte[] readBytes( ReadableClosableChannel reader, int length ) throws IOException
     {
         byte[] result = new byte[length];
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.files.LogFile;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.kernel.impl.scheduler.JobSchedulerFactory.createInitialisedScheduler;
+
+/**
+ * Compares the latency of forcing appends to transaction log files that grow with every append, with the latency of
+ * forcing appends to transaction log files that have been preallocated, see
+ * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#preallocate_logical_logs}.
+ * <p>
+ * Every append writes a fixed number of bytes and forces the log, the way a committing transaction does. The log is
+ * rotated whenever it reaches the rotation threshold, so rotations are included. Log files are preallocated in the
+ * background, so a rotation only takes a preallocated file if the preallocation has kept up with the appends.
+ * <p>
+ * Usage: {@code TransactionLogPreallocationBenchmark [directory] [appends] [bytes per append] [rotation threshold]}
+ */
+public final class TransactionLogPreallocationBenchmark
+{
+    private TransactionLogPreallocationBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        File directory = new File( args.length > 0 ? args[0] : "target/preallocation-benchmark" ).getCanonicalFile();
+        int appends = args.length > 1 ? Integer.parseInt( args[1] ) : 20_000;
+        int bytesPerAppend = args.length > 2 ? Integer.parseInt( args[2] ) : 512;
+        long rotationThreshold = args.length > 3 ? Long.parseLong( args[3] ) : ByteUnit.mebiBytes( 4 );
+
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              JobScheduler scheduler = createInitialisedScheduler() )
+        {
+            for ( int round = 0; round < 3; round++ )
+            {
+                // The first round warms up the JIT.
+                boolean report = round > 0;
+                for ( boolean preallocate : new boolean[]{false, true} )
+                {
+                    fs.deleteRecursively( directory );
+                    fs.mkdirs( directory );
+                    long[] nanos = append( fs, scheduler, DatabaseLayout.of( directory ), preallocate,
+                            rotationThreshold, appends, bytesPerAppend );
+                    if ( report )
+                    {
+                        Arrays.sort( nanos );
+                        System.out.printf( "preallocate: %5b   appends: %,8d   mean: %,8d us   p50: %,8d us   " +
+                                           "p99: %,8d us   max: %,8d us%n", preallocate, appends,
+                                micros( Arrays.stream( nanos ).sum() / nanos.length ), micros( percentile( nanos, 50 ) ),
+                                micros( percentile( nanos, 99 ) ), micros( nanos[nanos.length - 1] ) );
+                    }
+                }
+            }
+            fs.deleteRecursively( directory );
+        }
+    }
+
+    private static long[] append( FileSystemAbstraction fs, JobScheduler scheduler, DatabaseLayout databaseLayout,
+            boolean preallocate, long rotationThreshold, int appends, int bytesPerAppend ) throws Exception
+    {
+        long[] nanos = new long[appends];
+        byte[] data = new byte[bytesPerAppend];
+        Arrays.fill( data, (byte) 1 );
+        LifeSupport life = new LifeSupport();
+        try
+        {
+            LogFiles logFiles = life.add( LogFilesBuilder.builder( databaseLayout, fs )
+                    .withTransactionIdStore( new SimpleTransactionIdStore() )
+                    .withLogVersionRepository( new SimpleLogVersionRepository() )
+                    .withRotationThreshold( rotationThreshold )
+                    .withPreallocation( preallocate )
+                    .withJobScheduler( scheduler ).build() );
+            life.start();
+            LogFile logFile = logFiles.getLogFile();
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            for ( int i = 0; i < appends; i++ )
+            {
+                long start = System.nanoTime();
+                if ( logFile.rotationNeeded() )
+                {
+                    logFile.rotate();
+                }
+                writer.put( data, data.length );
+                writer.prepareForFlush().flush();
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        return nanos;
+    }
+
+    private static long percentile( long[] sorted, int percentile )
+    {
+        return sorted[Math.min( sorted.length - 1, sorted.length * percentile / 100 )];
+    }
+
+    private static long micros( long nanos )
+    {
+        return TimeUnit.NANOSECONDS.toMicros( nanos );
+    }
+}
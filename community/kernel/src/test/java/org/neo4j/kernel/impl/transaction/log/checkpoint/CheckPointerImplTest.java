@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.log.checkpoint;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.io.Flushable;
 import java.io.IOException;
@@ -33,6 +34,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.function.ThrowingConsumer;
 import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
@@ -53,6 +55,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -117,6 +120,7 @@ public class CheckPointerImplTest
         assertEquals( transactionId, txId );
         verify( storageEngine, times( 1 ) ).flushAndForce( limiter );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
+        verify( appender, times( 1 ) ).makeDurable();
         verify( appender, times( 1 ) ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold, times( 1 ) ).initialize( initialTransactionId );
         verify( threshold, times( 1 ) ).checkPointHappened( transactionId );
@@ -126,6 +130,55 @@ public class CheckPointerImplTest
         verifyNoMoreInteractions( storageEngine, health, appender, threshold, tracer );
     }
 
+    @Test
+    public void shouldFlushPageCacheBeforeDecidingCheckPointPositionWhenIncremental() throws Throwable
+    {
+        // Given
+        PageCache pageCache = mock( PageCache.class );
+        CheckPointerImpl checkPointing = new CheckPointerImpl( txIdStore, threshold, storageEngine, logPruning,
+                appender, health, NullLogProvider.getInstance(), tracer, limiter, new StoreCopyCheckPointMutex(),
+                pageCache, true );
+        when( threshold.isCheckPointingNeeded( anyLong(), eq( INFO ) ) ).thenReturn( true, false );
+        mockTxIdStore();
+
+        checkPointing.start();
+
+        // When
+        long txId = checkPointing.checkPointIfNeeded( INFO );
+
+        // Then
+        assertEquals( transactionId, txId );
+        InOrder order = inOrder( pageCache, txIdStore, storageEngine, appender );
+        order.verify( pageCache ).flushWithoutForce( limiter );
+        order.verify( txIdStore ).getLastClosedTransaction();
+        order.verify( appender ).makeDurable();
+        order.verify( storageEngine ).flushAndForce( limiter );
+        order.verify( appender ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
+        verify( threshold, times( 1 ) ).checkPointHappened( transactionId );
+        verify( logPruning, times( 1 ) ).pruneLogs( logPosition.getLogVersion() );
+        verify( pageCache, never() ).flushAndForce( any( IOLimiter.class ) );
+    }
+
+    @Test
+    public void shouldNotFlushPageCacheSeparatelyWhenNotIncremental() throws Throwable
+    {
+        // Given
+        PageCache pageCache = mock( PageCache.class );
+        CheckPointerImpl checkPointing = new CheckPointerImpl( txIdStore, threshold, storageEngine, logPruning,
+                appender, health, NullLogProvider.getInstance(), tracer, limiter, new StoreCopyCheckPointMutex(),
+                pageCache, false );
+        mockTxIdStore();
+
+        checkPointing.start();
+
+        // When
+        checkPointing.forceCheckPoint( INFO );
+
+        // Then
+        verify( storageEngine, times( 1 ) ).flushAndForce( limiter );
+        verifyZeroInteractions( pageCache );
+    }
+
     @Test
     public void shouldForceCheckPointAlways() throws Throwable
     {
@@ -143,6 +196,7 @@ public class CheckPointerImplTest
         assertEquals( transactionId, txId );
         verify( storageEngine, times( 1 ) ).flushAndForce( limiter );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
+        verify( appender, times( 1 ) ).makeDurable();
         verify( appender, times( 1 ) ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold, times( 1 ) ).initialize( initialTransactionId );
         verify( threshold, times( 1 ) ).checkPointHappened( transactionId );
@@ -169,6 +223,7 @@ public class CheckPointerImplTest
         assertEquals( transactionId, txId );
         verify( storageEngine, times( 1 ) ).flushAndForce( limiter );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
+        verify( appender, times( 1 ) ).makeDurable();
         verify( appender, times( 1 ) ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold, times( 1 ) ).initialize( initialTransactionId );
         verify( threshold, times( 1 ) ).checkPointHappened( transactionId );
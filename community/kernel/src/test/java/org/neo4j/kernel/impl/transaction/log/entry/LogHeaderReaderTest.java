@@ -34,6 +34,7 @@ import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -137,6 +138,32 @@ public class LogHeaderReaderTest
         }
     }
 
+    @Test
+    public void shouldTreatZeroedLogHeaderAsIncomplete() throws IOException
+    {
+        // given a preallocated file, which has not had its header written yet
+        final File file = testDirectory.file( "ReadLogHeader" );
+        try ( OutputStream stream = fileSystemRule.get().openAsOutputStream( file, false ) )
+        {
+            stream.write( new byte[LOG_HEADER_SIZE * 4] );
+        }
+
+        // when
+        final LogHeader result = readLogHeader( fileSystemRule.get(), file, false );
+
+        // then
+        assertNull( result );
+        try
+        {
+            readLogHeader( fileSystemRule.get(), file );
+            fail( "should have thrown" );
+        }
+        catch ( IncompleteLogHeaderException ex )
+        {
+            // then good
+        }
+    }
+
     @Test
     public void shouldReadALongString() throws IOException
     {
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.log.entry;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageCommandReaderFactory;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -30,11 +32,13 @@ import org.neo4j.kernel.impl.transaction.command.NeoCommandType;
 import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
+import org.neo4j.storageengine.api.StorageCommand;
 
 import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class VersionAwareLogEntryReaderTest
 {
@@ -156,6 +160,87 @@ public class VersionAwareLogEntryReaderTest
         assertNull( logEntry );
     }
 
+    @Test
+    public void shouldReturnNullAtZeroedPartOfPreallocatedLog() throws IOException
+    {
+        // given
+        LogEntryVersion version = LogEntryVersion.CURRENT;
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.put( version.byteCode() );
+        channel.put( LogEntryByteCodes.TX_COMMIT );
+        channel.putLong( 42 );
+        channel.putLong( 21 );
+        long endOfEntries = channel.writerPosition();
+        channel.put( new byte[16], 16 );
+
+        // when
+        final LogEntry commit = logEntryReader.readLogEntry( channel.reader() );
+        final LogEntry end = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( new LogEntryCommit( version, 42, 21 ), commit );
+        assertNull( end );
+        assertEquals( endOfEntries, channel.readerPosition() );
+    }
+
+    @Test( expected = UnsupportedLogVersionException.class )
+    public void shouldNotTakeZeroVersionFollowedByDataForEndOfLog() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.put( (byte) 0 );
+        channel.put( LogEntryByteCodes.TX_COMMIT );
+        channel.putLong( 42 );
+        channel.putLong( 21 );
+
+        // when
+        logEntryReader.readLogEntry( channel.reader() );
+    }
+
+    @Test
+    public void shouldReadCompressedCommands() throws IOException
+    {
+        // given
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 10_000 );
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( long id = 0; id < 100; id++ )
+        {
+            commands.add( new Command.NodeCommand( new NodeRecord( id ),
+                    new NodeRecord( id ).initialize( true, -1, false, id + 1, 0 ) ) );
+        }
+        new LogEntryWriter( channel.writer(), true ).serialize( commands );
+        int compressedSize = channel.writerPosition();
+        InMemoryClosableChannel plainChannel = new InMemoryClosableChannel( 10_000 );
+        new LogEntryWriter( plainChannel.writer() ).serialize( commands );
+
+        // when
+        LogEntry entry = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( LogEntryVersion.V3_5, entry.getVersion() );
+        assertEquals( LogEntryByteCodes.COMPRESSED_COMMANDS, entry.getType() );
+        assertEquals( commands.toString(), ((LogEntryCompressedCommands) entry).getCommands().toString() );
+        assertNull( logEntryReader.readLogEntry( channel.reader() ) );
+        assertTrue( compressedSize < plainChannel.writerPosition() / 2 );
+    }
+
+    @Test
+    public void shouldWriteSmallCommandBlockUncompressed() throws IOException
+    {
+        // given
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        Command.NodeCommand command = new Command.NodeCommand( new NodeRecord( 11 ),
+                new NodeRecord( 11 ).initialize( true, -1, false, 12, 0 ) );
+        new LogEntryWriter( channel.writer(), true ).serialize( singletonList( command ) );
+
+        // when
+        LogEntry entry = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( LogEntryVersion.CURRENT, entry.getVersion() );
+        assertEquals( new LogEntryCommand( command ), entry );
+    }
+
     @Test
     public void shouldBeAbleToSkipBadVersionAndTypeBytesInBetweenLogEntries() throws Exception
     {
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex.IndexedCheckPoint;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.files.TransactionLogIndex.INDEX_INTERVAL_BYTES;
+
+public class TransactionLogIndexTest
+{
+    private final EphemeralFileSystemRule fileSystemRule = new EphemeralFileSystemRule();
+    private final TestDirectory testDirectory = TestDirectory.testDirectory( fileSystemRule );
+
+    @Rule
+    public final RuleChain ruleChain = RuleChain.outerRule( fileSystemRule ).around( testDirectory );
+
+    private TransactionLogFilesHelper fileHelper;
+
+    @Before
+    public void setUp()
+    {
+        fileHelper = new TransactionLogFilesHelper( testDirectory.databaseDir(), TransactionLogFiles.DEFAULT_NAME );
+    }
+
+    @Test
+    public void shouldIndexFirstTransactionAndThenOneTransactionPerInterval()
+    {
+        // given
+        TransactionLogIndex index = newIndex();
+
+        // when
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 3, new LogPosition( 0, 100 ) );
+        index.transactionAppended( 4, new LogPosition( 0, 16 + INDEX_INTERVAL_BYTES ) );
+        index.transactionAppended( 5, new LogPosition( 0, 200 + INDEX_INTERVAL_BYTES ) );
+
+        // then
+        assertNull( index.transactionPosition( 0, 1 ) );
+        assertEquals( new LogPosition( 0, 16 ), index.transactionPosition( 0, 2 ) );
+        assertEquals( new LogPosition( 0, 16 ), index.transactionPosition( 0, 3 ) );
+        assertEquals( new LogPosition( 0, 16 + INDEX_INTERVAL_BYTES ), index.transactionPosition( 0, 4 ) );
+        assertEquals( new LogPosition( 0, 16 + INDEX_INTERVAL_BYTES ), index.transactionPosition( 0, 5 ) );
+        assertNull( index.transactionPosition( 1, 5 ) );
+    }
+
+    @Test
+    public void shouldPersistIndexOnCheckPoint()
+    {
+        // given
+        TransactionLogIndex index = newIndex();
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+
+        // when
+        index.checkPointAppended( new LogPosition( 0, 120 ), new LogPosition( 0, 100 ) );
+
+        // then
+        TransactionLogIndex reopened = newIndex();
+        IndexedCheckPoint checkPoint = reopened.lastCheckPoint( 0 );
+        assertEquals( new LogPosition( 0, 120 ), checkPoint.entryPosition );
+        assertEquals( new LogPosition( 0, 100 ), checkPoint.checkPointedPosition );
+        assertEquals( new LogPosition( 0, 16 ), reopened.transactionPosition( 0, 2 ) );
+    }
+
+    @Test
+    public void shouldPersistIndexOnRotation()
+    {
+        // given
+        TransactionLogIndex index = newIndex();
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+        assertFalse( fileSystemRule.fileExists( fileHelper.getLogIndexFileForVersion( 0 ) ) );
+
+        // when
+        index.rotated( 0 );
+
+        // then
+        assertTrue( fileSystemRule.fileExists( fileHelper.getLogIndexFileForVersion( 0 ) ) );
+        TransactionLogIndex reopened = newIndex();
+        assertEquals( new LogPosition( 0, 16 ), reopened.transactionPosition( 0, 7 ) );
+        assertNull( reopened.lastCheckPoint( 0 ) );
+    }
+
+    @Test
+    public void shouldContinueIndexOfVersionAfterRestart()
+    {
+        // given
+        TransactionLogIndex index = newIndex();
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+        index.checkPointAppended( new LogPosition( 0, 120 ), new LogPosition( 0, 100 ) );
+
+        // when
+        TransactionLogIndex reopened = newIndex();
+        reopened.transactionAppended( 9, new LogPosition( 0, 200 + INDEX_INTERVAL_BYTES ) );
+        reopened.rotated( 0 );
+
+        // then
+        TransactionLogIndex readBack = newIndex();
+        assertEquals( new LogPosition( 0, 16 ), readBack.transactionPosition( 0, 8 ) );
+        assertEquals( new LogPosition( 0, 200 + INDEX_INTERVAL_BYTES ), readBack.transactionPosition( 0, 9 ) );
+        assertEquals( new LogPosition( 0, 120 ), readBack.lastCheckPoint( 0 ).entryPosition );
+    }
+
+    @Test
+    public void shouldDeleteIndexOfVersion()
+    {
+        // given
+        TransactionLogIndex index = newIndex();
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+        index.rotated( 0 );
+        index.transactionAppended( 3, new LogPosition( 1, 16 ) );
+
+        // when
+        index.delete( 0 );
+        index.delete( 1 );
+
+        // then
+        assertFalse( fileSystemRule.fileExists( fileHelper.getLogIndexFileForVersion( 0 ) ) );
+        assertNull( index.transactionPosition( 0, 2 ) );
+        assertNull( index.transactionPosition( 1, 3 ) );
+    }
+
+    @Test
+    public void shouldIgnoreIndexFileOfOtherVersion() throws Exception
+    {
+        // given
+        TransactionLogIndex index = newIndex();
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+        index.rotated( 0 );
+
+        // when
+        File misplaced = fileHelper.getLogIndexFileForVersion( 1 );
+        fileSystemRule.copyFile( fileHelper.getLogIndexFileForVersion( 0 ), misplaced );
+
+        // then
+        assertNull( newIndex().transactionPosition( 1, 2 ) );
+    }
+
+    @Test
+    public void noIndexShouldFindNothing()
+    {
+        TransactionLogIndex index = TransactionLogIndex.NO_INDEX;
+        index.transactionAppended( 2, new LogPosition( 0, 16 ) );
+        index.checkPointAppended( new LogPosition( 0, 120 ), new LogPosition( 0, 100 ) );
+        index.rotated( 0 );
+        index.delete( 0 );
+
+        assertNull( index.transactionPosition( 0, 2 ) );
+        assertNull( index.lastCheckPoint( 0 ) );
+    }
+
+    private TransactionLogIndex newIndex()
+    {
+        return new TransactionLogIndex( fileSystemRule.get(), fileHelper );
+    }
+}
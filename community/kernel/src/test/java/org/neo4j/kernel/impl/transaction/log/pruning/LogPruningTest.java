@@ -41,6 +41,8 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -72,10 +74,11 @@ public class LogPruningTest
                 .thenReturn( upTo -> LongStream.range( 3, upTo ) );
         LogPruning pruning = new LogPruningImpl( fs, logFiles,logProvider,factory, clock, config );
         pruning.pruneLogs( 5 );
-        InOrder order = inOrder( fs );
-        order.verify( fs ).deleteFile( new File( "3" ) );
-        order.verify( fs ).deleteFile( new File( "4" ) );
+        InOrder order = inOrder( logFiles );
+        order.verify( logFiles ).deleteOrRecycleLogFile( 3 );
+        order.verify( logFiles ).deleteOrRecycleLogFile( 4 );
         // Log file 5 is not deleted; it's the lowest version expected to remain after pruning.
+        verify( logFiles, never() ).deleteOrRecycleLogFile( 5 );
         verifyNoMoreInteractions( fs );
     }
 
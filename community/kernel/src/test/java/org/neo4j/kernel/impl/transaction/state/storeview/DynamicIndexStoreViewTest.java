@@ -122,7 +122,7 @@ public class DynamicIndexStoreViewTest
 
         when( nodeStore.getHighestPossibleIdInUse() ).thenReturn( 200L );
         when( nodeStore.getHighId() ).thenReturn( 20L );
-        when( nodeStore.openPageCursorForReading( anyLong() ) ).thenReturn( mock( PageCursor.class ) );
+        when( nodeStore.openPageCursorForScanning( anyLong() ) ).thenReturn( mock( PageCursor.class ) );
 
         mockLabelNodeCount( countStore, 2 );
         mockLabelNodeCount( countStore, 6 );
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.stats;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.stats.LatencyHistogram.BUCKETS;
+import static org.neo4j.kernel.impl.transaction.stats.LatencyHistogram.bucket;
+import static org.neo4j.kernel.impl.transaction.stats.LatencyHistogram.highestValueOf;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void shouldReportZeroWhenEmpty()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals( 0, histogram.count() );
+        assertEquals( 0, histogram.meanNanos() );
+        assertEquals( 0, histogram.maxNanos() );
+        assertEquals( 0, histogram.percentileNanos( 99 ) );
+    }
+
+    @Test
+    public void shouldRecordSmallValuesExactly()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 10; i++ )
+        {
+            histogram.record( i );
+        }
+
+        assertEquals( 10, histogram.count() );
+        assertEquals( 5, histogram.meanNanos() );
+        assertEquals( 5, histogram.percentileNanos( 50 ) );
+        assertEquals( 9, histogram.percentileNanos( 90 ) );
+        assertEquals( 10, histogram.percentileNanos( 100 ) );
+        assertEquals( 10, histogram.maxNanos() );
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinRelativePrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            histogram.record( TimeUnit.MICROSECONDS.toNanos( i ) );
+        }
+
+        assertWithinPrecision( TimeUnit.MICROSECONDS.toNanos( 500 ), histogram.percentileNanos( 50 ) );
+        assertWithinPrecision( TimeUnit.MICROSECONDS.toNanos( 990 ), histogram.percentileNanos( 99 ) );
+        assertWithinPrecision( TimeUnit.MICROSECONDS.toNanos( 1000 ), histogram.maxNanos() );
+        assertEquals( 500, histogram.percentile( 50, TimeUnit.MICROSECONDS ), 500 / 32 );
+    }
+
+    @Test
+    public void shouldPutEveryValueInBucketThatCoversIt()
+    {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for ( long value : values )
+        {
+            int bucket = bucket( value );
+            assertTrue( bucket >= 0 && bucket < BUCKETS );
+            assertTrue( value <= highestValueOf( bucket ) );
+            assertTrue( bucket == 0 || value > highestValueOf( bucket - 1 ) );
+        }
+    }
+
+    @Test
+    public void shouldCountNegativeValuesAsZero()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( -5 );
+
+        assertEquals( 1, histogram.count() );
+        assertEquals( 0, histogram.maxNanos() );
+    }
+
+    private static void assertWithinPrecision( long expected, long actual )
+    {
+        assertTrue( "expected " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 32 );
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.util.collection.OffHeapBlockAllocator.MemoryBlock;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith( TestDirectoryExtension.class )
+class SpillingBlockAllocatorDecoratorTest
+{
+    @Inject
+    private TestDirectory testDirectory;
+
+    private final MemoryAllocationTracker tracker = new LocalMemoryTracker();
+    private final CachingOffHeapBlockAllocator allocator = new CachingOffHeapBlockAllocator();
+    private boolean prevAccessCheck;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        // Spilled blocks are mapped from files, rather than allocated through UnsafeUtil, so the access checks
+        // wouldn't know about them
+        prevAccessCheck = UnsafeUtil.exchangeNativeAccessCheckEnabled( false );
+    }
+
+    @AfterEach
+    void afterEach()
+    {
+        UnsafeUtil.exchangeNativeAccessCheckEnabled( prevAccessCheck );
+        allocator.release();
+        assertEquals( 0, tracker.usedDirectMemory(), "Native memory is leaking" );
+    }
+
+    @Test
+    void spillBlocksThatExceedMaxMemory()
+    {
+        final OffHeapBlockAllocator impl = mock( OffHeapBlockAllocator.class );
+        when( impl.allocate( anyLong(), any( MemoryAllocationTracker.class ) ) ).then( invocation ->
+        {
+            final long size = invocation.<Long>getArgument( 0 );
+            return new MemoryBlock( 0, size, 0, size );
+        } );
+        final SpillingBlockAllocatorDecorator decorator =
+                new SpillingBlockAllocatorDecorator( impl, 1024, testDirectory.directory( "spill" ) );
+
+        final MemoryBlock inMemory = decorator.allocate( 1024, tracker );
+        final MemoryBlock spilled = decorator.allocate( 128, tracker );
+
+        assertEquals( 128, decorator.spilledMemory() );
+        assertEquals( 128, spilled.size );
+        UnsafeUtil.putLong( spilled.addr + 120, 42 );
+        assertEquals( 42, UnsafeUtil.getLong( spilled.addr + 120 ) );
+
+        decorator.free( spilled, tracker );
+        assertEquals( 0, decorator.spilledMemory() );
+        verify( impl, never() ).free( spilled, tracker );
+
+        decorator.free( inMemory, tracker );
+        verify( impl ).free( inMemory, tracker );
+        decorator.free( decorator.allocate( 1024, tracker ), tracker );
+        assertEquals( 0, decorator.spilledMemory() );
+    }
+
+    @Test
+    void deleteSpillFiles()
+    {
+        final File spillDirectory = testDirectory.directory( "spill" );
+        final SpillingBlockAllocatorDecorator decorator = new SpillingBlockAllocatorDecorator( allocator, 1, spillDirectory );
+
+        final MemoryBlock spilled = decorator.allocate( 4096, tracker );
+        decorator.free( spilled, tracker );
+        decorator.release();
+
+        assertEquals( 0, decorator.spilledMemory() );
+        assertEquals( 0, spillDirectory.list().length );
+    }
+
+    @Test
+    void releaseSpilledBlocks()
+    {
+        final SpillingBlockAllocatorDecorator decorator =
+                new SpillingBlockAllocatorDecorator( allocator, 1, testDirectory.directory( "spill" ) );
+
+        // Released blocks are never freed, so they are never reported as deallocated either
+        final MemoryAllocationTracker releasedTracker = new LocalMemoryTracker();
+        decorator.allocate( 4096, releasedTracker );
+        decorator.allocate( 8192, releasedTracker );
+        assertEquals( 4096 + 8192, decorator.spilledMemory() );
+
+        decorator.release();
+        assertEquals( 0, decorator.spilledMemory() );
+        assertEquals( 0, decorator.segments() );
+    }
+
+    @Test
+    void carveSpilledBlocksOutOfSharedSegments()
+    {
+        final SpillingBlockAllocatorDecorator decorator =
+                new SpillingBlockAllocatorDecorator( allocator, 1, testDirectory.directory( "spill" ), 4096 );
+
+        final List<MemoryBlock> blocks = new ArrayList<>();
+        for ( int i = 0; i < 64; i++ )
+        {
+            blocks.add( decorator.allocate( 64, tracker ) );
+        }
+        assertEquals( 1, decorator.segments() );
+        blocks.forEach( block -> UnsafeUtil.putLong( block.addr, block.addr ) );
+        blocks.forEach( block -> assertEquals( block.addr, UnsafeUtil.getLong( block.addr ) ) );
+
+        // A full segment is not extended, but its freed blocks are reused
+        final MemoryBlock inSecondSegment = decorator.allocate( 64, tracker );
+        assertEquals( 2, decorator.segments() );
+        final MemoryBlock freed = blocks.remove( 7 );
+        decorator.free( freed, tracker );
+        final MemoryBlock reused = decorator.allocate( 64, tracker );
+        assertEquals( freed.addr, reused.addr );
+        blocks.add( reused );
+        assertEquals( 2, decorator.segments() );
+
+        // The segment is dropped once none of its blocks are in use, unless new blocks are carved out of it
+        blocks.forEach( block -> decorator.free( block, tracker ) );
+        assertEquals( 1, decorator.segments() );
+        decorator.free( inSecondSegment, tracker );
+        assertEquals( 1, decorator.segments() );
+        assertEquals( 0, decorator.spilledMemory() );
+        decorator.release();
+    }
+
+    @Test
+    void spillBlocksLargerThanASegmentToASegmentOfTheirOwn()
+    {
+        final SpillingBlockAllocatorDecorator decorator =
+                new SpillingBlockAllocatorDecorator( allocator, 1, testDirectory.directory( "spill" ), 4096 );
+
+        final MemoryBlock small = decorator.allocate( 64, tracker );
+        final MemoryBlock large = decorator.allocate( 10_000, tracker );
+        assertEquals( 2, decorator.segments() );
+        assertEquals( 64 + 16384, decorator.spilledMemory() );
+        UnsafeUtil.putLong( large.addr + 9_992, 42 );
+        assertEquals( 42, UnsafeUtil.getLong( large.addr + 9_992 ) );
+
+        decorator.free( large, tracker );
+        assertEquals( 1, decorator.segments() );
+        decorator.free( small, tracker );
+        decorator.release();
+    }
+
+    @Test
+    void reportSpilledBlocksToTheTracker()
+    {
+        final SpillingBlockAllocatorDecorator decorator =
+                new SpillingBlockAllocatorDecorator( allocator, 1, testDirectory.directory( "spill" ) );
+
+        final MemoryBlock spilled = decorator.allocate( 100, tracker );
+        assertEquals( 100, spilled.size );
+        assertEquals( 128, tracker.usedDirectMemory() );
+
+        decorator.free( spilled, tracker );
+        assertEquals( 0, tracker.usedDirectMemory() );
+        decorator.release();
+    }
+
+    @Test
+    void collectionsSpillTransparently()
+    {
+        final SpillingBlockAllocatorDecorator decorator =
+                new SpillingBlockAllocatorDecorator( allocator, 4096, testDirectory.directory( "spill" ) );
+        final OffHeapCollectionsFactory collectionsFactory = new OffHeapCollectionsFactory( decorator );
+
+        final MutableLongSet set = collectionsFactory.newLongSet();
+        for ( long i = 0; i < 100_000; i++ )
+        {
+            set.add( i * 3 );
+        }
+
+        assertTrue( decorator.spilledMemory() > 0 );
+        assertEquals( 100_000, set.size() );
+        assertTrue( set.contains( 299_997 ) );
+        assertFalse( set.contains( 299_998 ) );
+
+        collectionsFactory.release();
+        assertEquals( 0, decorator.spilledMemory() );
+        assertEquals( 0, collectionsFactory.getMemoryTracker().usedDirectMemory() );
+    }
+}
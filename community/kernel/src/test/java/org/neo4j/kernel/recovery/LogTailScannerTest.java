@@ -58,6 +58,8 @@ import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.recovery.LogTailScanner.NO_TRANSACTION_ID;
 
 @RunWith( Parameterized.class )
@@ -99,6 +101,7 @@ public class LogTailScannerTest
         logFiles = LogFilesBuilder
                 .activeFilesBuilder( testDirectory.databaseLayout(), fsRule, pageCacheRule.getPageCache( fsRule ) )
                 .withLogVersionRepository( logVersionRepository )
+                .withLogIndex( true )
                 .build();
         tailScanner = new LogTailScanner( logFiles, reader, monitors );
     }
@@ -446,6 +449,23 @@ public class LogTailScannerTest
         assertLatestCheckPoint( true, true, txId, startLogVersion, logTailInformation );
     }
 
+    @Test
+    public void shouldFindLatestCheckPointWhenIndexedCheckPointIsStale()
+    {
+        // given
+        long txId = 6;
+        setupLogFiles( logFile( start(), commit( txId ), checkPoint() ) );
+        LogPosition firstEntry = new LogPosition( endLogVersion, LOG_HEADER_SIZE );
+        logFiles.getLogIndex().checkPointAppended( firstEntry, firstEntry );
+
+        // when
+        LogTailInformation logTailInformation = tailScanner.getTailInformation();
+
+        // then
+        assertLatestCheckPoint( true, false, NO_TRANSACTION_ID, endLogVersion, logTailInformation );
+        assertNotEquals( firstEntry, logTailInformation.lastCheckPoint.getLogPosition() );
+    }
+
     // === Below is code for helping the tests above ===
 
     private void setupLogFiles( LogCreator... logFiles )
@@ -496,6 +516,7 @@ public class LogTailScannerTest
                             LogPosition logPosition = target != null ? positions.get( target ) : currentPosition;
                             assert logPosition != null : "No registered log position for " + target;
                             writer.writeCheckPointEntry( logPosition );
+                            logFiles.getLogIndex().checkPointAppended( currentPosition, logPosition );
                         }
                         else if ( entry instanceof PositionEntry )
                         {
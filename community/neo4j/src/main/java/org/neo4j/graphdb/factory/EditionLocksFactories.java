@@ -50,7 +50,7 @@ public final class EditionLocksFactories
             {
                 return candidate;
             }
-            else if ( "".equals( key ) )
+            else if ( "".equals( key ) && candidate.isDefault() )
             {
                 logging.getInternalLog( CommunityEditionModule.class )
                         .info( "No locking implementation specified, defaulting to '" + candidateId + "'" );
@@ -42,6 +42,8 @@ import org.neo4j.kernel.configuration.ConnectorPortRegister;
 import org.neo4j.kernel.extension.GlobalKernelExtensions;
 import org.neo4j.kernel.extension.KernelExtensionFactory;
 import org.neo4j.kernel.extension.KernelExtensionFailureStrategies;
+import org.neo4j.kernel.impl.api.CommitLatencyMonitor;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
 import org.neo4j.kernel.impl.api.LogRotationMonitor;
 import org.neo4j.kernel.impl.context.TransactionVersionContextSupplier;
 import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
@@ -52,6 +54,7 @@ import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
 import org.neo4j.kernel.impl.security.URLAccessRules;
 import org.neo4j.kernel.impl.spi.SimpleKernelContext;
+import org.neo4j.kernel.impl.transaction.log.LogForceBarrier;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerMonitor;
 import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
 import org.neo4j.kernel.impl.util.Dependencies;
@@ -60,6 +63,7 @@ import org.neo4j.kernel.impl.util.collection.CapacityLimitingBlockAllocatorDecor
 import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
 import org.neo4j.kernel.impl.util.collection.OffHeapBlockAllocator;
 import org.neo4j.kernel.impl.util.collection.OffHeapCollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.SpillingBlockAllocatorDecorator;
 import org.neo4j.kernel.info.JvmChecker;
 import org.neo4j.kernel.info.JvmMetadataRepository;
 import org.neo4j.kernel.info.SystemDiagnostics;
@@ -134,6 +138,8 @@ public class PlatformModule
 
     public final VersionContextSupplier versionContextSupplier;
 
+    public final LogForceBarrier logForceBarrier;
+
     public final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
 
     public final CollectionsFactorySupplier collectionsFactorySupplier;
@@ -194,6 +200,10 @@ public class PlatformModule
         dependencies.satisfyDependency( tracers.pageCacheTracer );
         dependencies.satisfyDependency( firstImplementor(
                 LogRotationMonitor.class, tracers.transactionTracer, LogRotationMonitor.NULL ) );
+        dependencies.satisfyDependency( firstImplementor(
+                LogForceMonitor.class, tracers.transactionTracer, LogForceMonitor.NULL ) );
+        dependencies.satisfyDependency( firstImplementor(
+                CommitLatencyMonitor.class, tracers.transactionTracer, CommitLatencyMonitor.NULL ) );
         dependencies.satisfyDependency( firstImplementor(
                 CheckPointerMonitor.class, tracers.checkPointTracer, CheckPointerMonitor.NULL ) );
 
@@ -202,6 +212,7 @@ public class PlatformModule
         collectionsFactorySupplier = createCollectionsFactorySupplier( config, life );
 
         dependencies.satisfyDependency( versionContextSupplier );
+        logForceBarrier = dependencies.satisfyDependency( new LogForceBarrier() );
         pageCache = dependencies.satisfyDependency( createPageCache( fileSystem, config, logging, tracers, versionContextSupplier, jobScheduler ) );
 
         life.add( new PageCacheLifecycle( pageCache ) );
@@ -337,7 +348,7 @@ public class PlatformModule
         Log pageCacheLog = logging.getInternalLog( PageCache.class );
         ConfiguringPageCacheFactory pageCacheFactory = new ConfiguringPageCacheFactory(
                 fileSystem, config, tracers.pageCacheTracer, tracers.pageCursorTracerSupplier, pageCacheLog,
-                versionContextSupplier, jobScheduler );
+                versionContextSupplier, jobScheduler, logForceBarrier );
         PageCache pageCache = pageCacheFactory.getOrCreatePageCache();
 
         if ( config.get( GraphDatabaseSettings.dump_configuration ) )
@@ -360,7 +371,12 @@ public class PlatformModule
                     config.get( tx_state_off_heap_block_cache_size ) );
             final OffHeapBlockAllocator sharedBlockAllocator;
             final long maxMemory = config.get( GraphDatabaseSettings.tx_state_max_off_heap_memory );
-            if ( maxMemory > 0 )
+            if ( maxMemory > 0 && config.get( GraphDatabaseSettings.tx_state_off_heap_spill_to_disk ) )
+            {
+                sharedBlockAllocator = new SpillingBlockAllocatorDecorator( allocator, maxMemory,
+                        config.get( GraphDatabaseSettings.tx_state_off_heap_spill_directory ) );
+            }
+            else if ( maxMemory > 0 )
             {
                 sharedBlockAllocator = new CapacityLimitingBlockAllocatorDecorator( allocator, maxMemory );
             }
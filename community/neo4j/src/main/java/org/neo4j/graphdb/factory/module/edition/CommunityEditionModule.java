@@ -111,7 +111,7 @@ public class CommunityEditionModule extends DefaultEditionModule
         File kernelContextDirectory = platformModule.storeLayout.storeDirectory();
         dependencies.satisfyDependency( createKernelData( fileSystem, pageCache, kernelContextDirectory, config, life, dataSourceManager ) );
 
-        commitProcessFactory = new CommunityCommitProcessFactory();
+        commitProcessFactory = new CommunityCommitProcessFactory( platformModule.jobScheduler );
 
         headerInformationFactory = createHeaderInformationFactory();
 